@@ -0,0 +1,13 @@
+-- Log versionado de alterações da whitelist/blacklist (sincronização entre nós)
+--
+-- Transacional: psql -v ON_ERROR_STOP=1 -1 -f db/002_list_change.sql
+
+CREATE TABLE list_change (
+  version BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  list_kind VARCHAR(10) NOT NULL CHECK (list_kind IN ('WHITELIST','BLACKLIST')),
+  entry_id UUID NOT NULL,
+  type VARCHAR(10) NOT NULL CHECK (type IN ('DOMAIN','URL')),
+  entry_value VARCHAR(2048) NOT NULL,
+  active BOOLEAN NOT NULL,
+  changed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,16 @@
+-- Formas normalizadas e impressões digitais de 64 bits (Fingerprint.of)
+-- As colunas nascem nulas; o FingerprintBackfillJob preenche as linhas
+-- existentes em lotes depois do start da aplicação. Os índices saem em
+-- 003_fingerprints_indexes.sql.
+--
+-- Transacional: psql -v ON_ERROR_STOP=1 -1 -f db/003_fingerprints.sql
+
+ALTER TABLE url_record ADD COLUMN url_hash BIGINT;
+
+ALTER TABLE whitelist_entry
+  ADD COLUMN normalized_value VARCHAR(2048),
+  ADD COLUMN value_hash BIGINT;
+
+ALTER TABLE blacklist_entry
+  ADD COLUMN normalized_value VARCHAR(2048),
+  ADD COLUMN value_hash BIGINT;
@@ -0,0 +1,9 @@
+-- Índices das impressões digitais de 003_fingerprints.sql.
+--
+-- Fora de transação (CREATE INDEX CONCURRENTLY não roda dentro de uma):
+-- psql -v ON_ERROR_STOP=1 -f db/003_fingerprints_indexes.sql
+-- Se um falhar no meio, fica INVALID: DROP INDEX CONCURRENTLY e rodar de novo.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_url_record_url_hash ON url_record (url_hash);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_whitelist_entry_value_hash ON whitelist_entry (value_hash);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_blacklist_entry_value_hash ON blacklist_entry (value_hash);
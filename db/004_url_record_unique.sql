@@ -0,0 +1,12 @@
+-- Uma linha por URL normalizada: o upsert em lote do VerdictWriteBehind
+-- usa ON CONFLICT (normalized_url). Duplicatas antigas da mesma URL (dois
+-- upserts concorrentes da mesma URL nova) ficam só com a vista por último;
+-- o índice único sai em 004_url_record_unique_index.sql, logo depois.
+--
+-- Transacional: psql -v ON_ERROR_STOP=1 -1 -f db/004_url_record_unique.sql
+
+DELETE FROM url_record r
+ USING url_record o
+ WHERE r.normalized_url = o.normalized_url
+   AND (COALESCE(r.last_seen_at, r.first_seen_at, '-infinity'), r.id)
+     < (COALESCE(o.last_seen_at, o.first_seen_at, '-infinity'), o.id);
@@ -0,0 +1,8 @@
+-- Chave única de url_record (alvo do ON CONFLICT do VerdictWriteBehind).
+-- Rodar depois de 004_url_record_unique.sql.
+--
+-- Fora de transação (CREATE INDEX CONCURRENTLY não roda dentro de uma):
+-- psql -v ON_ERROR_STOP=1 -f db/004_url_record_unique_index.sql
+-- Se falhar no meio, o índice fica INVALID: DROP INDEX CONCURRENTLY e rodar de novo.
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_url_record_normalized_url ON url_record (normalized_url);
@@ -0,0 +1,24 @@
+-- url_hash passa a ser obrigatório em url_record: as buscas vão só pelo
+-- índice de url_hash (idx_url_record_url_hash, não único), sem o desvio
+-- "url_hash IS NULL" para linhas antigas. A unicidade continua em
+-- normalized_url (004): URLs diferentes com o mesmo hash de 64 bits são
+-- linhas diferentes, e nada é apagado.
+--
+-- Rodar DEPOIS do FingerprintBackfillJob terminar (nenhum url_hash nulo);
+-- o bloco abaixo aborta se ainda faltar linha.
+--
+-- Transacional: psql -v ON_ERROR_STOP=1 -1 -f db/005_url_record_hash_not_null.sql
+
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM url_record WHERE url_hash IS NULL) THEN
+    RAISE EXCEPTION 'url_record ainda tem url_hash nulo: esperar o backfill';
+  END IF;
+END $$;
+
+-- NOT NULL sem varrer a tabela com lock exclusivo: o CHECK validado
+-- dispensa a varredura do SET NOT NULL
+ALTER TABLE url_record ADD CONSTRAINT url_record_url_hash_not_null CHECK (url_hash IS NOT NULL) NOT VALID;
+ALTER TABLE url_record VALIDATE CONSTRAINT url_record_url_hash_not_null;
+ALTER TABLE url_record ALTER COLUMN url_hash SET NOT NULL;
+ALTER TABLE url_record DROP CONSTRAINT url_record_url_hash_not_null;
@@ -0,0 +1,9 @@
+-- Paginação por cursor das listas (ListQueryService): ORDER BY created_at, id
+-- com "created_at >= x AND (created_at > x OR id > y)" começa o range scan
+-- aqui em vez de varrer a tabela.
+--
+-- Fora de transação (CREATE INDEX CONCURRENTLY não roda dentro de uma):
+-- psql -v ON_ERROR_STOP=1 -f db/006_list_entry_keyset.sql
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_whitelist_entry_created_id ON whitelist_entry (created_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_blacklist_entry_created_id ON blacklist_entry (created_at, id);
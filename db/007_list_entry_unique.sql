@@ -0,0 +1,27 @@
+-- Uma entrada por valor normalizado em cada lista: importação, POST e
+-- gravação atrasada (VerdictWriteBehind) conflitam na mesma chave
+-- (type, value_hash, normalized_value), a mesma forma que o índice em
+-- memória usa para casar. "http://x.com/A" e "http://x.com/a" são a mesma
+-- entrada, venham do mesmo feed, de feeds diferentes ou do POST.
+--
+-- Rodar DEPOIS do FingerprintBackfillJob (nenhum value_hash nulo). Não
+-- apaga nada: se já houver duplicatas, aborta; resolver à mão (desativar
+-- e remover a repetida) e rodar de novo. Para listá-las:
+--   SELECT type, normalized_value, array_agg(id ORDER BY created_at)
+--     FROM blacklist_entry GROUP BY type, value_hash, normalized_value
+--   HAVING count(*) > 1;   -- idem whitelist_entry
+-- O índice único sai em 007_list_entry_unique_index.sql.
+--
+-- Transacional: psql -v ON_ERROR_STOP=1 -1 -f db/007_list_entry_unique.sql
+
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM whitelist_entry WHERE value_hash IS NULL OR normalized_value IS NULL)
+     OR EXISTS (SELECT 1 FROM blacklist_entry WHERE value_hash IS NULL OR normalized_value IS NULL) THEN
+    RAISE EXCEPTION 'listas ainda têm value_hash/normalized_value nulo: esperar o backfill';
+  END IF;
+  IF EXISTS (SELECT 1 FROM whitelist_entry GROUP BY type, value_hash, normalized_value HAVING count(*) > 1)
+     OR EXISTS (SELECT 1 FROM blacklist_entry GROUP BY type, value_hash, normalized_value HAVING count(*) > 1) THEN
+    RAISE EXCEPTION 'listas têm valores normalizados repetidos: resolver antes (ver a consulta no cabeçalho)';
+  END IF;
+END $$;
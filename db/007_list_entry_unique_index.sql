@@ -0,0 +1,11 @@
+-- Chave única das listas (alvo do ON CONFLICT da importação em lote e da
+-- gravação atrasada). Rodar depois de 007_list_entry_unique.sql.
+--
+-- Fora de transação (CREATE INDEX CONCURRENTLY não roda dentro de uma):
+-- psql -v ON_ERROR_STOP=1 -f db/007_list_entry_unique_index.sql
+-- Se um falhar no meio, fica INVALID: DROP INDEX CONCURRENTLY e rodar de novo.
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_whitelist_entry_value_key
+  ON whitelist_entry (type, value_hash, normalized_value);
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_blacklist_entry_value_key
+  ON blacklist_entry (type, value_hash, normalized_value);
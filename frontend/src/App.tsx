@@ -11,7 +11,7 @@ import HistoryTable from "./components/history/HistoryTable";
 import RulesPanel from "./components/rules/RulesPanel";
 import ArchitecturePanel from "./components/architecture/ArchitecturePanel";
 
-const API_URL = `${API_BASE_URL}/api/v1/checks`;
+const API_URL = `${API_BASE_URL}/api/v1/checks?explain=true`;
 
 const App: React.FC = () => {
   const { theme, toggleTheme } = useTheme("dark");
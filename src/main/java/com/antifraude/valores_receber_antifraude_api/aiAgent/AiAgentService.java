@@ -1,11 +1,14 @@
 package com.antifraude.valores_receber_antifraude_api.aiAgent;
 
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Signal;
 import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.rules.Findings;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
 import com.antifraude.valores_receber_antifraude_api.core.threatintel.ThreatIntelService;
 import com.antifraude.valores_receber_antifraude_api.core.threatintel.ThreatIntelService.Reputation;
+import com.antifraude.valores_receber_antifraude_api.shared.jfr.CheckStageEvent;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -38,20 +41,28 @@ public class AiAgentService {
         public final Verdict verdict; // SUSPECT / LEGIT / UNKNOWN
         public final int score; // 0 a 100
         public final String source; // "IA" ou "THREAT_INTEL"
+        public final Findings findings;
+        // visões de findings, montadas só se forem lidas
         public final List<String> ruleHits;
         public final List<String> evidence;
+        // quanto do classify() foi ThreatIntel, quando a IA decidiu depois
+        long threatIntelNanos;
 
         public Result(
                 Verdict verdict,
                 int score,
                 String source,
-                List<String> ruleHits,
-                List<String> evidence) {
+                Findings findings) {
             this.verdict = verdict;
             this.score = score;
             this.source = source;
-            this.ruleHits = ruleHits;
-            this.evidence = evidence;
+            this.findings = findings;
+            this.ruleHits = findings.codesView();
+            this.evidence = findings.evidenceView();
+        }
+
+        public long threatIntelNanos() {
+            return threatIntelNanos;
         }
     }
 
@@ -61,39 +72,72 @@ public class AiAgentService {
      * 2) Se ThreatIntel não decidir, chama IA externa
      */
     public Result classify(String normalizedUrl, String domain, int rulesScoreBase) {
-        List<String> hits = new ArrayList<>();
-        List<String> evidence = new ArrayList<>();
-
-        // 1) Threat Intelligence
-        ThreatIntelService.Result ti = threatIntelService.check(normalizedUrl, domain);
-
-        if (ti != null) {
-            if (ti.getRuleHits() != null) {
-                hits.addAll(ti.getRuleHits());
-            }
-            if (ti.getEvidence() != null) {
-                evidence.addAll(ti.getEvidence());
-            }
+        return classify(UrlFeatures.of(normalizedUrl, domain), rulesScoreBase);
+    }
+
+    /**
+     * Mesmo pipeline, com as características da URL extraídas uma única vez
+     * pelo chamador.
+     */
+    public Result classify(UrlFeatures features, int rulesScoreBase) {
+        long start = System.nanoTime();
+        CheckStageEvent tiEvent = CheckStageEvent.start();
+        ThreatIntelStep ti = classifyByThreatIntel(features, rulesScoreBase);
+        CheckStageEvent.end(tiEvent, CheckStageEvent.THREAT_INTEL, features.host, ti.decision != null);
+        if (ti.decision != null) {
+            return ti.decision;
         }
+        long threatIntelNanos = System.nanoTime() - start;
+        CheckStageEvent aiEvent = CheckStageEvent.start();
+        Result r = classifyByAi(features, rulesScoreBase, ti);
+        CheckStageEvent.end(aiEvent, CheckStageEvent.AI, features.host, true);
+        r.threatIntelNanos = threatIntelNanos;
+        return r;
+    }
 
-        // Tenta decidir só com ThreatIntel (malicious muito claro ou clean muito claro)
-        Result tiDecision = decideByThreatIntel(ti, rulesScoreBase, hits, evidence);
-        if (tiDecision != null) {
-            return tiDecision;
+    /**
+     * Resultado do passo 1: a decisão do ThreatIntel ou, sem ela, as
+     * evidências que vão para a IA.
+     */
+    public static class ThreatIntelStep {
+        public final Result decision; // null = precisa da IA
+        public final Findings findings;
+
+        public ThreatIntelStep(Result decision, Findings findings) {
+            this.decision = decision;
+            this.findings = findings;
         }
+    }
+
+    /**
+     * Só o passo 1 (ThreatIntel), para quem quer responder antes da IA.
+     */
+    public ThreatIntelStep classifyByThreatIntel(UrlFeatures features, int rulesScoreBase) {
+        ThreatIntelService.Result ti = threatIntelService.check(features);
+        Findings findings = ti != null ? ti.getFindings().copy() : new Findings();
 
-        // 2) ThreatIntel foi inconclusivo → chama IA externa
+        // Tenta decidir só com ThreatIntel (malicious muito claro ou clean muito claro)
+        return new ThreatIntelStep(decideByThreatIntel(ti, rulesScoreBase, findings), findings);
+    }
+
+    /**
+     * Só o passo 2 (IA externa), depois de um passo 1 inconclusivo. Acrescenta
+     * as evidências da IA em {@code ti.findings}.
+     */
+    public Result classifyByAi(UrlFeatures features, int rulesScoreBase, ThreatIntelStep ti) {
+        // (o prompt é o único ponto que precisa das evidências em texto)
+        List<String> evidence = ti.findings.evidence();
         String evidenceSummary = evidence.isEmpty()
                 ? "Sem evidências fortes de Threat Intel."
                 : String.join(" | ", evidence);
 
         ExternalAiResponse aiResp = externalAiClient.classify(
-                normalizedUrl,
-                domain,
+                features.normalizedUrl,
+                features.host,
                 rulesScoreBase,
                 evidenceSummary);
 
-        return decideByAi(aiResp, rulesScoreBase, hits, evidence);
+        return decideByAi(aiResp, rulesScoreBase, ti.findings);
     }
 
     /**
@@ -102,43 +146,40 @@ public class AiAgentService {
     private Result decideByThreatIntel(
             ThreatIntelService.Result ti,
             int rulesScoreBase,
-            List<String> hits,
-            List<String> evidence) {
+            Findings findings) {
 
         if (ti == null || ti.getReputation() == null) {
             return null;
         }
 
         Reputation rep = ti.getReputation();
-        evidence.add("Threat Intel reputação: " + rep.name());
+        findings.add(Signal.TI_REPUTATION, rep);
 
         // Caso 1: reputação claramente maliciosa → SUSPECT direto
         if (rep == Reputation.MALICIOUS) {
             int score = Math.max(rulesScoreBase, 85);
-            hits.add("THREAT_INTEL_MALICIOUS");
+            findings.add(Signal.THREAT_INTEL_MALICIOUS);
             return new Result(
                     Verdict.SUSPECT,
                     score,
                     "THREAT_INTEL",
-                    hits,
-                    evidence);
+                    findings);
         }
 
         // Caso 2: reputação limpa e score de regras muito baixo → LEGIT
         if (rep == Reputation.CLEAN && rulesScoreBase <= 10) {
             int score = Math.min(rulesScoreBase, 15);
-            hits.add("THREAT_INTEL_CLEAN");
+            findings.add(Signal.THREAT_INTEL_CLEAN);
             return new Result(
                     Verdict.LEGIT,
                     score,
                     "THREAT_INTEL",
-                    hits,
-                    evidence);
+                    findings);
         }
 
         // Caso 3: UNKNOWN → apenas loga e deixa a IA decidir
         if (rep == Reputation.UNKNOWN) {
-            hits.add("THREAT_INTEL_UNKNOWN");
+            findings.add(Signal.THREAT_INTEL_UNKNOWN);
         }
 
         return null; // deixa para IA
@@ -150,18 +191,15 @@ public class AiAgentService {
     private Result decideByAi(
             ExternalAiResponse aiResp,
             int rulesScoreBase,
-            List<String> hits,
-            List<String> evidence) {
+            Findings findings) {
 
         if (aiResp == null) {
-            hits.add("IA_ERROR");
-            evidence.add("IA externa indisponível; mantendo UNKNOWN.");
+            findings.add(Signal.IA_ERROR);
             return new Result(
                     Verdict.UNKNOWN,
                     rulesScoreBase,
                     "IA",
-                    hits,
-                    evidence);
+                    findings);
         }
 
         Double risk = aiResp.getRiskScore();
@@ -175,40 +213,36 @@ public class AiAgentService {
         int finalScore = Math.max(rulesScoreBase, aiScore);
 
         if (explanation != null && !explanation.isBlank()) {
-            evidence.add("IA: " + explanation);
+            findings.add(Signal.IA_EXPLANATION, explanation);
         }
 
         // Caso SUSPECT: risco alto ou IA marcando phishing
         if (isPhishing || riskScore >= RISK_SUSPECT_THRESHOLD) {
-            hits.add("IA_PHISHING");
+            findings.add(Signal.IA_PHISHING);
             return new Result(
                     Verdict.SUSPECT,
                     Math.max(finalScore, 80),
                     "IA",
-                    hits,
-                    evidence);
+                    findings);
         }
 
         // Caso LEGIT: risco bem baixo e sem phishing
         if (!isPhishing && riskScore <= RISK_LEGIT_THRESHOLD) {
-            hits.add("IA_CLEAN");
+            findings.add(Signal.IA_CLEAN);
             return new Result(
                     Verdict.LEGIT,
                     Math.min(finalScore, 20),
                     "IA",
-                    hits,
-                    evidence);
+                    findings);
         }
 
         // Caso intermediário: IA não teve confiança suficiente → UNKNOWN
-        hits.add("IA_INCONCLUSIVE");
-        evidence.add("IA não teve confiança suficiente para classificação final.");
+        findings.add(Signal.IA_INCONCLUSIVE);
 
         return new Result(
                 Verdict.UNKNOWN,
                 finalScore,
                 "IA",
-                hits,
-                evidence);
+                findings);
     }
 }
@@ -0,0 +1,94 @@
+package com.antifraude.valores_receber_antifraude_api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executores das verificações: fan-out de lote e streaming, IA das
+ * verificações assíncronas e entrega dos callbacks, cada um no seu, para
+ * que uma rajada de um não segure os outros. Seguem
+ * {@code spring.threads.virtual.enabled}, como o Tomcat e o
+ * {@code @Scheduled}: com threads virtuais, uma por tarefa.
+ */
+@Configuration
+public class CheckExecutorConfig {
+
+    /**
+     * Threads que rodam regras e IA das URLs de um lote em paralelo. Quase
+     * todo o tempo é espera de rede (IA, ThreatIntel), por isso são mais
+     * threads que núcleos.
+     */
+    @Bean(name = "checkBatchExecutor", destroyMethod = "shutdown")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ExecutorService checkBatchExecutor(
+            @Value("${antifraude.check.batch.parallelism:64}") int parallelism) {
+        return Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().daemon().name("check-batch-", 0).factory());
+    }
+
+    /**
+     * Uma thread virtual por URL: a espera de rede não prende thread do
+     * sistema, então não há pool a dimensionar. O limite de concorrência
+     * fica com quem submete (500 itens por lote, {@code max-in-flight} no
+     * streaming) e com o pool de conexões do banco.
+     */
+    @Bean(name = "checkBatchExecutor", destroyMethod = "shutdown")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public ExecutorService virtualCheckBatchExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("check-batch-", 0).factory());
+    }
+
+    /**
+     * IA das verificações assíncronas. Fila limitada e sem política de
+     * espera: cheia, a submissão é recusada e a IA roda na própria
+     * requisição (ver {@code PendingChecks.start}).
+     */
+    @Bean(name = "checkAsyncExecutor", destroyMethod = "shutdown")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ExecutorService checkAsyncExecutor(
+            @Value("${antifraude.check.async.parallelism:64}") int parallelism,
+            @Value("${antifraude.check.async.queue-capacity:256}") int queueCapacity) {
+        return new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().daemon().name("check-async-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Uma thread virtual por verificação assíncrona; o limite é
+     * {@code antifraude.check.async.max-pending}.
+     */
+    @Bean(name = "checkAsyncExecutor", destroyMethod = "shutdown")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public ExecutorService virtualCheckAsyncExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("check-async-", 0).factory());
+    }
+
+    /**
+     * Novas tentativas de callback e entregas de verificações que
+     * terminaram enquanto o callback era registrado. Cada POST tem prazo
+     * ({@code callback-timeout-ms}), então poucas threads bastam.
+     */
+    @Bean(name = "checkCallbackExecutor", destroyMethod = "shutdown")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ExecutorService checkCallbackExecutor(
+            @Value("${antifraude.check.async.callback-threads:4}") int threads) {
+        return Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().daemon().name("check-callback-", 0).factory());
+    }
+
+    @Bean(name = "checkCallbackExecutor", destroyMethod = "shutdown")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public ExecutorService virtualCheckCallbackExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("check-callback-", 0).factory());
+    }
+}
@@ -0,0 +1,109 @@
+package com.antifraude.valores_receber_antifraude_api.config;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Diagnóstico de pinning com threads virtuais: quando uma thread virtual
+ * bloqueia dentro de um {@code synchronized} (ou de código nativo), ela
+ * não solta a thread do sistema que a carrega, e poucas dessas esperas ao
+ * mesmo tempo travam o modo virtual inteiro.
+ *
+ * Escuta o evento {@code jdk.VirtualThreadPinned} do JFR (em processo, sem
+ * gravar arquivo) para bloqueios acima de
+ * {@code antifraude.threads.virtual.pinned-threshold-ms}, conta todos na
+ * métrica {@code antifraude.threads.virtual.pinned} e loga a pilha uma vez
+ * por ponto de origem.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int STACK_DEPTH = 16;
+    private static final int MAX_LOGGED_ORIGINS = 256;
+
+    private final Duration threshold;
+    private final LongAdder pinned = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final Set<String> loggedOrigins = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(
+            @Value("${antifraude.threads.virtual.pinned-threshold-ms:20}") long thresholdMs) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinned.increment();
+        pinnedNanos.add(event.getDuration().toNanos());
+
+        String origin = describe(event.getStackTrace());
+        if (loggedOrigins.size() < MAX_LOGGED_ORIGINS && loggedOrigins.add(origin)) {
+            RecordedThread thread = event.getThread();
+            log.warn("Thread virtual {} presa à thread do sistema por {}ms (synchronized ou nativo):{}",
+                    thread != null ? thread.getJavaName() : "?", event.getDuration().toMillis(), origin);
+        }
+    }
+
+    private static String describe(RecordedStackTrace stack) {
+        if (stack == null) {
+            return " (sem pilha)";
+        }
+        StringBuilder sb = new StringBuilder();
+        List<RecordedFrame> frames = stack.getFrames();
+        for (int i = 0; i < Math.min(frames.size(), STACK_DEPTH); i++) {
+            RecordedFrame f = frames.get(i);
+            sb.append("\n\tat ").append(f.getMethod().getType().getName())
+                    .append('.').append(f.getMethod().getName())
+                    .append(':').append(f.getLineNumber());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("antifraude.threads.virtual.pinned", this,
+                m -> m.pinned.sum(), m -> m.pinnedNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Bloqueios de thread virtual presa à thread do sistema acima do limiar")
+                .register(registry);
+    }
+}
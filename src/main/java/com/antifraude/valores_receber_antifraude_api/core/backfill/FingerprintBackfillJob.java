@@ -0,0 +1,104 @@
+package com.antifraude.valores_receber_antifraude_api.core.backfill;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Fingerprint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Preenche, em segundo plano, as colunas derivadas das linhas gravadas
+ * antes delas existirem: {@code url_record.url_hash} e
+ * {@code normalized_value}/{@code value_hash} das listas.
+ *
+ * O hash é calculado em Java ({@link Fingerprint}), então não dá para
+ * fazer com um único UPDATE. Anda em lotes pequenos, cada um no seu
+ * próprio commit, até não sobrar linha com hash nulo. O
+ * {@code db/005_url_record_hash_not_null.sql} (url_hash obrigatório em
+ * url_record) só roda depois que ele termina.
+ */
+@Component
+public class FingerprintBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(FingerprintBackfillJob.class);
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public FingerprintBackfillJob(JdbcTemplate jdbcTemplate,
+            @Value("${antifraude.backfill.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofPlatform().daemon().name("fingerprint-backfill").start(() -> {
+            try {
+                long urls = backfillUrlRecords();
+                long white = backfillListEntries("whitelist_entry");
+                long black = backfillListEntries("blacklist_entry");
+                if (urls + white + black > 0) {
+                    log.info("Backfill de fingerprints: url_record={}, whitelist={}, blacklist={}",
+                            urls, white, black);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Backfill de fingerprints interrompido; continua no próximo start", e);
+            }
+        });
+    }
+
+    long backfillUrlRecords() {
+        long total = 0;
+        while (true) {
+            List<Object[]> updates = new ArrayList<>(BATCH_SIZE);
+            jdbcTemplate.query(
+                    "SELECT id, normalized_url FROM url_record WHERE url_hash IS NULL LIMIT " + BATCH_SIZE,
+                    rs -> {
+                        updates.add(new Object[] {
+                                Fingerprint.of(rs.getString("normalized_url")), rs.getObject("id", UUID.class) });
+                    });
+            if (updates.isEmpty()) {
+                return total;
+            }
+            jdbcTemplate.batchUpdate("UPDATE url_record SET url_hash = ? WHERE id = ?", updates);
+            total += updates.size();
+        }
+    }
+
+    long backfillListEntries(String table) {
+        long total = 0;
+        while (true) {
+            List<Object[]> updates = new ArrayList<>(BATCH_SIZE);
+            jdbcTemplate.query(
+                    "SELECT id, type, entry_value FROM " + table + " WHERE value_hash IS NULL LIMIT " + BATCH_SIZE,
+                    rs -> {
+                        String normalized = ListEntry.normalizedValueOf(
+                                ListEntryType.valueOf(rs.getString("type")), rs.getString("entry_value"));
+                        updates.add(new Object[] {
+                                normalized, Fingerprint.of(normalized), rs.getObject("id", UUID.class) });
+                    });
+            if (updates.isEmpty()) {
+                return total;
+            }
+            jdbcTemplate.batchUpdate(
+                    "UPDATE " + table + " SET normalized_value = ?, value_hash = ? WHERE id = ?", updates);
+            total += updates.size();
+        }
+    }
+}
@@ -4,13 +4,20 @@ import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 
 import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Fingerprint;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "blacklist_entry")
-public class BlacklistEntry {
+@Table(name = "blacklist_entry", indexes = {
+        // paginação por cursor: ORDER BY created_at, id (db/006)
+        @Index(name = "idx_blacklist_entry_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_blacklist_entry_value_hash", columnList = "value_hash"),
+        // uma entrada por valor normalizado: alvo do ON CONFLICT da importação (db/007)
+        @Index(name = "idx_blacklist_entry_value_key", columnList = "type, value_hash, normalized_value", unique = true)
+})
+public class BlacklistEntry implements ListEntry {
 
     @Id
     @GeneratedValue
@@ -23,6 +30,11 @@ public class BlacklistEntry {
     @Column(name = "entry_value", nullable = false, length = 2048)
     private String value;
 
+    @Column(length = 2048)
+    private String normalizedValue;
+
+    private Long valueHash;
+
     @Column(nullable = false)
     private boolean active = true;
 
@@ -31,12 +43,21 @@ public class BlacklistEntry {
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    @PrePersist
+    @PreUpdate
+    void computeKeys() {
+        normalizedValue = ListEntry.normalizedValueOf(type, value);
+        valueHash = Fingerprint.of(normalizedValue);
+    }
+
     // GETTERS & SETTERS
 
+    @Override
     public UUID getId() {
         return id;
     }
 
+    @Override
     public ListEntryType getType() {
         return type;
     }
@@ -45,6 +66,7 @@ public class BlacklistEntry {
         this.type = type;
     }
 
+    @Override
     public String getValue() {
         return value;
     }
@@ -53,6 +75,17 @@ public class BlacklistEntry {
         this.value = value;
     }
 
+    @Override
+    public String getNormalizedValue() {
+        return normalizedValue;
+    }
+
+    @Override
+    public Long getValueHash() {
+        return valueHash;
+    }
+
+    @Override
     public boolean isActive() {
         return active;
     }
@@ -61,6 +94,7 @@ public class BlacklistEntry {
         this.active = active;
     }
 
+    @Override
     public String getReason() {
         return reason;
     }
@@ -69,6 +103,7 @@ public class BlacklistEntry {
         this.reason = reason;
     }
 
+    @Override
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
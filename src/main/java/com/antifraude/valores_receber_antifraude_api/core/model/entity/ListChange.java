@@ -0,0 +1,82 @@
+package com.antifraude.valores_receber_antifraude_api.core.model.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Log de alterações das listas, com versão monotônica.
+ * Cada linha é o estado completo da entrada depois da alteração, então
+ * reaplicar uma mudança é idempotente.
+ */
+@Entity
+@Table(name = "list_change")
+public class ListChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "list_kind", nullable = false)
+    private ListKind kind; // WHITELIST | BLACKLIST
+
+    @Column(nullable = false)
+    private UUID entryId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ListEntryType type;
+
+    @Column(name = "entry_value", nullable = false, length = 2048)
+    private String value;
+
+    @Column(nullable = false)
+    private boolean active;
+
+    @CreationTimestamp
+    private LocalDateTime changedAt;
+
+    public static ListChange of(ListKind kind, ListEntry entry) {
+        ListChange c = new ListChange();
+        c.kind = kind;
+        c.entryId = entry.getId();
+        c.type = entry.getType();
+        c.value = entry.getValue();
+        c.active = entry.isActive();
+        return c;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public ListKind getKind() {
+        return kind;
+    }
+
+    public UUID getEntryId() {
+        return entryId;
+    }
+
+    public ListEntryType getType() {
+        return type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,70 @@
+package com.antifraude.valores_receber_antifraude_api.core.model.entity;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlNormalizer;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Visão comum de {@link WhitelistEntry} e {@link BlacklistEntry}
+ * (as duas tabelas têm exatamente as mesmas colunas).
+ */
+public interface ListEntry {
+
+    UUID getId();
+
+    ListEntryType getType();
+
+    String getValue();
+
+    /**
+     * Forma canônica do valor, gravada em {@code normalized_value}.
+     * Pode ser null em linhas antigas ainda não preenchidas pelo backfill.
+     */
+    String getNormalizedValue();
+
+    /**
+     * {@link com.antifraude.valores_receber_antifraude_api.shared.util.Fingerprint}
+     * de {@link #getNormalizedValue()}.
+     */
+    Long getValueHash();
+
+    boolean isActive();
+
+    String getReason();
+
+    LocalDateTime getCreatedAt();
+
+    /**
+     * Valor como é gravado em {@code entry_value}, igual no POST e na
+     * importação em lote. URL: forma normalizada (sem query/fragment);
+     * entradas sem host dão null. DOMAIN: minúsculas, preservando o
+     * prefixo "*.".
+     *
+     * @return null se o valor for inválido para o tipo
+     */
+    static String canonicalValueOf(ListEntryType type, String rawValue) {
+        String v = rawValue.trim();
+        if (v.isEmpty()) {
+            return null;
+        }
+        if (type == ListEntryType.URL) {
+            UrlNormalizer.Result n = UrlNormalizer.normalize(v);
+            return n.domain.isEmpty() ? null : n.normalizedUrl;
+        }
+        return v.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * URL: normalizada e em minúsculas. DOMAIN: em minúsculas, preservando
+     * o prefixo "*." de curinga.
+     */
+    static String normalizedValueOf(ListEntryType type, String value) {
+        if (type == ListEntryType.URL) {
+            return UrlNormalizer.normalize(value.trim()).normalizedUrl.toLowerCase(Locale.ROOT);
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -4,11 +4,19 @@ import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 
 import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Fingerprint;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+@Table(name = "url_record", indexes = {
+        // busca por impressão digital de 8 bytes em vez do VARCHAR(2048);
+        // não é única: duas URLs com o mesmo hash convivem
+        @Index(name = "idx_url_record_url_hash", columnList = "url_hash"),
+        // chave da URL e alvo do ON CONFLICT do upsert em lote (VerdictWriteBehind)
+        @Index(name = "idx_url_record_normalized_url", columnList = "normalized_url", unique = true)
+})
 public class UrlRecord {
 
     @Id
@@ -18,6 +26,9 @@ public class UrlRecord {
     @Column(nullable = false, length = 2048)
     private String normalizedUrl;
 
+    @Column(nullable = false)
+    private Long urlHash; // Fingerprint de normalizedUrl
+
     @Column(nullable = false)
     private String domain;
 
@@ -31,6 +42,12 @@ public class UrlRecord {
 
     private Integer lastScore;
 
+    @PrePersist
+    @PreUpdate
+    void computeUrlHash() {
+        urlHash = Fingerprint.of(normalizedUrl);
+    }
+
     public UUID getId() {
         return id;
     }
@@ -43,6 +60,10 @@ public class UrlRecord {
         this.normalizedUrl = normalizedUrl;
     }
 
+    public Long getUrlHash() {
+        return urlHash;
+    }
+
     public String getDomain() {
         return domain;
     }
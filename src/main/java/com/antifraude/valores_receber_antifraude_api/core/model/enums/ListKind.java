@@ -0,0 +1,6 @@
+package com.antifraude.valores_receber_antifraude_api.core.model.enums;
+
+public enum ListKind {
+    WHITELIST,
+    BLACKLIST
+}
@@ -0,0 +1,67 @@
+package com.antifraude.valores_receber_antifraude_api.core.model.enums;
+
+/**
+ * Sinais fixos do pipeline (listas, histórico, ThreatIntel e IA), com o
+ * texto de evidência de cada um. As regras do arquivo do RulesEngine têm
+ * códigos próprios e não entram aqui.
+ *
+ * A ordem das constantes é a ordem em que códigos e evidências aparecem na
+ * resposta. Sinais com {@code code == false} só contribuem evidência; nos
+ * que recebem um detalhe (valor da lista, explicação da IA...) o texto é o
+ * prefixo do detalhe.
+ */
+public enum Signal {
+
+    // listas e histórico
+    WHITELIST_HIT(true, "Whitelist: "),
+    BLACKLIST_HIT(true, "Blacklist: "),
+    // host que se lê como um domínio da whitelist (detalhe: valor cadastrado)
+    WHITELIST_HOMOGRAPH(true, "Domínio com caracteres parecidos imitando item da whitelist (possível golpe): "),
+    CACHE_HIT(true, "Registro prévio no banco"),
+
+    // ThreatIntel: VirusTotal
+    VT_MALICIOUS(true, "VirusTotal (stub): "),
+    VT_SUSPICIOUS(true, "VirusTotal (stub): "),
+    VT_CLEAN(true, "VirusTotal (stub): "),
+
+    // ThreatIntel: heurísticas locais
+    THREAT_INTEL_VALORES_A_RECEBER(true,
+            "Combinação de termos de órgão/banco com 'valores a receber' em domínio não oficial."),
+    // homógrafo IDN/confundíveis de domínio oficial (detalhe: host e domínio)
+    THREAT_INTEL_HOMOGRAPH(true, "Domínio com caracteres parecidos com domínio oficial (possível golpe): "),
+    // imitação de marca (detalhe: marca, label e distância)
+    THREAT_INTEL_TYPO_CAIXA(true, "Domínio parecido com Caixa, mas não é o oficial (possível golpe): "),
+    THREAT_INTEL_TYPO_RECEITA(true, "Domínio parecido com Receita Federal, mas não é o oficial (possível golpe): "),
+    THREAT_INTEL_TYPO_WHATSAPP(true, "Domínio parecido com WhatsApp escrito incorretamente (possível golpe): "),
+    THREAT_INTEL_TYPO_BRAND(true, "Domínio parecido com marca protegida, mas não é o oficial (possível golpe): "),
+    THREAT_INTEL_SUSPICIOUS_PATTERN(true, "Padrões típicos de golpe: IRPF, secure-auth, encurtadores falsos, etc."),
+    THREAT_INTEL_LOCAL_CLEAN(true, "Heurística local: domínio considerado confiável."),
+    THREAT_INTEL_UNKNOWN(true, "Nem VirusTotal (stub) nem heurísticas locais deram um sinal forte."),
+
+    // IA: decisão pelo ThreatIntel
+    TI_REPUTATION(false, "Threat Intel reputação: "),
+    THREAT_INTEL_MALICIOUS(true, null),
+    THREAT_INTEL_CLEAN(true, null),
+
+    // IA externa
+    IA_ERROR(true, "IA externa indisponível; mantendo UNKNOWN."),
+    IA_EXPLANATION(false, "IA: "),
+    IA_PHISHING(true, null),
+    IA_CLEAN(true, null),
+    IA_INCONCLUSIVE(true, "IA não teve confiança suficiente para classificação final.");
+
+    public final boolean code;
+    public final String evidence; // null = sem evidência
+
+    Signal(boolean code, String evidence) {
+        this.code = code;
+        this.evidence = evidence;
+    }
+
+    /**
+     * Texto da evidência, com o detalhe (se houver) depois do prefixo.
+     */
+    public String evidence(Object detail) {
+        return detail == null ? evidence : evidence + detail;
+    }
+}
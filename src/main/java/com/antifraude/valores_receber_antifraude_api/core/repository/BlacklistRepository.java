@@ -1,12 +1,13 @@
 package com.antifraude.valores_receber_antifraude_api.core.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import com.antifraude.valores_receber_antifraude_api.core.model.entity.BlacklistEntry;
 
 import java.util.List;
 import java.util.UUID;
 
-public interface BlacklistRepository extends JpaRepository<BlacklistEntry, UUID> {
+public interface BlacklistRepository extends JpaRepository<BlacklistEntry, UUID>, JpaSpecificationExecutor<BlacklistEntry> {
     List<BlacklistEntry> findByActiveTrue();
 }
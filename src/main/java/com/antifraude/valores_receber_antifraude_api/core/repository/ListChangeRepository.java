@@ -0,0 +1,16 @@
+package com.antifraude.valores_receber_antifraude_api.core.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListChange;
+
+import java.util.List;
+
+public interface ListChangeRepository extends JpaRepository<ListChange, Long> {
+    List<ListChange> findByVersionGreaterThanOrderByVersionAsc(long version, Limit limit);
+
+    @Query("select coalesce(max(c.version), 0) from ListChange c")
+    long findMaxVersion();
+}
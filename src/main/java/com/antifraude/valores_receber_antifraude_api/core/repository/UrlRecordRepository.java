@@ -1,12 +1,49 @@
 package com.antifraude.valores_receber_antifraude_api.core.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.antifraude.valores_receber_antifraude_api.core.model.entity.UrlRecord;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Fingerprint;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UrlRecordRepository extends JpaRepository<UrlRecord, UUID> {
-    Optional<UrlRecord> findByNormalizedUrl(String normalizedUrl);
+
+    /**
+     * Busca pelo índice de url_hash; o texto completo desempata colisão
+     * (linha de outra URL com o mesmo hash não volta).
+     */
+    @Query("select r from UrlRecord r where r.urlHash = :urlHash and r.normalizedUrl = :normalizedUrl")
+    Optional<UrlRecord> findByUrlHashAndNormalizedUrl(@Param("urlHash") long urlHash,
+            @Param("normalizedUrl") String normalizedUrl);
+
+    default Optional<UrlRecord> findByNormalizedUrl(String normalizedUrl) {
+        return findByUrlHashAndNormalizedUrl(Fingerprint.of(normalizedUrl), normalizedUrl);
+    }
+
+    List<UrlRecord> findByUrlHashIn(Collection<Long> urlHashes);
+
+    /**
+     * Registros de várias URLs numa consulta (verificação em lote). Só o
+     * hash vai para o banco; a URL é conferida aqui, na volta.
+     */
+    default List<UrlRecord> findAllByNormalizedUrl(Collection<String> normalizedUrls) {
+        List<Long> hashes = new ArrayList<>(normalizedUrls.size());
+        for (String url : normalizedUrls) {
+            hashes.add(Fingerprint.of(url));
+        }
+        List<UrlRecord> found = new ArrayList<>(normalizedUrls.size());
+        for (UrlRecord r : findByUrlHashIn(hashes)) {
+            if (normalizedUrls.contains(r.getNormalizedUrl())) {
+                found.add(r);
+            }
+        }
+        return found;
+    }
 }
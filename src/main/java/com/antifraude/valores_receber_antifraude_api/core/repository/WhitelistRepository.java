@@ -1,12 +1,13 @@
 package com.antifraude.valores_receber_antifraude_api.core.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import com.antifraude.valores_receber_antifraude_api.core.model.entity.WhitelistEntry;
 
 import java.util.List;
 import java.util.UUID;
 
-public interface WhitelistRepository extends JpaRepository<WhitelistEntry, UUID> {
+public interface WhitelistRepository extends JpaRepository<WhitelistEntry, UUID>, JpaSpecificationExecutor<WhitelistEntry> {
     List<WhitelistEntry> findByActiveTrue();
 }
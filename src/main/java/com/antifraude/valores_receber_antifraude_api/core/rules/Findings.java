@@ -0,0 +1,239 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Signal;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Códigos e evidências de uma verificação, guardados como máscaras de bits:
+ * as regras do {@link RuleSet} que dispararam e os {@link Signal}s do
+ * pipeline. Os textos só são montados quando alguém lê
+ * ({@link #codes()}, {@link #evidence()}); na maior parte das verificações
+ * (listas, cache, clientes que não pedem explicação) as evidências nunca
+ * viram string.
+ *
+ * Detalhes variáveis (valor da lista, resposta do VirusTotal, explicação
+ * da IA) ficam como referência e só são concatenados na leitura. Códigos e
+ * evidências avulsos ({@link #addHit(String)}, {@link #addEvidence(String)})
+ * vão para o fim.
+ *
+ * Não é thread-safe: cada verificação monta a sua.
+ */
+public final class Findings {
+
+    private static final Signal[] SIGNALS = Signal.values();
+
+    private RuleSet rules;
+    private long fired;
+    private long signals;
+    private Object[] details; // por ordinal de Signal; só existe com algum detalhe
+    private List<String> otherCodes;
+    private List<String> otherEvidence;
+    private int version;
+
+    public Findings() {
+    }
+
+    public static Findings of(Signal signal) {
+        return new Findings().add(signal);
+    }
+
+    public static Findings of(Signal signal, Object detail) {
+        return new Findings().add(signal, detail);
+    }
+
+    /**
+     * Regras de {@code rules} marcadas em {@code fired} (ver {@link RuleSet#match}).
+     */
+    public static Findings rules(RuleSet rules, long fired) {
+        Findings f = new Findings();
+        f.rules = rules;
+        f.fired = fired;
+        return f;
+    }
+
+    public Findings copy() {
+        Findings f = new Findings();
+        f.rules = rules;
+        f.fired = fired;
+        f.signals = signals;
+        f.details = details == null ? null : details.clone();
+        f.otherCodes = otherCodes == null ? null : new ArrayList<>(otherCodes);
+        f.otherEvidence = otherEvidence == null ? null : new ArrayList<>(otherEvidence);
+        return f;
+    }
+
+    /**
+     * Acrescenta tudo o que está em {@code other} (por exemplo, regras e
+     * ThreatIntel num veredito provisório). Regras só se juntam quando vêm
+     * do mesmo {@link RuleSet} ou quando esta ainda não tem nenhum.
+     */
+    public Findings merge(Findings other) {
+        if (other.rules != null && (rules == null || rules == other.rules)) {
+            rules = other.rules;
+            fired |= other.fired;
+        }
+        signals |= other.signals;
+        if (other.details != null) {
+            if (details == null) {
+                details = new Object[SIGNALS.length];
+            }
+            for (int i = 0; i < other.details.length; i++) {
+                if (other.details[i] != null) {
+                    details[i] = other.details[i];
+                }
+            }
+        }
+        if (other.otherCodes != null) {
+            if (otherCodes == null) {
+                otherCodes = new ArrayList<>(other.otherCodes.size());
+            }
+            otherCodes.addAll(other.otherCodes);
+        }
+        if (other.otherEvidence != null) {
+            if (otherEvidence == null) {
+                otherEvidence = new ArrayList<>(other.otherEvidence.size());
+            }
+            otherEvidence.addAll(other.otherEvidence);
+        }
+        version++;
+        return this;
+    }
+
+    public Findings add(Signal signal) {
+        signals |= 1L << signal.ordinal();
+        version++;
+        return this;
+    }
+
+    public Findings add(Signal signal, Object detail) {
+        if (detail != null) {
+            if (details == null) {
+                details = new Object[SIGNALS.length];
+            }
+            details[signal.ordinal()] = detail;
+        }
+        return add(signal);
+    }
+
+    /**
+     * Código avulso; se for o nome de um {@link Signal}, marca o sinal.
+     */
+    public Findings addHit(String code) {
+        for (Signal s : SIGNALS) {
+            if (s.code && s.name().equals(code)) {
+                return add(s);
+            }
+        }
+        if (otherCodes == null) {
+            otherCodes = new ArrayList<>(2);
+        }
+        otherCodes.add(code);
+        version++;
+        return this;
+    }
+
+    public Findings addEvidence(String evidence) {
+        if (otherEvidence == null) {
+            otherEvidence = new ArrayList<>(2);
+        }
+        otherEvidence.add(evidence);
+        version++;
+        return this;
+    }
+
+    public boolean has(Signal signal) {
+        return (signals & (1L << signal.ordinal())) != 0;
+    }
+
+    public boolean isEmpty() {
+        return fired == 0 && signals == 0 && otherCodes == null && otherEvidence == null;
+    }
+
+    /**
+     * Códigos: regras na ordem do arquivo, depois os sinais.
+     */
+    public List<String> codes() {
+        List<String> out = new ArrayList<>(Long.bitCount(fired) + Long.bitCount(signals)
+                + (otherCodes == null ? 0 : otherCodes.size()));
+        for (long bits = fired; bits != 0; bits &= bits - 1) {
+            out.add(rules.code(Long.numberOfTrailingZeros(bits)));
+        }
+        for (long bits = signals; bits != 0; bits &= bits - 1) {
+            Signal s = SIGNALS[Long.numberOfTrailingZeros(bits)];
+            if (s.code) {
+                out.add(s.name());
+            }
+        }
+        if (otherCodes != null) {
+            out.addAll(otherCodes);
+        }
+        return out;
+    }
+
+    public List<String> evidence() {
+        List<String> out = new ArrayList<>(Long.bitCount(fired) + Long.bitCount(signals)
+                + (otherEvidence == null ? 0 : otherEvidence.size()));
+        for (long bits = fired; bits != 0; bits &= bits - 1) {
+            out.add(rules.evidence(Long.numberOfTrailingZeros(bits)));
+        }
+        for (long bits = signals; bits != 0; bits &= bits - 1) {
+            int i = Long.numberOfTrailingZeros(bits);
+            if (SIGNALS[i].evidence != null) {
+                out.add(SIGNALS[i].evidence(details == null ? null : details[i]));
+            }
+        }
+        if (otherEvidence != null) {
+            out.addAll(otherEvidence);
+        }
+        return out;
+    }
+
+    /**
+     * Visão somente leitura de {@link #codes()}, montada no primeiro acesso
+     * (e de novo se houver alterações depois).
+     */
+    public List<String> codesView() {
+        return new View(false);
+    }
+
+    public List<String> evidenceView() {
+        return new View(true);
+    }
+
+    @Override
+    public String toString() {
+        return "Findings" + codes();
+    }
+
+    private final class View extends AbstractList<String> {
+
+        private final boolean evidence;
+        private List<String> rendered;
+        private int renderedAt;
+
+        View(boolean evidence) {
+            this.evidence = evidence;
+        }
+
+        private List<String> rendered() {
+            if (rendered == null || renderedAt != version) {
+                rendered = evidence ? evidence() : codes();
+                renderedAt = version;
+            }
+            return rendered;
+        }
+
+        @Override
+        public String get(int index) {
+            return rendered().get(index);
+        }
+
+        @Override
+        public int size() {
+            return rendered().size();
+        }
+    }
+}
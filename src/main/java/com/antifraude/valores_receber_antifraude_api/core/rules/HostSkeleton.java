@@ -0,0 +1,131 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import java.net.IDN;
+import java.text.Normalizer;
+
+/**
+ * Esqueleto de confundíveis de um host (UTS #39, "skeleton"): labels
+ * {@code xn--} são decodificados do punycode e cada caractere passa por
+ * uma tabela pré-calculada que leva letras parecidas para a mesma letra
+ * latina. "xn--ixa-..." (caixa com "а" cirílico), "cαixa" e "caixa" têm o
+ * mesmo esqueleto, "caixa".
+ *
+ * A tabela cobre só os mapeamentos de um caractere para um caractere do
+ * confusables.txt que caem em letras/dígitos ASCII (cirílico, grego,
+ * armênio, latim estendido, formas de largura total) e, além do UTS #39,
+ * tira os diacríticos (em host isso só aparece via IDN). Sequências
+ * ("rn" x "m") ficam de fora: a distância de edição do
+ * {@link com.antifraude.valores_receber_antifraude_api.core.threatintel.BrandIndex}
+ * já pega esses casos.
+ *
+ * Host ASCII sem dígito confundível é devolvido sem cópia.
+ */
+public final class HostSkeleton {
+
+    private static final char DROP = '\uffff';
+
+    // caractere -> caractere do esqueleto; DROP = remover (marca combinante)
+    private static final char[] MAP = new char[0x10000];
+
+    // pares (origem, destino) do confusables.txt
+    private static final String CONFUSABLES =
+            // dígitos (o host já está em minúsculas)
+            "0o" + "1l"
+            // cirílico
+            + "аa" + "ьb" + "сc" + "ԁd" + "еe" + "һh" + "іi" + "ӏl" + "јj" + "оo" + "рp" + "ԛq"
+            + "ѕs" + "ԝw" + "хx" + "уy" + "ѵv"
+            // grego
+            + "αa" + "ϲc" + "ιi" + "ϳj" + "νv" + "οo" + "ρp" + "γy"
+            // armênio
+            + "հh" + "ոn" + "օo" + "սu" + "ցg" + "զq"
+            // latim estendido / IPA
+            + "ıi" + "ȷj" + "ɑa" + "ɡg" + "ɩi" + "ǀl";
+
+    static {
+        for (int c = 0; c < MAP.length; c++) {
+            MAP[c] = (char) c;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            MAP[c] = (char) (c + ('a' - 'A'));
+        }
+        // letras latinas com diacrítico -> letra base; marcas combinantes somem
+        for (char c = 0x00C0; c <= 0x024F; c++) {
+            String nfd = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            char base = Character.toLowerCase(nfd.charAt(0));
+            if (nfd.length() > 1 && base >= 'a' && base <= 'z') {
+                MAP[c] = base;
+            }
+        }
+        for (char c = 0x0300; c <= 0x036F; c++) {
+            MAP[c] = DROP;
+        }
+        for (int i = 0; i < CONFUSABLES.length(); i += 2) {
+            MAP[CONFUSABLES.charAt(i)] = CONFUSABLES.charAt(i + 1);
+        }
+        // formas de largura total (os dígitos seguem a regra dos ASCII)
+        for (char c = 0; c < 26; c++) {
+            MAP[0xFF21 + c] = (char) ('a' + c);
+            MAP[0xFF41 + c] = (char) ('a' + c);
+        }
+        for (char c = 0; c < 10; c++) {
+            MAP[0xFF10 + c] = MAP['0' + c];
+        }
+    }
+
+    private HostSkeleton() {
+    }
+
+    /**
+     * Esqueleto do host (em minúsculas, labels separados por ponto).
+     *
+     * @return o próprio {@code host} quando nada muda
+     */
+    public static String of(String host) {
+        if (host == null || !changes(host)) {
+            return host;
+        }
+        StringBuilder sb = new StringBuilder(host.length());
+        int start = 0;
+        for (int i = 0; i <= host.length(); i++) {
+            if (i < host.length() && host.charAt(i) != '.') {
+                continue;
+            }
+            if (start > 0) {
+                sb.append('.');
+            }
+            String label = host.substring(start, i);
+            if (isPunycode(host, start, i)) {
+                // toUnicode devolve o label como veio se o punycode for inválido
+                label = IDN.toUnicode(label, IDN.ALLOW_UNASSIGNED);
+            }
+            for (int j = 0; j < label.length(); j++) {
+                char m = MAP[label.charAt(j)];
+                if (m != DROP) {
+                    sb.append(m);
+                }
+            }
+            start = i + 1;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Alguma coisa muda no esqueleto? Uma passada sem alocar.
+     */
+    private static boolean changes(String host) {
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if (MAP[c] != c) {
+                return true;
+            }
+            if (c == 'x' && (i == 0 || host.charAt(i - 1) == '.') && isPunycode(host, i, host.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPunycode(String host, int from, int to) {
+        return to - from > 4 && host.startsWith("xn--", from);
+    }
+}
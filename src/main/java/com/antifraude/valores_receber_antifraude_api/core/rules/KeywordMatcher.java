@@ -0,0 +1,248 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Casamento de várias palavras-chave numa única passada (Aho–Corasick).
+ *
+ * As palavras são agrupadas por código de regra. O autômato é compilado
+ * uma vez, com as transições de falha já resolvidas numa tabela densa
+ * para ASCII: o custo por consulta é uma leitura de tabela por caractere,
+ * qualquer que seja o número de palavras cadastradas.
+ *
+ * Palavras são comparadas como estão: quem chama passa o texto já em
+ * minúsculas. Caracteres fora do ASCII nunca fazem parte de uma palavra.
+ */
+public final class KeywordMatcher {
+
+    private static final int ALPHABET = 128;
+
+    private final int[] next; // estado * ALPHABET + char -> estado
+    private final long[] codeOutputs; // códigos que terminam em cada estado
+    private final long[][] keywordOutputs; // idem, por palavra
+    private final List<String> codes;
+    private final List<String> keywords;
+    private final int[] keywordCode;
+
+    private KeywordMatcher(int[] next, long[] codeOutputs, long[][] keywordOutputs,
+            List<String> codes, List<String> keywords, int[] keywordCode) {
+        this.next = next;
+        this.codeOutputs = codeOutputs;
+        this.keywordOutputs = keywordOutputs;
+        this.codes = codes;
+        this.keywords = keywords;
+        this.keywordCode = keywordCode;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder já com os códigos e palavras deste matcher, para estendê-lo:
+     * os códigos existentes mantêm as máscaras.
+     */
+    public Builder toBuilder() {
+        Builder b = new Builder();
+        for (String code : codes) {
+            b.add(code);
+        }
+        for (int k = 0; k < keywords.size(); k++) {
+            b.add(codes.get(keywordCode[k]), keywords.get(k));
+        }
+        return b;
+    }
+
+    public int codeCount() {
+        return codes.size();
+    }
+
+    /**
+     * Máscara de um código, para testar o retorno de {@link #scan}.
+     */
+    public long mask(String code) {
+        int i = codes.indexOf(code);
+        if (i < 0) {
+            throw new IllegalArgumentException("Código não cadastrado: " + code);
+        }
+        return 1L << i;
+    }
+
+    /**
+     * @return máscara dos códigos com alguma palavra contida em {@code text}
+     */
+    public long scan(CharSequence text) {
+        long hits = 0;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            hits |= codeOutputs[state];
+        }
+        return hits;
+    }
+
+    /**
+     * Como {@link #scan} sobre a forma "compacta" das partes concatenadas:
+     * só letras minúsculas e dígitos ASCII, sem montar a string.
+     */
+    public long scanAlnum(CharSequence... parts) {
+        long hits = 0;
+        int state = 0;
+        for (CharSequence part : parts) {
+            for (int i = 0; i < part.length(); i++) {
+                char c = part.charAt(i);
+                if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                    state = step(state, c);
+                    hits |= codeOutputs[state];
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Todas as palavras contidas em {@code text}, agrupadas por código
+     * (para evidência; o caminho quente usa {@link #scan}).
+     */
+    public Map<String, List<String>> matches(CharSequence text) {
+        long[] found = new long[(keywords.size() + 63) >>> 6];
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            long[] out = keywordOutputs[state];
+            for (int w = 0; w < out.length; w++) {
+                found[w] |= out[w];
+            }
+        }
+        Map<String, List<String>> byCode = new LinkedHashMap<>();
+        for (int k = 0; k < keywords.size(); k++) {
+            if ((found[k >>> 6] & (1L << k)) != 0) {
+                byCode.computeIfAbsent(codes.get(keywordCode[k]), c -> new ArrayList<>()).add(keywords.get(k));
+            }
+        }
+        return byCode;
+    }
+
+    /**
+     * Avança o autômato um caractere; para quem já percorre o texto por
+     * outro motivo (ver {@link UrlFeatures}). Comece do estado 0.
+     */
+    public int step(int state, char c) {
+        return c < ALPHABET ? next[state * ALPHABET + c] : 0;
+    }
+
+    /**
+     * Máscara dos códigos que terminam no estado (após {@link #step}).
+     */
+    public long hitsAt(int state) {
+        return codeOutputs[state];
+    }
+
+    // ---------- Construção ----------
+
+    public static final class Builder {
+
+        private final List<String> codes = new ArrayList<>();
+        private final List<String> keywords = new ArrayList<>();
+        private final List<Integer> keywordCode = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder add(String code, String... words) {
+            int c = codes.indexOf(code);
+            if (c < 0) {
+                if (codes.size() == Long.SIZE) {
+                    throw new IllegalStateException("Máximo de " + Long.SIZE + " códigos por matcher");
+                }
+                codes.add(code);
+                c = codes.size() - 1;
+            }
+            for (String w : words) {
+                if (w.isEmpty() || !w.chars().allMatch(ch -> ch < ALPHABET)) {
+                    throw new IllegalArgumentException("Palavra-chave inválida: '" + w + "'");
+                }
+                keywords.add(w);
+                keywordCode.add(c);
+            }
+            return this;
+        }
+
+        public KeywordMatcher build() {
+            // trie
+            List<int[]> children = new ArrayList<>();
+            children.add(newRow());
+            List<List<Integer>> ends = new ArrayList<>();
+            ends.add(new ArrayList<>());
+            for (int k = 0; k < keywords.size(); k++) {
+                int state = 0;
+                for (char ch : keywords.get(k).toCharArray()) {
+                    int[] row = children.get(state);
+                    if (row[ch] < 0) {
+                        row[ch] = children.size();
+                        children.add(newRow());
+                        ends.add(new ArrayList<>());
+                    }
+                    state = row[ch];
+                }
+                ends.get(state).add(k);
+            }
+
+            int states = children.size();
+            int words = (keywords.size() + 63) >>> 6;
+            int[] next = new int[states * ALPHABET];
+            int[] fail = new int[states];
+            long[] codeOutputs = new long[states];
+            long[][] keywordOutputs = new long[states][words];
+            for (int s = 0; s < states; s++) {
+                for (int k : ends.get(s)) {
+                    codeOutputs[s] |= 1L << keywordCode.get(k);
+                    keywordOutputs[s][k >>> 6] |= 1L << k;
+                }
+            }
+
+            // BFS: resolve as falhas direto na tabela de transições
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int ch = 0; ch < ALPHABET; ch++) {
+                int child = children.get(0)[ch];
+                next[ch] = child < 0 ? 0 : child;
+                if (child > 0) {
+                    queue.add(child);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int s = queue.poll();
+                codeOutputs[s] |= codeOutputs[fail[s]];
+                for (int w = 0; w < words; w++) {
+                    keywordOutputs[s][w] |= keywordOutputs[fail[s]][w];
+                }
+                int[] row = children.get(s);
+                for (int ch = 0; ch < ALPHABET; ch++) {
+                    int child = row[ch];
+                    if (child < 0) {
+                        next[s * ALPHABET + ch] = next[fail[s] * ALPHABET + ch];
+                    } else {
+                        fail[child] = next[fail[s] * ALPHABET + ch];
+                        next[s * ALPHABET + ch] = child;
+                        queue.add(child);
+                    }
+                }
+            }
+
+            int[] codeOfKeyword = keywordCode.stream().mapToInt(Integer::intValue).toArray();
+            return new KeywordMatcher(next, codeOutputs, keywordOutputs,
+                    List.copyOf(codes), List.copyOf(keywords), codeOfKeyword);
+        }
+
+        private static int[] newRow() {
+            int[] row = new int[ALPHABET];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+/**
+ * Palavras-chave das heurísticas locais em código (ThreatIntel e o stub do
+ * VirusTotal), compiladas uma única vez em um {@link KeywordMatcher} por
+ * campo analisado.
+ *
+ * Para adicionar uma palavra basta incluí-la no código certo: o custo por
+ * requisição continua sendo uma passada por campo. As palavras do arquivo
+ * de regras do {@link RulesEngine} entram nos mesmos autômatos (ver
+ * {@link RuleSet}), depois destes códigos: as máscaras abaixo valem para
+ * qualquer um deles.
+ */
+public final class Keywords {
+
+    // ---------- Host ----------
+
+    public static final KeywordMatcher HOST = KeywordMatcher.builder()
+            // ThreatIntel (heurísticas locais; imitação de marcas fica no BrandIndex)
+            .add("ORG_CONTEXT", "gov", "receita", "caixa", "bradesco")
+            .add("THREAT_INTEL_SUSPICIOUS_PATTERN", "simulador-irpf.site", "irpf", "banking-secure-auth",
+                    "secure-auth", "bit-llly-secure", "tinyurl-security")
+            .build();
+
+    public static final long ORG_CONTEXT = HOST.mask("ORG_CONTEXT");
+    public static final long TI_SUSPICIOUS_PATTERN = HOST.mask("THREAT_INTEL_SUSPICIOUS_PATTERN");
+
+    // ---------- URL ----------
+
+    public static final KeywordMatcher URL = KeywordMatcher.builder()
+            // stub do VirusTotal
+            .add("VT_SCAM_PATTERN", "valoresareceber", "valores-a-receber", "fgts", "caixa-gov-br.online",
+                    "receitafederal-gov.online", "whatsap-confirmacao", "whatsap-verificador",
+                    "simulador-irpf.site", "secure-pay-pix", "bit-llly-secure", "tinyurl-security-check",
+                    "banking-secure-auth")
+            .build();
+
+    public static final long VT_SCAM_PATTERN = URL.mask("VT_SCAM_PATTERN");
+
+    // ---------- Forma compacta (só [a-z0-9]) ----------
+
+    public static final KeywordMatcher COMPACT = KeywordMatcher.builder()
+            .add("VALORES_A_RECEBER", "valoresareceber", "valoreareceber", "valoresreceber")
+            .add("FGTS", "fgts")
+            .build();
+
+    public static final long VALORES_A_RECEBER = COMPACT.mask("VALORES_A_RECEBER");
+    public static final long FGTS = COMPACT.mask("FGTS");
+
+    /** Os três autômatos acima. */
+    public static final Matchers DEFAULT = new Matchers(URL, HOST, COMPACT);
+
+    /**
+     * Autômatos usados na extração das {@link UrlFeatures}: os de
+     * {@link Keywords} ou versões estendidas deles.
+     */
+    public static final class Matchers {
+        public final KeywordMatcher url;
+        public final KeywordMatcher host;
+        public final KeywordMatcher compact;
+
+        public Matchers(KeywordMatcher url, KeywordMatcher host, KeywordMatcher compact) {
+            this.url = url;
+            this.host = host;
+            this.compact = compact;
+        }
+    }
+
+    private Keywords() {
+    }
+}
@@ -0,0 +1,255 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Modelo de trigramas de caracteres dos labels de domínios brasileiros
+ * legítimos, para medir o quanto um host parece gerado ao acaso (DGA,
+ * domínios descartáveis de golpe): "xkqjzvbwtr" custa bem mais bits por
+ * caractere que "consultaservicos".
+ *
+ * O modelo é treinado offline ({@link #train}, a partir do corpus de
+ * teste {@code rules/host-ngrams-corpus.txt}) e embarcado em
+ * {@code rules/host-ngrams.bin}: cabeçalho e uma tabela de 38³ bytes com
+ * -log2 p(c | a b) em 1/16 de bit (alfabeto: limite de label, a-z, 0-9 e
+ * '-'). O arquivo é mapeado em memória na subida (lido inteiro só quando o
+ * classpath é um jar); a pontuação é uma passada sobre o host, sem alocar.
+ *
+ * Layout (big-endian): magic, {@link #FORMAT_VERSION}, tamanho do
+ * alfabeto, escala (unidades por bit) e a tabela.
+ */
+public final class NgramModel {
+
+    public static final int FORMAT_VERSION = 1;
+
+    static final String DEFAULT_MODEL = "rules/host-ngrams.bin";
+
+    private static final int MAGIC = 0x41464e47; // "AFNG"
+    private static final int HEADER_BYTES = 4 * 4;
+    private static final int ALPHABET = 38;
+    private static final int BOUNDARY = 0;
+    private static final int SCALE = 16;
+    // labels com menos caracteres que isso no total dão pouco sinal
+    static final int MIN_CHARS = 6;
+
+    // segundo nível genérico sob TLD de país ("com" em .com.br): não pontua
+    private static final String[] GENERIC_SLDS = {
+            "com", "net", "org", "gov", "edu", "mil", "leg", "jus", "art", "blog", "app", "eco", "ind", "inf" };
+
+    private static final byte[] SYMBOL = new byte[128];
+
+    static {
+        for (int c = 0; c < SYMBOL.length; c++) {
+            SYMBOL[c] = ALPHABET - 1; // fora do alfabeto conta como '-'
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            SYMBOL[c] = (byte) (1 + c - 'a');
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            SYMBOL[c] = (byte) (27 + c - '0');
+        }
+    }
+
+    private final ByteBuffer table; // só leituras absolutas: seguro entre threads
+
+    private NgramModel(ByteBuffer table) {
+        this.table = table;
+    }
+
+    /**
+     * Modelo embarcado, carregado (mapeado) no primeiro uso.
+     */
+    public static NgramModel defaultModel() {
+        return Holder.DEFAULT;
+    }
+
+    private static final class Holder {
+        static final NgramModel DEFAULT = loadDefault();
+    }
+
+    public double score(UrlFeatures f) {
+        return score(f.host);
+    }
+
+    /**
+     * Média de bits por caractere (incluindo o fim de cada label) dos labels
+     * próprios do host: sem o TLD, sem "www", sem o segundo nível genérico
+     * de TLD de país e sem labels IDN ({@code xn--}, tratados pelo índice
+     * de homógrafos). Com menos de {@link #MIN_CHARS} caracteres, 0.
+     */
+    public double score(String host) {
+        int lastDot = host.lastIndexOf('.');
+        boolean ccTld = host.length() - lastDot - 1 == 2;
+        long units = 0;
+        int chars = 0;
+        int labels = 0;
+        int end = lastDot;
+        while (end > 0) {
+            int start = host.lastIndexOf('.', end - 1) + 1;
+            if (scored(host, start, end, ccTld && end == lastDot)) {
+                units += labelUnits(host, start, end);
+                chars += end - start;
+                labels++;
+            }
+            end = start - 1;
+        }
+        return chars < MIN_CHARS ? 0.0 : (double) units / SCALE / (chars + labels);
+    }
+
+    private int labelUnits(String host, int start, int end) {
+        int a = BOUNDARY;
+        int b = BOUNDARY;
+        int units = 0;
+        for (int i = start; i < end; i++) {
+            int c = symbol(host.charAt(i));
+            units += table.get(HEADER_BYTES + (a * ALPHABET + b) * ALPHABET + c) & 0xff;
+            a = b;
+            b = c;
+        }
+        return units + (table.get(HEADER_BYTES + (a * ALPHABET + b) * ALPHABET + BOUNDARY) & 0xff);
+    }
+
+    private static boolean scored(String host, int start, int end, boolean secondLevel) {
+        int n = end - start;
+        if (n == 0 || (start == 0 && n == 3 && host.startsWith("www"))
+                || (n > 4 && host.startsWith("xn--", start))) {
+            return false;
+        }
+        if (secondLevel) {
+            for (String sld : GENERIC_SLDS) {
+                if (sld.length() == n && host.startsWith(sld, start)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int symbol(char c) {
+        return c < SYMBOL.length ? SYMBOL[c] : ALPHABET - 1;
+    }
+
+    // ---------- Leitura ----------
+
+    /**
+     * Mapeia o arquivo do modelo em memória (somente leitura).
+     */
+    public static NgramModel open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            // o mapeamento continua válido depois de fechar o canal
+            return of(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()), file.toString());
+        }
+    }
+
+    private static NgramModel loadDefault() {
+        URL url = NgramModel.class.getClassLoader().getResource(DEFAULT_MODEL);
+        try {
+            if (url == null) {
+                throw new IOException("Recurso não encontrado: " + DEFAULT_MODEL);
+            }
+            if ("file".equals(url.getProtocol())) {
+                return open(Path.of(url.toURI()));
+            }
+            // dentro do jar não dá para mapear: lê os ~55 KB
+            try (InputStream in = url.openStream()) {
+                return of(ByteBuffer.wrap(in.readAllBytes()), DEFAULT_MODEL);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao carregar o modelo de n-gramas " + DEFAULT_MODEL, e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Falha ao carregar o modelo de n-gramas " + DEFAULT_MODEL, e);
+        }
+    }
+
+    private static NgramModel of(ByteBuffer buf, String source) throws IOException {
+        if (buf.capacity() != HEADER_BYTES + ALPHABET * ALPHABET * ALPHABET
+                || buf.getInt(0) != MAGIC || buf.getInt(4) != FORMAT_VERSION
+                || buf.getInt(8) != ALPHABET || buf.getInt(12) != SCALE) {
+            throw new IOException("Modelo de n-gramas inválido ou de outro formato: " + source);
+        }
+        return new NgramModel(buf);
+    }
+
+    // ---------- Treino (offline) ----------
+
+    /**
+     * Treina o modelo e devolve o conteúdo do arquivo. Cada probabilidade
+     * interpola trigrama, bigrama, unigrama e uniforme (0,6 / 0,25 / 0,1 /
+     * 0,05, redistribuindo o peso de contextos nunca vistos); os labels
+     * considerados são os mesmos de {@link #score(String)}. Usa
+     * {@link StrictMath} para o arquivo sair igual em qualquer JVM.
+     */
+    static byte[] train(Iterable<String> domains) {
+        int n3 = ALPHABET * ALPHABET * ALPHABET;
+        long[] tri = new long[n3];
+        long[] bi = new long[ALPHABET * ALPHABET];
+        long[] uni = new long[ALPHABET];
+        for (String domain : domains) {
+            String host = domain.trim().toLowerCase(Locale.ROOT);
+            int lastDot = host.lastIndexOf('.');
+            boolean ccTld = host.length() - lastDot - 1 == 2;
+            int end = lastDot;
+            while (end > 0) {
+                int start = host.lastIndexOf('.', end - 1) + 1;
+                if (scored(host, start, end, ccTld && end == lastDot)) {
+                    int a = BOUNDARY;
+                    int b = BOUNDARY;
+                    for (int i = start; i <= end; i++) {
+                        int c = i == end ? BOUNDARY : symbol(host.charAt(i));
+                        tri[(a * ALPHABET + b) * ALPHABET + c]++;
+                        bi[b * ALPHABET + c]++;
+                        uni[c]++;
+                        a = b;
+                        b = c;
+                    }
+                }
+                end = start - 1;
+            }
+        }
+
+        long total = 0;
+        for (long u : uni) {
+            total += u;
+        }
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + n3);
+        out.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(ALPHABET).putInt(SCALE);
+        for (int ab = 0; ab < ALPHABET * ALPHABET; ab++) {
+            int b = ab % ALPHABET;
+            long ctx2 = 0;
+            long ctx1 = 0;
+            for (int c = 0; c < ALPHABET; c++) {
+                ctx2 += tri[ab * ALPHABET + c];
+                ctx1 += bi[b * ALPHABET + c];
+            }
+            double w3 = ctx2 > 0 ? 0.6 : 0;
+            double w2 = ctx1 > 0 ? 0.25 : 0;
+            double w1 = total > 0 ? 0.1 : 0;
+            double w0 = 0.05;
+            double sum = w3 + w2 + w1 + w0;
+            for (int c = 0; c < ALPHABET; c++) {
+                double p = w0 / ALPHABET;
+                if (w3 > 0) {
+                    p += w3 * tri[ab * ALPHABET + c] / ctx2;
+                }
+                if (w2 > 0) {
+                    p += w2 * bi[b * ALPHABET + c] / ctx1;
+                }
+                if (w1 > 0) {
+                    p += w1 * uni[c] / total;
+                }
+                double bits = -StrictMath.log(p / sum) / StrictMath.log(2);
+                out.put((byte) Math.min(255, Math.round(bits * SCALE)));
+            }
+        }
+        return out.array();
+    }
+}
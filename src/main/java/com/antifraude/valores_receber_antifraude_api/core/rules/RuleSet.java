@@ -0,0 +1,546 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Regras do {@link RulesEngine} compiladas a partir de um
+ * {@link RuleSetDefinition}.
+ *
+ * Na compilação, condições iguais em regras diferentes viram um único
+ * predicado, e as palavras das condições {@code contains} sobre url, host
+ * e compact entram nos autômatos de {@link Keywords} ({@link #keywords()}):
+ * com as características extraídas por eles, essas condições saem da
+ * mesma passada que já percorre a URL, sem varredura extra. Cada predicado
+ * é avaliado no máximo uma vez por URL, dos mais baratos (números,
+ * máscaras) para os mais caros (varreduras).
+ *
+ * Os autômatos já descartam as regras cujas palavras não bateram; dos
+ * demais predicados só são avaliados os das regras que sobraram, e o
+ * conjunto de regras que disparam sai de uma tabela indexada pelo
+ * resultado dos predicados (com até 10 deles). Todas as regras que batem
+ * aparecem nos hits e na evidência, mesmo com o score já no teto
+ * ({@code maxScore}).
+ *
+ * <p>Campos: {@code url}, {@code host}, {@code compact}, {@code scheme},
+ * {@code tld}, {@code baseDomain} (texto, já em minúsculas) e
+ * {@code length}, {@code labelCount}, {@code digitCount},
+ * {@code digitRatio}, {@code hyphenCount}, {@code dotCount},
+ * {@code atCount}, {@code specialCount} e {@code randomness} (números;
+ * este último é a média de bits por caractere do host no
+ * {@link NgramModel}: acima de ~5, cara de nome gerado ao acaso).
+ *
+ * <p>Operadores: {@code contains}, {@code equals}, {@code startsWith},
+ * {@code endsWith} (texto; basta um dos {@code values}) e
+ * {@code greaterThan}, {@code lessThan} (números; {@code value}).
+ * Qualquer condição aceita {@code "negate": true}.
+ */
+public final class RuleSet {
+
+    private static final int MAX_TABLE_BITS = 10;
+
+    // campos varridos pelos autômatos (ordinal de Field)
+    private static final int URL = 0;
+    private static final int HOST = 1;
+    private static final int COMPACT = 2;
+
+    private final int suspectThreshold;
+    private final int maxScore;
+    private final Predicate[] predicates; // "contains" dos autômatos primeiro, depois por custo
+    private final Keywords.Matchers keywords; // Keywords + palavras das regras
+    // por campo varrido pelos autômatos: primeiro código das regras no
+    // matcher, primeiro bit dos predicados dele e quantos são (os códigos
+    // seguem a ordem dos predicados, então a conversão é um deslocamento)
+    private final int[] codeOffset;
+    private final int[] firstBit;
+    private final int[] bitCount;
+    private final int keywordCount; // predicados nos bits [0, keywordCount)
+    private final Rule[] declared;
+    // regras candidatas (bit = posição no arquivo) e os demais predicados
+    // delas para cada combinação dos predicados dos autômatos; null com
+    // predicados demais para a tabela
+    private final long[] candidatesByTruth;
+    private final long[] pendingByTruth;
+    // regras que disparam para cada combinação de todos os predicados;
+    // null com predicados demais
+    private final long[] firedByTruth;
+    // sem a tabela: regras que cada um desses predicados elimina
+    private final long[] eliminatedIfTrue;
+    private final long[] eliminatedIfFalse;
+
+    private RuleSet(int suspectThreshold, int maxScore, Predicate[] predicates, Keywords.Matchers keywords,
+            int[] codeOffset, int[] firstBit, int[] bitCount, int keywordCount, Rule[] declared) {
+        this.suspectThreshold = suspectThreshold;
+        this.maxScore = maxScore;
+        this.predicates = predicates;
+        this.keywords = keywords;
+        this.codeOffset = codeOffset;
+        this.firstBit = firstBit;
+        this.bitCount = bitCount;
+        this.keywordCount = keywordCount;
+        this.declared = declared;
+
+        this.eliminatedIfTrue = new long[keywordCount];
+        this.eliminatedIfFalse = new long[keywordCount];
+        for (int r = 0; r < declared.length; r++) {
+            Rule rule = declared[r];
+            for (int i = 0; i < keywordCount; i++) {
+                if ((rule.required & (1L << i)) != 0) {
+                    eliminatedIfFalse[i] |= rule.bit;
+                } else if ((rule.forbidden & (1L << i)) != 0) {
+                    eliminatedIfTrue[i] |= rule.bit;
+                }
+            }
+        }
+        if (keywordCount <= MAX_TABLE_BITS) {
+            this.candidatesByTruth = new long[1 << keywordCount];
+            this.pendingByTruth = new long[1 << keywordCount];
+            for (int truth = 0; truth < candidatesByTruth.length; truth++) {
+                candidatesByTruth[truth] = eliminate(allRules(), truth);
+                pendingByTruth[truth] = pending(candidatesByTruth[truth]);
+            }
+        } else {
+            this.candidatesByTruth = null;
+            this.pendingByTruth = null;
+        }
+        if (predicates.length <= MAX_TABLE_BITS) {
+            this.firedByTruth = new long[1 << predicates.length];
+            for (int truth = 0; truth < firedByTruth.length; truth++) {
+                firedByTruth[truth] = fired(allRules(), truth);
+            }
+        } else {
+            this.firedByTruth = null;
+        }
+    }
+
+    public int size() {
+        return declared.length;
+    }
+
+    /**
+     * Autômatos para {@link UrlFeatures#extract}:
+     * com eles as condições {@code contains} de url, host e compact saem
+     * prontas da extração das características.
+     */
+    public Keywords.Matchers keywords() {
+        return keywords;
+    }
+
+    /**
+     * @return máscara das regras que dispararam (bit i = i-ésima regra do
+     *         arquivo)
+     */
+    public long match(UrlFeatures f) {
+        // "contains" de url/host/compact: só leitura de máscaras, resolvidos
+        // de uma vez e já descartando as regras que dependem deles
+        long truth = keywordHits(f);
+        long candidates = candidatesByTruth != null
+                ? candidatesByTruth[(int) truth]
+                : eliminate(allRules(), truth);
+        // demais predicados das regras que sobraram, dos mais baratos
+        long pending = pendingByTruth != null ? pendingByTruth[(int) truth] : pending(candidates);
+        for (long bits = pending; bits != 0; bits &= bits - 1) {
+            int i = Long.numberOfTrailingZeros(bits);
+            if (predicates[i].test(f)) {
+                truth |= 1L << i;
+            }
+        }
+        // predicados não avaliados ficam falsos, mas só as regras já
+        // descartadas dependem deles
+        return firedByTruth != null ? firedByTruth[(int) truth] : fired(candidates, truth);
+    }
+
+    /**
+     * Soma dos pontos das regras, limitada a {@code maxScore}.
+     */
+    public int score(long fired) {
+        int score = 0;
+        for (long bits = fired; bits != 0; bits &= bits - 1) {
+            score += declared[Long.numberOfTrailingZeros(bits)].score;
+        }
+        return Math.min(score, maxScore);
+    }
+
+    public Verdict verdict(int score) {
+        // abaixo do limiar fica UNKNOWN para ThreatIntel + IA decidirem
+        return score >= suspectThreshold ? Verdict.SUSPECT : Verdict.UNKNOWN;
+    }
+
+    /**
+     * Códigos das regras, na ordem do arquivo.
+     */
+    public List<String> codes(long fired) {
+        List<String> codes = new ArrayList<>(Long.bitCount(fired));
+        for (long bits = fired; bits != 0; bits &= bits - 1) {
+            codes.add(declared[Long.numberOfTrailingZeros(bits)].code);
+        }
+        return codes;
+    }
+
+    public List<String> evidence(long fired) {
+        List<String> evidence = new ArrayList<>(Long.bitCount(fired));
+        for (long bits = fired; bits != 0; bits &= bits - 1) {
+            evidence.add(declared[Long.numberOfTrailingZeros(bits)].evidence);
+        }
+        return evidence;
+    }
+
+    String code(int rule) {
+        return declared[rule].code;
+    }
+
+    String evidence(int rule) {
+        return declared[rule].evidence;
+    }
+
+    /**
+     * Predicados {@code contains} de url, host e compact que valem. Usa as
+     * máscaras das características quando vieram destes autômatos; senão
+     * (características extraídas antes de uma recarga, ou com
+     * {@link Keywords#DEFAULT}) varre os campos.
+     */
+    private long keywordHits(UrlFeatures f) {
+        if (keywordCount == 0) {
+            return 0;
+        }
+        boolean extracted = f.keywords == keywords;
+        return ruleBits(URL, extracted ? f.urlKeywords : keywords.url.scan(f.url))
+                | ruleBits(HOST, extracted ? f.hostKeywords : keywords.host.scan(f.host))
+                | ruleBits(COMPACT, extracted ? f.compactKeywords : keywords.compact.scan(f.compact));
+    }
+
+    private long ruleBits(int field, long codes) {
+        return ((codes >>> codeOffset[field]) & lowBits(bitCount[field])) << firstBit[field];
+    }
+
+    private long allRules() {
+        return lowBits(declared.length);
+    }
+
+    private long fired(long candidates, long truth) {
+        long fired = 0;
+        for (long bits = candidates; bits != 0; bits &= bits - 1) {
+            Rule r = declared[Long.numberOfTrailingZeros(bits)];
+            if ((r.required & ~truth) == 0 && (r.forbidden & truth) == 0) {
+                fired |= r.bit;
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Predicados fora dos autômatos de que as regras {@code candidates}
+     * dependem.
+     */
+    private long pending(long candidates) {
+        long pending = 0;
+        for (long bits = candidates; bits != 0; bits &= bits - 1) {
+            Rule r = declared[Long.numberOfTrailingZeros(bits)];
+            pending |= r.required | r.forbidden;
+        }
+        return pending & ~lowBits(keywordCount);
+    }
+
+    private long eliminate(long candidates, long truth) {
+        for (int i = 0; i < keywordCount; i++) {
+            candidates &= ~((truth & (1L << i)) != 0 ? eliminatedIfTrue[i] : eliminatedIfFalse[i]);
+        }
+        return candidates;
+    }
+
+    private static long lowBits(int n) {
+        return n == Long.SIZE ? -1L : (1L << n) - 1;
+    }
+
+    // ---------- Compilação ----------
+
+    /**
+     * @throws IllegalArgumentException se a definição for inválida
+     */
+    public static RuleSet compile(RuleSetDefinition def) {
+        if (def.getMaxScore() <= 0) {
+            throw new IllegalArgumentException("maxScore deve ser positivo");
+        }
+        List<RuleSetDefinition.Rule> rules = def.getRules() == null ? List.of() : def.getRules();
+        if (rules.size() > Long.SIZE) {
+            throw new IllegalArgumentException("Máximo de " + Long.SIZE + " regras");
+        }
+
+        // predicados distintos, pela forma canônica da condição
+        Map<String, Predicate> distinct = new LinkedHashMap<>();
+        Set<String> codes = new HashSet<>();
+        for (RuleSetDefinition.Rule rule : rules) {
+            String code = rule.getCode();
+            if (code == null || code.isBlank() || !codes.add(code)) {
+                throw new IllegalArgumentException("Código de regra vazio ou repetido: " + code);
+            }
+            if (rule.getScore() < 0) {
+                throw new IllegalArgumentException("Regra " + code + ": score negativo");
+            }
+            if (rule.getWhen() == null || rule.getWhen().isEmpty()) {
+                throw new IllegalArgumentException("Regra " + code + ": sem condições");
+            }
+            for (RuleSetDefinition.Condition c : rule.getWhen()) {
+                Predicate p = Predicate.of(code, c);
+                distinct.putIfAbsent(p.key, p);
+            }
+        }
+        if (distinct.size() > Long.SIZE) {
+            throw new IllegalArgumentException("Máximo de " + Long.SIZE + " condições distintas");
+        }
+
+        // "contains" em url, host e compact primeiro, agrupados por campo:
+        // as palavras entram nos autômatos de Keywords, depois dos códigos
+        // deles, um código por predicado, na mesma ordem dos bits
+        Predicate[] predicates = distinct.values().toArray(new Predicate[0]);
+        Arrays.sort(predicates, Comparator.comparingInt(Predicate::order));
+        Map<String, Integer> index = new LinkedHashMap<>();
+        for (int i = 0; i < predicates.length; i++) {
+            index.put(predicates[i].key, i);
+        }
+
+        KeywordMatcher[] base = { Keywords.URL, Keywords.HOST, Keywords.COMPACT };
+        KeywordMatcher[] matchers = base.clone();
+        int[] codeOffset = new int[base.length];
+        int[] firstBit = new int[base.length];
+        int[] bitCount = new int[base.length];
+        int keywordCount = 0;
+        for (int field = 0; field < base.length; field++) {
+            KeywordMatcher.Builder builder = base[field].toBuilder();
+            codeOffset[field] = base[field].codeCount();
+            firstBit[field] = keywordCount;
+            while (keywordCount < predicates.length && predicates[keywordCount].isKeyword()
+                    && predicates[keywordCount].field.ordinal() == field) {
+                if (codeOffset[field] + bitCount[field] == Long.SIZE) {
+                    throw new IllegalArgumentException("Condições 'contains' demais no campo "
+                            + predicates[keywordCount].field);
+                }
+                builder.add("RULE_" + keywordCount, predicates[keywordCount].values);
+                bitCount[field]++;
+                keywordCount++;
+            }
+            if (bitCount[field] > 0) {
+                matchers[field] = builder.build();
+            }
+        }
+        Keywords.Matchers keywords = new Keywords.Matchers(matchers[URL], matchers[HOST], matchers[COMPACT]);
+
+        Rule[] declared = new Rule[rules.size()];
+        for (int r = 0; r < declared.length; r++) {
+            RuleSetDefinition.Rule rule = rules.get(r);
+            long required = 0;
+            long forbidden = 0;
+            for (RuleSetDefinition.Condition c : rule.getWhen()) {
+                long bit = 1L << index.get(Predicate.of(rule.getCode(), c).key);
+                if (c.isNegate()) {
+                    forbidden |= bit;
+                } else {
+                    required |= bit;
+                }
+            }
+            declared[r] = new Rule(rule.getCode(), rule.getScore(),
+                    rule.getEvidence() == null ? rule.getCode() : rule.getEvidence(),
+                    required, forbidden, 1L << r);
+        }
+
+        return new RuleSet(def.getSuspectThreshold(), def.getMaxScore(), predicates, keywords,
+                codeOffset, firstBit, bitCount, keywordCount, declared);
+    }
+
+    private static final class Rule {
+        final String code;
+        final int score;
+        final String evidence;
+        final long required; // predicados que precisam valer
+        final long forbidden; // predicados negados
+        final long bit;
+
+        Rule(String code, int score, String evidence, long required, long forbidden, long bit) {
+            this.code = code;
+            this.score = score;
+            this.evidence = evidence;
+            this.required = required;
+            this.forbidden = forbidden;
+            this.bit = bit;
+        }
+    }
+
+    private enum Field {
+        URL, HOST, COMPACT, SCHEME, TLD, BASE_DOMAIN,
+        LENGTH, LABEL_COUNT, DIGIT_COUNT, DIGIT_RATIO, HYPHEN_COUNT, DOT_COUNT, AT_COUNT, SPECIAL_COUNT,
+        RANDOMNESS;
+
+        boolean isText() {
+            return ordinal() <= BASE_DOMAIN.ordinal();
+        }
+
+        String text(UrlFeatures f) {
+            return switch (this) {
+                case URL -> f.url;
+                case HOST -> f.host;
+                case COMPACT -> f.compact;
+                case SCHEME -> f.scheme;
+                case TLD -> f.tld;
+                case BASE_DOMAIN -> f.baseDomain;
+                default -> throw new IllegalStateException(name());
+            };
+        }
+
+        double number(UrlFeatures f) {
+            return switch (this) {
+                case LENGTH -> f.length;
+                case LABEL_COUNT -> f.labelCount();
+                case DIGIT_COUNT -> f.digitCount;
+                case DIGIT_RATIO -> f.digitRatio();
+                case HYPHEN_COUNT -> f.hyphenCount;
+                case DOT_COUNT -> f.dotCount;
+                case AT_COUNT -> f.atCount;
+                case SPECIAL_COUNT -> f.specialCount;
+                case RANDOMNESS -> NgramModel.defaultModel().score(f);
+                default -> throw new IllegalStateException(name());
+            };
+        }
+    }
+
+    private enum Op {
+        CONTAINS, EQUALS, STARTS_WITH, ENDS_WITH, GREATER_THAN, LESS_THAN;
+
+        boolean isText() {
+            return ordinal() <= ENDS_WITH.ordinal();
+        }
+    }
+
+    /**
+     * "baseDomain" -> BASE_DOMAIN
+     */
+    private static <E extends Enum<E>> E parseName(Class<E> type, String name, String rule) {
+        if (name != null) {
+            String constant = name.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+            for (E e : type.getEnumConstants()) {
+                if (e.name().equals(constant)) {
+                    return e;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Regra " + rule + ": valor inválido '" + name + "'");
+    }
+
+    private static final class Predicate {
+        final Field field;
+        final Op op;
+        final String[] values;
+        final double value;
+        final String key;
+
+        private Predicate(Field field, Op op, String[] values, double value) {
+            this.field = field;
+            this.op = op;
+            this.values = values;
+            this.value = value;
+            this.key = field + " " + op + " " + (op.isText() ? String.join("\u0000", values) : value);
+        }
+
+        static Predicate of(String rule, RuleSetDefinition.Condition c) {
+            Field field = parseName(Field.class, c.getField(), rule);
+            Op op = parseName(Op.class, c.getOp(), rule);
+            if (op.isText() != field.isText()) {
+                throw new IllegalArgumentException("Regra " + rule + ": '" + c.getOp()
+                        + "' não se aplica ao campo '" + c.getField() + "'");
+            }
+            if (!op.isText()) {
+                if (c.getValue() == null) {
+                    throw new IllegalArgumentException("Regra " + rule + ": falta 'value'");
+                }
+                return new Predicate(field, op, null, c.getValue());
+            }
+            if (c.getValues() == null || c.getValues().isEmpty()) {
+                throw new IllegalArgumentException("Regra " + rule + ": falta 'values'");
+            }
+            // os campos de texto já estão em minúsculas
+            Set<String> values = new TreeSet<>();
+            for (String v : c.getValues()) {
+                values.add(v.toLowerCase(Locale.ROOT));
+            }
+            return new Predicate(field, op, values.toArray(new String[0]), 0);
+        }
+
+        /** Resolvido pelos autômatos de {@link Keywords}. */
+        boolean isKeyword() {
+            return op == Op.CONTAINS && field.ordinal() <= Field.COMPACT.ordinal();
+        }
+
+        /**
+         * Ordem dos bits: "contains" dos autômatos (por campo), depois por
+         * custo de avaliação: números e igualdade, prefixo/sufixo, varreduras.
+         */
+        int order() {
+            if (isKeyword()) {
+                return field.ordinal();
+            }
+            return 10 + switch (op) {
+                // randomness percorre o host
+                case GREATER_THAN, LESS_THAN -> field == Field.RANDOMNESS ? 2 : 0;
+                case EQUALS -> 0;
+                case STARTS_WITH, ENDS_WITH -> 1;
+                case CONTAINS -> 2;
+            };
+        }
+
+        boolean test(UrlFeatures f) {
+            return switch (op) {
+                case GREATER_THAN -> field.number(f) > value;
+                case LESS_THAN -> field.number(f) < value;
+                case CONTAINS -> contains(field.text(f));
+                case EQUALS -> equals(field.text(f));
+                case STARTS_WITH -> startsWith(field.text(f));
+                case ENDS_WITH -> endsWith(field.text(f));
+            };
+        }
+
+        private boolean contains(String text) {
+            for (String v : values) {
+                if (text.contains(v)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean equals(String text) {
+            for (String v : values) {
+                if (text.equals(v)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean startsWith(String text) {
+            for (String v : values) {
+                if (text.startsWith(v)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean endsWith(String text) {
+            for (String v : values) {
+                if (text.endsWith(v)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
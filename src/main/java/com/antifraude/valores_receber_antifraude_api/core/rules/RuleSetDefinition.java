@@ -0,0 +1,141 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato do arquivo de regras (JSON) lido pelo {@link RulesEngine}.
+ *
+ * <pre>
+ * {
+ *   "suspectThreshold": 60,
+ *   "maxScore": 100,
+ *   "rules": [
+ *     { "code": "HTTP_NO_TLS", "score": 25, "evidence": "URL usa http (sem TLS).",
+ *       "when": [ { "field": "scheme", "op": "equals", "values": ["http"] } ] }
+ *   ]
+ * }
+ * </pre>
+ *
+ * Uma regra dispara quando todas as condições de {@code when} valem.
+ * Campos e operadores aceitos estão em {@link RuleSet}.
+ */
+public class RuleSetDefinition {
+
+    private int suspectThreshold = 60;
+    private int maxScore = 100;
+    private List<Rule> rules = new ArrayList<>();
+
+    public int getSuspectThreshold() {
+        return suspectThreshold;
+    }
+
+    public void setSuspectThreshold(int suspectThreshold) {
+        this.suspectThreshold = suspectThreshold;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public void setMaxScore(int maxScore) {
+        this.maxScore = maxScore;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public static class Rule {
+
+        private String code;
+        private int score;
+        private String evidence;
+        private List<Condition> when = new ArrayList<>();
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public void setScore(int score) {
+            this.score = score;
+        }
+
+        public String getEvidence() {
+            return evidence;
+        }
+
+        public void setEvidence(String evidence) {
+            this.evidence = evidence;
+        }
+
+        public List<Condition> getWhen() {
+            return when;
+        }
+
+        public void setWhen(List<Condition> when) {
+            this.when = when;
+        }
+    }
+
+    public static class Condition {
+
+        private String field; // url | host | compact | scheme | tld | baseDomain | length | ...
+        private String op; // contains | equals | startsWith | endsWith | greaterThan | lessThan
+        private List<String> values; // operadores de texto (qualquer um basta)
+        private Double value; // operadores numéricos
+        private boolean negate;
+
+        public String getField() {
+            return field;
+        }
+
+        public void setField(String field) {
+            this.field = field;
+        }
+
+        public String getOp() {
+            return op;
+        }
+
+        public void setOp(String op) {
+            this.op = op;
+        }
+
+        public List<String> getValues() {
+            return values;
+        }
+
+        public void setValues(List<String> values) {
+            this.values = values;
+        }
+
+        public Double getValue() {
+            return value;
+        }
+
+        public void setValue(Double value) {
+            this.value = value;
+        }
+
+        public boolean isNegate() {
+            return negate;
+        }
+
+        public void setNegate(boolean negate) {
+            this.negate = negate;
+        }
+    }
+}
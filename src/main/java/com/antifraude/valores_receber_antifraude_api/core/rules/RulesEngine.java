@@ -1,130 +1,165 @@
 package com.antifraude.valores_receber_antifraude_api.core.rules;
 
 import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Locale;
-
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Motor de regras local.
+ *
+ * Ideia:
+ * - Somar "pontos de risco" conforme padrões.
+ * - Se passar de um limiar alto → SUSPECT.
+ * - Se não tiver sinal forte → UNKNOWN (deixa ThreatIntel + IA decidirem).
+ *
+ * (Decisão de LEGIT fica para Whitelist / ThreatIntel CLEAN / IA.)
+ *
+ * As regras ficam num arquivo JSON ({@link RuleSetDefinition}), compilado
+ * num {@link RuleSet}. Sem {@code antifraude.rules.path} vale o arquivo
+ * padrão do classpath ({@code rules/default-rules.json}); com ele, o
+ * arquivo é relido quando muda e o conjunto novo entra no lugar do antigo
+ * de uma vez só. Um arquivo inválido na recarga é ignorado (fica o
+ * conjunto anterior); na subida, impede a aplicação de iniciar.
+ */
 @Component
 public class RulesEngine {
 
+    private static final Logger log = LoggerFactory.getLogger(RulesEngine.class);
+
+    static final String DEFAULT_RULES = "rules/default-rules.json";
+
+    /**
+     * Veredito das regras. As regras que dispararam ficam como máscara do
+     * {@link RuleSet} que avaliou; o {@link Findings} só é montado por quem
+     * precisa das evidências (veredito decidido pelas regras ou
+     * provisório), não a cada verificação.
+     */
     public static class Result {
         public final Verdict verdict;
         public final int score;
-        public final List<String> ruleHits;
-        public final List<String> evidence;
+        private final RuleSet rules;
+        private final long fired;
 
-        public Result(Verdict verdict, int score, List<String> ruleHits, List<String> evidence) {
+        public Result(Verdict verdict, int score, RuleSet rules, long fired) {
             this.verdict = verdict;
             this.score = score;
-            this.ruleHits = ruleHits;
-            this.evidence = evidence;
+            this.rules = rules;
+            this.fired = fired;
         }
-    }
 
-    /**
-     * Motor de regras local.
-     *
-     * Ideia:
-     * - Somar "pontos de risco" conforme padrões.
-     * - Se passar de um limiar alto → SUSPECT.
-     * - Se não tiver sinal forte → UNKNOWN (deixa ThreatIntel + IA decidirem).
-     *
-     * (Decisão de LEGIT fica para Whitelist / ThreatIntel CLEAN / IA.)
-     */
-    public Result evaluate(String normalizedUrl, String domain) {
-        String url = normalizedUrl == null ? "" : normalizedUrl.toLowerCase(Locale.ROOT);
-        String host = domain == null ? "" : domain.toLowerCase(Locale.ROOT);
-        // Versão “compacta” para pegar coisas tipo valores-a-receber /
-        // valores_a_receber
-        String compact = url.replaceAll("[^a-z0-9]", "");
-
-        int score = 0;
-        List<String> hits = new ArrayList<>();
-        List<String> evidence = new ArrayList<>();
-
-        // --- Regras de risco baixo / moderado (não decidem sozinhas) ---
-
-        // HTTP sem TLS
-        if (url.startsWith("http://")) {
-            score += 25;
-            hits.add("HTTP_NO_TLS");
-            evidence.add("URL usa http (sem TLS).");
+        /**
+         * Regras que dispararam, num {@link Findings} novo (pode ser
+         * alterado por quem chamou).
+         */
+        public Findings findings() {
+            return Findings.rules(rules, fired);
         }
+    }
 
-        // Comprimento de URL muito grande (tende a ser suspeito)
-        if (url.length() > 150) {
-            score += 30;
-            hits.add("LONG_URL");
-            evidence.add("URL muito longa (mais de 150 caracteres).");
+    private final ObjectMapper objectMapper;
+    private final Path rulesPath; // null = arquivo padrão do classpath
+
+    private volatile RuleSet ruleSet;
+    // versão do arquivo carregado (só a thread de recarga mexe)
+    private long loadedModified;
+    private long loadedSize;
+
+    public RulesEngine(ObjectMapper objectMapper,
+            @Value("${antifraude.rules.path:}") String rulesPath) {
+        this.objectMapper = objectMapper;
+        this.rulesPath = rulesPath.isBlank() ? null : Path.of(rulesPath);
+        try {
+            this.ruleSet = rulesPath.isBlank() ? loadDefault() : loadFile();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Falha ao carregar as regras de "
+                    + (this.rulesPath == null ? DEFAULT_RULES : this.rulesPath), e);
         }
+        // mapeia o modelo do campo randomness já na subida, não na primeira verificação
+        NgramModel.defaultModel();
+        log.info("Regras carregadas: {} regras", ruleSet.size());
+    }
 
-        // Parâmetros estranhos no path
-        if (url.contains("@") || url.contains("..") || url.contains("%00")) {
-            score += 30;
-            hits.add("SUSPICIOUS_PATH");
-            evidence.add("Caminho da URL contém padrões suspeitos (@, .., %00).");
-        }
+    /**
+     * Características da URL extraídas com os autômatos do conjunto de
+     * regras atual: as condições {@code contains} já saem da extração.
+     */
+    public UrlFeatures features(UrlNormalizer.Result norm) {
+        return UrlFeatures.extract(norm, ruleSet.keywords());
+    }
 
-        // --- Regras de risco alto (podem empurrar para SUSPECT) ---
+    public Result evaluate(String normalizedUrl, String domain) {
+        return evaluate(UrlFeatures.of(normalizedUrl, domain));
+    }
 
-        // Palavras muito delicadas em contexto financeiro (no domínio)
-        if (host.contains("secure")
-                || host.contains("auth")
-                || host.contains("banking")
-                || host.contains("login")
-                || host.contains("account")
-                || host.contains("pix")
-                || host.contains("boleto")) {
+    /**
+     * Avalia sobre as características já extraídas. Vindas de
+     * {@link #features}, nenhuma passada extra sobre a URL (se o conjunto
+     * foi trocado no meio, as condições de texto são varridas de novo).
+     */
+    public Result evaluate(UrlFeatures f) {
+        RuleSet rules = ruleSet;
+        long fired = rules.match(f);
+        int score = rules.score(fired);
+        return new Result(rules.verdict(score), score, rules, fired);
+    }
 
-            score += 40;
-            hits.add("SUSPICIOUS_KEYWORD");
-            evidence.add("Domínio contém palavras sensíveis (secure, auth, banking, login, account, pix, boleto).");
+    /**
+     * Relê o arquivo de regras se a data de modificação ou o tamanho
+     * mudaram.
+     */
+    @Scheduled(fixedDelayString = "${antifraude.rules.reload-interval-ms:5000}")
+    public void reloadIfChanged() {
+        if (rulesPath == null) {
+            return;
         }
-
-        // Encurtadores/“parecidos” falsos
-        if (host.contains("bit-llly")
-                || host.contains("tinyurl-security")
-                || host.contains("secure-link")
-                || host.contains("short-secure")) {
-
-            score += 40;
-            hits.add("FAKE_SHORTENER");
-            evidence.add("Domínio parece encurtador/seguro falso (bit-llly, tinyurl-security, etc.).");
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(rulesPath, BasicFileAttributes.class);
+            if (attrs.lastModifiedTime().toMillis() == loadedModified && attrs.size() == loadedSize) {
+                return;
+            }
+            // marca a versão antes de compilar: um arquivo inválido gera um
+            // único aviso, não um por verificação
+            loadedModified = attrs.lastModifiedTime().toMillis();
+            loadedSize = attrs.size();
+            RuleSet reloaded = compileFile();
+            ruleSet = reloaded;
+            log.info("Regras recarregadas de {}: {} regras", rulesPath, reloaded.size());
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Regras de {} não recarregadas; mantendo o conjunto anterior", rulesPath, e);
         }
+    }
 
-        // Golpe específico de "valores a receber" / FGTS em domínio não oficial
-        if ((compact.contains("valoresareceber")
-                || compact.contains("valoreareceber")
-                || compact.contains("valoresreceber")
-                || compact.contains("fgts"))
-                && !host.endsWith("gov.br")
-                && !host.endsWith("caixa.gov.br")
-                && !host.endsWith("bb.com.br")) {
-
-            score += 80; // empurra fácil acima do threshold
-            hits.add("VALORES_A_RECEBER_PATTERN");
-            evidence.add("Padrão de 'valores a receber/FGTS' encontrado em domínio não oficial.");
+    private RuleSet loadDefault() throws IOException {
+        try (InputStream in = RulesEngine.class.getClassLoader().getResourceAsStream(DEFAULT_RULES)) {
+            if (in == null) {
+                throw new IOException("Recurso não encontrado: " + DEFAULT_RULES);
+            }
+            return RuleSet.compile(objectMapper.readValue(in, RuleSetDefinition.class));
         }
+    }
 
-        // --- Decisão final baseada no score ---
-
-        Verdict verdict;
-        int finalScore = Math.min(score, 100);
-
-        // Limite para marcar como SUSPECT
-        final int SUSPECT_THRESHOLD = 60;
+    private RuleSet loadFile() throws IOException {
+        // atributos antes da leitura: se o arquivo mudar no meio, a próxima
+        // verificação vê a diferença e relê
+        BasicFileAttributes attrs = Files.readAttributes(rulesPath, BasicFileAttributes.class);
+        loadedModified = attrs.lastModifiedTime().toMillis();
+        loadedSize = attrs.size();
+        return compileFile();
+    }
 
-        if (finalScore >= SUSPECT_THRESHOLD) {
-            verdict = Verdict.SUSPECT;
-        } else {
-            // Qualquer caso abaixo do limiar fica como UNKNOWN
-            // para ThreatIntel + IA decidirem.
-            verdict = Verdict.UNKNOWN;
+    private RuleSet compileFile() throws IOException {
+        try (InputStream in = Files.newInputStream(rulesPath)) {
+            return RuleSet.compile(objectMapper.readValue(in, RuleSetDefinition.class));
         }
-
-        return new Result(verdict, finalScore, hits, evidence);
     }
 }
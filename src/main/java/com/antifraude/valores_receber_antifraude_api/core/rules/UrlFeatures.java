@@ -0,0 +1,206 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Características da URL extraídas uma única vez por requisição e
+ * compartilhadas por todas as etapas do pipeline (regras, ThreatIntel,
+ * stub do VirusTotal e IA).
+ *
+ * A URL é percorrida uma vez: na mesma passada saem a forma compacta, os
+ * contadores de caracteres e os acertos de palavras-chave dos autômatos de
+ * {@link Keywords}; o host (curto) é percorrido outra vez para separar os
+ * labels. Nenhuma etapa posterior precisa reanalisar a string.
+ */
+public final class UrlFeatures {
+
+    /** URL como veio do {@link UrlNormalizer}. */
+    public final String normalizedUrl;
+    /** URL em minúsculas. */
+    public final String url;
+    /** Host em minúsculas ("" se a entrada não é URL). */
+    public final String host;
+    /** Esqueleto de confundíveis do host ({@link HostSkeleton}); o próprio host quando igual. */
+    public final String hostSkeleton;
+    /** Esquema sem "://" ("" se não houver). */
+    public final String scheme;
+    /** Só [a-z0-9] da URL (pega valores-a-receber / valores_a_receber). */
+    public final String compact;
+    public final List<String> hostLabels;
+    public final String tld;
+    /** Dois últimos labels (aproximação simples, não cobre a PSL). */
+    public final String baseDomain;
+
+    public final int length;
+    public final int digitCount;
+    public final int letterCount;
+    /** Qualquer caractere fora de [a-z0-9]. */
+    public final int specialCount;
+    public final int dotCount;
+    public final int hyphenCount;
+    public final int underscoreCount;
+    public final int atCount;
+    public final int percentCount;
+
+    /** Máscaras de {@link Keywords#URL} sobre a URL. */
+    public final long urlKeywords;
+    /** Máscaras de {@link Keywords#HOST} sobre o host. */
+    public final long hostKeywords;
+    /** Máscaras de {@link Keywords#COMPACT} sobre a forma compacta da URL. */
+    public final long compactKeywords;
+    /** Idem, sobre a forma compacta de URL + host (heurísticas do ThreatIntel). */
+    public final long compactWithHostKeywords;
+    /** Autômatos que produziram as máscaras acima. */
+    public final Keywords.Matchers keywords;
+
+    private UrlFeatures(String normalizedUrl, String url, String host, String scheme, String compact,
+            List<String> hostLabels, int[] counts, long urlKeywords, long hostKeywords,
+            long compactKeywords, long compactWithHostKeywords, Keywords.Matchers keywords) {
+        this.normalizedUrl = normalizedUrl;
+        this.url = url;
+        this.host = host;
+        this.hostSkeleton = HostSkeleton.of(host);
+        this.scheme = scheme;
+        this.compact = compact;
+        this.hostLabels = hostLabels;
+        this.tld = hostLabels.isEmpty() ? "" : hostLabels.get(hostLabels.size() - 1);
+        this.baseDomain = hostLabels.size() <= 2
+                ? host
+                : hostLabels.get(hostLabels.size() - 2) + "." + tld;
+        this.length = url.length();
+        this.digitCount = counts[DIGIT];
+        this.letterCount = counts[LETTER];
+        this.specialCount = counts[SPECIAL];
+        this.dotCount = counts[DOT];
+        this.hyphenCount = counts[HYPHEN];
+        this.underscoreCount = counts[UNDERSCORE];
+        this.atCount = counts[AT];
+        this.percentCount = counts[PERCENT];
+        this.urlKeywords = urlKeywords;
+        this.hostKeywords = hostKeywords;
+        this.compactKeywords = compactKeywords;
+        this.compactWithHostKeywords = compactWithHostKeywords;
+        this.keywords = keywords;
+    }
+
+    public static UrlFeatures of(UrlNormalizer.Result norm) {
+        return of(norm.normalizedUrl, norm.domain, Keywords.DEFAULT);
+    }
+
+    public static UrlFeatures of(String normalizedUrl, String domain) {
+        return of(normalizedUrl, domain, Keywords.DEFAULT);
+    }
+
+    /**
+     * @param keywords autômatos a percorrer; versões estendidas dos de
+     *                 {@link Keywords} (ver {@link RulesEngine#features})
+     */
+    public static UrlFeatures extract(UrlNormalizer.Result norm, Keywords.Matchers keywords) {
+        return of(norm.normalizedUrl, norm.domain, keywords);
+    }
+
+    private static UrlFeatures of(String normalizedUrl, String domain, Keywords.Matchers keywords) {
+        KeywordMatcher urlMatcher = keywords.url;
+        KeywordMatcher hostMatcher = keywords.host;
+        KeywordMatcher compactMatcher = keywords.compact;
+        String raw = normalizedUrl == null ? "" : normalizedUrl;
+        String url = raw.toLowerCase(Locale.ROOT);
+        String host = domain == null ? "" : domain.toLowerCase(Locale.ROOT);
+
+        // ---------- passada única sobre a URL ----------
+        int[] counts = new int[COUNTERS];
+        char[] compact = new char[url.length()];
+        int compactLen = 0;
+        int schemeEnd = -1;
+        int urlState = 0;
+        int compactState = 0;
+        long urlHits = 0;
+        long compactHits = 0;
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            urlState = urlMatcher.step(urlState, c);
+            urlHits |= urlMatcher.hitsAt(urlState);
+
+            boolean letter = c >= 'a' && c <= 'z';
+            if (letter || (c >= '0' && c <= '9')) {
+                counts[letter ? LETTER : DIGIT]++;
+                compact[compactLen++] = c;
+                compactState = compactMatcher.step(compactState, c);
+                compactHits |= compactMatcher.hitsAt(compactState);
+                continue;
+            }
+            counts[SPECIAL]++;
+            switch (c) {
+                case '.' -> counts[DOT]++;
+                case '-' -> counts[HYPHEN]++;
+                case '_' -> counts[UNDERSCORE]++;
+                case '@' -> counts[AT]++;
+                case '%' -> counts[PERCENT]++;
+                case ':' -> {
+                    if (schemeEnd < 0 && url.startsWith("//", i + 1)) {
+                        schemeEnd = i;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        // ---------- host: labels, palavras-chave e a cauda compacta ----------
+        List<String> labels = new ArrayList<>(4);
+        int hostState = 0;
+        long hostHits = 0;
+        long compactWithHostHits = compactHits;
+        int labelStart = 0;
+        for (int i = 0; i <= host.length(); i++) {
+            if (i == host.length() || host.charAt(i) == '.') {
+                if (i > labelStart) {
+                    labels.add(host.substring(labelStart, i));
+                }
+                labelStart = i + 1;
+                if (i == host.length()) {
+                    break;
+                }
+            }
+            char c = host.charAt(i);
+            hostState = hostMatcher.step(hostState, c);
+            hostHits |= hostMatcher.hitsAt(hostState);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                compactState = compactMatcher.step(compactState, c);
+                compactWithHostHits |= compactMatcher.hitsAt(compactState);
+            }
+        }
+
+        return new UrlFeatures(raw, url, host,
+                schemeEnd < 0 ? "" : url.substring(0, schemeEnd),
+                new String(compact, 0, compactLen),
+                Collections.unmodifiableList(labels), counts,
+                urlHits, hostHits, compactHits, compactWithHostHits, keywords);
+    }
+
+    /**
+     * Proporção de dígitos entre os caracteres alfanuméricos.
+     */
+    public double digitRatio() {
+        int alnum = digitCount + letterCount;
+        return alnum == 0 ? 0.0 : (double) digitCount / alnum;
+    }
+
+    public int labelCount() {
+        return hostLabels.size();
+    }
+
+    // índices dos contadores preenchidos na passada
+    private static final int DIGIT = 0;
+    private static final int LETTER = 1;
+    private static final int SPECIAL = 2;
+    private static final int DOT = 3;
+    private static final int HYPHEN = 4;
+    private static final int UNDERSCORE = 5;
+    private static final int AT = 6;
+    private static final int PERCENT = 7;
+    private static final int COUNTERS = 8;
+}
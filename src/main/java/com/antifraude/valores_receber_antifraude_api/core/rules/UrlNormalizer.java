@@ -1,7 +1,24 @@
 package com.antifraude.valores_receber_antifraude_api.core.rules;
 
-import java.net.URI;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Hashing;
 
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Normaliza a entrada para {@code esquema://host/path} (sem porta, query
+ * ou fragment), com esquema e host em minúsculas e o path decodificado.
+ *
+ * A análise é feita pelo {@link UrlTokenizer}, que reproduz as regras de
+ * {@link java.net.URI} sem exceções: entrada que não é URL (texto, e-mail)
+ * sai como texto puro sem montar e descartar uma exceção. Só a string
+ * final é alocada; quando a entrada já está na forma normalizada ela
+ * própria é devolvida.
+ *
+ * Host internacionalizado (IDN) é convertido para punycode antes da
+ * análise, como fazem os navegadores: "cаixa.gov.br" (com "а" cirílico)
+ * sai como "xn--ixa-..." e não mais como URL sem host.
+ */
 public class UrlNormalizer {
 
     public static class Result {
@@ -15,20 +32,162 @@ public class UrlNormalizer {
     }
 
     public static Result normalize(String rawInput) {
-        try {
-            URI uri = new URI(rawInput.trim());
-            if (uri.getScheme() == null) {
-                // assume http se não tiver esquema
-                uri = new URI("http://" + rawInput.trim());
-            }
-            String host = (uri.getHost() != null) ? uri.getHost().toLowerCase() : "";
-            String path = (uri.getPath() != null) ? uri.getPath() : "";
-            String normalized = uri.getScheme().toLowerCase() + "://" + host + path;
-            return new Result(normalized, host);
-        } catch (Exception e) {
+        String raw = rawInput.trim();
+        String url = toAsciiHost(raw);
+        UrlTokenizer t = new UrlTokenizer();
+        // sem esquema: assume http (a entrada precisa ser válida das duas formas)
+        if (!t.parse(url, false) || (!t.hasScheme() && !t.parse(url, true))) {
             // não é URL: devolve como texto puro
-            String raw = rawInput.trim();
             return new Result(raw, "");
         }
+        return build(url, t);
+    }
+
+    /**
+     * Troca o host por punycode ({@link IDN#toASCII}) quando ele tem
+     * caracteres fora do ASCII. A autoridade é recortada de forma simples
+     * (depois de "://", até '/', '?' ou '#', sem userinfo e porta); se o
+     * resultado não for URL válida, o chamador descarta a conversão.
+     *
+     * @return a própria entrada quando não há o que converter
+     */
+    static String toAsciiHost(String raw) {
+        int sep = raw.indexOf("://");
+        int start = sep < 0 ? 0 : sep + 3;
+        int end = start;
+        boolean ascii = true;
+        for (; end < raw.length(); end++) {
+            char c = raw.charAt(end);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            ascii &= c < 0x80;
+        }
+        if (ascii) {
+            return raw;
+        }
+        int hostStart = raw.lastIndexOf('@', end - 1) + 1;
+        if (hostStart < start) {
+            hostStart = start;
+        }
+        int hostEnd = raw.lastIndexOf(':', end - 1);
+        if (hostEnd < hostStart) {
+            hostEnd = end;
+        }
+        String host = raw.substring(hostStart, hostEnd);
+        if (Hashing.isAscii(host)) {
+            return raw;
+        }
+        try {
+            String converted = IDN.toASCII(host, IDN.USE_STD3_ASCII_RULES);
+            return raw.substring(0, hostStart) + converted + raw.substring(hostEnd);
+        } catch (IllegalArgumentException e) {
+            return raw; // não é nome de host válido: segue como veio
+        }
+    }
+
+    private static Result build(String raw, UrlTokenizer t) {
+        int schemeLen = t.httpPrefixed() ? 0 : t.schemeEnd;
+        int hs = t.hostStart;
+        int hostLen = hs == UrlTokenizer.NONE ? 0 : t.hostEnd - hs;
+        int ps = t.pathStart;
+        int pathLen = ps == UrlTokenizer.NONE ? 0 : t.pathEnd - ps;
+        boolean escaped = t.pathEscaped;
+
+        // já normalizada: esquema://host/path, tudo em minúsculas e sem escapes
+        if (!t.httpPrefixed() && hostLen > 0 && hs == schemeLen + 3 && t.hostEnd == ps
+                && t.pathEnd == raw.length() && !escaped && !hasUpper(raw, 0, t.hostEnd)) {
+            return new Result(raw, raw.substring(hs, t.hostEnd));
+        }
+
+        // o path decodificado nunca é maior que o original (%XX -> 1 char no máximo)
+        int schemeOut = t.httpPrefixed() ? 4 : schemeLen;
+        char[] out = new char[schemeOut + 3 + hostLen + pathLen];
+        int o = 0;
+        if (t.httpPrefixed()) {
+            out[o++] = 'h';
+            out[o++] = 't';
+            out[o++] = 't';
+            out[o++] = 'p';
+        } else {
+            o = lowerAscii(raw, 0, schemeLen, out, o);
+        }
+        out[o++] = ':';
+        out[o++] = '/';
+        out[o++] = '/';
+        int hostOut = o;
+        if (hostLen > 0) {
+            o = lowerAscii(raw, hs, t.hostEnd, out, o);
+        }
+        if (pathLen > 0) {
+            if (escaped) {
+                o = decode(raw, ps, t.pathEnd, out, o);
+            } else {
+                raw.getChars(ps, t.pathEnd, out, o);
+                o += pathLen;
+            }
+        }
+        String domain = hostLen == 0 ? "" : new String(out, hostOut, hostLen);
+        return new Result(new String(out, 0, o), domain);
+    }
+
+    /**
+     * Decodifica os escapes %XX de {@code s[from, to)} como {@link java.net.URI#getPath()}:
+     * cada sequência de escapes consecutivos é lida como UTF-8 (bytes
+     * inválidos viram U+FFFD). Os escapes já foram validados pelo tokenizador.
+     */
+    private static int decode(String s, int from, int to, char[] out, int o) {
+        int i = from;
+        while (i < to) {
+            char c = s.charAt(i);
+            if (c != '%') {
+                out[o++] = c;
+                i++;
+                continue;
+            }
+            int runEnd = i;
+            boolean ascii = true;
+            while (runEnd < to && s.charAt(runEnd) == '%') {
+                ascii &= hexByte(s, runEnd) < 0x80;
+                runEnd += 3;
+            }
+            if (ascii) {
+                for (; i < runEnd; i += 3) {
+                    out[o++] = (char) hexByte(s, i);
+                }
+            } else {
+                // caminho raro (UTF-8 escapado): decodificação do JDK
+                byte[] bytes = new byte[(runEnd - i) / 3];
+                for (int b = 0; i < runEnd; i += 3) {
+                    bytes[b++] = (byte) hexByte(s, i);
+                }
+                String decoded = new String(bytes, StandardCharsets.UTF_8);
+                decoded.getChars(0, decoded.length(), out, o);
+                o += decoded.length();
+            }
+        }
+        return o;
+    }
+
+    private static int hexByte(String s, int percent) {
+        return (Character.digit(s.charAt(percent + 1), 16) << 4) | Character.digit(s.charAt(percent + 2), 16);
+    }
+
+    private static int lowerAscii(String s, int from, int to, char[] out, int o) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            out[o++] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return o;
+    }
+
+    private static boolean hasUpper(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return true;
+            }
+        }
+        return false;
     }
 }
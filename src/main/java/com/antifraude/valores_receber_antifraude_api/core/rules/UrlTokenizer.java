@@ -0,0 +1,635 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+/**
+ * Tokenizador de URLs do {@link UrlNormalizer}.
+ *
+ * Aceita exatamente a mesma gramática que {@link java.net.URI} (RFC 2396
+ * com os desvios do JDK: path vazio, host registry-based, IPv6 com scope
+ * id), mas só anota deslocamentos na entrada: não cria substrings nem usa
+ * exceções. Entrada que o {@code URI} rejeitaria faz {@link #parse}
+ * devolver false.
+ *
+ * A estrutura segue a do parser do JDK, método a método, para que a
+ * equivalência possa ser conferida lado a lado.
+ */
+final class UrlTokenizer {
+
+    static final int NONE = -1;
+
+    /** Erro de sintaxe (URISyntaxException / NumberFormatException no JDK). */
+    private static final int ERR = Integer.MIN_VALUE;
+
+    private String input;
+    private int n;
+    private boolean httpPrefix;
+    private int ipv6byteCount;
+    private boolean sawEscape;
+
+    /** Fim do esquema ([0, schemeEnd)); NONE se não houver. */
+    int schemeEnd;
+    /** Host ([hostStart, hostEnd)); NONE se o URI não tiver host. */
+    int hostStart;
+    int hostEnd;
+    /** Path ([pathStart, pathEnd)); NONE em URIs opacos. */
+    int pathStart;
+    int pathEnd;
+    /** O path tem escapes %XX. */
+    boolean pathEscaped;
+
+    /**
+     * @param httpPrefix analisa como se a entrada viesse depois de
+     *                   {@code "http://"}, sem concatenar
+     * @return false se {@code new URI(...)} lançaria exceção
+     */
+    boolean parse(String s, boolean httpPrefix) {
+        this.input = s;
+        this.n = s.length();
+        this.httpPrefix = httpPrefix;
+        this.ipv6byteCount = 0;
+        schemeEnd = hostStart = hostEnd = pathStart = pathEnd = NONE;
+        pathEscaped = false;
+        return parse();
+    }
+
+    boolean hasScheme() {
+        return httpPrefix || schemeEnd != NONE;
+    }
+
+    boolean httpPrefixed() {
+        return httpPrefix;
+    }
+
+    // ---------- Gramática ----------
+
+    private boolean parse() {
+        int p;
+        if (httpPrefix) {
+            p = parseHierarchical(0);
+            if (p == ERR) {
+                return false;
+            }
+        } else {
+            p = scan(0, n, L_HIER_DELIM, H_HIER_DELIM, ':');
+            if (p >= 0 && at(p, n, ':')) {
+                if (p == 0
+                        || !checkChars(0, 1, L_ALPHA, H_ALPHA)
+                        || !checkChars(1, p, L_SCHEME, H_SCHEME)) {
+                    return false;
+                }
+                schemeEnd = p;
+                p++; // ':'
+                if (at(p, n, '/')) {
+                    p = parseHierarchical(p);
+                    if (p == ERR) {
+                        return false;
+                    }
+                } else {
+                    // URI opaco (mailto:..., javascript:...): sem host nem path
+                    int q = scanTo(p, n, L_HASH, H_HASH);
+                    if (q <= p || !checkChars(p, q, L_URIC, H_URIC)) {
+                        return false;
+                    }
+                    p = q;
+                }
+            } else {
+                p = parseHierarchical(0);
+                if (p == ERR) {
+                    return false;
+                }
+            }
+        }
+        if (at(p, n, '#')) {
+            if (!checkChars(p + 1, n, L_URIC, H_URIC)) {
+                return false;
+            }
+            p = n;
+        }
+        return p >= n;
+    }
+
+    private int parseHierarchical(int start) {
+        int p = start;
+        if (httpPrefix || (at(p, n, '/') && at(p + 1, n, '/'))) {
+            if (!httpPrefix) {
+                p += 2;
+            }
+            // fim da autoridade e, na mesma passada, se ela é só [a-zA-Z0-9.:-]
+            // (o caso comum, que dispensa as varreduras de classe)
+            int q = p;
+            boolean simple = true;
+            for (; q < n; q++) {
+                char c = input.charAt(q);
+                if (match(c, L_HIER_DELIM, H_HIER_DELIM)) {
+                    break;
+                }
+                simple &= match(c, L_SIMPLE_AUTHORITY, H_SIMPLE_AUTHORITY);
+            }
+            if (q > p) {
+                p = parseAuthority(p, q, simple);
+                if (p == ERR) {
+                    return ERR;
+                }
+            } else if (q >= n) {
+                return ERR; // esperava autoridade
+            }
+        }
+        // path e query terminam em caracteres fora das suas classes ('?', '#'),
+        // então a verificação e a busca do delimitador são a mesma varredura
+        sawEscape = false;
+        int q = scan(p, n, L_PATH, H_PATH);
+        if (q == ERR || (q < n && !match(input.charAt(q), L_QUERY_DELIM, H_QUERY_DELIM))) {
+            return ERR;
+        }
+        pathStart = p;
+        pathEnd = q;
+        pathEscaped = sawEscape;
+        p = q;
+        if (at(p, n, '?')) {
+            q = scan(p + 1, n, L_URIC, H_URIC);
+            if (q == ERR || (q < n && input.charAt(q) != '#')) {
+                return ERR;
+            }
+            p = q;
+        }
+        return p;
+    }
+
+    private int parseAuthority(int start, int end, boolean simple) {
+        int p = start;
+        boolean serverChars;
+        boolean regChars;
+        if (simple) {
+            serverChars = regChars = true;
+        } else {
+            // mesma peculiaridade do JDK: só não aceita '%' se a autoridade começa com ']'
+            int s = scanTo(p, end, L_CLOSE_BRACKET, H_CLOSE_BRACKET) > p
+                    ? scan(p, end, L_SERVER_PERCENT, H_SERVER_PERCENT)
+                    : scan(p, end, L_SERVER, H_SERVER);
+            if (s == ERR) {
+                return ERR;
+            }
+            serverChars = s == end;
+            int qreg = scan(p, end, L_REG_NAME, H_REG_NAME);
+            if (qreg == ERR) {
+                return ERR;
+            }
+            regChars = qreg == end;
+        }
+
+        if (regChars && !serverChars) {
+            return end; // autoridade registry-based: sem host
+        }
+
+        boolean skipParseException = regChars;
+        int q = p;
+        if (serverChars) {
+            q = parseServer(p, end, skipParseException, !simple);
+            if (q == ERR || q < end) {
+                clearHost();
+                q = p;
+            }
+        }
+        if (q < end && !regChars) {
+            return ERR;
+        }
+        return end;
+    }
+
+    private int parseServer(int start, int end, boolean skipParseException, boolean mayHaveUserInfo) {
+        int p = start;
+        int q = mayHaveUserInfo ? scan(p, end, L_HIER_DELIM, H_HIER_DELIM, '@') : end;
+        if (q >= p && at(q, end, '@')) {
+            if (!checkChars(p, q, L_USERINFO, H_USERINFO)) {
+                return ERR;
+            }
+            p = q + 1;
+        }
+
+        if (at(p, end, '[')) {
+            p++;
+            q = scan(p, end, L_HIER_DELIM, H_HIER_DELIM, ']');
+            if (q <= p || !at(q, end, ']')) {
+                return ERR;
+            }
+            int r = scanTo(p, q, L_PERCENT, H_PERCENT);
+            if (r > p) {
+                if (parseIPv6Reference(p, r) == ERR
+                        || r + 1 == q
+                        || !checkChars(r + 1, q, L_SCOPE_ID, H_SCOPE_ID)) {
+                    return ERR;
+                }
+            } else if (parseIPv6Reference(p, q) == ERR) {
+                return ERR;
+            }
+            hostStart = p - 1;
+            hostEnd = q + 1;
+            p = q + 1;
+        } else {
+            q = parseIPv4Address(p, end);
+            if (q <= p) {
+                q = parseHostname(p, end, skipParseException);
+                if (q == ERR) {
+                    return ERR;
+                }
+            }
+            p = q;
+        }
+
+        if (at(p, end, ':')) {
+            p++;
+            q = scanTo(p, end, L_SLASH, H_SLASH);
+            if (q > p) {
+                if (!checkChars(p, q, L_DIGIT, H_DIGIT) || parseInt(p, q) == ERR) {
+                    return ERR;
+                }
+                p = q;
+            }
+        } else if (p < end && skipParseException) {
+            return p;
+        }
+        return p < end ? ERR : p;
+    }
+
+    private int scanByte(int start, int end) {
+        int q = scan(start, end, L_DIGIT, H_DIGIT);
+        if (q <= start) {
+            return q;
+        }
+        int v = parseInt(start, q);
+        if (v == ERR) {
+            return ERR;
+        }
+        return v > 255 ? start : q;
+    }
+
+    private int scanIPv4Address(int start, int end, boolean strict) {
+        int p = start;
+        int q;
+        int m = scan(p, end, L_DIGIT | L_DOT, H_DIGIT | H_DOT);
+        if (m <= p || (strict && m != end)) {
+            return -1;
+        }
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if ((q = scanChar(p, m, '.')) <= p) {
+                    return ERR;
+                }
+                p = q;
+            }
+            if ((q = scanByte(p, m)) <= p) {
+                return ERR;
+            }
+            p = q;
+        }
+        return p < m ? ERR : p;
+    }
+
+    private int takeIPv4Address(int start, int end) {
+        int p = scanIPv4Address(start, end, true);
+        return p <= start ? ERR : p;
+    }
+
+    private int parseIPv4Address(int start, int end) {
+        int p = scanIPv4Address(start, end, false);
+        if (p == ERR) {
+            return -1;
+        }
+        if (p > start && p < end && input.charAt(p) != ':') {
+            p = -1;
+        }
+        if (p > start) {
+            hostStart = start;
+            hostEnd = p;
+        }
+        return p;
+    }
+
+    private int parseHostname(int start, int end, boolean skipParseException) {
+        int p = start;
+        int q;
+        int l = -1; // início do último label
+
+        do {
+            q = scan(p, end, L_ALPHANUM, H_ALPHANUM);
+            if (q <= p) {
+                break;
+            }
+            l = p;
+            p = q;
+            q = scan(p, end, L_ALPHANUM | L_DASH, H_ALPHANUM | H_DASH);
+            if (q > p) {
+                if (input.charAt(q - 1) == '-') {
+                    return ERR;
+                }
+                p = q;
+            }
+            q = scanChar(p, end, '.');
+            if (q <= p) {
+                break;
+            }
+            p = q;
+        } while (p < end);
+
+        if (p < end && !at(p, end, ':')) {
+            return skipParseException ? p : ERR;
+        }
+        if (l < 0 || (l > start && !match(input.charAt(l), L_ALPHA, H_ALPHA))) {
+            return ERR;
+        }
+        hostStart = start;
+        hostEnd = p;
+        return p;
+    }
+
+    private int parseIPv6Reference(int start, int end) {
+        int p = start;
+        boolean compressedZeros = false;
+
+        int q = scanHexSeq(p, end);
+        if (q == ERR) {
+            return ERR;
+        }
+        if (q > p) {
+            p = q;
+            if (at(p, end, ':') && at(p + 1, end, ':')) {
+                compressedZeros = true;
+                p = scanHexPost(p + 2, end);
+            } else if (at(p, end, ':')) {
+                p = takeIPv4Address(p + 1, end);
+                ipv6byteCount += 4;
+            }
+        } else if (at(p, end, ':') && at(p + 1, end, ':')) {
+            compressedZeros = true;
+            p = scanHexPost(p + 2, end);
+        }
+        if (p == ERR
+                || p < end
+                || ipv6byteCount > 16
+                || (!compressedZeros && ipv6byteCount < 16)
+                || (compressedZeros && ipv6byteCount == 16)) {
+            return ERR;
+        }
+        return p;
+    }
+
+    private int scanHexPost(int start, int end) {
+        int p = start;
+        if (p == end) {
+            return p;
+        }
+        int q = scanHexSeq(p, end);
+        if (q == ERR) {
+            return ERR;
+        }
+        if (q > p) {
+            p = q;
+            if (at(p, end, ':')) {
+                p = takeIPv4Address(p + 1, end);
+                ipv6byteCount += 4;
+            }
+        } else {
+            p = takeIPv4Address(p, end);
+            ipv6byteCount += 4;
+        }
+        return p;
+    }
+
+    private int scanHexSeq(int start, int end) {
+        int p = start;
+        int q = scan(p, end, L_HEX, H_HEX);
+        if (q <= p || at(q, end, '.')) {
+            return -1; // nada ou início de IPv4
+        }
+        if (q > p + 4) {
+            return ERR;
+        }
+        ipv6byteCount += 2;
+        p = q;
+        while (p < end) {
+            if (!at(p, end, ':') || at(p + 1, end, ':')) {
+                break;
+            }
+            p++;
+            q = scan(p, end, L_HEX, H_HEX);
+            if (q <= p) {
+                return ERR;
+            }
+            if (at(q, end, '.')) {
+                p--;
+                break;
+            }
+            if (q > p + 4) {
+                return ERR;
+            }
+            ipv6byteCount += 2;
+            p = q;
+        }
+        return p;
+    }
+
+    // ---------- Varredura ----------
+
+    private boolean at(int p, int end, char c) {
+        return p < end && input.charAt(p) == c;
+    }
+
+    private int scanChar(int p, int end, char c) {
+        return at(p, end, c) ? p + 1 : p;
+    }
+
+    /**
+     * Avança enquanto os caracteres pertencem à classe; com
+     * {@code L_ESCAPED} na máscara aceita também %XX e não-ASCII visível.
+     *
+     * @return primeira posição fora da classe ou ERR (escape malformado)
+     */
+    private int scan(int start, int end, long lowMask, long highMask) {
+        int p = start;
+        boolean escapes = (lowMask & L_ESCAPED) != 0;
+        while (p < end) {
+            char c = input.charAt(p);
+            if (match(c, lowMask, highMask)) {
+                p++;
+            } else if (!escapes) {
+                break;
+            } else if (c == '%') {
+                if (p + 3 <= end
+                        && match(input.charAt(p + 1), L_HEX, H_HEX)
+                        && match(input.charAt(p + 2), L_HEX, H_HEX)) {
+                    p += 3;
+                    sawEscape = true;
+                } else {
+                    return ERR;
+                }
+            } else if (c > 128 && !Character.isSpaceChar(c) && !Character.isISOControl(c)) {
+                p++;
+            } else {
+                break;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Avança até o primeiro caractere do conjunto (ou o fim).
+     */
+    private int scanTo(int start, int end, long lowMask, long highMask) {
+        int p = start;
+        while (p < end && !match(input.charAt(p), lowMask, highMask)) {
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Posição do primeiro {@code stop}, ou -1 se um caractere da classe
+     * "erro" aparecer antes dele.
+     */
+    private int scan(int start, int end, long errLow, long errHigh, char stop) {
+        for (int p = start; p < end; p++) {
+            char c = input.charAt(p);
+            if (match(c, errLow, errHigh)) {
+                return -1;
+            }
+            if (c == stop) {
+                return p;
+            }
+        }
+        return end;
+    }
+
+    private boolean checkChars(int start, int end, long lowMask, long highMask) {
+        int p = scan(start, end, lowMask, highMask);
+        return p != ERR && p >= end;
+    }
+
+    /**
+     * Dígitos já validados; ERR se não cabem num int (como Integer.parseInt).
+     */
+    private int parseInt(int start, int end) {
+        long v = 0;
+        for (int i = start; i < end; i++) {
+            v = v * 10 + (input.charAt(i) - '0');
+            if (v > Integer.MAX_VALUE) {
+                return ERR;
+            }
+        }
+        return (int) v;
+    }
+
+    private void clearHost() {
+        hostStart = hostEnd = NONE;
+    }
+
+    // ---------- Classes de caracteres (as mesmas de java.net.URI) ----------
+
+    private static boolean match(char c, long lowMask, long highMask) {
+        if (c == 0) {
+            return false;
+        }
+        if (c < 64) {
+            return ((1L << c) & lowMask) != 0;
+        }
+        if (c < 128) {
+            return ((1L << (c - 64)) & highMask) != 0;
+        }
+        return false;
+    }
+
+    private static long lowMask(String chars) {
+        long m = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (c < 64) {
+                m |= 1L << c;
+            }
+        }
+        return m;
+    }
+
+    private static long highMask(String chars) {
+        long m = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (c >= 64 && c < 128) {
+                m |= 1L << (c - 64);
+            }
+        }
+        return m;
+    }
+
+    private static long lowMask(char first, char last) {
+        long m = 0;
+        for (int c = Math.max(first, 1); c <= Math.min(last, 63); c++) {
+            m |= 1L << c;
+        }
+        return m;
+    }
+
+    private static long highMask(char first, char last) {
+        long m = 0;
+        for (int c = Math.max(first, 64); c <= Math.min(last, 127); c++) {
+            m |= 1L << (c - 64);
+        }
+        return m;
+    }
+
+    private static final long L_DIGIT = lowMask('0', '9');
+    private static final long H_DIGIT = 0L;
+    private static final long L_ALPHA = 0L;
+    private static final long H_ALPHA = highMask('A', 'Z') | highMask('a', 'z');
+    private static final long L_ALPHANUM = L_DIGIT | L_ALPHA;
+    private static final long H_ALPHANUM = H_DIGIT | H_ALPHA;
+    private static final long L_HEX = L_DIGIT;
+    private static final long H_HEX = highMask('A', 'F') | highMask('a', 'f');
+
+    private static final long L_MARK = lowMask("-_.!~*'()");
+    private static final long H_MARK = highMask("-_.!~*'()");
+    private static final long L_UNRESERVED = L_ALPHANUM | L_MARK;
+    private static final long H_UNRESERVED = H_ALPHANUM | H_MARK;
+    private static final long L_RESERVED = lowMask(";/?:@&=+$,[]");
+    private static final long H_RESERVED = highMask(";/?:@&=+$,[]");
+
+    /** Bit 0 (NUL nunca casa): marca classes que aceitam %XX e não-ASCII. */
+    private static final long L_ESCAPED = 1L;
+    private static final long H_ESCAPED = 0L;
+
+    private static final long L_URIC = L_RESERVED | L_UNRESERVED | L_ESCAPED;
+    private static final long H_URIC = H_RESERVED | H_UNRESERVED | H_ESCAPED;
+    private static final long L_PCHAR = L_UNRESERVED | L_ESCAPED | lowMask(":@&=+$,");
+    private static final long H_PCHAR = H_UNRESERVED | H_ESCAPED | highMask(":@&=+$,");
+    private static final long L_PATH = L_PCHAR | lowMask(";/");
+    private static final long H_PATH = H_PCHAR | highMask(";/");
+    private static final long L_DASH = lowMask("-");
+    private static final long H_DASH = highMask("-");
+    private static final long L_DOT = lowMask(".");
+    private static final long H_DOT = highMask(".");
+    private static final long L_USERINFO = L_UNRESERVED | L_ESCAPED | lowMask(";:&=+$,");
+    private static final long H_USERINFO = H_UNRESERVED | H_ESCAPED | highMask(";:&=+$,");
+    private static final long L_REG_NAME = L_UNRESERVED | L_ESCAPED | lowMask("$,;:@&=+");
+    private static final long H_REG_NAME = H_UNRESERVED | H_ESCAPED | highMask("$,;:@&=+");
+    private static final long L_SERVER = L_USERINFO | L_ALPHANUM | L_DASH | lowMask(".:@[]");
+    private static final long H_SERVER = H_USERINFO | H_ALPHANUM | H_DASH | highMask(".:@[]");
+    private static final long L_SERVER_PERCENT = L_SERVER | lowMask("%");
+    private static final long H_SERVER_PERCENT = H_SERVER | highMask("%");
+    private static final long L_SCHEME = L_ALPHA | L_DIGIT | lowMask("+-.");
+    private static final long H_SCHEME = H_ALPHA | H_DIGIT | highMask("+-.");
+    private static final long L_SCOPE_ID = L_ALPHANUM | lowMask("_.");
+    private static final long H_SCOPE_ID = H_ALPHANUM | highMask("_.");
+
+    // delimitadores usados como "pare aqui"
+    private static final long L_HIER_DELIM = lowMask("/?#");
+    private static final long H_HIER_DELIM = highMask("/?#");
+    private static final long L_QUERY_DELIM = lowMask("?#");
+    private static final long H_QUERY_DELIM = highMask("?#");
+    private static final long L_SIMPLE_AUTHORITY = L_ALPHANUM | lowMask(".:-");
+    private static final long H_SIMPLE_AUTHORITY = H_ALPHANUM | highMask(".:-");
+    private static final long L_HASH = lowMask("#");
+    private static final long H_HASH = highMask("#");
+    private static final long L_SLASH = lowMask("/");
+    private static final long H_SLASH = highMask("/");
+    private static final long L_PERCENT = lowMask("%");
+    private static final long H_PERCENT = highMask("%");
+    private static final long L_CLOSE_BRACKET = lowMask("]");
+    private static final long H_CLOSE_BRACKET = highMask("]");
+}
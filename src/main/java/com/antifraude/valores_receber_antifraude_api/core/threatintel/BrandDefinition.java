@@ -0,0 +1,106 @@
+package com.antifraude.valores_receber_antifraude_api.core.threatintel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato do arquivo de marcas protegidas (JSON) lido pelo
+ * {@link BrandRegistry}.
+ *
+ * <pre>
+ * {
+ *   "brands": [
+ *     { "name": "Caixa", "terms": ["caixa"], "officialDomains": ["caixa.gov.br"],
+ *       "ignore": ["faixa", "baixa"], "code": "THREAT_INTEL_TYPO_CAIXA" }
+ *   ]
+ * }
+ * </pre>
+ *
+ * Um label do host (ou um pedaço dele entre hífens) a até
+ * {@code maxDistance} edições de um dos {@code terms} indica imitação da
+ * marca, a menos que o host seja um dos {@code officialDomains} (ou
+ * subdomínio). Sem {@code maxDistance}, a distância sai do tamanho do termo
+ * (ver {@link BrandIndex}). Termos de 5 ou mais caracteres também são
+ * procurados colados dentro do label ("minhacaixa-online"), a menos que
+ * a marca tenha {@code "embedded": false}. {@code code} é opcional: um nome de
+ * {@link com.antifraude.valores_receber_antifraude_api.core.model.enums.Signal}.
+ */
+public class BrandDefinition {
+
+    private List<Brand> brands = new ArrayList<>();
+
+    public List<Brand> getBrands() {
+        return brands;
+    }
+
+    public void setBrands(List<Brand> brands) {
+        this.brands = brands;
+    }
+
+    public static class Brand {
+
+        private String name;
+        private List<String> terms = new ArrayList<>();
+        private List<String> officialDomains = new ArrayList<>();
+        private List<String> ignore = new ArrayList<>(); // palavras comuns perto demais do termo
+        private Integer maxDistance;
+        private Boolean embedded; // procura os termos colados no label ("minhacaixa")
+        private String code;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public List<String> getTerms() {
+            return terms;
+        }
+
+        public void setTerms(List<String> terms) {
+            this.terms = terms;
+        }
+
+        public List<String> getOfficialDomains() {
+            return officialDomains;
+        }
+
+        public void setOfficialDomains(List<String> officialDomains) {
+            this.officialDomains = officialDomains;
+        }
+
+        public List<String> getIgnore() {
+            return ignore;
+        }
+
+        public void setIgnore(List<String> ignore) {
+            this.ignore = ignore;
+        }
+
+        public Integer getMaxDistance() {
+            return maxDistance;
+        }
+
+        public void setMaxDistance(Integer maxDistance) {
+            this.maxDistance = maxDistance;
+        }
+
+        public Boolean getEmbedded() {
+            return embedded;
+        }
+
+        public void setEmbedded(Boolean embedded) {
+            this.embedded = embedded;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+    }
+}
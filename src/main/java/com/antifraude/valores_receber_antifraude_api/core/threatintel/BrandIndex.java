@@ -0,0 +1,553 @@
+package com.antifraude.valores_receber_antifraude_api.core.threatintel;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Signal;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Hashing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Índice de marcas protegidas para detectar imitação (typosquatting) no
+ * host: "caixaa", "whatsap", "nubamk"...
+ *
+ * Índice de deleções no estilo SymSpell: cada termo entra com todas as
+ * variantes obtidas apagando até {@code k} caracteres (k = distância
+ * máxima do termo). Na consulta, as variantes de cada label do host (e de
+ * cada pedaço entre hífens) são procuradas no mesmo índice; dois textos a
+ * até k edições (inserção, remoção, troca ou transposição de vizinhos)
+ * sempre têm uma variante em comum, então o índice devolve todos os
+ * candidatos e a distância real (Damerau restrita) só é calculada para
+ * eles. O custo por label depende do tamanho do label, não do número de
+ * marcas.
+ *
+ * As variantes são guardadas como hash de 64 bits (sem strings): o índice
+ * não guarda texto além dos termos, e a consulta não monta nenhuma string
+ * enquanto não encontra uma marca.
+ *
+ * Distância máxima padrão pelo tamanho do termo: até 4 caracteres, só
+ * igualdade ("bb", "inss"); de 5 a 9, uma edição; a partir de 10, duas.
+ *
+ * Marca colada em outras palavras ("minhacaixa", "caixatemsaque") não
+ * aparece como label nem como pedaço entre hífens. Quando nenhum label
+ * chega perto de um termo, os termos de {@value #MIN_EMBEDDED} ou mais
+ * caracteres são procurados dentro dos labels num autômato de
+ * Aho–Corasick (uma passada por label, tabela densa sobre [a-z0-9]);
+ * termos curtos ("bb", "itau") ficam de fora porque aparecem dentro de
+ * palavras comuns.
+ */
+public final class BrandIndex {
+
+    static final int MAX_DISTANCE = 2;
+    // labels maiores não são comparados (nenhum termo chega perto)
+    private static final int MAX_TOKEN = 63;
+    private static final long SEED = 0x62726e64L;
+    private static final int NONE = -1;
+    static final int MIN_EMBEDDED = 5;
+    private static final int SYMBOLS = 37; // a-z, 0-9 e 0 = fora do alfabeto
+
+    private final Brand[] brands;
+    private final String[] terms;
+    private final int[] termBrand;
+    private final int[] termDistance;
+    private final int maxDistance;
+    // tamanhos de variante presentes no índice (bit i = tamanho i)
+    private final long variantLengths;
+
+    // hash da variante -> lista de termos (endereçamento aberto)
+    private final long[] keys;
+    private final int[] heads;
+    private final int[] postingTerm;
+    private final int[] postingNext;
+
+    // autômato dos termos colados: estado * SYMBOLS + símbolo -> estado;
+    // termo que termina no estado (ou NONE) e próximo estado da cadeia de
+    // falha que também termina um termo (0 = nenhum)
+    private final int[] embeddedNext;
+    private final int[] embeddedTerm;
+    private final int[] embeddedLink;
+
+    /**
+     * Marca encontrada num label do host.
+     */
+    public static final class Match {
+        public final String brand;
+        public final String term;
+        public final String token;
+        public final int distance;
+        public final boolean embedded; // termo colado dentro do token
+        public final Signal signal;
+
+        Match(String brand, String term, String token, int distance, boolean embedded, Signal signal) {
+            this.brand = brand;
+            this.term = term;
+            this.token = token;
+            this.distance = distance;
+            this.embedded = embedded;
+            this.signal = signal;
+        }
+
+        /**
+         * Texto da evidência (detalhe do {@link Signal}).
+         */
+        @Override
+        public String toString() {
+            if (embedded) {
+                return "marca " + brand + ", '" + token + "' contém '" + term + "'";
+            }
+            return "marca " + brand + ", '" + token + "' ~ '" + term + "' (distância " + distance + ")";
+        }
+    }
+
+    private static final class Brand {
+        final String name;
+        final String[] officialDomains;
+        final String[] officialSuffixes; // "." + domínio
+        final Set<String> ignore;
+        final boolean embedded;
+        final Signal signal;
+
+        Brand(String name, List<String> officialDomains, Set<String> ignore, boolean embedded, Signal signal) {
+            this.name = name;
+            this.officialDomains = officialDomains.toArray(String[]::new);
+            this.officialSuffixes = officialDomains.stream().map(d -> "." + d).toArray(String[]::new);
+            this.ignore = ignore;
+            this.embedded = embedded;
+            this.signal = signal;
+        }
+
+        boolean isOfficial(String host) {
+            for (int i = 0; i < officialDomains.length; i++) {
+                if (host.equals(officialDomains[i]) || host.endsWith(officialSuffixes[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private BrandIndex(Brand[] brands, String[] terms, int[] termBrand, int[] termDistance) {
+        this.brands = brands;
+        this.terms = terms;
+        this.termBrand = termBrand;
+        this.termDistance = termDistance;
+
+        int max = 0;
+        List<long[]> variants = new ArrayList<>(); // {hash, termo}
+        long lengths = 0;
+        for (int t = 0; t < terms.length; t++) {
+            max = Math.max(max, termDistance[t]);
+            String term = terms[t];
+            int n = term.length();
+            for (int d = 0; d <= Math.min(termDistance[t], n); d++) {
+                lengths |= 1L << (n - d);
+            }
+            int k = Math.min(termDistance[t], n);
+            variants.add(new long[] { hash(term, 0, n, NONE, NONE), t });
+            for (int i = 0; k >= 1 && i < n; i++) {
+                variants.add(new long[] { hash(term, 0, n, i, NONE), t });
+                for (int j = i + 1; k >= 2 && j < n; j++) {
+                    variants.add(new long[] { hash(term, 0, n, i, j), t });
+                }
+            }
+        }
+        this.maxDistance = max;
+        this.variantLengths = lengths;
+
+        int cap = Integer.highestOneBit(Math.max(16, variants.size() * 2) - 1) << 1;
+        this.keys = new long[cap];
+        this.heads = new int[cap];
+        Arrays.fill(heads, NONE);
+        this.postingTerm = new int[variants.size()];
+        this.postingNext = new int[variants.size()];
+        int p = 0;
+        for (long[] v : variants) {
+            int slot = slot(v[0]);
+            // mesmo termo pela mesma variante (letras repetidas): uma vez só
+            boolean dup = false;
+            for (int q = heads[slot]; q != NONE; q = postingNext[q]) {
+                if (postingTerm[q] == v[1]) {
+                    dup = true;
+                    break;
+                }
+            }
+            if (dup) {
+                continue;
+            }
+            keys[slot] = v[0];
+            postingTerm[p] = (int) v[1];
+            postingNext[p] = heads[slot];
+            heads[slot] = p++;
+        }
+
+        // trie dos termos colados (filho 0 = ausente: a raiz não é filha
+        // de ninguém)
+        List<int[]> children = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        children.add(new int[SYMBOLS]);
+        ends.add(NONE);
+        for (int t = 0; t < terms.length; t++) {
+            String term = terms[t];
+            if (!brands[termBrand[t]].embedded || term.length() < MIN_EMBEDDED
+                    || !term.chars().allMatch(c -> symbol((char) c) != 0)) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < term.length(); i++) {
+                int[] row = children.get(state);
+                int c = symbol(term.charAt(i));
+                if (row[c] == 0) {
+                    row[c] = children.size();
+                    children.add(new int[SYMBOLS]);
+                    ends.add(NONE);
+                }
+                state = row[c];
+            }
+            if (ends.get(state) == NONE) { // termo repetido: fica a marca que vem antes
+                ends.set(state, t);
+            }
+        }
+        int states = children.size();
+        this.embeddedNext = new int[states * SYMBOLS];
+        this.embeddedTerm = new int[states];
+        this.embeddedLink = new int[states];
+        int[] fail = new int[states];
+        int[] queue = new int[states];
+        int tail = 0;
+        embeddedTerm[0] = NONE;
+        for (int c = 1; c < SYMBOLS; c++) {
+            int child = children.get(0)[c];
+            embeddedNext[c] = child;
+            if (child != 0) {
+                queue[tail++] = child;
+            }
+        }
+        // em largura: falha e ligações de quem está mais perto da raiz já
+        // estão prontas
+        for (int head = 0; head < tail; head++) {
+            int s = queue[head];
+            embeddedTerm[s] = ends.get(s);
+            embeddedLink[s] = embeddedTerm[fail[s]] != NONE ? fail[s] : embeddedLink[fail[s]];
+            for (int c = 1; c < SYMBOLS; c++) {
+                int child = children.get(s)[c];
+                int viaFail = embeddedNext[fail[s] * SYMBOLS + c];
+                if (child != 0) {
+                    fail[child] = viaFail;
+                    embeddedNext[s * SYMBOLS + c] = child;
+                    queue[tail++] = child;
+                } else {
+                    embeddedNext[s * SYMBOLS + c] = viaFail;
+                }
+            }
+        }
+    }
+
+    public int brandCount() {
+        return brands.length;
+    }
+
+    public int termCount() {
+        return terms.length;
+    }
+
+    /**
+     * Domínios oficiais de todas as marcas (podem se repetir).
+     */
+    public List<String> officialDomains() {
+        List<String> all = new ArrayList<>();
+        for (Brand b : brands) {
+            all.addAll(Arrays.asList(b.officialDomains));
+        }
+        return all;
+    }
+
+    /**
+     * Marca imitada pelo host, ou null. Compara cada label (menos o TLD) e,
+     * nos labels com hífen, cada pedaço; hosts oficiais da marca e
+     * palavras em {@code ignore} não contam. Entre vários acertos fica o de
+     * menor distância (empate: a marca que vem antes no arquivo).
+     *
+     * Sem nenhum acerto assim, vale um termo colado dentro de um label
+     * (o mais longo; {@link Match#embedded}).
+     *
+     * Em host IDN ({@code xn--}), os labels do esqueleto de confundíveis
+     * ({@link UrlFeatures#hostSkeleton}) também são comparados.
+     */
+    public Match find(UrlFeatures f) {
+        Match m = find(f.host, f.hostLabels);
+        if (m == null && f.hostSkeleton != f.host && f.host.contains("xn--")) {
+            m = find(f.host, Arrays.asList(f.hostSkeleton.split("\\.")));
+        }
+        return m;
+    }
+
+    private Match find(String host, List<String> labels) {
+        int last = labels.size() > 1 ? labels.size() - 1 : labels.size();
+        int[] best = { NONE, Integer.MAX_VALUE, 0, 0, 0 }; // termo, distância, label, início, fim
+        for (int l = 0; l < last; l++) {
+            String label = labels.get(l);
+            lookup(host, label, 0, label.length(), l, best);
+            if (label.indexOf('-') >= 0) {
+                int start = 0;
+                for (int i = 0; i <= label.length(); i++) {
+                    if (i == label.length() || label.charAt(i) == '-') {
+                        if (i > start) {
+                            lookup(host, label, start, i, l, best);
+                        }
+                        start = i + 1;
+                    }
+                }
+            }
+        }
+        boolean embedded = false;
+        if (best[0] == NONE) {
+            for (int l = 0; l < last; l++) {
+                embedded(host, labels.get(l), l, best);
+            }
+            embedded = best[0] != NONE;
+        }
+        if (best[0] == NONE) {
+            return null;
+        }
+        Brand brand = brands[termBrand[best[0]]];
+        return new Match(brand.name, terms[best[0]], labels.get(best[2]).substring(best[3], best[4]),
+                best[1], embedded, brand.signal);
+    }
+
+    /**
+     * Termos colados dentro do label, numa passada pelo autômato; fica o
+     * mais longo (empate: a marca que vem antes no arquivo). O token da
+     * evidência é o pedaço entre hífens que contém o termo.
+     */
+    private void embedded(String host, String label, int labelIndex, int[] best) {
+        int state = 0;
+        for (int i = 0; i < label.length(); i++) {
+            state = embeddedNext[state * SYMBOLS + symbol(label.charAt(i))];
+            for (int s = embeddedTerm[state] != NONE ? state : embeddedLink[state]; s != 0; s = embeddedLink[s]) {
+                int t = embeddedTerm[s];
+                String term = terms[t];
+                if (best[0] != NONE && (term.length() < terms[best[0]].length()
+                        || (term.length() == terms[best[0]].length() && termBrand[t] >= termBrand[best[0]]))) {
+                    continue;
+                }
+                int start = i + 1 - term.length();
+                Brand brand = brands[termBrand[t]];
+                if (brand.isOfficial(host) || ignored(brand, label, start, term)) {
+                    continue;
+                }
+                int dash = label.indexOf('-', i + 1);
+                best[0] = t;
+                best[1] = 0;
+                best[2] = labelIndex;
+                best[3] = label.lastIndexOf('-', start) + 1;
+                best[4] = dash < 0 ? label.length() : dash;
+            }
+        }
+    }
+
+    /**
+     * Se o termo em {@code label[start, ...)} faz parte de uma palavra
+     * ignorada da marca ("caixas" em "minhascaixas").
+     */
+    private static boolean ignored(Brand brand, String label, int start, String term) {
+        for (String word : brand.ignore) {
+            for (int off = word.indexOf(term); off >= 0; off = word.indexOf(term, off + 1)) {
+                if (start >= off && label.startsWith(word, start - off)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        return c >= '0' && c <= '9' ? c - '0' + 27 : 0;
+    }
+
+    /**
+     * Procura as variantes de {@code label[from, to)} com até
+     * {@code maxDistance} caracteres removidos, só nos tamanhos presentes
+     * no índice.
+     */
+    private void lookup(String host, String label, int from, int to, int labelIndex, int[] best) {
+        int n = to - from;
+        if (n > MAX_TOKEN || best[1] == 0) {
+            return;
+        }
+        if (hasLength(n)) {
+            probe(hash(label, from, to, NONE, NONE), host, label, from, to, labelIndex, best);
+        }
+        if (maxDistance >= 1 && n >= 1 && hasLength(n - 1)) {
+            for (int i = from; i < to; i++) {
+                probe(hash(label, from, to, i, NONE), host, label, from, to, labelIndex, best);
+            }
+        }
+        if (maxDistance >= 2 && n >= 2 && hasLength(n - 2)) {
+            for (int i = from; i < to; i++) {
+                for (int j = i + 1; j < to; j++) {
+                    probe(hash(label, from, to, i, j), host, label, from, to, labelIndex, best);
+                }
+            }
+        }
+    }
+
+    private void probe(long variant, String host, String label, int from, int to, int labelIndex, int[] best) {
+        int n = to - from;
+        for (int q = heads[slot(variant)]; q != NONE; q = postingNext[q]) {
+            int t = postingTerm[q];
+            String term = terms[t];
+            int limit = Math.min(termDistance[t], best[1]);
+            if (Math.abs(term.length() - n) > limit) {
+                continue;
+            }
+            int d = distance(label, from, to, term, limit);
+            if (d > limit || (d == best[1] && termBrand[t] >= termBrand[best[0]])) {
+                continue;
+            }
+            Brand brand = brands[termBrand[t]];
+            if (brand.isOfficial(host) || (!brand.ignore.isEmpty()
+                    && brand.ignore.contains(label.substring(from, to)))) {
+                continue;
+            }
+            best[0] = t;
+            best[1] = d;
+            best[2] = labelIndex;
+            best[3] = from;
+            best[4] = to;
+        }
+    }
+
+    private int slot(long hash) {
+        int mask = keys.length - 1;
+        int i = (int) hash & mask;
+        while (heads[i] != NONE && keys[i] != hash) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private boolean hasLength(int n) {
+        return n < 64 && (variantLengths & (1L << n)) != 0;
+    }
+
+    // FNV-1a pulando até duas posições, com o finalizador de Hashing
+    private static long hash(String s, int from, int to, int skip1, int skip2) {
+        long h = 0xcbf29ce484222325L ^ SEED;
+        for (int i = from; i < to; i++) {
+            if (i != skip1 && i != skip2) {
+                h ^= s.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        return Hashing.mix64(h);
+    }
+
+    /**
+     * Distância de Damerau restrita (edições e transposição de vizinhos)
+     * entre {@code s[from, to)} e {@code term}; qualquer valor acima de
+     * {@code limit} sai como {@code limit + 1}.
+     */
+    static int distance(String s, int from, int to, String term, int limit) {
+        int n = to - from;
+        int m = term.length();
+        if (Math.abs(n - m) > limit) {
+            return limit + 1;
+        }
+        int[] prev2 = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = i;
+            char a = s.charAt(from + i - 1);
+            for (int j = 1; j <= m; j++) {
+                char b = term.charAt(j - 1);
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + (a == b ? 0 : 1));
+                if (i > 1 && j > 1 && a == term.charAt(j - 2) && s.charAt(from + i - 2) == b) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return Math.min(prev[m], limit + 1);
+    }
+
+    static int defaultDistance(String term) {
+        int n = term.length();
+        return n <= 4 ? 0 : n <= 9 ? 1 : 2;
+    }
+
+    /**
+     * Compila as marcas do arquivo.
+     *
+     * @throws IllegalArgumentException se a definição for inválida
+     */
+    public static BrandIndex compile(BrandDefinition def) {
+        List<Brand> brands = new ArrayList<>();
+        List<String> terms = new ArrayList<>();
+        List<Integer> termBrand = new ArrayList<>();
+        List<Integer> termDistance = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (BrandDefinition.Brand b : def.getBrands()) {
+            String name = b.getName();
+            if (name == null || name.isBlank() || !names.add(name)) {
+                throw new IllegalArgumentException("Marca sem nome ou repetida: " + name);
+            }
+            if (b.getTerms() == null || b.getTerms().isEmpty()) {
+                throw new IllegalArgumentException("Marca " + name + " sem termos");
+            }
+            if (b.getMaxDistance() != null && (b.getMaxDistance() < 0 || b.getMaxDistance() > MAX_DISTANCE)) {
+                throw new IllegalArgumentException("Marca " + name + ": maxDistance deve estar entre 0 e "
+                        + MAX_DISTANCE);
+            }
+            Signal signal = Signal.THREAT_INTEL_TYPO_BRAND;
+            if (b.getCode() != null) {
+                try {
+                    signal = Signal.valueOf(b.getCode());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Marca " + name + ": código desconhecido " + b.getCode());
+                }
+            }
+            List<String> official = new ArrayList<>();
+            for (String d : b.getOfficialDomains() == null ? List.<String>of() : b.getOfficialDomains()) {
+                official.add(d.trim().toLowerCase(Locale.ROOT));
+            }
+            Set<String> ignore = new HashSet<>();
+            for (String w : b.getIgnore() == null ? List.<String>of() : b.getIgnore()) {
+                ignore.add(w.trim().toLowerCase(Locale.ROOT));
+            }
+            int brandId = brands.size();
+            brands.add(new Brand(name, official, ignore, !Boolean.FALSE.equals(b.getEmbedded()), signal));
+            for (String raw : b.getTerms()) {
+                String term = raw == null ? "" : raw.trim().toLowerCase(Locale.ROOT);
+                if (term.isEmpty() || term.length() > MAX_TOKEN || term.indexOf('.') >= 0) {
+                    throw new IllegalArgumentException("Marca " + name + ": termo inválido '" + raw + "'");
+                }
+                terms.add(term);
+                termBrand.add(brandId);
+                termDistance.add(b.getMaxDistance() != null ? b.getMaxDistance() : defaultDistance(term));
+            }
+        }
+        return new BrandIndex(brands.toArray(Brand[]::new), terms.toArray(String[]::new),
+                termBrand.stream().mapToInt(Integer::intValue).toArray(),
+                termDistance.stream().mapToInt(Integer::intValue).toArray());
+    }
+}
@@ -0,0 +1,61 @@
+package com.antifraude.valores_receber_antifraude_api.core.threatintel;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Marcas protegidas e seus domínios oficiais, compiladas num
+ * {@link BrandIndex} na subida. Sem {@code antifraude.brands.path} vale o
+ * arquivo padrão do classpath ({@code brands/default-brands.json}); um
+ * arquivo inválido impede a aplicação de iniciar.
+ */
+@Component
+public class BrandRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(BrandRegistry.class);
+
+    static final String DEFAULT_BRANDS = "brands/default-brands.json";
+
+    private final BrandIndex index;
+
+    public BrandRegistry(ObjectMapper objectMapper,
+            @Value("${antifraude.brands.path:}") String brandsPath) {
+        try {
+            this.index = brandsPath.isBlank() ? loadDefault(objectMapper) : load(objectMapper, Path.of(brandsPath));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Falha ao carregar as marcas de "
+                    + (brandsPath.isBlank() ? DEFAULT_BRANDS : brandsPath), e);
+        }
+        log.info("Marcas protegidas carregadas: {} marcas, {} termos", index.brandCount(), index.termCount());
+    }
+
+    public BrandIndex index() {
+        return index;
+    }
+
+    /**
+     * Índice do arquivo padrão, para uso fora do Spring (testes).
+     */
+    public static BrandIndex loadDefault(ObjectMapper objectMapper) throws IOException {
+        try (InputStream in = BrandRegistry.class.getClassLoader().getResourceAsStream(DEFAULT_BRANDS)) {
+            if (in == null) {
+                throw new IOException("Recurso não encontrado: " + DEFAULT_BRANDS);
+            }
+            return BrandIndex.compile(objectMapper.readValue(in, BrandDefinition.class));
+        }
+    }
+
+    private static BrandIndex load(ObjectMapper objectMapper, Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return BrandIndex.compile(objectMapper.readValue(in, BrandDefinition.class));
+        }
+    }
+}
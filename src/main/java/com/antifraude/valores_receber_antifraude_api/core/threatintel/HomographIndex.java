@@ -0,0 +1,152 @@
+package com.antifraude.valores_receber_antifraude_api.core.threatintel;
+
+import com.antifraude.valores_receber_antifraude_api.core.rules.HostSkeleton;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Hashing;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Índice de esqueletos ({@link HostSkeleton}) de domínios protegidos
+ * (oficiais das marcas e confiáveis), para achar homógrafos: hosts que se
+ * leem igual a um deles sem ser ele ("xn--ixa-...gov.br", "paypa1.com").
+ *
+ * Tabela de endereçamento aberto do hash do esqueleto para o primeiro
+ * domínio com esse esqueleto (os demais ficam encadeados em {@code next}:
+ * "g1.com" e "gl.com" podem ser ambos protegidos). A consulta calcula o
+ * hash de cada sufixo do esqueleto do host que começa num label e confere
+ * o domínio nos acertos; não aloca.
+ */
+public final class HomographIndex {
+
+    private static final long SEED = 0x486f6d6f67726166L;
+    private static final int EMPTY = -1;
+
+    /**
+     * Host que imita um domínio protegido.
+     */
+    public static final class Match {
+        public final String host;
+        public final String domain;
+
+        Match(String host, String domain) {
+            this.host = host;
+            this.domain = domain;
+        }
+
+        /**
+         * Texto da evidência.
+         */
+        @Override
+        public String toString() {
+            return "'" + host + "' se lê como '" + domain + "'";
+        }
+    }
+
+    private final String[] domains;
+    private final String[] skeletons;
+    private final int[] next; // próximo domínio com o mesmo esqueleto
+    private final long[] keys;
+    private final int[] values;
+
+    private HomographIndex(String[] domains, String[] skeletons) {
+        this.domains = domains;
+        this.skeletons = skeletons;
+        int capacity = Integer.highestOneBit(Math.max(4, domains.length * 2)) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.next = new int[domains.length];
+        Arrays.fill(values, EMPTY);
+        Arrays.fill(next, EMPTY);
+        for (int i = domains.length - 1; i >= 0; i--) {
+            long key = Hashing.hash64Lower(skeletons[i], SEED);
+            int s = slot(key);
+            keys[s] = key;
+            next[i] = values[s];
+            values[s] = i;
+        }
+    }
+
+    /**
+     * @param domains domínios protegidos (sem esquema; repetidos contam uma vez)
+     */
+    public static HomographIndex of(Collection<String> domains) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String d : domains) {
+            String domain = d.trim().toLowerCase(Locale.ROOT);
+            if (!domain.isEmpty()) {
+                unique.add(domain);
+            }
+        }
+        String[] ds = unique.toArray(String[]::new);
+        String[] sk = new String[ds.length];
+        for (int i = 0; i < ds.length; i++) {
+            sk[i] = HostSkeleton.of(ds[i]);
+        }
+        return new HomographIndex(ds, sk);
+    }
+
+    public int size() {
+        return domains.length;
+    }
+
+    /**
+     * Domínio protegido imitado pelo host, ou null. Os sufixos do esqueleto
+     * são testados do maior para o menor; o primeiro sufixo encontrado
+     * decide: se o host é um dos domínios com esse esqueleto (ou subdomínio
+     * dele), não é homógrafo.
+     */
+    public Match find(UrlFeatures f) {
+        String host = f.host;
+        String skeleton = f.hostSkeleton;
+        int start = 0;
+        while (true) {
+            int i = lookup(skeleton, start);
+            if (i != EMPTY) {
+                for (int j = i; j != EMPTY; j = next[j]) {
+                    if (isUnder(host, domains[j])) {
+                        return null;
+                    }
+                }
+                return new Match(host, domains[i]);
+            }
+            int dot = skeleton.indexOf('.', start);
+            if (dot < 0) {
+                return null;
+            }
+            start = dot + 1;
+        }
+    }
+
+    private int lookup(String skeleton, int start) {
+        int len = skeleton.length() - start;
+        if (len == 0) {
+            return EMPTY;
+        }
+        long key = Hashing.hash64Lower(skeleton, start, skeleton.length(), SEED);
+        int i = values[slot(key)];
+        if (i == EMPTY || skeletons[i].length() != len
+                || !skeleton.regionMatches(start, skeletons[i], 0, len)) {
+            return EMPTY;
+        }
+        return i;
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = (int) key & mask;
+        while (values[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static boolean isUnder(String host, String domain) {
+        int offset = host.length() - domain.length();
+        return host.endsWith(domain) && (offset == 0 || (offset > 0 && host.charAt(offset - 1) == '.'));
+    }
+}
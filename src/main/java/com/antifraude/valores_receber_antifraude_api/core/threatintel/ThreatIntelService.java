@@ -1,6 +1,9 @@
 package com.antifraude.valores_receber_antifraude_api.core.threatintel;
 
-import java.util.ArrayList;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Signal;
+import com.antifraude.valores_receber_antifraude_api.core.rules.Findings;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+
 import java.util.List;
 
 public interface ThreatIntelService {
@@ -8,6 +11,14 @@ public interface ThreatIntelService {
 
     Result check(String normalizedUrl, String domain);
 
+    /**
+     * Variante do pipeline que recebe as características já extraídas da
+     * URL; implementações devem sobrescrever para não reanalisar a string.
+     */
+    default Result check(UrlFeatures features) {
+        return check(features.normalizedUrl, features.host);
+    }
+
 
     enum Reputation {
         MALICIOUS,
@@ -16,11 +27,14 @@ public interface ThreatIntelService {
         UNKNOWN
     }
 
+    /**
+     * Reputação e sinais da verificação. Os códigos e evidências ficam em
+     * {@link Findings} e só viram texto quando alguém lê as listas.
+     */
     final class Result {
 
         private Reputation reputation;
-        private final List<String> ruleHits = new ArrayList<>();
-        private final List<String> evidence = new ArrayList<>();
+        private final Findings findings = new Findings();
 
         public Result() {
             this.reputation = Reputation.UNKNOWN;
@@ -34,20 +48,32 @@ public interface ThreatIntelService {
             this.reputation = reputation;
         }
 
+        public Findings getFindings() {
+            return findings;
+        }
+
         public List<String> getRuleHits() {
-            return ruleHits;
+            return findings.codesView();
         }
 
         public List<String> getEvidence() {
-            return evidence;
+            return findings.evidenceView();
+        }
+
+        public void add(Signal signal) {
+            findings.add(signal);
+        }
+
+        public void add(Signal signal, Object detail) {
+            findings.add(signal, detail);
         }
 
         public void addHit(String hit) {
-            this.ruleHits.add(hit);
+            findings.addHit(hit);
         }
 
         public void addEvidence(String ev) {
-            this.evidence.add(ev);
+            findings.addEvidence(ev);
         }
     }
 }
@@ -1,15 +1,26 @@
 package com.antifraude.valores_receber_antifraude_api.core.threatintel;
 
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Signal;
+import com.antifraude.valores_receber_antifraude_api.core.rules.Keywords;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
-import java.util.Locale;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Implementação do serviço de Threat Intelligence.
  *
  * Este serviço combina:
  * Um client de VirusTotal (stub {@link VirusTotalClient})
+ * Heurísticas locais, incluindo o índice de marcas protegidas ({@link BrandRegistry})
+ * e o de homógrafos dos domínios oficiais e confiáveis ({@link HomographIndex})
  *
  * O objetivo é fornecer uma reputação inicial para a URL:
  * MALICIOUS, CLEAN ou UNKNOWN.
@@ -20,10 +31,39 @@ public class ThreatIntelServiceImpl implements ThreatIntelService {
     private static final String CAIXA_DOMAIN = "caixa.gov.br";
     private static final String RECEITA_DOMAIN = "receita.economia.gov.br";
 
+    // confiáveis de isTrustedDomain que também são protegidos contra homógrafos
+    private static final List<String> TRUSTED_DOMAINS = List.of(
+            "bb.com.br", CAIXA_DOMAIN, "gov.br", RECEITA_DOMAIN, "meu.inss.gov.br",
+            "www.example.org", "google.com", "magazineluiza.com.br");
+
     private final VirusTotalClient virusTotalClient;
+    private final BrandIndex brands;
+    private final HomographIndex homographs;
+
+    @Autowired
+    public ThreatIntelServiceImpl(VirusTotalClient virusTotalClient, BrandRegistry brandRegistry) {
+        this.virusTotalClient = virusTotalClient;
+        this.brands = brandRegistry.index();
+        this.homographs = homographIndex(brands);
+    }
 
+    /**
+     * Com as marcas do arquivo padrão (uso fora do Spring).
+     */
     public ThreatIntelServiceImpl(VirusTotalClient virusTotalClient) {
         this.virusTotalClient = virusTotalClient;
+        try {
+            this.brands = BrandRegistry.loadDefault(new ObjectMapper());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.homographs = homographIndex(brands);
+    }
+
+    private static HomographIndex homographIndex(BrandIndex brands) {
+        List<String> domains = new ArrayList<>(brands.officialDomains());
+        domains.addAll(TRUSTED_DOMAINS);
+        return HomographIndex.of(domains);
     }
 
     /**
@@ -35,112 +75,77 @@ public class ThreatIntelServiceImpl implements ThreatIntelService {
      */
     @Override
     public Result check(String normalizedUrl, String domain) {
-        Result result = new Result();
+        return check(UrlFeatures.of(normalizedUrl, domain));
+    }
 
-        String url = normalizedUrl == null ? "" : normalizedUrl.toLowerCase(Locale.ROOT);
-        String host = domain == null ? "" : domain.toLowerCase(Locale.ROOT);
+    @Override
+    public Result check(UrlFeatures features) {
+        Result result = new Result();
 
         // 1) Tenta usar VirusTotal primeiro (stub inteligente)
-        VirusTotalClient.VirusTotalResult vt = virusTotalClient.checkUrl(url);
+        VirusTotalClient.VirusTotalResult vt = virusTotalClient.checkUrl(features);
         if (vt.reputation != Reputation.UNKNOWN) {
             result.setReputation(vt.reputation);
-            result.addHit("VT_" + vt.reputation.name());
-            result.addEvidence("VirusTotal (stub): " + vt.evidence
-                    + " (malicious=" + vt.malicious
-                    + ", suspicious=" + vt.suspicious
-                    + ", harmless=" + vt.harmless + ")");
+            // texto com os contadores só é montado se a evidência for lida
+            result.add(vtSignal(vt.reputation), vt);
             return result;
         }
 
         // 2) Se o VirusTotal não der nada forte, cai nas heurísticas locais
-        return fallbackLocalHeuristics(url, host, result);
+        return fallbackLocalHeuristics(features, result);
     }
 
     /**
      * Heurísticas locais complementares ao VirusTotal.
      * Aqui identificamos domínios parecidos com oficiais e padrões suspeitos.
      */
-    private Result fallbackLocalHeuristics(String url, String host, Result result) {
-        String compact = (url + " " + host).replaceAll("[^a-z0-9]", "");
+    private Result fallbackLocalHeuristics(UrlFeatures f, Result result) {
+        String host = f.host;
+        long hostHits = f.hostKeywords;
+        long compactHits = f.compactWithHostKeywords;
+
+        // Homógrafo de domínio oficial/confiável ("cаixa.gov.br" com "а"
+        // cirílico): antes de tudo, porque o sufixo verdadeiro pode ser confiável
+        HomographIndex.Match homograph = homographs.find(f);
+        if (homograph != null) {
+            return malicious(result, Signal.THREAT_INTEL_HOMOGRAPH, homograph);
+        }
 
         // Golpe típico "valores a receber" em contexto de governo/banco
-        if ((compact.contains("valoresareceber")
-                || compact.contains("valoreareceber")
-                || compact.contains("valoresreceber"))
-                && (host.contains("gov") || host.contains("receita") || host.contains("caixa")
-                        || host.contains("bradesco"))
+        if ((compactHits & Keywords.VALORES_A_RECEBER) != 0
+                && (hostHits & Keywords.ORG_CONTEXT) != 0
                 && !(host.endsWith("gov.br") || host.endsWith(CAIXA_DOMAIN) || host.endsWith("bb.com.br"))) {
 
-            return malicious(result,
-                    "THREAT_INTEL_VALORES_A_RECEBER",
-                    "Combinação de termos de órgão/banco com 'valores a receber' em domínio não oficial.");
-        }
-
-        // Domínios falsos parecidos com Caixa / Receita / WhatsApp
-        if (isFakeCaixa(host)) {
-            return malicious(result,
-                    "THREAT_INTEL_TYPO_CAIXA",
-                    "Domínio parecido com Caixa, mas não é o oficial (possível golpe).");
-        }
-
-        if (isFakeReceita(host)) {
-            return malicious(result,
-                    "THREAT_INTEL_TYPO_RECEITA",
-                    "Domínio parecido com Receita Federal, mas não é o oficial (possível golpe).");
+            return malicious(result, Signal.THREAT_INTEL_VALORES_A_RECEBER);
         }
 
-        if (isFakeWhatsapp(host)) {
-            return malicious(result,
-                    "THREAT_INTEL_TYPO_WHATSAPP",
-                    "Domínio parecido com WhatsApp escrito incorretamente (possível golpe).");
+        // Domínios falsos parecidos com marcas protegidas (Caixa, Receita,
+        // WhatsApp, bancos...): uma consulta por label no índice de marcas
+        BrandIndex.Match brand = brands.find(f);
+        if (brand != null) {
+            return malicious(result, brand.signal, brand);
         }
 
         // ⚠️ Padrões bem suspeitos relacionados a banco/IRPF/segurança
-        if (host.contains("simulador-irpf.site")
-                || host.contains("irpf")
-                || host.contains("banking-secure-auth")
-                || host.contains("secure-auth")
-                || host.contains("bit-llly-secure")
-                || host.contains("tinyurl-security")) {
-            return malicious(result,
-                    "THREAT_INTEL_SUSPICIOUS_PATTERN",
-                    "Padrões típicos de golpe: IRPF, secure-auth, encurtadores falsos, etc.");
+        if ((hostHits & Keywords.TI_SUSPICIOUS_PATTERN) != 0) {
+            return malicious(result, Signal.THREAT_INTEL_SUSPICIOUS_PATTERN);
         }
 
         // Domínios confiáveis conhecidos
         if (isTrustedDomain(host)) {
             result.setReputation(Reputation.CLEAN);
-            result.addHit("THREAT_INTEL_LOCAL_CLEAN");
-            result.addEvidence("Heurística local: domínio considerado confiável.");
+            result.add(Signal.THREAT_INTEL_LOCAL_CLEAN);
             return result;
         }
 
         // Nenhum sinal forte → UNKNOWN
         result.setReputation(Reputation.UNKNOWN);
-        result.addHit("THREAT_INTEL_UNKNOWN");
-        result.addEvidence("Nem VirusTotal (stub) nem heurísticas locais deram um sinal forte.");
+        result.add(Signal.THREAT_INTEL_UNKNOWN);
         return result;
     }
 
     // ---------- Heurísticas auxiliares ----------
 
-    private boolean isFakeCaixa(String host) {
-        return (host.contains("caix") || host.contains("caixa"))
-                && !host.endsWith(CAIXA_DOMAIN);
-    }
-
-    private boolean isFakeReceita(String host) {
-        return host.contains("receita")
-                && !host.endsWith(RECEITA_DOMAIN);
-    }
-
-    private boolean isFakeWhatsapp(String host) {
-        // pega "whatsap", "whatsap-" etc, mas não whatsapp.com/.net
-        return host.contains("whatsap")
-                && !host.contains("whatsapp.com")
-                && !host.contains("whatsapp.net");
-    }
-
     private boolean isTrustedDomain(String host) {
         return host.endsWith("bb.com.br")
                 || host.endsWith(CAIXA_DOMAIN)
@@ -153,15 +158,26 @@ public class ThreatIntelServiceImpl implements ThreatIntelService {
     }
 
     /**
-     * Marca o resultado como MALICIOUS e adiciona hit + evidência.
+     * Marca o resultado como MALICIOUS e adiciona o sinal (hit + evidência).
      */
-    private Result malicious(Result result, String hit, String evidence) {
+    private Result malicious(Result result, Signal signal) {
+        return malicious(result, signal, null);
+    }
+
+    private Result malicious(Result result, Signal signal, Object detail) {
         result.setReputation(Reputation.MALICIOUS);
-        result.addHit(hit);
-        result.addEvidence(evidence);
+        result.add(signal, detail);
         return result;
     }
 
+    private static Signal vtSignal(Reputation reputation) {
+        return switch (reputation) {
+            case MALICIOUS -> Signal.VT_MALICIOUS;
+            case SUSPICIOUS -> Signal.VT_SUSPICIOUS;
+            default -> Signal.VT_CLEAN;
+        };
+    }
+
     /**
      * Client do VirusTotal fica como classe interna da implementação.
      * Aqui está com um stub inteligente para testes, sem chamada real à API.
@@ -192,6 +208,17 @@ public class ThreatIntelServiceImpl implements ThreatIntelService {
                 this.evidence = evidence;
             }
 
+            /**
+             * Texto da evidência: a mensagem do stub com os contadores.
+             */
+            @Override
+            public String toString() {
+                return evidence
+                        + " (malicious=" + malicious
+                        + ", suspicious=" + suspicious
+                        + ", harmless=" + harmless + ")";
+            }
+
             /**
              * Fábrica para resultado UNKNOWN (sem dados relevantes).
              */
@@ -215,22 +242,16 @@ public class ThreatIntelServiceImpl implements ThreatIntelService {
             if (normalizedUrl == null) {
                 return VirusTotalResult.unknown();
             }
+            return checkUrl(UrlFeatures.of(normalizedUrl, null));
+        }
 
-            String url = normalizedUrl.toLowerCase();
-
+        /**
+         * Como {@link #checkUrl(String)}, reaproveitando os acertos de
+         * palavras-chave já calculados para a URL.
+         */
+        public VirusTotalResult checkUrl(UrlFeatures features) {
             // Padrões fortes de golpe (incluindo os que foram mapeados nos testes)
-            if (url.contains("valoresareceber")
-                    || url.contains("valores-a-receber")
-                    || url.contains("fgts")
-                    || url.contains("caixa-gov-br.online")
-                    || url.contains("receitafederal-gov.online")
-                    || url.contains("whatsap-confirmacao")
-                    || url.contains("whatsap-verificador")
-                    || url.contains("simulador-irpf.site")
-                    || url.contains("secure-pay-pix")
-                    || url.contains("bit-llly-secure")
-                    || url.contains("tinyurl-security-check")
-                    || url.contains("banking-secure-auth")) {
+            if ((features.urlKeywords & Keywords.VT_SCAM_PATTERN) != 0) {
 
                 return new VirusTotalResult(
                         Reputation.MALICIOUS,
@@ -0,0 +1,43 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.cache;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.UrlRecord;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+
+import java.util.UUID;
+
+/**
+ * Cópia imutável do último veredito de uma URL ({@link UrlRecord}), o que
+ * fica no {@link VerdictCache}. A entidade não é guardada: ela é mutável e
+ * presa à sessão JPA de quem a leu.
+ */
+public final class CachedVerdict {
+
+    // cabeçalhos, UUID, nó do cache e entrada do mapa, aproximado
+    private static final int OVERHEAD_BYTES = 200;
+
+    public final UUID id;
+    public final String normalizedUrl;
+    public final String domain;
+    public final Verdict verdict;
+    public final int score;
+
+    public CachedVerdict(UUID id, String normalizedUrl, String domain, Verdict verdict, int score) {
+        this.id = id;
+        this.normalizedUrl = normalizedUrl;
+        this.domain = domain;
+        this.verdict = verdict;
+        this.score = score;
+    }
+
+    public static CachedVerdict of(UrlRecord rec) {
+        return new CachedVerdict(rec.getId(), rec.getNormalizedUrl(), rec.getDomain(),
+                rec.getLastStatus(), rec.getLastScore() != null ? rec.getLastScore() : 0);
+    }
+
+    /**
+     * Bytes estimados em memória (a chave do cache é a própria URL).
+     */
+    int weight() {
+        return OVERHEAD_BYTES + normalizedUrl.length() + domain.length();
+    }
+}
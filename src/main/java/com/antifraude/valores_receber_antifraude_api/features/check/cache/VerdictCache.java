@@ -0,0 +1,210 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.cache;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListChange;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlNormalizer;
+import com.antifraude.valores_receber_antifraude_api.lists.service.ListChangesAppliedEvent;
+import com.antifraude.valores_receber_antifraude_api.shared.util.TinyLfuCache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache local dos últimos vereditos por URL normalizada, na frente do
+ * {@code UrlRecordRepository}: as URLs de golpe mais consultadas deixam de
+ * ir ao banco a cada verificação.
+ *
+ * Limitado por bytes estimados ({@link TinyLfuCache}, W-TinyLFU) e com
+ * validade por veredito: SUSPECT dura mais (golpe não vira legítimo),
+ * UNKNOWN dura pouco (a próxima consulta pode decidir).
+ *
+ * Gravações feitas numa transação entram no cache só depois do commit,
+ * para um rollback não deixar veredito que o banco não tem; as que vão
+ * para a fila do {@code VerdictWriteBehind} entram na hora.
+ *
+ * Mudanças nas listas derrubam as entradas afetadas quando chegam pelo log
+ * sincronizado do {@code ListsService} ({@link ListChangesAppliedEvent}):
+ * as deste nó logo após o commit, as de outros nós e as importações em
+ * lote no próximo polling. Uma verificação que leu o índice antigo e grava
+ * depois da invalidação ainda pode deixar um veredito velho; esse dura no
+ * máximo a validade dele.
+ */
+@Component
+public class VerdictCache {
+
+    // máscara de vereditos (bit = ordinal) com todos
+    private static final int ALL_VERDICTS = -1;
+
+    private final TinyLfuCache<CachedVerdict> cache;
+    private final long suspectTtlNanos;
+    private final long legitTtlNanos;
+    private final long unknownTtlNanos;
+
+    @Autowired
+    public VerdictCache(
+            @Value("${antifraude.check.cache.max-bytes:33554432}") long maxBytes,
+            @Value("${antifraude.check.cache.suspect-ttl-ms:86400000}") long suspectTtlMs,
+            @Value("${antifraude.check.cache.legit-ttl-ms:3600000}") long legitTtlMs,
+            @Value("${antifraude.check.cache.unknown-ttl-ms:300000}") long unknownTtlMs) {
+        this(maxBytes, suspectTtlMs, legitTtlMs, unknownTtlMs, System::nanoTime);
+    }
+
+    VerdictCache(long maxBytes, long suspectTtlMs, long legitTtlMs, long unknownTtlMs, LongSupplier ticker) {
+        this.suspectTtlNanos = TimeUnit.MILLISECONDS.toNanos(suspectTtlMs);
+        this.legitTtlNanos = TimeUnit.MILLISECONDS.toNanos(legitTtlMs);
+        this.unknownTtlNanos = TimeUnit.MILLISECONDS.toNanos(unknownTtlMs);
+        // ~300 bytes por entrada numa URL típica
+        int expectedEntries = (int) Math.min(Integer.MAX_VALUE / 16, Math.max(16, maxBytes / 300));
+        this.cache = new TinyLfuCache<>(maxBytes, expectedEntries, CachedVerdict::weight, this::ttlNanos, ticker);
+    }
+
+    private long ttlNanos(CachedVerdict v) {
+        if (v.verdict == null) {
+            return 0;
+        }
+        return switch (v.verdict) {
+            case SUSPECT -> suspectTtlNanos;
+            case LEGIT -> legitTtlNanos;
+            case UNKNOWN -> unknownTtlNanos;
+        };
+    }
+
+    /**
+     * Veredito em cache para a URL normalizada, ou null (conta acerto/falta).
+     */
+    public CachedVerdict get(String normalizedUrl) {
+        return cache.get(normalizedUrl);
+    }
+
+    /**
+     * Como {@link #get}, sem contar nas métricas (para quem só quer o id).
+     */
+    public CachedVerdict peek(String normalizedUrl) {
+        return cache.peek(normalizedUrl);
+    }
+
+    /**
+     * Guarda o veredito na hora (registro que com certeza já está no banco).
+     */
+    public void put(CachedVerdict verdict) {
+        cache.put(verdict.normalizedUrl, verdict);
+    }
+
+    /**
+     * Guarda o veredito quando a transação atual fizer commit (na hora, se
+     * não houver transação). Vale também para o que foi só lido: dentro de
+     * uma transação maior, a linha pode ser de uma escrita ainda não
+     * commitada.
+     */
+    public void putAfterCommit(CachedVerdict verdict) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(verdict);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(verdict);
+            }
+        });
+    }
+
+    /**
+     * Derruba as entradas que as mudanças de lista contradizem: uma entrada
+     * que sai da blacklist derruba os SUSPECT que ela cobria, uma que sai
+     * da whitelist derruba os LEGIT, e uma nova derruba os vereditos
+     * contrários. Inserções que só confirmam o cache (o próprio pipeline
+     * listando o que acabou de classificar) não mexem em nada.
+     *
+     * Entradas de URL são uma consulta cada; as de domínio (e curinga)
+     * viram uma única varredura do cache por sincronização, qualquer que
+     * seja o tamanho do lote.
+     */
+    @EventListener
+    public void onListChangesApplied(ListChangesAppliedEvent event) {
+        // domínio -> vereditos (bit do ordinal) que caem debaixo dele
+        Map<String, Integer> domains = new HashMap<>();
+        for (ListChange c : event.getChanges()) {
+            int dropped = droppedVerdicts(c);
+            String value = c.getValue().trim();
+            if (c.getType() == ListEntryType.URL) {
+                String key = UrlNormalizer.normalize(value).normalizedUrl;
+                CachedVerdict cached = cache.peek(key);
+                if (cached != null && (dropped & bit(cached.verdict)) != 0) {
+                    cache.invalidate(key);
+                }
+            } else {
+                String domain = value.toLowerCase(Locale.ROOT);
+                domains.merge(domain.startsWith("*.") ? domain.substring(2) : domain, dropped, (a, b) -> a | b);
+            }
+        }
+        if (!domains.isEmpty()) {
+            cache.invalidateIf((url, cached) -> (droppedUnder(domains, cached.domain) & bit(cached.verdict)) != 0);
+        }
+    }
+
+    private static int droppedVerdicts(ListChange c) {
+        if (!c.isActive()) {
+            return ALL_VERDICTS;
+        }
+        Verdict listed = c.getKind() == ListKind.BLACKLIST ? Verdict.SUSPECT : Verdict.LEGIT;
+        return ~bit(listed);
+    }
+
+    private static int bit(Verdict v) {
+        return 1 << v.ordinal();
+    }
+
+    /**
+     * Vereditos que caem para o host: a união das máscaras do próprio host
+     * e de cada domínio pai dele ("a.b.com", "b.com", "com").
+     */
+    private static int droppedUnder(Map<String, Integer> domains, String host) {
+        if (host == null) {
+            return 0;
+        }
+        String h = host.toLowerCase(Locale.ROOT);
+        int dropped = 0;
+        int from = 0;
+        while (true) {
+            Integer mask = domains.get(from == 0 ? h : h.substring(from));
+            if (mask != null) {
+                dropped |= mask;
+            }
+            int dot = h.indexOf('.', from);
+            if (dot < 0) {
+                return dropped;
+            }
+            from = dot + 1;
+        }
+    }
+
+    /**
+     * Tira do cache as entradas vencidas que ninguém leu.
+     */
+    @Scheduled(fixedDelayString = "${antifraude.check.cache.cleanup-interval-ms:60000}")
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    TinyLfuCache<CachedVerdict> cache() {
+        return cache;
+    }
+}
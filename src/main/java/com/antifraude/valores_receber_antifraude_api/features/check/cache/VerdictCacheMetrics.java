@@ -0,0 +1,49 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.cache;
+
+import com.antifraude.valores_receber_antifraude_api.shared.util.TinyLfuCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Métricas do cache de vereditos.
+ */
+@Component
+public class VerdictCacheMetrics implements MeterBinder {
+
+    private final TinyLfuCache<CachedVerdict> cache;
+
+    public VerdictCacheMetrics(VerdictCache verdictCache) {
+        this.cache = verdictCache.cache();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("antifraude.check.cache.requests", cache, TinyLfuCache::hitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("antifraude.check.cache.requests", cache, TinyLfuCache::missCount)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("antifraude.check.cache.removals", cache, TinyLfuCache::evictionCount)
+                .tag("cause", "size")
+                .description("Entradas expulsas pela política para caber no limite de bytes")
+                .register(registry);
+        FunctionCounter.builder("antifraude.check.cache.removals", cache, TinyLfuCache::expirationCount)
+                .tag("cause", "expired")
+                .register(registry);
+        FunctionCounter.builder("antifraude.check.cache.removals", cache, TinyLfuCache::invalidationCount)
+                .tag("cause", "invalidated")
+                .description("Entradas derrubadas por mudanças nas listas")
+                .register(registry);
+        Gauge.builder("antifraude.check.cache.size", cache, TinyLfuCache::size)
+                .register(registry);
+        Gauge.builder("antifraude.check.cache.weight", cache, TinyLfuCache::weightedSize)
+                .baseUnit("bytes")
+                .description("Bytes estimados ocupados (limite: antifraude.check.cache.max-bytes)")
+                .register(registry);
+    }
+}
@@ -1,14 +1,26 @@
 package com.antifraude.valores_receber_antifraude_api.features.check.controller;
 
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckBatchRequest;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckBatchResponse;
 import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckRequest;
 import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckResponse;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckStatus;
 import com.antifraude.valores_receber_antifraude_api.features.check.service.CheckService;
+import com.antifraude.valores_receber_antifraude_api.features.check.service.CheckStreamService;
+import com.antifraude.valores_receber_antifraude_api.features.check.service.StageTimings;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
 
 @CrossOrigin(origins = "*")
 @Tag(name = "Checks", description = "Verificação de URLs/mensagens suspeitas")
@@ -16,15 +28,99 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/v1/checks")
 public class CheckController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    // tempo de cada etapa do pipeline, para o DevTools do navegador e para APMs
+    private static final String SERVER_TIMING = "Server-Timing";
+
     private final CheckService checkService;
+    private final CheckStreamService checkStreamService;
 
-    public CheckController(CheckService checkService) {
+    public CheckController(CheckService checkService, CheckStreamService checkStreamService) {
         this.checkService = checkService;
+        this.checkStreamService = checkStreamService;
     }
 
-    @Operation(summary = "Submeter verificação", description = "Recebe uma URL/texto e retorna veredito, score e evidências.")
+    @Operation(summary = "Submeter verificação", description = "Recebe uma URL/texto e retorna veredito, score e códigos; "
+            + "com explain=true inclui também as evidências em texto. O cabeçalho Server-Timing traz o tempo de cada "
+            + "etapa e a que decidiu.")
     @PostMapping
-    public ResponseEntity<CheckResponse> submit(@Valid @RequestBody CheckRequest request) {
-        return ResponseEntity.ok(checkService.submit(request));
+    public ResponseEntity<CheckResponse> submit(
+            @Valid @RequestBody CheckRequest request,
+            @RequestParam(defaultValue = "false") boolean explain) {
+        StageTimings timings = new StageTimings();
+        CheckResponse response = checkService.submit(request, timings);
+        response.setExplain(explain);
+        return ResponseEntity.ok()
+                .header(SERVER_TIMING, timings.serverTiming())
+                .body(response);
+    }
+
+    @Operation(summary = "Submeter verificação assíncrona", description = "Responde na hora o que não depende da IA "
+            + "(listas, histórico, regras, ThreatIntel): 200 com status COMPLETE. Quando só a IA decide, responde 202 "
+            + "com um veredito provisório (status PENDING) e o id; o final sai em GET /api/v1/checks/{id} e, se houver "
+            + "callbackUrl, é enviado por POST para ela.")
+    @PostMapping("/async")
+    public ResponseEntity<CheckResponse> submitAsync(
+            @Valid @RequestBody CheckRequest request,
+            @RequestParam(defaultValue = "false") boolean explain) {
+        StageTimings timings = new StageTimings();
+        CheckResponse response = checkService.submitAsync(request, explain, timings);
+        response.setExplain(explain);
+        if (response.getStatus() == CheckStatus.PENDING) {
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/checks/" + response.getId()))
+                    .header(SERVER_TIMING, timings.serverTiming())
+                    .body(response);
+        }
+        return ResponseEntity.ok()
+                .header(SERVER_TIMING, timings.serverTiming())
+                .body(response);
+    }
+
+    @Operation(summary = "Consultar verificação", description = "Estado de uma verificação pelo id: PENDING enquanto a "
+            + "IA roda, COMPLETE com o veredito final (ou FAILED, com o provisório, se a IA falhou). Para ids antigos, "
+            + "o último veredito do histórico.")
+    @GetMapping("/{id}")
+    public ResponseEntity<CheckResponse> find(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "false") boolean explain) {
+        CheckResponse response = checkService.find(id);
+        if (response == null) {
+            return ResponseEntity.notFound().build();
+        }
+        response.setExplain(explain);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Submeter lote de verificações", description = "Recebe até 500 URLs/textos (por exemplo, "
+            + "todos os links de uma mensagem) e retorna um resultado por item, na ordem de entrada. URLs repetidas "
+            + "são verificadas uma vez; as que não estão em lista nem no histórico passam por regras/IA em paralelo.")
+    @PostMapping("/batch")
+    public ResponseEntity<CheckBatchResponse> submitBatch(
+            @Valid @RequestBody CheckBatchRequest request,
+            @RequestParam(defaultValue = "false") boolean explain) {
+        long start = System.nanoTime();
+        List<CheckResponse> results = checkService.submitBatch(request.getChecks());
+        for (CheckResponse r : results) {
+            r.setExplain(explain);
+        }
+
+        CheckBatchResponse response = new CheckBatchResponse();
+        response.setResults(results);
+        response.setDistinct((int) results.stream().map(CheckResponse::getNormalizedUrl).distinct().count());
+        response.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Varredura em massa (NDJSON)", description = "Lê uma verificação por linha em NDJSON e "
+            + "devolve, na mesma conexão, uma resposta por linha assim que cada uma termina (com o número da linha "
+            + "de entrada). A leitura acompanha o ritmo das verificações. A última linha traz o resumo: itens, "
+            + "erros, vazão e latência p50/p99.")
+    @PostMapping(value = "/stream", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> stream(
+            InputStream body,
+            @RequestParam(defaultValue = "false") boolean explain) {
+        StreamingResponseBody responseBody = out -> checkStreamService.scan(body, out, explain);
+        return ResponseEntity.ok().contentType(NDJSON).body(responseBody);
     }
 }
@@ -0,0 +1,23 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class CheckBatchRequest {
+
+    @NotEmpty
+    @Size(max = 500)
+    @Valid
+    private List<CheckRequest> checks;
+
+    public List<CheckRequest> getChecks() {
+        return checks;
+    }
+
+    public void setChecks(List<CheckRequest> checks) {
+        this.checks = checks;
+    }
+}
@@ -0,0 +1,33 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.dto;
+
+import java.util.List;
+
+public class CheckBatchResponse {
+    private List<CheckResponse> results; // na ordem de entrada
+    private int distinct; // URLs distintas depois da normalização
+    private long elapsedMs;
+
+    public List<CheckResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<CheckResponse> results) {
+        this.results = results;
+    }
+
+    public int getDistinct() {
+        return distinct;
+    }
+
+    public void setDistinct(int distinct) {
+        this.distinct = distinct;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+}
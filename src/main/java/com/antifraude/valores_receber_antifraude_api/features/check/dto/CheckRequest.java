@@ -2,6 +2,7 @@ package com.antifraude.valores_receber_antifraude_api.features.check.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 
 import java.util.Map;
 
@@ -15,6 +16,10 @@ public class CheckRequest {
 
     private Map<String, Object> metadata;
 
+    // só no modo assíncrono: recebe o veredito final por POST
+    @Pattern(regexp = "https?://.+", message = "deve ser uma URL http(s)")
+    private String callbackUrl;
+
     public InputType getInputType() {
         return inputType;
     }
@@ -38,4 +43,12 @@ public class CheckRequest {
     public void setMetadata(Map<String, Object> metadata) {
         this.metadata = metadata;
     }
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public void setCallbackUrl(String callbackUrl) {
+        this.callbackUrl = callbackUrl;
+    }
 }
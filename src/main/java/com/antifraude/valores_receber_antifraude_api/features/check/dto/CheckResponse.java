@@ -5,18 +5,46 @@ import java.util.List;
 import java.util.UUID;
 
 import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
-
+import com.antifraude.valores_receber_antifraude_api.core.rules.Findings;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resposta da verificação. Códigos e evidências ficam em {@link Findings}
+ * e só viram texto na serialização; {@code evidenceSummary} só é montado
+ * (e enviado) quando o cliente pede explicações.
+ */
 public class CheckResponse {
 
     private UUID id;
     private Verdict verdict;
     private Integer score;
-    private List<String> ruleHits;
-    private List<String> evidenceSummary;
+    private Findings findings = new Findings();
+    private boolean explain;
     private String normalizedUrl;
     private String domain;
     private String source; // "CACHE" | "RULES" | "IA"
     private LocalDateTime submittedAt;
+    private CheckStatus status; // só no modo assíncrono
+
+    /**
+     * Cópia independente (para entregar a mesma resposta a requisições
+     * diferentes, cada uma com seu {@code explain}).
+     */
+    public CheckResponse copy() {
+        CheckResponse r = new CheckResponse();
+        r.id = id;
+        r.verdict = verdict;
+        r.score = score;
+        r.findings = findings.copy();
+        r.explain = explain;
+        r.normalizedUrl = normalizedUrl;
+        r.domain = domain;
+        r.source = source;
+        r.submittedAt = submittedAt;
+        r.status = status;
+        return r;
+    }
 
     public UUID getId() {
         return id;
@@ -43,19 +71,33 @@ public class CheckResponse {
     }
 
     public List<String> getRuleHits() {
-        return ruleHits;
+        return findings.codes();
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<String> getEvidenceSummary() {
+        return explain ? findings.evidence() : null;
     }
 
-    public void setRuleHits(List<String> ruleHits) {
-        this.ruleHits = ruleHits;
+    @JsonIgnore
+    public Findings getFindings() {
+        return findings;
     }
 
-    public List<String> getEvidenceSummary() {
-        return evidenceSummary;
+    public void setFindings(Findings findings) {
+        this.findings = findings;
     }
 
-    public void setEvidenceSummary(List<String> evidenceSummary) {
-        this.evidenceSummary = evidenceSummary;
+    @JsonIgnore
+    public boolean isExplain() {
+        return explain;
+    }
+
+    /**
+     * Inclui {@code evidenceSummary} na resposta.
+     */
+    public void setExplain(boolean explain) {
+        this.explain = explain;
     }
 
     public String getNormalizedUrl() {
@@ -89,4 +131,13 @@ public class CheckResponse {
     public void setSubmittedAt(LocalDateTime submittedAt) {
         this.submittedAt = submittedAt;
     }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public CheckStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CheckStatus status) {
+        this.status = status;
+    }
 }
@@ -0,0 +1,10 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.dto;
+
+/**
+ * Estado de uma verificação assíncrona (POST /api/v1/checks/async).
+ */
+public enum CheckStatus {
+    PENDING, // veredito provisório (regras/ThreatIntel); a IA ainda está rodando
+    COMPLETE, // veredito final
+    FAILED // a IA falhou; fica o provisório
+}
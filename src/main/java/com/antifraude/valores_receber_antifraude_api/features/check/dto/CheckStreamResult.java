@@ -0,0 +1,46 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * Uma linha da saída da varredura por streaming: a resposta da
+ * verificação (campos de {@link CheckResponse} no mesmo nível) ou o erro,
+ * com o número da linha de entrada.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CheckStreamResult {
+
+    private long line;
+
+    @JsonUnwrapped
+    private CheckResponse result;
+
+    private String error;
+
+    public static CheckStreamResult of(long line, CheckResponse result) {
+        CheckStreamResult r = new CheckStreamResult();
+        r.line = line;
+        r.result = result;
+        return r;
+    }
+
+    public static CheckStreamResult error(long line, String error) {
+        CheckStreamResult r = new CheckStreamResult();
+        r.line = line;
+        r.error = error;
+        return r;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public CheckResponse getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -1,27 +1,41 @@
 package com.antifraude.valores_receber_antifraude_api.features.check.service;
 
 import com.antifraude.valores_receber_antifraude_api.aiAgent.AiAgentService;
-import com.antifraude.valores_receber_antifraude_api.core.model.entity.BlacklistEntry;
 import com.antifraude.valores_receber_antifraude_api.core.model.entity.UrlRecord;
-import com.antifraude.valores_receber_antifraude_api.core.model.entity.WhitelistEntry;
-import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Signal;
 import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
-import com.antifraude.valores_receber_antifraude_api.core.repository.BlacklistRepository;
 import com.antifraude.valores_receber_antifraude_api.core.repository.UrlRecordRepository;
-import com.antifraude.valores_receber_antifraude_api.core.repository.WhitelistRepository;
+import com.antifraude.valores_receber_antifraude_api.core.rules.Findings;
 import com.antifraude.valores_receber_antifraude_api.core.rules.RulesEngine;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
 import com.antifraude.valores_receber_antifraude_api.core.rules.UrlNormalizer;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.CachedVerdict;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.VerdictCache;
 import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckRequest;
 import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckResponse;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckStatus;
 import com.antifraude.valores_receber_antifraude_api.lists.service.ListsService;
+import com.antifraude.valores_receber_antifraude_api.shared.util.SingleFlight;
 
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 /**
  * Serviço de orquestração do pipeline de verificação de URLs.
@@ -29,10 +43,13 @@ import java.util.List;
  * Responsável por:
  * - Normalizar a URL
  * - Consultar Whitelist / Blacklist
- * - Consultar cache de histórico (UrlRecord)
+ * - Consultar cache de histórico ({@link VerdictCache} e, na falta, UrlRecord)
  * - Executar o motor de regras ({@link RulesEngine})
  * - Chamar ThreatIntel + IA via {@link AiAgentService}
  * - Persistir o histórico e alimentar blacklist/whitelist automaticamente
+ *   (via {@link VerdictWriteBehind}, fora do caminho da resposta)
+ * - No modo assíncrono, rodar a IA em segundo plano ({@link PendingChecks})
+ * - Medir cada etapa ({@link StageTimings}, {@link CheckStageMetrics})
  */
 @Service
 public class CheckService {
@@ -41,22 +58,36 @@ public class CheckService {
     private final RulesEngine rulesEngine;
     private final ListsService listsService;
     private final AiAgentService aiAgentService;
-    private final BlacklistRepository blacklistRepository;
-    private final WhitelistRepository whitelistRepository;
+    private final VerdictCache verdictCache;
+    private final VerdictWriteBehind writeBehind;
+    private final PendingChecks pendingChecks;
+    private final CheckStageMetrics stageMetrics;
+    // verificações em andamento por URL normalizada
+    private final SingleFlight<CheckResponse> inFlight;
+    // regras/IA das URLs de um lote, em paralelo
+    private final ExecutorService batchExecutor;
 
     public CheckService(
             UrlRecordRepository urlRecordRepository,
             RulesEngine rulesEngine,
             ListsService listsService,
             AiAgentService aiAgentService,
-            BlacklistRepository blacklistRepository,
-            WhitelistRepository whitelistRepository) {
+            VerdictCache verdictCache,
+            VerdictWriteBehind writeBehind,
+            PendingChecks pendingChecks,
+            CheckStageMetrics stageMetrics,
+            @Qualifier("checkBatchExecutor") ExecutorService batchExecutor,
+            @Value("${antifraude.check.coalesce-stripes:64}") int coalesceStripes) {
         this.urlRecordRepository = urlRecordRepository;
         this.rulesEngine = rulesEngine;
         this.listsService = listsService;
         this.aiAgentService = aiAgentService;
-        this.blacklistRepository = blacklistRepository;
-        this.whitelistRepository = whitelistRepository;
+        this.verdictCache = verdictCache;
+        this.writeBehind = writeBehind;
+        this.pendingChecks = pendingChecks;
+        this.stageMetrics = stageMetrics;
+        this.inFlight = new SingleFlight<>(coalesceStripes, CheckResponse::copy);
+        this.batchExecutor = batchExecutor;
     }
 
     /**
@@ -65,42 +96,348 @@ public class CheckService {
      * 1) Normalização da URL
      * 2) Whitelist (curto-circuito)
      * 3) Blacklist (curto-circuito)
-     * 4) Cache (UrlRecord, se já analisamos essa URL)
+     * 3b) Homógrafo de domínio da whitelist (curto-circuito)
+     * 4) Cache (em memória e depois UrlRecord, se já analisamos essa URL)
      * 5) Motor de Regras local
      * 6) IA + ThreatIntel (VirusTotal + LLM)
+     *
+     * Requisições simultâneas da mesma URL (link viralizando numa campanha)
+     * não repetem os passos 2-6: a primeira executa e as outras recebem uma
+     * cópia da resposta dela.
+     *
+     * O pipeline não roda numa transação: listas e cache de vereditos estão
+     * em memória, a leitura do histórico usa a transação curta do
+     * repositório e regras, ThreatIntel e IA não tocam no banco. A
+     * gravação do veredito (e a das listas) vai para a fila do
+     * {@link VerdictWriteBehind}, gravada em lote por outra thread: nenhuma
+     * conexão do pool fica presa esperando rede, e a verificação não espera
+     * o INSERT.
      */
-    @Transactional
     public CheckResponse submit(CheckRequest request) {
+        return submit(request, new StageTimings());
+    }
+
+    /**
+     * Como {@link #submit(CheckRequest)}, anotando em {@code timings} o
+     * tempo de cada etapa e a que decidiu (para o cabeçalho Server-Timing).
+     * Quem recebeu a resposta de uma verificação igual em andamento aparece
+     * como {@link CheckStage#COALESCED}.
+     */
+    public CheckResponse submit(CheckRequest request, StageTimings timings) {
+
+        // 1) Normalizar URL
+        UrlNormalizer.Result norm = UrlNormalizer.normalize(request.getRawInput());
+        timings.domain(norm.domain);
+        timings.lap(CheckStage.NORMALIZE);
+        CheckResponse resp = inFlight.execute(norm.normalizedUrl, () -> check(norm, timings));
+        finish(timings, resp);
+        return resp;
+    }
+
+    /**
+     * Verifica um lote de URLs (por exemplo, todas as de uma mensagem) e
+     * devolve as respostas na ordem de entrada.
+     *
+     * 1) Normaliza e deduplica: cada URL distinta passa pelo pipeline uma vez
+     * 2-4) Listas, homógrafo e cache em memória para todas
+     * 4) Histórico no banco das que sobraram, numa consulta só
+     * 5-6) Regras e IA das restantes em paralelo: o lote demora perto da
+     *      URL mais lenta, não da soma
+     *
+     * URLs repetidas recebem cópias da mesma resposta.
+     */
+    public List<CheckResponse> submitBatch(List<CheckRequest> requests) {
+        // 1) Normalizar e deduplicar
+        List<String> order = new ArrayList<>(requests.size());
+        Map<String, UrlNormalizer.Result> distinct = new LinkedHashMap<>();
+        for (CheckRequest request : requests) {
+            UrlNormalizer.Result norm = UrlNormalizer.normalize(request.getRawInput());
+            order.add(norm.normalizedUrl);
+            distinct.putIfAbsent(norm.normalizedUrl, norm);
+        }
+
+        // 2-4) Listas, homógrafo e cache em memória
+        // (tempos por URL contam a espera pelas outras do lote)
+        Map<String, CheckResponse> byUrl = new HashMap<>(distinct.size() * 2);
+        Map<String, UrlFeatures> misses = new LinkedHashMap<>();
+        Map<String, StageTimings> timingsByUrl = new HashMap<>(distinct.size() * 2);
+        for (UrlNormalizer.Result norm : distinct.values()) {
+            StageTimings timings = new StageTimings();
+            timings.domain(norm.domain);
+            UrlFeatures features = rulesEngine.features(norm);
+            timings.lap(CheckStage.NORMALIZE);
+            CheckResponse known = resolveInMemory(norm, features, timings);
+            if (known != null) {
+                byUrl.put(norm.normalizedUrl, known);
+                finish(timings, known);
+            } else {
+                misses.put(norm.normalizedUrl, features);
+                timingsByUrl.put(norm.normalizedUrl, timings);
+            }
+        }
+
+        // 4) Histórico no banco, uma consulta para o lote
+        if (!misses.isEmpty()) {
+            for (UrlRecord record : urlRecordRepository.findAllByNormalizedUrl(misses.keySet())) {
+                if (misses.remove(record.getNormalizedUrl()) != null) {
+                    StageTimings timings = timingsByUrl.get(record.getNormalizedUrl());
+                    timings.decide(CheckStage.HISTORY);
+                    CheckResponse stored = handleStoredRecord(record);
+                    byUrl.put(record.getNormalizedUrl(), stored);
+                    finish(timings, stored);
+                }
+            }
+        }
+
+        // 5-6) Regras e IA em paralelo (juntando com verificações avulsas da
+        // mesma URL que estejam em andamento)
+        Map<String, CompletableFuture<CheckResponse>> running = new HashMap<>(misses.size() * 2);
+        for (Map.Entry<String, UrlFeatures> miss : misses.entrySet()) {
+            UrlNormalizer.Result norm = distinct.get(miss.getKey());
+            UrlFeatures features = miss.getValue();
+            StageTimings timings = timingsByUrl.get(miss.getKey());
+            timings.lap(CheckStage.HISTORY);
+            running.put(miss.getKey(), CompletableFuture.supplyAsync(() -> {
+                timings.resumeOnCurrentThread(); // eventos JFR na thread que roda a etapa
+                CheckResponse resp = inFlight.execute(norm.normalizedUrl, () -> classify(norm, features, timings));
+                finish(timings, resp);
+                return resp;
+            }, batchExecutor));
+        }
+        for (Map.Entry<String, CompletableFuture<CheckResponse>> r : running.entrySet()) {
+            try {
+                byUrl.put(r.getKey(), r.getValue().join());
+            } catch (CompletionException e) {
+                // as outras terminam sozinhas e ficam no cache/histórico
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        List<CheckResponse> results = new ArrayList<>(order.size());
+        Set<String> delivered = new HashSet<>(distinct.size() * 2);
+        for (String url : order) {
+            CheckResponse resp = byUrl.get(url);
+            // cada posição com a sua instância (o controller altera a resposta)
+            results.add(delivered.add(url) ? resp : resp.copy());
+        }
+        return results;
+    }
+
+    /**
+     * Modo assíncrono: o que dá para decidir sem a IA (listas, cache,
+     * histórico, regras, ThreatIntel) responde na hora, com status
+     * COMPLETE. Se só a IA decide, devolve um veredito provisório (UNKNOWN,
+     * com score e evidências de regras e ThreatIntel, status PENDING) e a
+     * IA roda em segundo plano; o final sai em {@link #find} e no
+     * {@code callbackUrl} da requisição.
+     *
+     * Com o limite de pendentes atingido, a IA roda aqui mesmo, como no
+     * modo síncrono (resposta COMPLETE, sem callback).
+     *
+     * @param explain se o callback leva as evidências em texto
+     */
+    public CheckResponse submitAsync(CheckRequest request, boolean explain) {
+        return submitAsync(request, explain, new StageTimings());
+    }
+
+    /**
+     * Como {@link #submitAsync(CheckRequest, boolean)}, anotando em
+     * {@code timings} as etapas que rodaram na requisição (a IA em segundo
+     * plano entra só nas métricas).
+     */
+    public CheckResponse submitAsync(CheckRequest request, boolean explain, StageTimings timings) {
+        pendingChecks.checkCallbackUrl(request.getCallbackUrl());
 
         // 1) Normalizar URL
         UrlNormalizer.Result norm = UrlNormalizer.normalize(request.getRawInput());
+        timings.domain(norm.domain);
+        UrlFeatures features = rulesEngine.features(norm);
+        timings.lap(CheckStage.NORMALIZE);
+
+        // 2-4) Listas, homógrafo, cache e histórico
+        CheckResponse known = resolveInMemory(norm, features, timings);
+        if (known == null) {
+            var existingOpt = urlRecordRepository.findByNormalizedUrl(norm.normalizedUrl);
+            if (existingOpt.isPresent()) {
+                timings.decide(CheckStage.HISTORY);
+                known = handleStoredRecord(existingOpt.get());
+            } else {
+                timings.lap(CheckStage.HISTORY);
+            }
+        }
+
+        // 5) Regras
+        RulesEngine.Result rules = null;
+        if (known == null) {
+            rules = rulesEngine.evaluate(features);
+            known = decideByRules(norm, rules, timings);
+        }
+
+        // 6a) ThreatIntel
+        AiAgentService.ThreatIntelStep ti = null;
+        if (known == null) {
+            ti = aiAgentService.classifyByThreatIntel(features, 0);
+            if (ti.decision != null) {
+                timings.decide(CheckStage.THREAT_INTEL);
+                known = recordDecision(norm, ti.decision, timings);
+            } else {
+                timings.lap(CheckStage.THREAT_INTEL);
+            }
+        }
+
+        if (known != null) {
+            finish(timings, known);
+            known.setStatus(CheckStatus.COMPLETE);
+            return known;
+        }
+
+        // 6b) IA em segundo plano (com seus próprios tempos)
+        AiAgentService.ThreatIntelStep step = ti;
+        Supplier<CheckResponse> ai = () -> {
+            StageTimings background = new StageTimings();
+            background.domain(norm.domain);
+            CheckResponse resp = inFlight.execute(norm.normalizedUrl, () -> {
+                AiAgentService.Result iaResult = aiAgentService.classifyByAi(features, 0, step);
+                background.decide(CheckStage.AI);
+                return recordDecision(norm, iaResult, background);
+            });
+            finish(background, resp);
+            return resp;
+        };
+        CheckResponse provisional = buildProvisional(norm, rules, ti);
+        CheckResponse pending = pendingChecks.start(provisional.getId(), provisional,
+                request.getCallbackUrl(), explain, ai);
+        stageMetrics.record(timings); // sem veredito ainda
+        if (pending != null) {
+            timings.endTrace(pending.getVerdict().name(), pending.getSource());
+            return pending;
+        }
+
+        CheckResponse resp = ai.get();
+        timings.endTrace(resp.getVerdict().name(), resp.getSource());
+        resp.setStatus(CheckStatus.COMPLETE);
+        return resp;
+    }
+
+    /**
+     * Verificação pelo id (o do {@code url_record}): a assíncrona em
+     * andamento ou recém-terminada neste nó e, fora isso, o último veredito
+     * do histórico. Um veredito que ainda espera o flush do
+     * {@link VerdictWriteBehind} sai da fila dele.
+     *
+     * @return null se não há verificação nem histórico com esse id
+     */
+    public CheckResponse find(UUID id) {
+        CheckResponse tracked = pendingChecks.get(id);
+        if (tracked != null) {
+            return tracked;
+        }
+        Optional<UrlRecord> stored = urlRecordRepository.findById(id);
+        if (stored.isEmpty()) {
+            CachedVerdict queued = writeBehind.queued(id);
+            if (queued != null) {
+                CheckResponse resp = buildResp(queued, "CACHE", Findings.of(Signal.CACHE_HIT));
+                resp.setStatus(CheckStatus.COMPLETE);
+                return resp;
+            }
+            // gravado pelo flush entre a primeira busca e a fila
+            stored = urlRecordRepository.findById(id);
+        }
+        return stored
+                .map(record -> {
+                    CheckResponse resp = handleStoredRecord(record);
+                    resp.setStatus(CheckStatus.COMPLETE);
+                    return resp;
+                })
+                .orElse(null);
+    }
+
+    private CheckResponse check(UrlNormalizer.Result norm, StageTimings timings) {
+        // características extraídas uma vez e reaproveitadas por regras, ThreatIntel e IA
+        UrlFeatures features = rulesEngine.features(norm);
+        timings.lap(CheckStage.NORMALIZE);
 
-        // 2) WHITELIST (prioridade máxima)
-        CheckResponse whitelistDecision = handleWhitelist(norm);
-        if (whitelistDecision != null) {
-            return whitelistDecision;
+        // 2-4) Listas, homógrafo e cache, tudo em memória
+        CheckResponse known = resolveInMemory(norm, features, timings);
+        if (known != null) {
+            return known;
         }
 
-        // 3) BLACKLIST (prioridade alta)
-        CheckResponse blacklistDecision = handleBlacklist(norm);
-        if (blacklistDecision != null) {
-            return blacklistDecision;
+        // 4) Histórico no banco
+        var existingOpt = urlRecordRepository.findByNormalizedUrl(norm.normalizedUrl);
+        if (existingOpt.isPresent()) {
+            timings.decide(CheckStage.HISTORY);
+            return handleStoredRecord(existingOpt.get());
+        }
+        timings.lap(CheckStage.HISTORY);
+
+        return classify(norm, features, timings);
+    }
+
+    /**
+     * Fecha os tempos de uma verificação e grava nas métricas e no JFR. Sem
+     * etapa que tenha decidido, a resposta veio de uma verificação igual em
+     * andamento.
+     */
+    private void finish(StageTimings timings, CheckResponse resp) {
+        if (timings.decidedBy() == null) {
+            timings.decide(CheckStage.COALESCED);
         }
+        stageMetrics.record(timings);
+        timings.endTrace(resp.getVerdict() != null ? resp.getVerdict().name() : null, resp.getSource());
+    }
 
-        // 4) CACHE (já temos histórico dessa URL?)
-        CheckResponse cacheDecision = handleCache(norm);
-        if (cacheDecision != null) {
-            return cacheDecision;
+    /**
+     * Passos 2-4 que não vão ao banco: listas, homógrafo e
+     * {@link VerdictCache}. Null se a URL precisa do histórico ou das regras.
+     */
+    private CheckResponse resolveInMemory(UrlNormalizer.Result norm, UrlFeatures features, StageTimings timings) {
+        // 2-3) Listas: o pré-filtro de Bloom descarta de cara as URLs que
+        // com certeza não estão em nenhuma delas
+        if (listsService.mightBeListed(norm.normalizedUrl, norm.domain)) {
+            // 2) WHITELIST (prioridade máxima)
+            CheckResponse whitelistDecision = handleWhitelist(norm, timings);
+            if (whitelistDecision != null) {
+                return whitelistDecision;
+            }
+
+            // 3) BLACKLIST (prioridade alta)
+            CheckResponse blacklistDecision = handleBlacklist(norm, timings);
+            if (blacklistDecision != null) {
+                return blacklistDecision;
+            }
         }
+        timings.lap(CheckStage.LISTS);
 
+        // 3b) Host que se lê como um domínio da whitelist sem ser ele
+        CheckResponse homographDecision = handleWhitelistHomograph(norm, features, timings);
+        if (homographDecision != null) {
+            return homographDecision;
+        }
+        timings.lap(CheckStage.HOMOGRAPH);
+
+        // 4) CACHE em memória (já temos histórico recente dessa URL?)
+        CheckResponse cached = handleCache(norm);
+        if (cached != null) {
+            timings.decide(CheckStage.CACHE);
+        } else {
+            timings.lap(CheckStage.CACHE);
+        }
+        return cached;
+    }
+
+    /**
+     * Passos 5-6, para uma URL sem lista nem histórico.
+     */
+    private CheckResponse classify(UrlNormalizer.Result norm, UrlFeatures features, StageTimings timings) {
         // 5) Motor de regras local (heurísticas estáticas)
-        CheckResponse rulesDecision = handleRules(norm);
+        CheckResponse rulesDecision = handleRules(norm, features, timings);
         if (rulesDecision != null) {
             return rulesDecision;
         }
 
         // 6) IA + Threat Intel (VirusTotal + LLM)
-        return handleAi(norm);
+        return handleAi(norm, features, timings);
     }
 
     // ---------- Etapas do pipeline ----------
@@ -109,54 +446,75 @@ public class CheckService {
      * Passo de Whitelist: se a URL/domínio bater com uma regra da whitelist,
      * já retorna LEGIT e não segue para as próximas etapas.
      */
-    private CheckResponse handleWhitelist(UrlNormalizer.Result norm) {
+    private CheckResponse handleWhitelist(UrlNormalizer.Result norm, StageTimings timings) {
         var white = listsService.matchWhitelist(norm.normalizedUrl, norm.domain);
         if (!white.hit) {
             return null;
         }
+        timings.decide(CheckStage.LISTS);
 
-        UrlRecord rec = upsertRecord(norm, Verdict.LEGIT, 10); // score baixo para URLs confiáveis
-        return buildResp(
-                rec,
-                "LIST",
-                List.of(white.ruleCode),
-                List.of("Whitelist: " + white.matchedValue));
+        CachedVerdict rec = writeBehind.record(norm, Verdict.LEGIT, 10); // score baixo para URLs confiáveis
+        timings.lap(CheckStage.PERSIST);
+        return buildResp(rec, "LIST", Findings.of(Signal.WHITELIST_HIT, white.matchedValue));
     }
 
     /**
      * Passo de Blacklist: se a URL/domínio bater com uma regra da blacklist,
      * retorna SUSPECT imediatamente.
      */
-    private CheckResponse handleBlacklist(UrlNormalizer.Result norm) {
+    private CheckResponse handleBlacklist(UrlNormalizer.Result norm, StageTimings timings) {
         var black = listsService.matchBlacklist(norm.normalizedUrl, norm.domain);
         if (!black.hit) {
             return null;
         }
+        timings.decide(CheckStage.LISTS);
+
+        CachedVerdict rec = writeBehind.record(norm, Verdict.SUSPECT, 90); // score alto para URLs bloqueadas
+        timings.lap(CheckStage.PERSIST);
+        return buildResp(rec, "LIST", Findings.of(Signal.BLACKLIST_HIT, black.matchedValue));
+    }
+
+    /**
+     * Passo de homógrafo: quando o host tem caracteres confundíveis (IDN,
+     * "0" por "o"...), procura o esqueleto dele na whitelist. Um acerto é
+     * imitação de domínio confiável e retorna SUSPECT.
+     */
+    private CheckResponse handleWhitelistHomograph(UrlNormalizer.Result norm, UrlFeatures features,
+            StageTimings timings) {
+        if (features.hostSkeleton == features.host) {
+            return null; // nada confundível: caso comum, sem consulta
+        }
+        var white = listsService.matchWhitelistHost(features.hostSkeleton);
+        if (!white.hit) {
+            return null;
+        }
+        timings.decide(CheckStage.HOMOGRAPH);
 
-        UrlRecord rec = upsertRecord(norm, Verdict.SUSPECT, 90); // score alto para URLs bloqueadas
-        return buildResp(
-                rec,
-                "LIST",
-                List.of(black.ruleCode),
-                List.of("Blacklist: " + black.matchedValue));
+        CachedVerdict rec = writeBehind.record(norm, Verdict.SUSPECT, 90);
+        timings.lap(CheckStage.PERSIST);
+        return buildResp(rec, "LIST", Findings.of(Signal.WHITELIST_HOMOGRAPH, white.matchedValue));
     }
 
     /**
-     * Passo de cache: verifica se já temos histórico para essa URL.
-     * Se sim, devolve o último veredito armazenado.
+     * Passo de cache: se o {@link VerdictCache} tem veredito para essa URL,
+     * devolve o último armazenado.
      */
     private CheckResponse handleCache(UrlNormalizer.Result norm) {
-        var existingOpt = urlRecordRepository.findByNormalizedUrl(norm.normalizedUrl);
-        if (existingOpt.isEmpty()) {
+        CachedVerdict cached = verdictCache.get(norm.normalizedUrl);
+        if (cached == null) {
             return null;
         }
+        return buildResp(cached, "CACHE", Findings.of(Signal.CACHE_HIT));
+    }
 
-        UrlRecord rec = existingOpt.get();
-        return buildResp(
-                rec,
-                "CACHE",
-                List.of("CACHE_HIT"),
-                List.of("Registro prévio no banco"));
+    /**
+     * Passo de cache, segunda parte: histórico lido do banco (fora do
+     * {@link VerdictCache}). Devolve o último veredito e o leva ao cache.
+     */
+    private CheckResponse handleStoredRecord(UrlRecord record) {
+        CachedVerdict cached = CachedVerdict.of(record);
+        verdictCache.putAfterCommit(cached);
+        return buildResp(cached, "CACHE", Findings.of(Signal.CACHE_HIT));
     }
 
     /**
@@ -164,29 +522,32 @@ public class CheckService {
      * Se o motor decidir SUSPECT ou LEGIT, além de retornar o veredito,
      * alimenta também blacklist/whitelist automaticamente.
      */
-    private CheckResponse handleRules(UrlNormalizer.Result norm) {
-        var ruleResult = rulesEngine.evaluate(norm.normalizedUrl, norm.domain);
+    private CheckResponse handleRules(UrlNormalizer.Result norm, UrlFeatures features, StageTimings timings) {
+        return decideByRules(norm, rulesEngine.evaluate(features), timings);
+    }
+
+    private CheckResponse decideByRules(UrlNormalizer.Result norm, RulesEngine.Result ruleResult,
+            StageTimings timings) {
         if (ruleResult.verdict == Verdict.UNKNOWN) {
             // Se o motor de regras ficou em dúvida, seguimos o pipeline
+            timings.lap(CheckStage.RULES);
             return null;
         }
+        timings.decide(CheckStage.RULES);
 
-        UrlRecord rec = upsertRecord(norm, ruleResult.verdict, ruleResult.score);
+        CachedVerdict rec = writeBehind.record(norm, ruleResult.verdict, ruleResult.score);
 
         // Se as REGRAS classificarem como SUSPECT, já joga na BLACKLIST
         if (ruleResult.verdict == Verdict.SUSPECT) {
-            addToBlacklist(norm.normalizedUrl, "Rules engine marcou como suspeita");
+            writeBehind.learn(ListKind.BLACKLIST, norm.normalizedUrl, "Rules engine marcou como suspeita");
         }
         // Se as REGRAS classificarem como LEGIT, joga na WHITELIST
         else if (ruleResult.verdict == Verdict.LEGIT) {
-            addToWhitelist(norm.normalizedUrl, "Rules engine confirmou como legítima");
+            writeBehind.learn(ListKind.WHITELIST, norm.normalizedUrl, "Rules engine confirmou como legítima");
         }
+        timings.lap(CheckStage.PERSIST);
 
-        return buildResp(
-                rec,
-                "RULES",
-                ruleResult.ruleHits,
-                ruleResult.evidence);
+        return buildResp(rec, "RULES", ruleResult.findings());
     }
 
     /**
@@ -197,102 +558,74 @@ public class CheckService {
      * - URL não estava em cache
      * - Motor de regras não decidiu
      */
-    private CheckResponse handleAi(UrlNormalizer.Result norm) {
-        AiAgentService.Result iaResult = aiAgentService.classify(
-                norm.normalizedUrl,
-                norm.domain,
-                0);
-
-        List<String> hits = new ArrayList<>();
-        List<String> evidence = new ArrayList<>();
-
-        if (iaResult.ruleHits != null) {
-            hits.addAll(iaResult.ruleHits);
-        }
-        if (iaResult.evidence != null) {
-            evidence.addAll(iaResult.evidence);
+    private CheckResponse handleAi(UrlNormalizer.Result norm, UrlFeatures features, StageTimings timings) {
+        AiAgentService.Result iaResult = aiAgentService.classify(features, 0);
+        // (os eventos JFR das duas etapas saem de dentro do classify)
+        if ("THREAT_INTEL".equals(iaResult.source)) {
+            timings.decideTraced(CheckStage.THREAT_INTEL);
+        } else {
+            // o ThreatIntel rodou antes da IA, dentro da mesma chamada
+            timings.split(CheckStage.THREAT_INTEL, iaResult.threatIntelNanos(), CheckStage.AI);
+            timings.decideTraced(CheckStage.AI);
         }
+        return recordDecision(norm, iaResult, timings);
+    }
 
-        UrlRecord rec = upsertRecord(norm, iaResult.verdict, iaResult.score);
+    /**
+     * Grava o veredito de ThreatIntel/IA e, se for claro, alimenta as listas.
+     */
+    private CheckResponse recordDecision(UrlNormalizer.Result norm, AiAgentService.Result iaResult,
+            StageTimings timings) {
+        CachedVerdict rec = writeBehind.record(norm, iaResult.verdict, iaResult.score);
 
         // Sempre que o veredito final for claro,
         // alimenta listas automaticamente (URL completa)
         if (iaResult.verdict == Verdict.SUSPECT) {
-            addToBlacklist(norm.normalizedUrl, "Pipeline IA/ThreatIntel marcou como suspeita");
+            writeBehind.learn(ListKind.BLACKLIST, norm.normalizedUrl, "Pipeline IA/ThreatIntel marcou como suspeita");
         } else if (iaResult.verdict == Verdict.LEGIT) {
-            addToWhitelist(norm.normalizedUrl, "Pipeline IA/ThreatIntel confirmou como legítima");
+            writeBehind.learn(ListKind.WHITELIST, norm.normalizedUrl, "Pipeline IA/ThreatIntel confirmou como legítima");
         }
+        timings.lap(CheckStage.PERSIST);
 
-        return buildResp(rec, iaResult.source, hits, evidence);
+        return buildResp(rec, iaResult.source, iaResult.findings);
     }
 
-    // ---------- Persistência e helpers ----------
+    // ---------- Helpers ----------
 
     /**
-     * Cria ou atualiza o registro de URL (histórico).
-     * Sempre mantém o último veredito, score e data de visualização.
+     * Veredito provisório do modo assíncrono: regras e ThreatIntel não
+     * decidiram, então UNKNOWN com o score das regras e as evidências dos
+     * dois. O id já é o que o registro vai ter quando a IA terminar.
      */
-    private UrlRecord upsertRecord(UrlNormalizer.Result norm, Verdict verdict, int score) {
-        var recOpt = urlRecordRepository.findByNormalizedUrl(norm.normalizedUrl);
-        UrlRecord rec = recOpt.orElseGet(UrlRecord::new);
-
-        rec.setNormalizedUrl(norm.normalizedUrl);
-        rec.setDomain(norm.domain);
-        rec.setLastSeenAt(LocalDateTime.now());
-        rec.setLastStatus(verdict);
-        rec.setLastScore(Math.max(0, Math.min(score, 100)));
-
-        return urlRecordRepository.save(rec);
+    private CheckResponse buildProvisional(UrlNormalizer.Result norm, RulesEngine.Result rules,
+            AiAgentService.ThreatIntelStep ti) {
+        CheckResponse resp = new CheckResponse();
+        resp.setId(writeBehind.idFor(norm.normalizedUrl));
+        resp.setVerdict(Verdict.UNKNOWN);
+        resp.setScore(Math.max(0, Math.min(rules.score, 100)));
+        resp.setFindings(rules.findings().merge(ti.findings));
+        resp.setNormalizedUrl(norm.normalizedUrl);
+        resp.setDomain(norm.domain);
+        resp.setSource("RULES");
+        resp.setSubmittedAt(LocalDateTime.now());
+        resp.setStatus(CheckStatus.PENDING);
+        return resp;
     }
 
     /**
-     * Monta o DTO de resposta exposto pela API.
+     * Monta o DTO de resposta exposto pela API. Códigos e evidências seguem
+     * como {@link Findings}: o texto só é montado na serialização.
      */
-    private CheckResponse buildResp(UrlRecord rec, String source, List<String> hits, List<String> evidence) {
+    private CheckResponse buildResp(CachedVerdict rec, String source, Findings findings) {
         CheckResponse resp = new CheckResponse();
-        resp.setId(rec.getId());
-        resp.setVerdict(rec.getLastStatus());
-        resp.setScore(rec.getLastScore());
-        resp.setRuleHits(hits);
-        resp.setEvidenceSummary(evidence);
-        resp.setNormalizedUrl(rec.getNormalizedUrl());
-        resp.setDomain(rec.getDomain());
+        resp.setId(rec.id);
+        resp.setVerdict(rec.verdict);
+        resp.setScore(rec.score);
+        resp.setFindings(findings);
+        resp.setNormalizedUrl(rec.normalizedUrl);
+        resp.setDomain(rec.domain);
         resp.setSource(source);
         resp.setSubmittedAt(LocalDateTime.now());
         return resp;
     }
-
-    /**
-     * Adiciona uma entrada de URL na blacklist.
-     * Se já existir (violação de UNIQUE), ignora silenciosamente.
-     */
-    private void addToBlacklist(String url, String reason) {
-        try {
-            BlacklistEntry entry = new BlacklistEntry();
-            entry.setType(ListEntryType.URL);
-            entry.setValue(url);
-            entry.setActive(true);
-            entry.setReason(reason);
-            blacklistRepository.save(entry);
-        } catch (DataIntegrityViolationException ex) {
-            // Já existe entry_value igual na blacklist -> ignoramos
-        }
-    }
-
-    /**
-     * Adiciona uma entrada de URL na whitelist.
-     * Se já existir (violação de UNIQUE), ignora silenciosamente.
-     */
-    private void addToWhitelist(String url, String reason) {
-        try {
-            WhitelistEntry entry = new WhitelistEntry();
-            entry.setType(ListEntryType.URL);
-            entry.setValue(url);
-            entry.setActive(true);
-            entry.setReason(reason);
-            whitelistRepository.save(entry);
-        } catch (DataIntegrityViolationException ex) {
-            // Já existe entry_value igual na whitelist -> ignoramos
-        }
-    }
 }
@@ -0,0 +1,27 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import java.util.Locale;
+
+/**
+ * Etapas do pipeline de verificação, na ordem em que rodam. O nome em
+ * minúsculas é a tag {@code stage} das métricas e o nome no cabeçalho
+ * {@code Server-Timing}.
+ */
+public enum CheckStage {
+    NORMALIZE, // UrlNormalizer + extração de características
+    LISTS, // whitelist / blacklist (pré-filtro incluído)
+    HOMOGRAPH, // homógrafo de domínio da whitelist
+    CACHE, // VerdictCache em memória
+    HISTORY, // url_record no banco
+    RULES, // RulesEngine
+    THREAT_INTEL, // ThreatIntelService
+    AI, // ExternalAiClient
+    PERSIST, // gravação do veredito e das listas (fila do write-behind)
+    COALESCED; // espera por verificação igual já em andamento
+
+    final String tag = name().toLowerCase(Locale.ROOT);
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,64 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo por etapa do pipeline ({@code antifraude.check.stage}, tag
+ * {@code stage}) e quantas verificações cada etapa decidiu
+ * ({@code antifraude.check.decided}, tag {@code stage}).
+ *
+ * Os medidores são criados uma vez, na ligação com o registry, e ficam
+ * num array por ordinal: gravar não procura medidor por nome nem monta
+ * tags.
+ */
+@Component
+public class CheckStageMetrics implements MeterBinder {
+
+    private static final CheckStage[] STAGES = CheckStage.values();
+
+    private volatile Timer[] stageTimers; // null até o registry ligar
+    private volatile Counter[] decided;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Timer[] timers = new Timer[STAGES.length];
+        Counter[] counters = new Counter[STAGES.length];
+        for (CheckStage s : STAGES) {
+            timers[s.ordinal()] = Timer.builder("antifraude.check.stage")
+                    .tag("stage", s.tag())
+                    .description("Tempo da etapa do pipeline de verificação")
+                    .register(registry);
+            counters[s.ordinal()] = Counter.builder("antifraude.check.decided")
+                    .tag("stage", s.tag())
+                    .description("Verificações cujo veredito saiu desta etapa")
+                    .register(registry);
+        }
+        decided = counters;
+        stageTimers = timers;
+    }
+
+    /**
+     * Grava as etapas percorridas por uma verificação terminada.
+     */
+    public void record(StageTimings timings) {
+        Timer[] timers = stageTimers;
+        if (timers == null) {
+            return;
+        }
+        for (CheckStage s : STAGES) {
+            if (timings.visited(s)) {
+                timers[s.ordinal()].record(timings.nanos(s), TimeUnit.NANOSECONDS);
+            }
+        }
+        CheckStage by = timings.decidedBy();
+        if (by != null) {
+            decided[by.ordinal()].increment();
+        }
+    }
+}
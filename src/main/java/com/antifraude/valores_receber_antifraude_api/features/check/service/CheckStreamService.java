@@ -0,0 +1,235 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckRequest;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckResponse;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckStreamResult;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckStreamSummary;
+import com.antifraude.valores_receber_antifraude_api.shared.util.LatencyHistogram;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Varredura em massa por streaming: lê {@link CheckRequest}s em NDJSON e
+ * escreve um {@link CheckStreamResult} por linha, em NDJSON, assim que cada
+ * verificação termina (fora de ordem; {@code line} diz de qual linha é).
+ *
+ * No máximo {@code antifraude.check.stream.max-in-flight} verificações
+ * rodam ao mesmo tempo. Com todas ocupadas a leitura para, o buffer do
+ * socket enche e o cliente passa a esperar: a memória fica do mesmo
+ * tamanho com mil ou com dezenas de milhões de linhas (nada do corpo é
+ * acumulado, e as latências vão para um {@link LatencyHistogram} fixo).
+ *
+ * A última linha é o resumo: itens, erros, vazão e percentis de latência
+ * por item (da leitura da linha até a resposta pronta).
+ */
+@Service
+public class CheckStreamService {
+
+    private static final byte[] NEWLINE = {'\n'};
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final CheckService checkService;
+    private final ExecutorService executor;
+    private final Validator validator;
+    private final ObjectReader requestReader;
+    private final ObjectWriter writer;
+    private final int maxInFlight;
+
+    public CheckStreamService(CheckService checkService,
+            @Qualifier("checkBatchExecutor") ExecutorService executor,
+            Validator validator,
+            ObjectMapper objectMapper,
+            @Value("${antifraude.check.stream.max-in-flight:128}") int maxInFlight) {
+        this.checkService = checkService;
+        this.executor = executor;
+        this.validator = validator;
+        this.requestReader = objectMapper.readerFor(CheckRequest.class);
+        this.writer = objectMapper.writer();
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Processa o corpo inteiro e escreve as respostas e o resumo em
+     * {@code out}. Volta quando a última verificação terminou.
+     *
+     * @throws IOException se a leitura falhar ou o cliente desconectar (as
+     *                     verificações em andamento terminam, mas nada mais
+     *                     é lido)
+     */
+    public void scan(InputStream body, OutputStream out, boolean explain) throws IOException {
+        Scan scan = new Scan(out, explain);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024)) {
+            String line;
+            long lineNo = 0;
+            while ((line = reader.readLine()) != null && scan.failure == null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                CheckRequest request = parse(line);
+                String invalid = request == null ? "JSON inválido" : violations(request);
+                if (invalid != null) {
+                    scan.emit(CheckStreamResult.error(lineNo, invalid));
+                    continue;
+                }
+                scan.submit(lineNo, request);
+            }
+        } finally {
+            scan.awaitAll();
+        }
+        if (scan.failure != null) {
+            throw scan.failure;
+        }
+        scan.finish();
+    }
+
+    private CheckRequest parse(String line) {
+        try {
+            return requestReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private String violations(CheckRequest request) {
+        Set<ConstraintViolation<CheckRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Estado de uma varredura (uma requisição).
+     */
+    private final class Scan {
+        final OutputStream out;
+        final boolean explain;
+        final Semaphore permits = new Semaphore(maxInFlight);
+        final ReentrantLock writeLock = new ReentrantLock();
+        final LatencyHistogram latencyMicros = new LatencyHistogram();
+        final LongAdder items = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final long start = System.nanoTime();
+        long lastFlush = start;
+        volatile IOException failure;
+
+        Scan(OutputStream out, boolean explain) {
+            this.out = out;
+            this.explain = explain;
+        }
+
+        void submit(long lineNo, CheckRequest request) throws IOException {
+            try {
+                permits.acquire(); // contrapressão: sem vaga, a leitura espera
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Varredura interrompida", e);
+            }
+            long startedAt = System.nanoTime();
+            try {
+                executor.execute(() -> {
+                    CheckStreamResult result;
+                    try {
+                        CheckResponse resp = checkService.submit(request);
+                        resp.setExplain(explain);
+                        result = CheckStreamResult.of(lineNo, resp);
+                    } catch (RuntimeException e) {
+                        result = CheckStreamResult.error(lineNo, "Falha na verificação: " + e.getMessage());
+                    }
+                    latencyMicros.record((System.nanoTime() - startedAt) / 1_000);
+                    try {
+                        emit(result);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        void emit(CheckStreamResult result) {
+            items.increment();
+            if (result.getError() != null) {
+                errors.increment();
+            }
+            if (failure != null) {
+                return;
+            }
+            try {
+                byte[] json = writer.writeValueAsBytes(result);
+                writeLock.lock();
+                try {
+                    out.write(json);
+                    out.write(NEWLINE);
+                    // em lotes, mas sem segurar resposta pronta quando o fluxo está parado
+                    long now = System.nanoTime();
+                    if (now - lastFlush >= FLUSH_INTERVAL_NANOS || permits.availablePermits() >= maxInFlight - 1) {
+                        out.flush();
+                        lastFlush = now;
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            } catch (IOException e) {
+                failure = e; // cliente foi embora: para de ler
+            }
+        }
+
+        void awaitAll() {
+            permits.acquireUninterruptibly(maxInFlight);
+            permits.release(maxInFlight);
+        }
+
+        void finish() throws IOException {
+            long elapsedNanos = System.nanoTime() - start;
+            CheckStreamSummary summary = new CheckStreamSummary();
+            summary.setItems(items.sum());
+            summary.setErrors(errors.sum());
+            summary.setElapsedMs(elapsedNanos / 1_000_000);
+            summary.setItemsPerSecond(elapsedNanos == 0 ? 0 : items.sum() * 1e9 / elapsedNanos);
+            summary.setMeanMs(latencyMicros.mean() / 1_000);
+            summary.setP50Ms(latencyMicros.percentile(0.50) / 1_000.0);
+            summary.setP99Ms(latencyMicros.percentile(0.99) / 1_000.0);
+            summary.setMaxMs(latencyMicros.max() / 1_000.0);
+
+            writeLock.lock();
+            try {
+                out.write(writer.writeValueAsBytes(Map.of("summary", summary)));
+                out.write(NEWLINE);
+                out.flush();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckResponse;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Verificações assíncronas em andamento: guarda a resposta provisória de
+ * cada uma enquanto a IA roda em segundo plano e, quando ela termina, a
+ * resposta final (consultada por GET /api/v1/checks/{id}) e a entrega aos
+ * callbacks registrados.
+ *
+ * A chave é o id da verificação, que é o id do {@code url_record} da URL:
+ * pedidos assíncronos da mesma URL enquanto a primeira roda reaproveitam a
+ * mesma execução. O estado fica em memória neste nó; respostas finais são
+ * mantidas por {@code antifraude.check.async.result-ttl-ms} e, depois
+ * disso, o GET responde pelo histórico.
+ *
+ * A IA roda no {@code checkAsyncExecutor}, separado do fan-out de lote e
+ * streaming; com a fila dele cheia, a IA roda na própria requisição.
+ *
+ * Callbacks só para as origens (esquema http/https, host e porta) de
+ * {@code antifraude.check.async.callback-hosts} (vazio = nenhuma): o
+ * servidor não faz POST para endereço escolhido pelo cliente. Falhas são
+ * tentadas de novo com espera crescente no {@code checkCallbackExecutor},
+ * sem prender thread.
+ */
+@Component
+public class PendingChecks {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingChecks.class);
+
+    private static final int CALLBACK_ATTEMPTS = 4;
+    private static final long CALLBACK_FIRST_RETRY_MS = 1_000; // depois 4s e 16s
+
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService executor;
+    private final ExecutorService callbackExecutor;
+    private final RestTemplate callbackClient;
+    private final Set<String> callbackOrigins;
+    private final int maxPending;
+    private final long resultTtlNanos;
+
+    final LongAdder callbacksDelivered = new LongAdder();
+    final LongAdder callbacksFailed = new LongAdder();
+
+    public PendingChecks(
+            @Qualifier("checkAsyncExecutor") ExecutorService executor,
+            @Qualifier("checkCallbackExecutor") ExecutorService callbackExecutor,
+            RestTemplateBuilder restTemplateBuilder,
+            @Value("${antifraude.check.async.max-pending:10000}") int maxPending,
+            @Value("${antifraude.check.async.result-ttl-ms:60000}") long resultTtlMs,
+            @Value("${antifraude.check.async.callback-hosts:}") String callbackHosts,
+            @Value("${antifraude.check.async.callback-timeout-ms:5000}") long callbackTimeoutMs) {
+        this.executor = executor;
+        this.callbackExecutor = callbackExecutor;
+        this.callbackClient = restTemplateBuilder
+                .connectTimeout(Duration.ofMillis(callbackTimeoutMs))
+                .readTimeout(Duration.ofMillis(callbackTimeoutMs))
+                .build();
+        this.callbackOrigins = Arrays.stream(callbackHosts.split(","))
+                .map(String::trim)
+                .filter(h -> !h.isEmpty())
+                .map(h -> {
+                    String origin = origin(h);
+                    if (origin == null) {
+                        throw new IllegalArgumentException(
+                                "antifraude.check.async.callback-hosts: esperado http(s)://host[:porta], veio " + h);
+                    }
+                    return origin;
+                })
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxPending = maxPending;
+        this.resultTtlNanos = TimeUnit.MILLISECONDS.toNanos(resultTtlMs);
+    }
+
+    /**
+     * Recusa (400) callback fora das origens permitidas: esquema, host e
+     * porta têm de bater ({@code ftp://host} ou {@code http://host:6379}
+     * não passam só porque o host está na lista).
+     */
+    public void checkCallbackUrl(String callbackUrl) {
+        if (callbackUrl == null) {
+            return;
+        }
+        String origin = origin(callbackUrl);
+        if (origin == null || !callbackOrigins.contains(origin)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "callbackUrl não permitida (origens em antifraude.check.async.callback-hosts)");
+        }
+    }
+
+    /**
+     * "esquema://host:porta" em minúsculas, com a porta padrão explícita;
+     * null se não for http/https com host ou se trouxer usuário/senha.
+     */
+    static String origin(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String scheme = uri.getScheme() == null ? null : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!"http".equals(scheme) && !"https".equals(scheme)) {
+            return null;
+        }
+        if (uri.getHost() == null || uri.getRawUserInfo() != null) {
+            return null;
+        }
+        int port = uri.getPort() != -1 ? uri.getPort() : "https".equals(scheme) ? 443 : 80;
+        return scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT) + ":" + port;
+    }
+
+    /**
+     * Registra a verificação {@code id} e roda {@code work} (a IA) em
+     * segundo plano; se ela já estiver em andamento, só acrescenta o
+     * callback.
+     *
+     * @param callbackUrl recebe a resposta final; null = só consulta
+     * @param explain     se a resposta do callback leva as evidências
+     * @return a resposta provisória em andamento (status PENDING), ou null
+     *         se o limite de pendentes foi atingido (o chamador roda a IA
+     *         na própria requisição)
+     */
+    CheckResponse start(UUID id, CheckResponse provisional, String callbackUrl, boolean explain,
+            Supplier<CheckResponse> work) {
+        Entry created = new Entry(provisional);
+        Entry entry = entries.compute(id, (k, e) -> {
+            if (e != null && !e.isDone()) {
+                return e;
+            }
+            return reserve() ? created : e;
+        });
+        if (entry != created) {
+            if (entry == null || entry.isDone()) {
+                return null; // sem vaga
+            }
+        } else {
+            try {
+                executor.execute(() -> run(created, work));
+            } catch (RejectedExecutionException e) {
+                entries.remove(id, created);
+                pending.decrementAndGet();
+                return null;
+            }
+        }
+
+        if (callbackUrl != null) {
+            Callback callback = new Callback(callbackUrl, explain);
+            CheckResponse result = entry.addCallback(callback);
+            if (result != null) {
+                // terminou enquanto registrava: entrega fora da requisição
+                CompletableFuture.runAsync(() -> deliver(callback, result, 1), callbackExecutor);
+            }
+        }
+        return entry.view();
+    }
+
+    /**
+     * Estado atual da verificação {@code id}: provisória (PENDING) ou final
+     * (COMPLETE / FAILED); null se não está em memória neste nó.
+     */
+    public CheckResponse get(UUID id) {
+        Entry entry = entries.get(id);
+        return entry != null ? entry.view() : null;
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    /**
+     * Ocupa uma vaga de pendente se ainda houver; a verificação e o
+     * incremento são um só CAS, então o limite é exato.
+     */
+    private boolean reserve() {
+        for (;;) {
+            int n = pending.get();
+            if (n >= maxPending) {
+                return false;
+            }
+            if (pending.compareAndSet(n, n + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void run(Entry entry, Supplier<CheckResponse> work) {
+        CheckResponse result;
+        try {
+            result = work.get().copy();
+            result.setStatus(CheckStatus.COMPLETE);
+        } catch (RuntimeException e) {
+            log.warn("Verificação assíncrona de {} falhou; fica o veredito provisório",
+                    entry.provisional.getNormalizedUrl(), e);
+            result = entry.provisional.copy();
+            result.setStatus(CheckStatus.FAILED);
+        }
+        List<Callback> callbacks = entry.complete(result);
+        pending.decrementAndGet();
+        for (Callback c : callbacks) {
+            deliver(c, result, 1);
+        }
+    }
+
+    private void deliver(Callback callback, CheckResponse result, int attempt) {
+        CheckResponse body = result.copy();
+        body.setExplain(callback.explain);
+        try {
+            callbackClient.postForEntity(callback.url, body, Void.class);
+            callbacksDelivered.increment();
+        } catch (RestClientException e) {
+            if (attempt >= CALLBACK_ATTEMPTS) {
+                callbacksFailed.increment();
+                log.warn("Callback de {} para {} falhou {} vezes; desistindo",
+                        result.getId(), callback.url, attempt, e);
+                return;
+            }
+            long delayMs = CALLBACK_FIRST_RETRY_MS << (2 * (attempt - 1));
+            CompletableFuture.runAsync(() -> deliver(callback, result, attempt + 1),
+                    CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS, callbackExecutor));
+        }
+    }
+
+    /**
+     * Descarta as respostas finais mais velhas que o prazo.
+     */
+    @Scheduled(fixedDelayString = "${antifraude.check.async.purge-interval-ms:10000}")
+    public void purge() {
+        long now = System.nanoTime();
+        entries.values().removeIf(e -> e.isDone() && now - e.doneAt >= resultTtlNanos);
+    }
+
+    private static final class Callback {
+        final String url;
+        final boolean explain;
+
+        Callback(String url, boolean explain) {
+            this.url = url;
+            this.explain = explain;
+        }
+    }
+
+    /**
+     * Uma verificação assíncrona. O lock só cobre a troca de estado, nunca
+     * a IA nem o envio dos callbacks.
+     */
+    private static final class Entry {
+        final CheckResponse provisional;
+        private CheckResponse result; // null = pendente
+        private List<Callback> callbacks = new ArrayList<>(1);
+        volatile long doneAt;
+
+        Entry(CheckResponse provisional) {
+            this.provisional = provisional;
+        }
+
+        synchronized boolean isDone() {
+            return result != null;
+        }
+
+        synchronized CheckResponse view() {
+            return (result != null ? result : provisional).copy();
+        }
+
+        /**
+         * @return a resposta final se já terminou (o chamador entrega), ou
+         *         null se o callback ficou registrado
+         */
+        synchronized CheckResponse addCallback(Callback callback) {
+            if (result != null) {
+                return result;
+            }
+            callbacks.add(callback);
+            return null;
+        }
+
+        synchronized List<Callback> complete(CheckResponse result) {
+            this.result = result;
+            this.doneAt = System.nanoTime();
+            List<Callback> registered = callbacks;
+            callbacks = List.of();
+            return registered;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Métricas das verificações assíncronas.
+ */
+@Component
+public class PendingChecksMetrics implements MeterBinder {
+
+    private final PendingChecks pendingChecks;
+
+    public PendingChecksMetrics(PendingChecks pendingChecks) {
+        this.pendingChecks = pendingChecks;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("antifraude.check.async.pending", pendingChecks, PendingChecks::pending)
+                .description("Verificações com a IA rodando em segundo plano")
+                .register(registry);
+        FunctionCounter.builder("antifraude.check.async.callbacks", pendingChecks,
+                p -> p.callbacksDelivered.sum())
+                .tag("outcome", "delivered")
+                .register(registry);
+        FunctionCounter.builder("antifraude.check.async.callbacks", pendingChecks,
+                p -> p.callbacksFailed.sum())
+                .tag("outcome", "failed")
+                .description("Callbacks abandonados depois de todas as tentativas")
+                .register(registry);
+    }
+}
@@ -0,0 +1,196 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.shared.jfr.CheckEvent;
+import com.antifraude.valores_receber_antifraude_api.shared.jfr.CheckStageEvent;
+
+/**
+ * Tempo gasto em cada {@link CheckStage} de uma verificação e qual etapa
+ * decidiu o veredito. Cada marcação custa um {@link System#nanoTime()} e
+ * uma soma num array: nada de objeto, mapa ou texto no caminho da
+ * verificação; o cabeçalho só é montado no fim.
+ *
+ * Com {@link CheckEvent} / {@link CheckStageEvent} ligados na gravação JFR,
+ * cada marcação também fecha o evento da etapa e abre o da próxima; sem
+ * eles, os eventos ficam null e o custo é uma comparação.
+ *
+ * Não é thread-safe: cada verificação usa o seu. Um evento JFR começa e
+ * termina na mesma thread; se a verificação muda de thread no meio (lote),
+ * quem continua chama {@link #resumeOnCurrentThread()}.
+ */
+public final class StageTimings {
+
+    private static final CheckStage[] STAGES = CheckStage.values();
+
+    private final long[] nanos = new long[STAGES.length];
+    private final long start;
+    private long mark;
+    private int visited; // um bit por ordinal
+    private CheckStage decidedBy;
+    private String domain;
+    // eventos JFR em curso; null com o tipo desligado
+    private CheckEvent checkEvent;
+    private CheckStageEvent stageEvent;
+
+    public StageTimings() {
+        this.checkEvent = CheckEvent.start();
+        this.stageEvent = CheckStageEvent.start();
+        this.start = System.nanoTime();
+        this.mark = start;
+    }
+
+    /**
+     * Domínio da URL verificada, para os eventos JFR. Chamado logo depois
+     * da normalização.
+     */
+    void domain(String domain) {
+        this.domain = domain;
+    }
+
+    /**
+     * Atribui a {@code stage} o tempo desde a última marcação.
+     */
+    void lap(CheckStage stage) {
+        mark(stage);
+        trace(stage, false);
+    }
+
+    /**
+     * Como {@link #lap}, e registra {@code stage} como a que decidiu.
+     */
+    void decide(CheckStage stage) {
+        mark(stage);
+        decidedBy = stage;
+        trace(stage, true);
+    }
+
+    /**
+     * Como {@link #decide}, para uma etapa cujo evento JFR já foi emitido
+     * por quem a rodou ({@code AiAgentService.classify}).
+     */
+    void decideTraced(CheckStage stage) {
+        mark(stage);
+        decidedBy = stage;
+        restartTrace();
+    }
+
+    /**
+     * Divide o tempo desde a última marcação de uma chamada que cobre duas
+     * etapas: até {@code firstNanos} (medido por quem chamou) vai para
+     * {@code first}, o resto para {@code rest}. Os eventos JFR das duas
+     * partes são emitidos pela própria chamada.
+     */
+    void split(CheckStage first, long firstNanos, CheckStage rest) {
+        long now = System.nanoTime();
+        long elapsed = now - mark;
+        long head = Math.max(0, Math.min(firstNanos, elapsed));
+        add(first, head);
+        add(rest, elapsed - head);
+        mark = now;
+        restartTrace();
+    }
+
+    /**
+     * Reabre na thread atual os eventos JFR em curso, para uma verificação
+     * que segue noutra thread ({@code CheckService.submitBatch}). Os abertos
+     * na thread anterior ficam sem commit; o da verificação passa a cobrir
+     * só o trecho daqui em diante. As etapas já marcadas foram gravadas na
+     * thread em que rodaram.
+     */
+    void resumeOnCurrentThread() {
+        if (checkEvent != null) {
+            checkEvent = CheckEvent.start();
+        }
+        restartTrace();
+    }
+
+    /**
+     * Fecha o evento JFR da verificação. {@code decidedBy} null = resposta
+     * provisória do modo assíncrono.
+     */
+    void endTrace(String verdict, String source) {
+        stageEvent = null; // o aberto não tem etapa: fica sem commit
+        CheckEvent.end(checkEvent, domain, decidedBy != null ? decidedBy.tag : null, verdict, source);
+    }
+
+    private void mark(CheckStage stage) {
+        long now = System.nanoTime();
+        add(stage, now - mark);
+        mark = now;
+    }
+
+    private void trace(CheckStage stage, boolean decided) {
+        if (stageEvent != null) {
+            CheckStageEvent.end(stageEvent, stage.tag, domain, decided);
+            stageEvent = CheckStageEvent.start();
+        }
+    }
+
+    private void restartTrace() {
+        if (stageEvent != null) {
+            stageEvent = CheckStageEvent.start(); // o aberto fica sem commit
+        }
+    }
+
+    private void add(CheckStage stage, long elapsed) {
+        nanos[stage.ordinal()] += elapsed;
+        visited |= 1 << stage.ordinal();
+    }
+
+    public boolean visited(CheckStage stage) {
+        return (visited & (1 << stage.ordinal())) != 0;
+    }
+
+    public long nanos(CheckStage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    /**
+     * Etapa que deu o veredito; null enquanto nenhuma decidiu.
+     */
+    public CheckStage decidedBy() {
+        return decidedBy;
+    }
+
+    /**
+     * Do início até a última marcação.
+     */
+    public long totalNanos() {
+        return mark - start;
+    }
+
+    /**
+     * Valor do cabeçalho {@code Server-Timing}: uma métrica por etapa
+     * percorrida (em ms), o total e a etapa que decidiu, por exemplo
+     * {@code normalize;dur=0.011, lists;dur=0.002, ai;dur=812.340, total;dur=812.501, decided;desc="ai"}.
+     */
+    public String serverTiming() {
+        StringBuilder sb = new StringBuilder(160);
+        for (CheckStage s : STAGES) {
+            if (visited(s)) {
+                appendDuration(sb, s.tag, nanos[s.ordinal()]);
+            }
+        }
+        appendDuration(sb, "total", totalNanos());
+        if (decidedBy != null) {
+            sb.append(", decided;desc=\"").append(decidedBy.tag).append('"');
+        }
+        return sb.toString();
+    }
+
+    // milissegundos com três casas, sem String.format
+    private static void appendDuration(StringBuilder sb, String name, long nanos) {
+        if (!sb.isEmpty()) {
+            sb.append(", ");
+        }
+        long micros = Math.max(0, nanos) / 1_000;
+        long frac = micros % 1_000;
+        sb.append(name).append(";dur=").append(micros / 1_000).append('.');
+        if (frac < 100) {
+            sb.append('0');
+        }
+        if (frac < 10) {
+            sb.append('0');
+        }
+        sb.append(frac);
+    }
+}
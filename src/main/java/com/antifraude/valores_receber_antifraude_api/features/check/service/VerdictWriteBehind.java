@@ -0,0 +1,433 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlNormalizer;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.CachedVerdict;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.VerdictCache;
+import com.antifraude.valores_receber_antifraude_api.lists.service.ListImportService;
+import com.antifraude.valores_receber_antifraude_api.lists.service.ListsService;
+import com.antifraude.valores_receber_antifraude_api.shared.util.CoalescingQueue;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Fingerprint;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gravação atrasada (write-behind) do que o pipeline aprende: o histórico
+ * em {@code url_record} e as URLs que regras/IA mandam para as listas.
+ *
+ * A verificação só enfileira e segue; uma thread própria grava a cada
+ * poucos milissegundos, com um
+ * {@code INSERT ... SELECT FROM unnest(...) ON CONFLICT} por tabela e por
+ * lote. Atualizações da mesma URL feitas entre dois flushes viram uma só
+ * linha (a URL de um golpe viralizando é gravada uma vez por flush, não uma
+ * vez por consulta).
+ *
+ * - Contrapressão: as filas são limitadas; com uma fila cheia, a
+ *   verificação espera um pouco por espaço e, se não abrir, grava ela mesma
+ *   (fica mais lenta, mas nada se perde).
+ * - Shutdown: o {@link PreDestroy} para a thread e drena o que sobrou.
+ * - Falha no banco: o lote volta para a fila e é tentado no próximo flush.
+ * - Chamadas dentro de uma transação gravam na hora, nela: o rollback
+ *   desfaz tudo, como antes.
+ *
+ * Um registro novo tem id derivado da URL (UUID v3), então a resposta já
+ * sai com o id que vai para o banco. Linhas antigas, de id aleatório,
+ * mantêm o seu; o cache é corrigido quando o flush devolve o id real.
+ * Até o flush a linha não existe: quem busca pelo id consulta
+ * {@link #queued} depois do banco. Se o processo morrer antes do flush
+ * (sem o {@link PreDestroy}), o que estava na fila se perde.
+ */
+@Component
+public class VerdictWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(VerdictWriteBehind.class);
+
+    // o mais novo vence; a linha só é atualizada por um veredito mais recente
+    // que o gravado (a gravação na hora de quem achou a fila cheia pode
+    // chegar antes do flush de um valor mais velho)
+    private static final String UPSERT_RECORDS_SQL = "INSERT INTO url_record "
+            + "(id, normalized_url, url_hash, domain, first_seen_at, last_seen_at, last_status, last_score) "
+            + "SELECT u.id, u.normalized_url, u.url_hash, u.domain, u.seen_at, u.seen_at, u.last_status, u.last_score "
+            + "FROM unnest(?, ?, ?, ?, ?, ?, ?) "
+            + "AS u(id, normalized_url, url_hash, domain, seen_at, last_status, last_score) "
+            + "ON CONFLICT (normalized_url) DO UPDATE SET "
+            + "domain = EXCLUDED.domain, last_seen_at = EXCLUDED.last_seen_at, "
+            + "last_status = EXCLUDED.last_status, last_score = EXCLUDED.last_score "
+            + "WHERE url_record.last_seen_at IS NULL OR url_record.last_seen_at <= EXCLUDED.last_seen_at "
+            + "RETURNING id, normalized_url";
+
+    private static final class PendingRecord {
+        final CachedVerdict verdict;
+        final LocalDateTime seenAt;
+
+        PendingRecord(CachedVerdict verdict, LocalDateTime seenAt) {
+            this.verdict = verdict;
+            this.seenAt = seenAt;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ListImportService listImportService;
+    private final ListsService listsService;
+    private final VerdictCache verdictCache;
+
+    private final boolean enabled;
+    private final long flushIntervalNanos;
+    private final long maxWaitNanos;
+    private final int batchSize;
+
+    // URL normalizada -> último veredito; URL -> motivo (o primeiro vence)
+    final CoalescingQueue<PendingRecord> records;
+    final CoalescingQueue<String> blacklist;
+    final CoalescingQueue<String> whitelist;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean running;
+    private Thread flusher;
+
+    final LongAdder recordsWritten = new LongAdder();
+    final LongAdder entriesWritten = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    // maior espera (enfileirado -> gravado) do último flush
+    volatile long lastFlushLagNanos;
+
+    public VerdictWriteBehind(JdbcTemplate jdbcTemplate, ListImportService listImportService,
+            ListsService listsService, VerdictCache verdictCache,
+            @Value("${antifraude.check.write-behind.enabled:true}") boolean enabled,
+            @Value("${antifraude.check.write-behind.flush-interval-ms:5}") long flushIntervalMs,
+            @Value("${antifraude.check.write-behind.capacity:10000}") int capacity,
+            @Value("${antifraude.check.write-behind.batch-size:1000}") int batchSize,
+            @Value("${antifraude.check.write-behind.max-wait-ms:50}") long maxWaitMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.listImportService = listImportService;
+        this.listsService = listsService;
+        this.verdictCache = verdictCache;
+        this.enabled = enabled;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.batchSize = Math.max(1, batchSize);
+        this.records = new CoalescingQueue<>(capacity, (older, newer) -> newer);
+        this.blacklist = new CoalescingQueue<>(capacity, (older, newer) -> older);
+        this.whitelist = new CoalescingQueue<>(capacity, (older, newer) -> older);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().daemon().name("verdict-write-behind").start(this::run);
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            try {
+                flushOnce();
+            } catch (RuntimeException e) {
+                log.warn("Falha gravando vereditos pendentes; nova tentativa em 1s", e);
+                // banco fora: sem log a cada 5ms; a fila enche e a contrapressão
+                // passa a gravar (e falhar) nas próprias verificações
+                LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    /**
+     * Para a thread de flush e grava tudo o que estiver pendente.
+     */
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Vereditos pendentes perdidos no shutdown: url_record={}, blacklist={}, whitelist={}",
+                    records.size(), blacklist.size(), whitelist.size(), e);
+        }
+    }
+
+    // ---------- Enfileiramento ----------
+
+    /**
+     * Registra o veredito no histórico da URL (cria ou atualiza) e o leva
+     * ao cache. Devolve o veredito com o id do registro.
+     */
+    public CachedVerdict record(UrlNormalizer.Result norm, Verdict verdict, int score) {
+        CachedVerdict v = new CachedVerdict(idFor(norm.normalizedUrl), norm.normalizedUrl, norm.domain, verdict,
+                Math.max(0, Math.min(score, 100)));
+        PendingRecord p = new PendingRecord(v, LocalDateTime.now());
+
+        if (writeNow() || !records.offer(v.normalizedUrl, p, maxWaitNanos)) {
+            UUID stored = writeRecords(List.of(p)).get(v.normalizedUrl);
+            if (stored != null && !stored.equals(v.id)) {
+                v = new CachedVerdict(stored, v.normalizedUrl, v.domain, v.verdict, v.score);
+            }
+        } else {
+            wakeIfBatchFull(records);
+        }
+        verdictCache.putAfterCommit(v);
+        return v;
+    }
+
+    /**
+     * Manda a URL para a blacklist ou whitelist; se já estiver lá, nada
+     * muda.
+     */
+    public void learn(ListKind kind, String normalizedUrl, String reason) {
+        CoalescingQueue<String> queue = kind == ListKind.BLACKLIST ? blacklist : whitelist;
+        if (writeNow() || !queue.offer(normalizedUrl, reason, maxWaitNanos)) {
+            if (listImportService.insertUrls(kind, Map.of(normalizedUrl, reason)) > 0) {
+                syncListsAfterCommit();
+            }
+            return;
+        }
+        wakeIfBatchFull(queue);
+    }
+
+    // sem fila (desligada) ou dentro de transação do chamador: grava nela
+    private boolean writeNow() {
+        return !running || TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    private void wakeIfBatchFull(CoalescingQueue<?> queue) {
+        if (queue.size() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    /**
+     * Veredito com esse id ainda na fila (não gravado), ou null. Espera o
+     * flush em curso: depois dele, o que saiu da fila já está no banco.
+     * Percorre a fila; é para quem não achou o id no banco.
+     */
+    public CachedVerdict queued(UUID id) {
+        flushLock.lock();
+        try {
+            PendingRecord p = records.find(r -> r.verdict.id.equals(id));
+            return p != null ? p.verdict : null;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // ---------- Flush ----------
+
+    /**
+     * Grava tudo o que estiver pendente agora. Falhas sobem para quem
+     * chamou (e o lote volta para a fila).
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!records.isEmpty() || !blacklist.isEmpty() || !whitelist.isEmpty()) {
+                flushOnce();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushOnce() {
+        flushLock.lock();
+        try {
+            long oldest = Long.MAX_VALUE;
+
+            List<CoalescingQueue.Pending<PendingRecord>> recs = records.drain(batchSize);
+            if (!recs.isEmpty()) {
+                oldest = Math.min(oldest, oldestOf(recs));
+                try {
+                    Map<String, UUID> stored = writeRecords(recs.stream().map(p -> p.value).toList());
+                    fixCachedIds(recs, stored);
+                    recordsWritten.add(recs.size());
+                } catch (RuntimeException e) {
+                    records.restore(recs);
+                    failures.increment();
+                    throw e;
+                }
+            }
+
+            boolean listsChanged = false;
+            for (ListKind kind : ListKind.values()) {
+                CoalescingQueue<String> queue = kind == ListKind.BLACKLIST ? blacklist : whitelist;
+                List<CoalescingQueue.Pending<String>> entries = queue.drain(batchSize);
+                if (entries.isEmpty()) {
+                    continue;
+                }
+                oldest = Math.min(oldest, oldestOf(entries));
+                Map<String, String> reasonByUrl = new LinkedHashMap<>();
+                for (CoalescingQueue.Pending<String> p : entries) {
+                    reasonByUrl.put(p.key, p.value);
+                }
+                try {
+                    listsChanged |= listImportService.insertUrls(kind, reasonByUrl) > 0;
+                    entriesWritten.add(entries.size());
+                } catch (RuntimeException e) {
+                    queue.restore(entries);
+                    failures.increment();
+                    throw e;
+                }
+            }
+            if (listsChanged) {
+                listsService.syncChanges();
+            }
+            if (oldest != Long.MAX_VALUE) {
+                lastFlushLagNanos = System.nanoTime() - oldest;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private static long oldestOf(List<? extends CoalescingQueue.Pending<?>> batch) {
+        long oldest = Long.MAX_VALUE;
+        for (CoalescingQueue.Pending<?> p : batch) {
+            oldest = Math.min(oldest, p.enqueuedAt);
+        }
+        return oldest;
+    }
+
+    /**
+     * Upsert em lote; devolve o id de cada URL gravada (o existente, se a
+     * linha já estava lá).
+     *
+     * A chave é a URL normalizada; o url_hash vai junto só para a busca.
+     * URLs diferentes com o mesmo hash são linhas diferentes.
+     */
+    private Map<String, UUID> writeRecords(List<PendingRecord> batch) {
+        int n = batch.size();
+        UUID[] ids = new UUID[n];
+        String[] urls = new String[n];
+        Long[] hashes = new Long[n];
+        String[] domains = new String[n];
+        Timestamp[] seenAt = new Timestamp[n];
+        String[] statuses = new String[n];
+        Integer[] scores = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            PendingRecord p = batch.get(i);
+            ids[i] = p.verdict.id;
+            urls[i] = p.verdict.normalizedUrl;
+            hashes[i] = Fingerprint.of(p.verdict.normalizedUrl);
+            domains[i] = p.verdict.domain;
+            seenAt[i] = Timestamp.valueOf(p.seenAt);
+            statuses[i] = p.verdict.verdict.name();
+            scores[i] = p.verdict.score;
+        }
+
+        return jdbcTemplate.execute((ConnectionCallback<Map<String, UUID>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(UPSERT_RECORDS_SQL)) {
+                ps.setArray(1, con.createArrayOf("uuid", ids));
+                ps.setArray(2, con.createArrayOf("varchar", urls));
+                ps.setArray(3, con.createArrayOf("int8", hashes));
+                ps.setArray(4, con.createArrayOf("varchar", domains));
+                ps.setArray(5, con.createArrayOf("timestamp", seenAt));
+                ps.setArray(6, con.createArrayOf("varchar", statuses));
+                ps.setArray(7, con.createArrayOf("int4", scores));
+                Map<String, UUID> stored = new HashMap<>(n * 2);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        stored.put(rs.getString(2), rs.getObject(1, UUID.class));
+                    }
+                }
+                return stored;
+            }
+        });
+    }
+
+    // linhas antigas têm id aleatório: o cache passa a usar o do banco
+    private void fixCachedIds(List<CoalescingQueue.Pending<PendingRecord>> batch, Map<String, UUID> stored) {
+        for (CoalescingQueue.Pending<PendingRecord> p : batch) {
+            UUID id = stored.get(p.key);
+            if (id == null || id.equals(p.value.verdict.id)) {
+                continue;
+            }
+            CachedVerdict cached = verdictCache.peek(p.key);
+            if (cached != null && !cached.id.equals(id)) {
+                verdictCache.put(new CachedVerdict(id, cached.normalizedUrl, cached.domain,
+                        cached.verdict, cached.score));
+            }
+        }
+    }
+
+    private void syncListsAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            listsService.syncChanges();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                listsService.syncChanges();
+            }
+        });
+    }
+
+    /**
+     * Id que {@link #record} vai usar para a URL: o do registro conhecido
+     * ou, para URL nova, o derivado dela.
+     */
+    UUID idFor(String normalizedUrl) {
+        CachedVerdict known = verdictCache.peek(normalizedUrl);
+        return known != null ? known.id : recordId(normalizedUrl);
+    }
+
+    /**
+     * Id de um registro novo: UUID v3 da URL normalizada, o mesmo em todos
+     * os nós.
+     */
+    static UUID recordId(String normalizedUrl) {
+        return UUID.nameUUIDFromBytes(normalizedUrl.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ---------- Métricas ----------
+
+    /**
+     * Escritas pendentes somando as três filas.
+     */
+    public int pending() {
+        return records.size() + blacklist.size() + whitelist.size();
+    }
+
+    /**
+     * Há quanto tempo espera a escrita pendente mais antiga, em segundos.
+     */
+    public double oldestPendingSeconds() {
+        long nanos = Math.max(records.oldestAgeNanos(),
+                Math.max(blacklist.oldestAgeNanos(), whitelist.oldestAgeNanos()));
+        return nanos / 1e9;
+    }
+}
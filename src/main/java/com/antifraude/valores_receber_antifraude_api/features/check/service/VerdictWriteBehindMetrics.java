@@ -0,0 +1,63 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.shared.util.CoalescingQueue;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Métricas da gravação atrasada de vereditos e listas.
+ */
+@Component
+public class VerdictWriteBehindMetrics implements MeterBinder {
+
+    private final VerdictWriteBehind writeBehind;
+
+    public VerdictWriteBehindMetrics(VerdictWriteBehind writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindQueue(registry, "url_record", writeBehind.records);
+        bindQueue(registry, "blacklist", writeBehind.blacklist);
+        bindQueue(registry, "whitelist", writeBehind.whitelist);
+
+        FunctionCounter.builder("antifraude.check.write-behind.written", writeBehind,
+                w -> w.recordsWritten.sum())
+                .tag("queue", "url_record")
+                .register(registry);
+        FunctionCounter.builder("antifraude.check.write-behind.written", writeBehind,
+                w -> w.entriesWritten.sum())
+                .tag("queue", "lists")
+                .register(registry);
+        FunctionCounter.builder("antifraude.check.write-behind.failures", writeBehind, w -> w.failures.sum())
+                .description("Flushes que falharam (o lote volta para a fila)")
+                .register(registry);
+        Gauge.builder("antifraude.check.write-behind.lag", writeBehind, VerdictWriteBehind::oldestPendingSeconds)
+                .baseUnit("seconds")
+                .description("Idade da escrita pendente mais antiga")
+                .register(registry);
+        Gauge.builder("antifraude.check.write-behind.flush.lag", writeBehind, w -> w.lastFlushLagNanos / 1e9)
+                .baseUnit("seconds")
+                .description("Maior espera entre enfileirar e gravar no último flush")
+                .register(registry);
+    }
+
+    private static void bindQueue(MeterRegistry registry, String name, CoalescingQueue<?> queue) {
+        Gauge.builder("antifraude.check.write-behind.pending", queue, CoalescingQueue::size)
+                .tag("queue", name)
+                .register(registry);
+        FunctionCounter.builder("antifraude.check.write-behind.coalesced", queue, CoalescingQueue::coalescedCount)
+                .tag("queue", name)
+                .description("Escritas absorvidas por uma pendente da mesma URL")
+                .register(registry);
+        FunctionCounter.builder("antifraude.check.write-behind.rejected", queue, CoalescingQueue::rejectedCount)
+                .tag("queue", name)
+                .description("Escritas feitas na própria verificação por fila cheia")
+                .register(registry);
+    }
+}
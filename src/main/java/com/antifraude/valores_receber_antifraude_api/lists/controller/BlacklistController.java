@@ -1,20 +1,35 @@
 package com.antifraude.valores_receber_antifraude_api.lists.controller;
 
 import com.antifraude.valores_receber_antifraude_api.core.model.entity.BlacklistEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
 import com.antifraude.valores_receber_antifraude_api.core.repository.BlacklistRepository;
 import com.antifraude.valores_receber_antifraude_api.lists.dto.ListEntryCreateRequest;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListEntryPage;
 import com.antifraude.valores_receber_antifraude_api.lists.dto.ListEntryResponse;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListImportResponse;
+import com.antifraude.valores_receber_antifraude_api.lists.service.ListImportService;
+import com.antifraude.valores_receber_antifraude_api.lists.service.ListQueryService;
+import com.antifraude.valores_receber_antifraude_api.lists.service.ListsService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Tag(name = "Blacklist", description = "Gerenciamento de domínios/URLs suspeitos")
 @RestController
@@ -22,35 +37,73 @@ import java.util.stream.Collectors;
 public class BlacklistController {
 
     private final BlacklistRepository blacklistRepository;
+    private final ListsService listsService;
+    private final ListImportService listImportService;
+    private final ListQueryService listQueryService;
 
-    public BlacklistController(BlacklistRepository blacklistRepository) {
+    public BlacklistController(BlacklistRepository blacklistRepository, ListsService listsService,
+            ListImportService listImportService, ListQueryService listQueryService) {
         this.blacklistRepository = blacklistRepository;
+        this.listsService = listsService;
+        this.listImportService = listImportService;
+        this.listQueryService = listQueryService;
     }
 
-    @Operation(summary = "Listar entradas", description = "Retorna todas as entradas. Use ?active=true para apenas ativas.")
+    @Operation(summary = "Listar entradas", description = "Lista paginada por cursor (ordem de criação). Filtros opcionais: "
+            + "active, type, prefix (início do valor), createdFrom/createdTo. Use o nextCursor da resposta para a próxima página.")
     @GetMapping
-    public ResponseEntity<List<ListEntryResponse>> list(@RequestParam(required = false) Boolean active) {
-        List<BlacklistEntry> entries = active == null ? blacklistRepository.findAll()
-                : (active ? blacklistRepository.findByActiveTrue()
-                        : blacklistRepository.findAll().stream().filter(e -> !e.isActive()).toList());
-
-        return ResponseEntity.ok(entries.stream().map(this::toResponse).collect(Collectors.toList()));
+    public ResponseEntity<ListEntryPage> list(
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) ListEntryType type,
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        ListQueryService.Filter filter = new ListQueryService.Filter();
+        filter.active = active;
+        filter.type = type;
+        filter.valuePrefix = prefix;
+        filter.createdFrom = createdFrom;
+        filter.createdTo = createdTo;
+        return ResponseEntity.ok(listQueryService.page(blacklistRepository, filter, cursor, limit));
     }
 
-    @Operation(summary = "Criar entrada", description = "Adiciona uma entrada na blacklist (URL exata ou domínio).")
+    @Operation(summary = "Criar entrada", description = "Adiciona uma entrada na blacklist (URL exata ou domínio). "
+            + "O valor é gravado na forma canônica; 409 se a entrada já existe.")
     @PostMapping
     public ResponseEntity<ListEntryResponse> create(@Valid @RequestBody ListEntryCreateRequest req) {
+        String value = ListEntry.canonicalValueOf(req.getType(), req.getValue());
+        if (value == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Valor inválido para o tipo " + req.getType());
+        }
         BlacklistEntry e = new BlacklistEntry();
         e.setType(req.getType());
-        e.setValue(req.getValue());
+        e.setValue(value); // mesma forma canônica da importação em lote
         e.setReason(req.getReason());
         e.setActive(req.getActive() == null ? true : req.getActive());
-        e = blacklistRepository.save(e);
+        try {
+            e = listsService.saveBlacklist(e);
+        } catch (DataIntegrityViolationException ex) {
+            // mesma chave da importação: (type, value_hash, normalized_value)
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Entrada já existe: " + value);
+        }
 
         ListEntryResponse resp = toResponse(e);
         return ResponseEntity.created(URI.create("/api/v1/blacklist/" + e.getId())).body(resp);
     }
 
+    @Operation(summary = "Importar em lote", description = "Importa um feed em streaming: CSV (type,value[,reason[,active]] "
+            + "ou só value com ?type=) ou NDJSON (um objeto de criação por linha). Retorna inseridas/duplicadas/rejeitadas.")
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson", MediaType.TEXT_PLAIN_VALUE })
+    public ResponseEntity<ListImportResponse> importEntries(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(required = false) ListEntryType type,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(listImportService.importEntries(
+                ListKind.BLACKLIST, body, ListImportService.Format.fromContentType(contentType), type));
+    }
+
     @Operation(summary = "Desativar (soft delete)", description = "Marca a entrada como inativa.")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> softDelete(@PathVariable UUID id) {
@@ -58,7 +111,7 @@ public class BlacklistController {
         if (e == null)
             return ResponseEntity.notFound().build();
         e.setActive(false);
-        blacklistRepository.save(e);
+        listsService.saveBlacklist(e);
         return ResponseEntity.noContent().build();
     }
 
@@ -69,7 +122,7 @@ public class BlacklistController {
         if (e == null)
             return ResponseEntity.notFound().build();
         e.setActive(true);
-        e = blacklistRepository.save(e);
+        e = listsService.saveBlacklist(e);
         return ResponseEntity.ok(toResponse(e));
     }
 
@@ -80,7 +133,7 @@ public class BlacklistController {
         if (e == null)
             return ResponseEntity.notFound().build();
         e.setActive(false);
-        e = blacklistRepository.save(e);
+        e = listsService.saveBlacklist(e);
         return ResponseEntity.ok(toResponse(e));
     }
 
@@ -0,0 +1,58 @@
+package com.antifraude.valores_receber_antifraude_api.lists.controller;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListChange;
+import com.antifraude.valores_receber_antifraude_api.core.repository.ListChangeRepository;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListChangeResponse;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListChangesPage;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Tag(name = "Listas", description = "Log de alterações da whitelist/blacklist")
+@RestController
+@RequestMapping("/api/v1/lists")
+public class ListChangesController {
+
+    private static final int DEFAULT_LIMIT = 1000;
+    private static final int MAX_LIMIT = 10_000;
+
+    private final ListChangeRepository listChangeRepository;
+
+    public ListChangesController(ListChangeRepository listChangeRepository) {
+        this.listChangeRepository = listChangeRepository;
+    }
+
+    @Operation(summary = "Mudanças desde uma versão", description = "Retorna as alterações com versão maior que since, "
+            + "em ordem. Cada item traz o estado final da entrada; reaplicar é idempotente. Use nextSince na próxima chamada.")
+    @GetMapping("/changes")
+    public ResponseEntity<ListChangesPage> changes(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) Integer limit) {
+        int size = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        List<ListChange> rows = listChangeRepository.findByVersionGreaterThanOrderByVersionAsc(
+                Math.max(0, since), Limit.of(size));
+
+        ListChangesPage page = new ListChangesPage();
+        page.setChanges(rows.stream().map(this::toResponse).toList());
+        page.setNextSince(rows.isEmpty() ? since : rows.get(rows.size() - 1).getVersion());
+        page.setHasMore(rows.size() == size);
+        return ResponseEntity.ok(page);
+    }
+
+    private ListChangeResponse toResponse(ListChange c) {
+        ListChangeResponse r = new ListChangeResponse();
+        r.setVersion(c.getVersion());
+        r.setKind(c.getKind());
+        r.setEntryId(c.getEntryId());
+        r.setType(c.getType());
+        r.setValue(c.getValue());
+        r.setActive(c.isActive());
+        r.setChangedAt(c.getChangedAt());
+        return r;
+    }
+}
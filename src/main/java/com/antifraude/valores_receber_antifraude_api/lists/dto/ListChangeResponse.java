@@ -0,0 +1,73 @@
+package com.antifraude.valores_receber_antifraude_api.lists.dto;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class ListChangeResponse {
+    private long version;
+    private ListKind kind;
+    private UUID entryId;
+    private ListEntryType type;
+    private String value;
+    private boolean active; // estado da entrada depois da mudança
+    private LocalDateTime changedAt;
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public ListKind getKind() {
+        return kind;
+    }
+
+    public void setKind(ListKind kind) {
+        this.kind = kind;
+    }
+
+    public UUID getEntryId() {
+        return entryId;
+    }
+
+    public void setEntryId(UUID entryId) {
+        this.entryId = entryId;
+    }
+
+    public ListEntryType getType() {
+        return type;
+    }
+
+    public void setType(ListEntryType type) {
+        this.type = type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
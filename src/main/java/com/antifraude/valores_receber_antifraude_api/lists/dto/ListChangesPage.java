@@ -0,0 +1,33 @@
+package com.antifraude.valores_receber_antifraude_api.lists.dto;
+
+import java.util.List;
+
+public class ListChangesPage {
+    private List<ListChangeResponse> changes;
+    private long nextSince; // passar como ?since= na próxima chamada
+    private boolean hasMore;
+
+    public List<ListChangeResponse> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<ListChangeResponse> changes) {
+        this.changes = changes;
+    }
+
+    public long getNextSince() {
+        return nextSince;
+    }
+
+    public void setNextSince(long nextSince) {
+        this.nextSince = nextSince;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,24 @@
+package com.antifraude.valores_receber_antifraude_api.lists.dto;
+
+import java.util.List;
+
+public class ListEntryPage {
+    private List<ListEntryResponse> items;
+    private String nextCursor; // null quando não há mais páginas
+
+    public List<ListEntryResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ListEntryResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,40 @@
+package com.antifraude.valores_receber_antifraude_api.lists.dto;
+
+public class ListImportResponse {
+    private long inserted; // linhas novas gravadas
+    private long duplicates; // repetidas no arquivo ou já existentes no banco
+    private long rejected; // linhas inválidas (tipo/valor ausente, valor grande demais...)
+    private long elapsedMs;
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(long duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+}
@@ -0,0 +1,111 @@
+package com.antifraude.valores_receber_antifraude_api.lists.index;
+
+import com.antifraude.valores_receber_antifraude_api.shared.util.Hashing;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre hashes de 64 bits (double hashing de
+ * Kirsch–Mitzenmacher). Aceita inserções concorrentes; remoções exigem
+ * reconstruir o filtro.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+    private final AtomicLong bitsSet = new AtomicLong();
+
+    private BloomFilter(long numBits, int numHashes) {
+        long words = Math.max(1, (numBits + 63) >>> 6);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filtro de Bloom grande demais: " + numBits + " bits");
+        }
+        this.words = new AtomicLongArray((int) words);
+        this.numBits = words << 6;
+        this.numHashes = numHashes;
+    }
+
+    /**
+     * Dimensiona o filtro para {@code expectedInsertions} com a taxa de
+     * falso positivo desejada.
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new BloomFilter(m, k);
+    }
+
+    public void put(long hash) {
+        long h1 = hash;
+        long h2 = Hashing.mix64(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            int idx = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long old;
+            do {
+                old = words.get(idx);
+                if ((old & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(idx, old, old | mask));
+            if ((old & mask) == 0) {
+                bitsSet.incrementAndGet();
+            }
+        }
+    }
+
+    public boolean mightContain(long hash) {
+        long h1 = hash;
+        long h2 = Hashing.mix64(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Taxa de falso positivo esperada para o preenchimento atual:
+     * (bits ligados / total de bits) ^ k.
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitsSet.get() / numBits, numHashes);
+    }
+
+    public long bitSize() {
+        return numBits;
+    }
+
+    // ---------- Persistência ----------
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(numHashes);
+        out.writeInt(words.length());
+        for (int i = 0; i < words.length(); i++) {
+            out.writeLong(words.get(i));
+        }
+    }
+
+    static BloomFilter readFrom(ByteBuffer in) {
+        int numHashes = in.getInt();
+        int length = in.getInt();
+        BloomFilter bloom = new BloomFilter((long) length << 6, numHashes);
+        long set = 0;
+        for (int i = 0; i < length; i++) {
+            long w = in.getLong();
+            bloom.words.set(i, w);
+            set += Long.bitCount(w);
+        }
+        bloom.bitsSet.set(set);
+        return bloom;
+    }
+}
@@ -0,0 +1,205 @@
+package com.antifraude.valores_receber_antifraude_api.lists.index;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Índice imutável e compilado de uma lista (whitelist ou blacklist).
+ *
+ * - Entradas URL ficam num hash set de URLs normalizadas (chave em minúsculas).
+ * - Entradas DOMAIN ficam numa trie de sufixos com os labels invertidos
+ * ("www.caixa.gov.br" -> br → gov → caixa → www), cobrindo domínio exato
+ * e curinga "*.dominio.com".
+ *
+ * A consulta custa O(tamanho da URL) e não acessa o banco. Para alterar o
+ * conteúdo, compila-se um novo índice e troca-se a referência atomicamente.
+ * Cada {@link Builder} compila um único índice: {@link Builder#build()}
+ * entrega as próprias estruturas, sem copiá-las.
+ */
+public final class ListIndex {
+
+    public static final ListIndex EMPTY = builder().build();
+
+    private final Map<String, String> urls; // chave normalizada -> valor cadastrado
+    private final Node domains; // raiz da trie de sufixos
+    private final int size;
+
+    private ListIndex(Map<String, String> urls, Node domains, int size) {
+        this.urls = urls;
+        this.domains = domains;
+        this.size = size;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Procura uma entrada que bata com a URL normalizada ou com o host.
+     *
+     * @return o valor cadastrado que bateu (para evidência) ou null
+     */
+    public String match(String normalizedUrl, String host) {
+        if (normalizedUrl != null && !urls.isEmpty()) {
+            String hit = urls.get(urlKey(normalizedUrl));
+            if (hit != null) {
+                return hit;
+            }
+        }
+        return matchDomain(host);
+    }
+
+    /**
+     * Percorre os labels do host da direita para a esquerda.
+     * Um curinga só vale se ainda sobrar ao menos um label (equivale a
+     * host.endsWith("." + base)); o domínio exato exige consumir todos.
+     */
+    private String matchDomain(String host) {
+        String h = host != null ? host.toLowerCase(Locale.ROOT) : "";
+        Node node = domains;
+        int end = h.length();
+        while (true) {
+            int dot = h.lastIndexOf('.', end - 1);
+            node = node.child(h.substring(dot + 1, end));
+            if (node == null) {
+                return null;
+            }
+            if (dot < 0) {
+                return node.exact;
+            }
+            if (node.wildcard != null) {
+                return node.wildcard;
+            }
+            end = dot;
+        }
+    }
+
+    static String urlKey(String normalizedUrl) {
+        return normalizedUrl.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Chave de uma entrada DOMAIN a partir do valor normalizado:
+     * "*.dominio.com" e "dominio.com" viram "dominio.com" (o tipo de match
+     * fica no nó da trie).
+     */
+    static String domainKey(String normalizedValue) {
+        return isWildcard(normalizedValue) ? normalizedValue.substring(2) : normalizedValue;
+    }
+
+    static boolean isWildcard(String normalizedValue) {
+        return normalizedValue.startsWith("*.");
+    }
+
+    // ---------- Construção ----------
+
+    public static final class Builder {
+
+        private final Map<String, String> urls = new HashMap<>();
+        private final Node domains = new Node();
+        private int size;
+        private boolean built;
+
+        private Builder() {
+        }
+
+        /**
+         * Adiciona uma entrada ativa ao índice, normalizando o valor.
+         *
+         * @param type        URL | DOMAIN
+         * @param storedValue valor como está na coluna entry_value
+         */
+        public Builder add(ListEntryType type, String storedValue) {
+            if (storedValue == null) {
+                return this;
+            }
+            return add(type, storedValue, ListEntry.normalizedValueOf(type, storedValue));
+        }
+
+        /**
+         * Adiciona uma entrada cujo valor já vem normalizado do banco
+         * (coluna normalized_value).
+         *
+         * @param storedValue     devolvido no match, para evidência
+         * @param normalizedValue {@link ListEntry#normalizedValueOf}
+         */
+        public Builder add(ListEntryType type, String storedValue, String normalizedValue) {
+            if (normalizedValue == null) {
+                return add(type, storedValue);
+            }
+            checkNotBuilt();
+            if (type == ListEntryType.URL) {
+                urls.putIfAbsent(normalizedValue, storedValue);
+            } else if (isWildcard(normalizedValue)) {
+                Node node = insert(domainKey(normalizedValue));
+                if (node.wildcard == null) {
+                    node.wildcard = storedValue;
+                }
+            } else {
+                Node node = insert(domainKey(normalizedValue));
+                if (node.exact == null) {
+                    node.exact = storedValue;
+                }
+            }
+            size++;
+            return this;
+        }
+
+        private Node insert(String domain) {
+            Node node = domains;
+            int end = domain.length();
+            while (true) {
+                int dot = domain.lastIndexOf('.', end - 1);
+                node = node.childOrCreate(domain.substring(dot + 1, end));
+                if (dot < 0) {
+                    return node;
+                }
+                end = dot;
+            }
+        }
+
+        /**
+         * Compila o índice. O builder não pode mais ser usado depois.
+         */
+        public ListIndex build() {
+            checkNotBuilt();
+            built = true;
+            return new ListIndex(urls, domains, size);
+        }
+
+        private void checkNotBuilt() {
+            if (built) {
+                throw new IllegalStateException("ListIndex.Builder já compilado");
+            }
+        }
+    }
+
+    /**
+     * Nó da trie de sufixos. Depois de publicado dentro de um ListIndex
+     * nunca mais é alterado (o builder que o criou não aceita mais add).
+     */
+    private static final class Node {
+        private Map<String, Node> children;
+        private String exact; // entrada "dominio.com"
+        private String wildcard; // entrada "*.dominio.com"
+
+        Node child(String label) {
+            return children == null ? null : children.get(label);
+        }
+
+        Node childOrCreate(String label) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(label, k -> new Node());
+        }
+    }
+}
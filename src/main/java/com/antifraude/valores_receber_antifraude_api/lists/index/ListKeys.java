@@ -0,0 +1,48 @@
+package com.antifraude.valores_receber_antifraude_api.lists.index;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Hashing;
+
+/**
+ * Hashes de 64 bits das chaves de lista, compartilhados pelo
+ * {@link ListPrefilter} e pelas tabelas do {@link ListSnapshot} (o filtro
+ * pode ser reconstruído direto das chaves gravadas no snapshot).
+ *
+ * Gravados em arquivo: sementes e algoritmo não podem mudar sem trocar
+ * {@link ListSnapshot#FORMAT_VERSION}.
+ */
+public final class ListKeys {
+
+    // sementes distintas separam os espaços de chaves de URL e de domínio
+    private static final long URL_SEED = 0x5ab1e5ab1e5ab1e5L;
+    private static final long DOMAIN_SEED = 0x0d0ba1d0d0ba1d0dL;
+
+    private ListKeys() {
+    }
+
+    /**
+     * @param normalizedValue {@link com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry#normalizedValueOf}
+     */
+    public static long ofNormalized(ListEntryType type, String normalizedValue) {
+        if (type == ListEntryType.URL) {
+            return url(normalizedValue);
+        }
+        String domain = ListIndex.domainKey(normalizedValue);
+        return domain(domain, 0, domain.length());
+    }
+
+    /**
+     * Chave de uma URL; letras ASCII maiúsculas contam como minúsculas.
+     */
+    public static long url(CharSequence url) {
+        return Hashing.hash64Lower(url, URL_SEED);
+    }
+
+    /**
+     * Chave do domínio {@code host[from, to)}; letras ASCII maiúsculas
+     * contam como minúsculas.
+     */
+    public static long domain(CharSequence host, int from, int to) {
+        return Hashing.hash64Lower(host, from, to, DOMAIN_SEED);
+    }
+}
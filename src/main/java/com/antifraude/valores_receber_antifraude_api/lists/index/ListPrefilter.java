@@ -0,0 +1,133 @@
+package com.antifraude.valores_receber_antifraude_api.lists.index;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Hashing;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pré-filtro de Bloom na frente da whitelist/blacklist.
+ *
+ * Guarda as mesmas chaves do {@link ListIndex} (URL normalizada e domínio
+ * base das entradas DOMAIN). Na consulta testa a URL e cada sufixo de
+ * domínio do host; um "não" é definitivo e permite pular as duas listas.
+ */
+public final class ListPrefilter {
+
+    private static final double TARGET_FPP = 0.01;
+    private static final long MIN_CAPACITY = 1024;
+
+    private final BloomFilter bloom;
+    private final long capacity;
+    private final AtomicLong inserted = new AtomicLong();
+
+    private ListPrefilter(long capacity) {
+        this(BloomFilter.create(capacity, TARGET_FPP), capacity, 0);
+    }
+
+    private ListPrefilter(BloomFilter bloom, long capacity, long inserted) {
+        this.bloom = bloom;
+        this.capacity = capacity;
+        this.inserted.set(inserted);
+    }
+
+    /**
+     * Cria um filtro com folga para crescer incrementalmente
+     * (o dobro das entradas atuais).
+     */
+    public static ListPrefilter forEntries(long entries) {
+        return new ListPrefilter(Math.max(MIN_CAPACITY, entries * 2));
+    }
+
+    /**
+     * Adiciona uma entrada ativa.
+     *
+     * @return false se o filtro já passou da capacidade planejada e deve ser
+     *         reconstruído (a entrada é inserida mesmo assim)
+     */
+    public boolean add(ListEntryType type, String storedValue) {
+        if (storedValue == null) {
+            return true;
+        }
+        return addNormalized(type, ListEntry.normalizedValueOf(type, storedValue));
+    }
+
+    /**
+     * Como {@link #add}, para um valor já normalizado
+     * ({@link ListEntry#normalizedValueOf}).
+     */
+    public boolean addNormalized(ListEntryType type, String normalizedValue) {
+        return addKey(ListKeys.ofNormalized(type, normalizedValue));
+    }
+
+    /**
+     * Como {@link #add}, para uma chave já calculada ({@link ListKeys}).
+     */
+    public boolean addKey(long key) {
+        bloom.put(key);
+        return inserted.incrementAndGet() <= capacity;
+    }
+
+    /**
+     * @return false somente se nenhuma das listas pode conter a URL/host
+     */
+    public boolean mightMatch(String normalizedUrl, String host) {
+        // o índice usa String.toLowerCase: fora do ASCII não arriscamos
+        // um falso negativo e deixamos a consulta seguir
+        if (normalizedUrl != null) {
+            if (!Hashing.isAscii(normalizedUrl)) {
+                return true;
+            }
+            if (bloom.mightContain(ListKeys.url(normalizedUrl))) {
+                return true;
+            }
+        }
+
+        String h = host != null ? host : "";
+        if (!Hashing.isAscii(h)) {
+            return true;
+        }
+        // o host inteiro e cada sufixo depois de um ponto
+        int start = 0;
+        while (true) {
+            if (bloom.mightContain(ListKeys.domain(h, start, h.length()))) {
+                return true;
+            }
+            int dot = h.indexOf('.', start);
+            if (dot < 0) {
+                return false;
+            }
+            start = dot + 1;
+        }
+    }
+
+    // ---------- Persistência (snapshot) ----------
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(capacity);
+        out.writeLong(inserted.get());
+        bloom.writeTo(out);
+    }
+
+    static ListPrefilter readFrom(ByteBuffer in) {
+        long capacity = in.getLong();
+        long inserted = in.getLong();
+        return new ListPrefilter(BloomFilter.readFrom(in), capacity, inserted);
+    }
+
+    public double expectedFalsePositiveRate() {
+        return bloom.expectedFpp();
+    }
+
+    public long size() {
+        return inserted.get();
+    }
+
+    public long bitSize() {
+        return bloom.bitSize();
+    }
+}
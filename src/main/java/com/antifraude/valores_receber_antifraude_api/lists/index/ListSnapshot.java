@@ -0,0 +1,505 @@
+package com.antifraude.valores_receber_antifraude_api.lists.index;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+/**
+ * Snapshot binário e versionado das listas compiladas, mapeado em memória
+ * (somente leitura) no boot: abrir custa só o mapeamento, as páginas vêm
+ * do page cache conforme as consultas tocam nelas.
+ *
+ * Layout (big-endian):
+ * - cabeçalho: magic, {@link #FORMAT_VERSION}, versão do list_change
+ * refletida e posição/tamanho de cada seção;
+ * - por lista, uma tabela de registros de 32 bytes ordenada pela chave
+ * ({@link ListKeys}): chave, id (msb, lsb) e meta ({@code offset << 2 | flags});
+ * - por lista, o blob de strings apontado pelos registros: valor cadastrado
+ * e valor normalizado, cada um como int de tamanho + UTF-8;
+ * - o {@link ListPrefilter} serializado.
+ *
+ * Cada tabela e cada blob precisam caber num MappedByteBuffer (2 GB).
+ */
+public final class ListSnapshot {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x41464c53; // "AFLS"
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 2 * 8 + 2 * 4 * 8;
+    private static final int RECORD_BYTES = 32;
+
+    private static final long FLAG_URL = 1;
+    private static final long FLAG_WILDCARD = 2;
+
+    private final long version;
+    private final Table whitelist;
+    private final Table blacklist;
+    private final ListPrefilter prefilter;
+
+    private ListSnapshot(long version, Table whitelist, Table blacklist, ListPrefilter prefilter) {
+        this.version = version;
+        this.whitelist = whitelist;
+        this.blacklist = blacklist;
+        this.prefilter = prefilter;
+    }
+
+    /**
+     * Versão do list_change até a qual o snapshot está aplicado.
+     */
+    public long version() {
+        return version;
+    }
+
+    public Table whitelist() {
+        return whitelist;
+    }
+
+    public Table blacklist() {
+        return blacklist;
+    }
+
+    /**
+     * Cópia do pré-filtro gravado (pode receber inserções).
+     */
+    public ListPrefilter prefilter() {
+        return prefilter;
+    }
+
+    // ---------- Leitura ----------
+
+    public static ListSnapshot open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Snapshot truncado: " + file);
+            }
+            ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IOException("Snapshot inválido ou de outro formato: " + file);
+            }
+            long version = header.getLong();
+            long prefilterPos = header.getLong();
+            long prefilterLen = header.getLong();
+            Table white = readTable(ch, header, size);
+            Table black = readTable(ch, header, size);
+            checkBounds(prefilterPos, prefilterLen, size);
+            ListPrefilter prefilter = ListPrefilter.readFrom(
+                    ch.map(FileChannel.MapMode.READ_ONLY, prefilterPos, prefilterLen));
+            // os mapeamentos continuam válidos depois de fechar o canal
+            return new ListSnapshot(version, white, black, prefilter);
+        }
+    }
+
+    private static Table readTable(FileChannel ch, ByteBuffer header, long size) throws IOException {
+        long recordsPos = header.getLong();
+        long count = header.getLong();
+        long blobPos = header.getLong();
+        long blobLen = header.getLong();
+        checkBounds(recordsPos, count * RECORD_BYTES, size);
+        checkBounds(blobPos, blobLen, size);
+        return new Table(
+                ch.map(FileChannel.MapMode.READ_ONLY, recordsPos, count * RECORD_BYTES),
+                ch.map(FileChannel.MapMode.READ_ONLY, blobPos, blobLen),
+                (int) count);
+    }
+
+    private static void checkBounds(long pos, long len, long size) throws IOException {
+        if (pos < 0 || len < 0 || len > Integer.MAX_VALUE || pos + len > size) {
+            throw new IOException("Snapshot truncado ou corrompido");
+        }
+    }
+
+    // ---------- Escrita ----------
+
+    /**
+     * Grava o snapshot num arquivo temporário e o move por cima de
+     * {@code file} atomicamente; quem já mapeou o arquivo anterior continua
+     * lendo a versão antiga.
+     */
+    public static void write(Path file, long version, ListPrefilter prefilter, Part whitelist, Part blacklist)
+            throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(version);
+                header.position(header.position() + 2 * 8); // pré-filtro, preenchido abaixo
+
+                long pos = HEADER_BYTES;
+                pos = writeTable(ch, pos, whitelist, header);
+                pos = writeTable(ch, pos, blacklist, header);
+
+                ch.position(pos);
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+                prefilter.writeTo(out);
+                out.flush();
+                long prefilterLen = ch.position() - pos;
+                if (prefilterLen > Integer.MAX_VALUE) {
+                    throw new IOException("Pré-filtro grande demais para o snapshot");
+                }
+                header.putLong(16, pos).putLong(24, prefilterLen);
+
+                header.flip();
+                ch.write(header, 0);
+                ch.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Mescla os registros da tabela base (menos os excluídos) com as
+     * entradas novas, em ordem de chave.
+     */
+    private static long writeTable(FileChannel ch, long pos, Part part, ByteBuffer header) throws IOException {
+        Table base = part.base;
+        List<Keyed> added = new ArrayList<>(part.added.size());
+        for (Entry e : part.added) {
+            added.add(new Keyed(ListKeys.ofNormalized(e.type, e.normalizedValue), e));
+        }
+        added.sort(Comparator.comparingLong(k -> k.key));
+
+        long count = added.size();
+        for (int i = 0; i < base.count; i++) {
+            if (!base.excluded(i, part.excluded)) {
+                count++;
+            }
+        }
+        long recordsLen = count * RECORD_BYTES;
+        if (recordsLen > Integer.MAX_VALUE) {
+            throw new IOException("Lista grande demais para o snapshot: " + count + " entradas");
+        }
+
+        long recordsPos = pos;
+        long blobPos = pos + recordsLen;
+        try (PositionedWriter records = new PositionedWriter(ch, recordsPos);
+                PositionedWriter blob = new PositionedWriter(ch, blobPos)) {
+            int b = 0;
+            int a = 0;
+            while (b < base.count || a < added.size()) {
+                if (b < base.count && base.excluded(b, part.excluded)) {
+                    b++;
+                    continue;
+                }
+                long offset = blob.written();
+                if (a >= added.size() || (b < base.count && base.key(b) <= added.get(a).key)) {
+                    records.putLong(base.key(b)).putLong(base.msb(b)).putLong(base.lsb(b))
+                            .putLong(offset << 2 | base.flags(b));
+                    base.copyStrings(b, blob);
+                    b++;
+                } else {
+                    Keyed k = added.get(a++);
+                    records.putLong(k.key)
+                            .putLong(k.entry.id.getMostSignificantBits())
+                            .putLong(k.entry.id.getLeastSignificantBits())
+                            .putLong(offset << 2 | flagsOf(k.entry));
+                    blob.putString(k.entry.value).putString(k.entry.normalizedValue);
+                }
+                if (blob.written() > Integer.MAX_VALUE) {
+                    throw new IOException("Valores grandes demais para o snapshot");
+                }
+            }
+            header.putLong(recordsPos).putLong(count).putLong(blobPos).putLong(blob.written());
+            return blobPos + blob.written();
+        }
+    }
+
+    private static long flagsOf(Entry e) {
+        if (e.type == ListEntryType.URL) {
+            return FLAG_URL;
+        }
+        return ListIndex.isWildcard(e.normalizedValue) ? FLAG_WILDCARD : 0;
+    }
+
+    /**
+     * Conteúdo de uma lista a gravar: a tabela atual sem as entradas
+     * alteradas depois dela, mais as entradas ativas alteradas.
+     */
+    public static final class Part {
+        final Table base;
+        final Set<UUID> excluded;
+        final List<Entry> added;
+
+        public Part(Table base, Set<UUID> excluded, List<Entry> added) {
+            this.base = base;
+            this.excluded = excluded;
+            this.added = added;
+        }
+    }
+
+    public static final class Entry {
+        final UUID id;
+        final ListEntryType type;
+        final String value;
+        final String normalizedValue;
+
+        public Entry(UUID id, ListEntryType type, String value, String normalizedValue) {
+            this.id = id;
+            this.type = type;
+            this.value = value;
+            this.normalizedValue = normalizedValue;
+        }
+    }
+
+    private static final class Keyed {
+        final long key;
+        final Entry entry;
+
+        Keyed(long key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    // ---------- Tabela mapeada ----------
+
+    /**
+     * Tabela de uma lista dentro do snapshot. Só usa leituras absolutas do
+     * buffer, então pode ser consultada por várias threads.
+     */
+    public static final class Table {
+
+        public static final Table EMPTY = new Table(ByteBuffer.allocate(0), ByteBuffer.allocate(0), 0);
+
+        private final ByteBuffer records;
+        private final ByteBuffer blob;
+        private final int count;
+
+        private Table(ByteBuffer records, ByteBuffer blob, int count) {
+            this.records = records;
+            this.blob = blob;
+            this.count = count;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Mesma semântica de {@link ListIndex#match}, ignorando as entradas
+         * em {@code excluded} (alteradas depois do snapshot).
+         *
+         * @return o valor cadastrado que bateu ou null
+         */
+        public String match(String normalizedUrl, String host, Set<UUID> excluded) {
+            if (count == 0) {
+                return null;
+            }
+            if (normalizedUrl != null) {
+                String url = ListIndex.urlKey(normalizedUrl);
+                String hit = find(ListKeys.url(url), FLAG_URL, url, 0, excluded);
+                if (hit != null) {
+                    return hit;
+                }
+            }
+
+            // host inteiro: domínio exato; cada sufixo depois de um ponto: curinga
+            String h = host != null ? host.toLowerCase(Locale.ROOT) : "";
+            int start = 0;
+            while (true) {
+                long flags = start == 0 ? 0 : FLAG_WILDCARD;
+                String hit = find(ListKeys.domain(h, start, h.length()), flags, h, start, excluded);
+                if (hit != null) {
+                    return hit;
+                }
+                int dot = h.indexOf('.', start);
+                if (dot < 0) {
+                    return null;
+                }
+                start = dot + 1;
+            }
+        }
+
+        /**
+         * Chaves de todas as entradas fora de {@code excluded} (para
+         * reconstruir o pré-filtro sem decodificar strings).
+         */
+        public void forEachKey(Set<UUID> excluded, LongConsumer action) {
+            for (int i = 0; i < count; i++) {
+                if (!excluded(i, excluded)) {
+                    action.accept(key(i));
+                }
+            }
+        }
+
+        /**
+         * Quantas entradas estão em {@code ids}.
+         */
+        public int countIn(Set<UUID> ids) {
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (excluded(i, ids)) {
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        private String find(long key, long flags, String text, int from, Set<UUID> excluded) {
+            for (int i = lowerBound(key); i < count && key(i) == key; i++) {
+                if (flags(i) != flags || excluded(i, excluded)) {
+                    continue;
+                }
+                long offset = offset(i);
+                String normalized = readString(offset + 4 + blob.getInt((int) offset));
+                boolean equal;
+                if (flags == FLAG_URL) {
+                    equal = normalized.equals(text);
+                } else {
+                    String domain = ListIndex.domainKey(normalized);
+                    equal = domain.length() == text.length() - from && text.startsWith(domain, from);
+                }
+                if (equal) {
+                    return readString(offset);
+                }
+            }
+            return null;
+        }
+
+        private int lowerBound(long key) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (key(mid) < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private boolean excluded(int i, Set<UUID> excluded) {
+            return !excluded.isEmpty() && excluded.contains(new UUID(msb(i), lsb(i)));
+        }
+
+        private long key(int i) {
+            return records.getLong(i * RECORD_BYTES);
+        }
+
+        private long msb(int i) {
+            return records.getLong(i * RECORD_BYTES + 8);
+        }
+
+        private long lsb(int i) {
+            return records.getLong(i * RECORD_BYTES + 16);
+        }
+
+        private long flags(int i) {
+            return records.getLong(i * RECORD_BYTES + 24) & 3;
+        }
+
+        private long offset(int i) {
+            return records.getLong(i * RECORD_BYTES + 24) >>> 2;
+        }
+
+        private String readString(long offset) {
+            int len = blob.getInt((int) offset);
+            byte[] bytes = new byte[len];
+            blob.get((int) offset + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Copia as duas strings da entrada {@code i} sem decodificar.
+         */
+        private void copyStrings(int i, PositionedWriter out) throws IOException {
+            int offset = (int) offset(i);
+            int len1 = blob.getInt(offset);
+            int len2 = blob.getInt(offset + 4 + len1);
+            byte[] bytes = new byte[8 + len1 + len2];
+            blob.get(offset, bytes);
+            out.put(bytes);
+        }
+    }
+
+    /**
+     * Escrita sequencial bufferizada a partir de uma posição fixa do
+     * arquivo (permite preencher duas seções ao mesmo tempo).
+     */
+    private static final class PositionedWriter implements AutoCloseable {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        private final long start;
+        private long pos;
+
+        PositionedWriter(FileChannel ch, long start) {
+            this.ch = ch;
+            this.start = start;
+            this.pos = start;
+        }
+
+        long written() {
+            return pos - start + buf.position();
+        }
+
+        PositionedWriter putLong(long v) throws IOException {
+            ensure(8);
+            buf.putLong(v);
+            return this;
+        }
+
+        PositionedWriter putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            ensure(4);
+            buf.putInt(bytes.length);
+            return put(bytes);
+        }
+
+        PositionedWriter put(byte[] bytes) throws IOException {
+            int off = 0;
+            while (off < bytes.length) {
+                ensure(1);
+                int n = Math.min(buf.remaining(), bytes.length - off);
+                buf.put(bytes, off, n);
+                off += n;
+            }
+            return this;
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() < n) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                pos += ch.write(buf, pos);
+            }
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
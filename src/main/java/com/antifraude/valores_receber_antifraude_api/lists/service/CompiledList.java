@@ -0,0 +1,361 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListChange;
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.lists.index.ListIndex;
+import com.antifraude.valores_receber_antifraude_api.lists.index.ListKeys;
+import com.antifraude.valores_receber_antifraude_api.lists.index.ListSnapshot;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Estado em memória de uma lista: uma base imutável (tabela mapeada do
+ * {@link ListSnapshot}, vazia se não houver snapshot) mais o delta das
+ * entradas alteradas depois dela.
+ *
+ * Entradas do delta prevalecem sobre a base: uma desativação vira uma
+ * lápide que esconde o registro da base. O delta fica em dois
+ * {@link ListIndex}: o compactado, com quase tudo, e o recente, só com o
+ * que mudou desde a última compactação. Uma publicação recompila só o
+ * recente; ele volta para o compactado quando passa de ~raiz do tamanho do
+ * delta, ou quando altera uma entrada que já está no compactado (um
+ * ListIndex não esconde entradas). Assim um cadastro numa lista de milhões
+ * de entradas não recompila a lista inteira.
+ *
+ * As mudanças de uma sincronização são acumuladas por {@link #applyAll} e
+ * publicadas de uma vez por {@link #publish}, numa única escrita volátil.
+ */
+final class CompiledList {
+
+    // recente até este tamanho, qualquer que seja o delta
+    static final int RECENT_MIN = 1_024;
+
+    // ReentrantLock, não synchronized: load() roda o loader (consultas ao
+    // banco) com o lock, o que prenderia uma thread virtual à do sistema
+    private final ReentrantLock lock = new ReentrantLock();
+    private ListSnapshot.Table base = ListSnapshot.Table.EMPTY;
+    private final Map<UUID, Entry> delta = new HashMap<>();
+    // parte do delta alterada depois da última compactação
+    private final Map<UUID, Entry> recent = new HashMap<>();
+    private boolean compactPending = true;
+    private boolean dirty;
+    private ListIndex compacted = ListIndex.EMPTY;
+    private Set<UUID> compactedIds = Set.of(); // ids do compactado que escondem a base
+    private volatile View view = new View(ListSnapshot.Table.EMPTY, ListIndex.EMPTY, ListIndex.EMPTY, Set.of());
+
+    // publicações e compactações feitas (para teste)
+    int publishes;
+    int compactions;
+
+    /**
+     * @return o valor cadastrado que bateu ou null
+     */
+    String match(String normalizedUrl, String host) {
+        View v = view;
+        String hit = v.recent.match(normalizedUrl, host);
+        if (hit == null) {
+            hit = v.compacted.match(normalizedUrl, host);
+        }
+        return hit != null ? hit : v.base.match(normalizedUrl, host, v.overridden);
+    }
+
+    /**
+     * Substitui todo o conteúdo pelas entradas que o {@code loader} passar
+     * para {@link #put} (carga a partir das tabelas, sem snapshot).
+     */
+    void load(Consumer<CompiledList> loader) {
+        lock.lock();
+        try {
+            base = ListSnapshot.Table.EMPTY;
+            delta.clear();
+            loader.accept(this);
+            compactPending = true;
+            publish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passa a usar {@code table} como base. Só as entradas alteradas depois
+     * de {@code captured} (o estado gravado na tabela) continuam no delta;
+     * sem captura (snapshot lido no boot), o delta é descartado.
+     */
+    void rebase(ListSnapshot.Table table, Captured captured) {
+        lock.lock();
+        try {
+            base = table;
+            if (captured == null) {
+                delta.clear();
+            } else {
+                delta.entrySet().removeIf(e -> captured.delta.get(e.getKey()) == e.getValue());
+            }
+            compactPending = true;
+            publish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param normalizedValue coluna normalized_value; null (linha ainda sem
+     *                        backfill) faz normalizar aqui
+     */
+    void put(UUID id, ListEntryType type, String value, String normalizedValue) {
+        lock.lock();
+        try {
+            change(id, new Entry(true, type, value,
+                    normalizedValue != null ? normalizedValue : ListEntry.normalizedValueOf(type, value)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acumula um lote de mudanças do log (em ordem de versão); ficam
+     * visíveis no próximo {@link #publish}. Cada mudança traz o estado
+     * final da entrada, então reaplicar é inofensivo.
+     */
+    void applyAll(Iterable<ListChange> changes) {
+        lock.lock();
+        try {
+            for (ListChange c : changes) {
+                if (c.isActive()) {
+                    put(c.getEntryId(), c.getType(), c.getValue(), null);
+                } else {
+                    change(c.getEntryId(), Entry.TOMBSTONE);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void change(UUID id, Entry entry) {
+        Entry old = delta.get(id);
+        if (old != null ? old.sameAs(entry) : !entry.active && base.size() == 0) {
+            return; // reaplicação (releitura depois de um buraco no log)
+        }
+        if (old != null && !recent.containsKey(id)) {
+            compactPending = true; // a versão antiga está no compactado
+        }
+        boolean keep = entry.active || base.size() > 0; // sem base não há o que esconder
+        if (keep) {
+            delta.put(id, entry);
+        } else {
+            delta.remove(id);
+        }
+        if (compactPending) {
+            recent.clear(); // vai tudo para o compactado
+        } else if (keep) {
+            recent.put(id, entry);
+        } else {
+            recent.remove(id);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Limite superior do número de entradas ativas (para dimensionar o
+     * pré-filtro).
+     */
+    int size() {
+        View v = view;
+        return v.base.size() + v.compacted.size() + v.recent.size();
+    }
+
+    /**
+     * Chaves ({@link ListKeys}) de todas as entradas ativas.
+     */
+    void forEachKey(LongConsumer action) {
+        lock.lock();
+        try {
+            base.forEachKey(view.overridden, action);
+            for (Entry e : delta.values()) {
+                if (e.active) {
+                    action.accept(ListKeys.ofNormalized(e.type, e.normalizedValue));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copia o estado atual para gravar um snapshot fora do lock.
+     */
+    Captured capture() {
+        lock.lock();
+        try {
+            return new Captured(view, Map.copyOf(delta));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Torna visíveis as mudanças acumuladas. Recompila o recente e, se for
+     * a hora, compacta antes.
+     */
+    void publish() {
+        lock.lock();
+        try {
+            if (!dirty && !compactPending) {
+                return;
+            }
+            if (compactPending || recent.size() > recentLimit()) {
+                compacted = compile(delta);
+                // sem base não há o que esconder: evita copiar as chaves de uma carga completa
+                compactedIds = base.size() == 0 ? Set.of() : Set.copyOf(delta.keySet());
+                recent.clear();
+                compactPending = false;
+                compactions++;
+            }
+            Set<UUID> recentIds = base.size() == 0 || recent.isEmpty() ? Set.of() : Set.copyOf(recent.keySet());
+            view = new View(base, compacted, compile(recent), Union.of(compactedIds, recentIds));
+            dirty = false;
+            publishes++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // custo de uma publicação ~ recente, de uma compactação ~ delta:
+    // a raiz equilibra os dois
+    private int recentLimit() {
+        return Math.max(RECENT_MIN, (int) Math.sqrt(delta.size()));
+    }
+
+    private static ListIndex compile(Map<UUID, Entry> entries) {
+        if (entries.isEmpty()) {
+            return ListIndex.EMPTY;
+        }
+        ListIndex.Builder builder = ListIndex.builder();
+        for (Entry e : entries.values()) {
+            if (e.active) {
+                builder.add(e.type, e.value, e.normalizedValue);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Estado imutável publicado para os leitores.
+     */
+    static final class View {
+        final ListSnapshot.Table base;
+        final ListIndex compacted;
+        final ListIndex recent;
+        final Set<UUID> overridden; // ids do delta que escondem a base
+
+        View(ListSnapshot.Table base, ListIndex compacted, ListIndex recent, Set<UUID> overridden) {
+            this.base = base;
+            this.compacted = compacted;
+            this.recent = recent;
+            this.overridden = overridden;
+        }
+    }
+
+    /**
+     * Ids do compactado mais os do recente, sem copiar o conjunto grande a
+     * cada publicação. Um id pode estar nos dois.
+     */
+    private static final class Union extends AbstractSet<UUID> {
+        private final Set<UUID> a;
+        private final Set<UUID> b;
+
+        private Union(Set<UUID> a, Set<UUID> b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        static Set<UUID> of(Set<UUID> a, Set<UUID> b) {
+            return b.isEmpty() ? a : a.isEmpty() ? b : new Union(a, b);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return a.contains(o) || b.contains(o);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false; // of() não cria união vazia
+        }
+
+        @Override
+        public Iterator<UUID> iterator() {
+            return Stream.concat(a.stream(), b.stream().filter(id -> !a.contains(id))).iterator();
+        }
+
+        @Override
+        public int size() {
+            int n = a.size();
+            for (UUID id : b) {
+                if (!a.contains(id)) {
+                    n++;
+                }
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Estado capturado para o snapshot: a base, o que a esconde e as
+     * entradas do delta no momento da captura.
+     */
+    static final class Captured {
+        final View view;
+        final Map<UUID, Entry> delta;
+
+        Captured(View view, Map<UUID, Entry> delta) {
+            this.view = view;
+            this.delta = delta;
+        }
+
+        ListSnapshot.Part toPart() {
+            List<ListSnapshot.Entry> added = new ArrayList<>(delta.size());
+            delta.forEach((id, e) -> {
+                if (e.active) {
+                    added.add(new ListSnapshot.Entry(id, e.type, e.value, e.normalizedValue));
+                }
+            });
+            return new ListSnapshot.Part(view.base, view.overridden, added);
+        }
+    }
+
+    static final class Entry {
+        static final Entry TOMBSTONE = new Entry(false, null, null, null);
+
+        final boolean active;
+        final ListEntryType type;
+        final String value;
+        final String normalizedValue;
+
+        Entry(boolean active, ListEntryType type, String value, String normalizedValue) {
+            this.active = active;
+            this.type = type;
+            this.value = value;
+            this.normalizedValue = normalizedValue;
+        }
+
+        boolean sameAs(Entry o) {
+            return active == o.active && type == o.type
+                    && Objects.equals(value, o.value)
+                    && Objects.equals(normalizedValue, o.normalizedValue);
+        }
+    }
+}
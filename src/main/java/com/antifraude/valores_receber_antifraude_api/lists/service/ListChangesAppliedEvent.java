@@ -0,0 +1,25 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListChange;
+
+import java.util.List;
+
+/**
+ * Evento publicado pelo {@link ListsService} no fim de cada sincronização
+ * que aplicou mudanças do log ({@code list_change}), depois de os índices
+ * passarem a valer. Cobre escritas deste nó, de outros nós e importações
+ * em lote; uma mudança relida depois de um buraco de versão pode vir de
+ * novo (reaplicar é idempotente).
+ */
+public class ListChangesAppliedEvent {
+
+    private final List<ListChange> changes;
+
+    public ListChangesAppliedEvent(List<ListChange> changes) {
+        this.changes = changes;
+    }
+
+    public List<ListChange> getChanges() {
+        return changes;
+    }
+}
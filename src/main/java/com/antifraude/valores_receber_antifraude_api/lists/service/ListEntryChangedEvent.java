@@ -0,0 +1,48 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+
+import java.util.UUID;
+
+/**
+ * Evento publicado sempre que uma entrada de whitelist/blacklist é criada,
+ * ativada ou desativada. Consumido após o commit para manter os índices
+ * em memória sincronizados com o banco.
+ */
+public class ListEntryChangedEvent {
+
+    private final ListKind kind;
+    private final UUID id;
+    private final ListEntryType type;
+    private final String value;
+    private final boolean active;
+
+    public ListEntryChangedEvent(ListKind kind, UUID id, ListEntryType type, String value, boolean active) {
+        this.kind = kind;
+        this.id = id;
+        this.type = type;
+        this.value = value;
+        this.active = active;
+    }
+
+    public ListKind getKind() {
+        return kind;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public ListEntryType getType() {
+        return type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
@@ -0,0 +1,331 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListEntryCreateRequest;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListImportResponse;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Fingerprint;
+import com.antifraude.valores_receber_antifraude_api.shared.util.LongHashSet;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Importação em lote de feeds de whitelist/blacklist.
+ *
+ * O corpo é lido linha a linha (sem bufferizar o arquivo), cada valor é
+ * normalizado, duplicatas dentro do próprio feed são descartadas pela
+ * impressão digital do valor normalizado e as linhas válidas são gravadas
+ * em lotes com um único
+ * {@code INSERT ... SELECT FROM unnest(...) ON CONFLICT DO NOTHING} por lote.
+ * No banco a chave é a mesma, {@code (type, value_hash, normalized_value)}
+ * (db/007): uma entrada já criada pelo POST, por outro feed ou pela
+ * gravação atrasada conta como duplicata.
+ * Cada lote é commitado sozinho: se a importação falhar no meio, o que já
+ * foi gravado permanece. As linhas inseridas também vão para o log
+ * {@code list_change}, de onde todos os nós aplicam só o delta.
+ */
+@Service
+public class ListImportService {
+
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        public static Format fromContentType(String contentType) {
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("ndjson") ? NDJSON : CSV;
+        }
+    }
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final int MAX_VALUE_LENGTH = 2048; // mesmo tamanho da coluna entry_value
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectReader ndjsonReader;
+    private final ListsService listsService;
+
+    public ListImportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, ListsService listsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ndjsonReader = objectMapper.readerFor(ListEntryCreateRequest.class);
+        this.listsService = listsService;
+    }
+
+    /**
+     * @param defaultType tipo usado nas linhas CSV de uma coluna só
+     */
+    public ListImportResponse importEntries(ListKind kind, InputStream body, Format format,
+            ListEntryType defaultType) throws IOException {
+        long start = System.nanoTime();
+        ListImportResponse resp = new ListImportResponse();
+        LongHashSet seen = new LongHashSet(64 * 1024);
+        List<Row> batch = new ArrayList<>(BATCH_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024)) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (first && format == Format.CSV && line.trim().toLowerCase(Locale.ROOT).startsWith("type,")) {
+                    first = false; // cabeçalho
+                    continue;
+                }
+                first = false;
+
+                Row row = format == Format.NDJSON ? parseNdjson(line) : parseCsv(line, defaultType);
+                if (row == null) {
+                    resp.setRejected(resp.getRejected() + 1);
+                    continue;
+                }
+                if (!seen.add(row.valueHash)) {
+                    resp.setDuplicates(resp.getDuplicates() + 1);
+                    continue;
+                }
+
+                batch.add(row);
+                if (batch.size() == BATCH_SIZE) {
+                    flush(kind, batch, resp);
+                }
+            }
+            flush(kind, batch, resp);
+        } finally {
+            if (resp.getInserted() > 0) {
+                listsService.syncChanges();
+            }
+        }
+
+        resp.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        return resp;
+    }
+
+    // ---------- Parsing ----------
+
+    /**
+     * CSV: {@code type,value[,reason[,active]]} ou só {@code value} (usa o
+     * tipo padrão). Campos podem vir entre aspas. Com tipo padrão URL, linha
+     * cujo primeiro campo não é um tipo é a própria URL inteira: vírgula no
+     * path não precisa vir entre aspas. {@code active} só aceita
+     * true/false (ou 1/0); qualquer outra coisa rejeita a linha.
+     */
+    static Row parseCsv(String line, ListEntryType defaultType) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() == 1) {
+            return toRow(defaultType, fields.get(0), null, null);
+        }
+        ListEntryType type = parseType(fields.get(0));
+        if (type == null) {
+            // domínio não tem vírgula: só URL pode ser a linha inteira
+            return defaultType == ListEntryType.URL ? toRow(defaultType, line, null, null) : null;
+        }
+        String reason = fields.size() > 2 ? fields.get(2) : null;
+        Boolean active = null;
+        if (fields.size() > 3 && !fields.get(3).isBlank()) {
+            active = parseActive(fields.get(3));
+            if (active == null) {
+                return null;
+            }
+        }
+        return toRow(type, fields.get(1), reason, active);
+    }
+
+    private static Boolean parseActive(String field) {
+        return switch (field.trim().toLowerCase(Locale.ROOT)) {
+            case "true", "1" -> Boolean.TRUE;
+            case "false", "0" -> Boolean.FALSE;
+            default -> null;
+        };
+    }
+
+    private Row parseNdjson(String line) {
+        try {
+            ListEntryCreateRequest req = ndjsonReader.readValue(line);
+            return toRow(req.getType(), req.getValue(), req.getReason(), req.getActive());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static Row toRow(ListEntryType type, String rawValue, String reason, Boolean active) {
+        if (type == null || rawValue == null) {
+            return null;
+        }
+        String value = ListEntry.canonicalValueOf(type, rawValue);
+        if (value == null || value.length() > MAX_VALUE_LENGTH) {
+            return null;
+        }
+        String r = reason == null || reason.isBlank() ? null : reason.trim();
+        return new Row(type, value, ListEntry.normalizedValueOf(type, value), r, active == null || active);
+    }
+
+    private static ListEntryType parseType(String field) {
+        String t = field.trim().toUpperCase(Locale.ROOT);
+        for (ListEntryType type : ListEntryType.values()) {
+            if (type.name().equals(t)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        fields.add(cur.toString());
+        return fields;
+    }
+
+    // ---------- Escrita ----------
+
+    /**
+     * Grava, com o mesmo INSERT em lote da importação, URLs que o próprio
+     * pipeline classificou (ver {@code VerdictWriteBehind}). Valores já
+     * normalizados; os que já existem são ignorados. Não sincroniza as
+     * listas: quem chama faz {@link ListsService#syncChanges()} quando a
+     * escrita estiver commitada.
+     *
+     * @param reasonByUrl motivo de cada URL
+     * @return quantas entradas eram novas
+     */
+    public int insertUrls(ListKind kind, Map<String, String> reasonByUrl) {
+        List<Row> rows = new ArrayList<>(reasonByUrl.size());
+        for (Map.Entry<String, String> e : reasonByUrl.entrySet()) {
+            Row row = toRow(ListEntryType.URL, e.getKey(), e.getValue(), true);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return insert(kind, rows);
+    }
+
+    private void flush(ListKind kind, List<Row> batch, ListImportResponse resp) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int n = batch.size();
+        int ins = insert(kind, batch);
+        resp.setInserted(resp.getInserted() + ins);
+        resp.setDuplicates(resp.getDuplicates() + (n - ins)); // já existiam no banco
+        batch.clear();
+    }
+
+    private int insert(ListKind kind, List<Row> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        String table = kind == ListKind.WHITELIST ? "whitelist_entry" : "blacklist_entry";
+        // as linhas realmente inseridas entram no log de mudanças no mesmo comando
+        String sql = "WITH ins AS ("
+                + "INSERT INTO " + table
+                + " (id, type, entry_value, normalized_value, value_hash, active, reason, created_at) "
+                + "SELECT u.id, u.type, u.entry_value, u.normalized_value, u.value_hash, u.active, u.reason, now() "
+                + "FROM unnest(?, ?, ?, ?, ?, ?, ?) "
+                + "AS u(id, type, entry_value, normalized_value, value_hash, active, reason) "
+                + "ON CONFLICT (type, value_hash, normalized_value) DO NOTHING "
+                + "RETURNING id, type, entry_value, active) "
+                + "INSERT INTO list_change (list_kind, entry_id, type, entry_value, active, changed_at) "
+                + "SELECT '" + kind.name() + "', id, type, entry_value, active, now() FROM ins";
+
+        int n = batch.size();
+        UUID[] ids = new UUID[n];
+        String[] types = new String[n];
+        String[] values = new String[n];
+        String[] normalized = new String[n];
+        Long[] hashes = new Long[n];
+        Boolean[] actives = new Boolean[n];
+        String[] reasons = new String[n];
+        for (int i = 0; i < n; i++) {
+            Row row = batch.get(i);
+            ids[i] = randomUuid();
+            types[i] = row.type.name();
+            values[i] = row.value;
+            normalized[i] = row.normalizedValue;
+            hashes[i] = row.valueHash;
+            actives[i] = row.active;
+            reasons[i] = row.reason;
+        }
+
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setArray(1, con.createArrayOf("uuid", ids));
+                ps.setArray(2, con.createArrayOf("varchar", types));
+                ps.setArray(3, con.createArrayOf("varchar", values));
+                ps.setArray(4, con.createArrayOf("varchar", normalized));
+                ps.setArray(5, con.createArrayOf("int8", hashes));
+                ps.setArray(6, con.createArrayOf("bool", actives));
+                ps.setArray(7, con.createArrayOf("varchar", reasons));
+                return ps.executeUpdate();
+            }
+        });
+
+        return inserted == null ? 0 : inserted;
+    }
+
+    /**
+     * UUID v4 sem passar pelo SecureRandom (gargalo em milhões de linhas).
+     */
+    private static UUID randomUuid() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        long msb = (r.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (r.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+        return new UUID(msb, lsb);
+    }
+
+    static final class Row {
+        final ListEntryType type;
+        final String value;
+        final String normalizedValue;
+        final long valueHash;
+        final String reason;
+        final boolean active;
+
+        Row(ListEntryType type, String value, String normalizedValue, String reason, boolean active) {
+            this.type = type;
+            this.value = value;
+            this.normalizedValue = normalizedValue;
+            this.valueHash = Fingerprint.of(normalizedValue);
+            this.reason = reason;
+            this.active = active;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListEntryPage;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListEntryResponse;
+
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Listagem paginada por cursor (keyset) das entradas de whitelist/blacklist.
+ *
+ * Os filtros viram predicados SQL e a ordem é sempre (created_at, id), de
+ * modo que a próxima página começa logo depois da última linha devolvida,
+ * sem OFFSET (índice em {@code db/006_list_entry_keyset.sql}). As linhas
+ * são lidas do repositório como stream e convertidas uma a uma, então a
+ * memória fica limitada ao tamanho da página.
+ */
+@Service
+public class ListQueryService {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final Sort KEYSET_ORDER = Sort.by("createdAt", "id");
+
+    /**
+     * Filtros opcionais da listagem (null = não filtra).
+     */
+    public static class Filter {
+        public Boolean active;
+        public ListEntryType type;
+        public String valuePrefix;
+        public LocalDateTime createdFrom; // inclusivo
+        public LocalDateTime createdTo; // exclusivo
+    }
+
+    @Transactional(readOnly = true)
+    public <T extends ListEntry> ListEntryPage page(JpaSpecificationExecutor<T> repository, Filter filter,
+            String cursor, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        Specification<T> spec = where(filter, cursor == null ? null : Cursor.decode(cursor));
+
+        List<ListEntryResponse> items = new ArrayList<>(Math.min(size, 256));
+        T last = null;
+        boolean hasMore = false;
+
+        // busca uma linha a mais só para saber se existe próxima página
+        try (Stream<T> rows = repository.findBy(spec, q -> q.sortBy(KEYSET_ORDER).limit(size + 1).stream())) {
+            Iterator<T> it = rows.iterator();
+            while (it.hasNext()) {
+                T e = it.next();
+                if (items.size() == size) {
+                    hasMore = true;
+                    break;
+                }
+                items.add(toResponse(e));
+                last = e;
+            }
+        }
+
+        ListEntryPage page = new ListEntryPage();
+        page.setItems(items);
+        page.setNextCursor(hasMore ? new Cursor(last.getCreatedAt(), last.getId()).encode() : null);
+        return page;
+    }
+
+    private static <T> Specification<T> where(Filter f, Cursor after) {
+        return (root, query, cb) -> {
+            List<Predicate> p = new ArrayList<>();
+            if (f.active != null) {
+                p.add(cb.equal(root.get("active"), f.active));
+            }
+            if (f.type != null) {
+                p.add(cb.equal(root.get("type"), f.type));
+            }
+            if (f.valuePrefix != null && !f.valuePrefix.isEmpty()) {
+                p.add(cb.like(root.<String>get("value"), escapeLike(f.valuePrefix) + "%", '\\'));
+            }
+            if (f.createdFrom != null) {
+                p.add(cb.greaterThanOrEqualTo(root.<LocalDateTime>get("createdAt"), f.createdFrom));
+            }
+            if (f.createdTo != null) {
+                p.add(cb.lessThan(root.<LocalDateTime>get("createdAt"), f.createdTo));
+            }
+            if (after != null) {
+                // (created_at, id) > (cursor.createdAt, cursor.id); o
+                // "created_at >= x" redundante é o que deixa o planner
+                // começar o range scan no índice (created_at, id) em vez
+                // de filtrar desde a primeira linha
+                p.add(cb.greaterThanOrEqualTo(root.<LocalDateTime>get("createdAt"), after.createdAt));
+                p.add(cb.or(
+                        cb.greaterThan(root.<LocalDateTime>get("createdAt"), after.createdAt),
+                        cb.and(
+                                cb.equal(root.get("createdAt"), after.createdAt),
+                                cb.greaterThan(root.<UUID>get("id"), after.id))));
+            }
+            return cb.and(p.toArray(new Predicate[0]));
+        };
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static ListEntryResponse toResponse(ListEntry e) {
+        ListEntryResponse r = new ListEntryResponse();
+        r.setId(e.getId());
+        r.setType(e.getType());
+        r.setValue(e.getValue());
+        r.setActive(e.isActive());
+        r.setReason(e.getReason());
+        r.setCreatedAt(e.getCreatedAt());
+        return r;
+    }
+
+    /**
+     * Cursor opaco: base64url de "createdAt|id" da última linha da página.
+     */
+    static final class Cursor {
+        final LocalDateTime createdAt;
+        final UUID id;
+
+        Cursor(LocalDateTime createdAt, UUID id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+            }
+        }
+    }
+}
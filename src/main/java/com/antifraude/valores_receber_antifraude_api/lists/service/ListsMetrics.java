@@ -0,0 +1,39 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Métricas do pré-filtro de Bloom das listas.
+ */
+@Component
+public class ListsMetrics implements MeterBinder {
+
+    private final ListsService listsService;
+
+    public ListsMetrics(ListsService listsService) {
+        this.listsService = listsService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("antifraude.lists.prefilter.fpp", listsService, ListsService::prefilterExpectedFpp)
+                .tag("kind", "expected")
+                .description("Taxa de falso positivo esperada do filtro de Bloom")
+                .register(registry);
+        Gauge.builder("antifraude.lists.prefilter.fpp", listsService, ListsService::prefilterObservedFpp)
+                .tag("kind", "observed")
+                .description("Taxa de falso positivo observada do filtro de Bloom")
+                .register(registry);
+        FunctionCounter.builder("antifraude.lists.prefilter.queries", listsService,
+                s -> s.prefilterQueries.sum())
+                .register(registry);
+        FunctionCounter.builder("antifraude.lists.prefilter.skipped", listsService,
+                s -> s.prefilterQueries.sum() - s.prefilterPassed.sum())
+                .description("Consultas em que whitelist e blacklist foram puladas")
+                .register(registry);
+    }
+}
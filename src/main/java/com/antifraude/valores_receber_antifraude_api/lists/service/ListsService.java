@@ -1,78 +1,464 @@
 package com.antifraude.valores_receber_antifraude_api.lists.service;
 
 import com.antifraude.valores_receber_antifraude_api.core.model.entity.BlacklistEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListChange;
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
 import com.antifraude.valores_receber_antifraude_api.core.model.entity.WhitelistEntry;
-import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
 import com.antifraude.valores_receber_antifraude_api.core.repository.BlacklistRepository;
+import com.antifraude.valores_receber_antifraude_api.core.repository.ListChangeRepository;
 import com.antifraude.valores_receber_antifraude_api.core.repository.WhitelistRepository;
-import com.antifraude.valores_receber_antifraude_api.core.rules.UrlNormalizer;
+import com.antifraude.valores_receber_antifraude_api.lists.index.ListIndex;
+import com.antifraude.valores_receber_antifraude_api.lists.index.ListPrefilter;
+import com.antifraude.valores_receber_antifraude_api.lists.index.ListSnapshot;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Consulta e manutenção da whitelist / blacklist.
+ *
+ * As consultas usam um {@link ListIndex} compilado em memória (carregado na
+ * primeira consulta). Toda escrita passa por aqui e grava, na mesma
+ * transação, uma linha versionada em {@code list_change}. Cada nó mantém o
+ * índice atualizado aplicando só as mudanças com versão maior que a última
+ * aplicada: logo após o commit das próprias escritas e, para as dos outros
+ * nós (e importações em lote), num polling periódico.
+ *
+ * Com {@code antifraude.lists.snapshot-path} configurado, o estado
+ * compilado é gravado periodicamente num {@link ListSnapshot} que é mapeado
+ * em memória no boot: só as mudanças posteriores à versão dele vêm do banco.
+ *
+ * Na frente dos dois índices fica um {@link ListPrefilter} (Bloom) que
+ * responde "com certeza não está em nenhuma lista" para a maioria das URLs.
+ * Inserções entram no filtro incrementalmente; desativações (ou estouro de
+ * capacidade) descartam o filtro, que é reconstruído na próxima consulta.
+ *
+ * Cada sincronização que aplicou mudanças publica um
+ * {@link ListChangesAppliedEvent} (o cache de vereditos derruba o que
+ * elas contradizem).
+ */
 @Service
 public class ListsService {
 
+    private static final Logger log = LoggerFactory.getLogger(ListsService.class);
+
+    private static final int SYNC_BATCH = 5_000;
+
+    // Versões vêm de uma identity: uma transação pode commitar depois de
+    // outra com versão maior. Um buraco na sequência espera até este prazo
+    // antes de ser dado como rollback e pulado.
+    private static final long GAP_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    // Na carga inicial, reaplica as últimas mudanças antes do máximo lido
+    // (transações ainda abertas naquele instante)
+    private static final long LOAD_OVERLAP = 1_000;
+
     private final WhitelistRepository whitelistRepository;
     private final BlacklistRepository blacklistRepository;
+    private final ListChangeRepository listChangeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path snapshotPath; // null = sem snapshot
+
+    private final CompiledList whitelist = new CompiledList();
+    private final CompiledList blacklist = new CompiledList();
+
+    // protege carga, aplicação de mudanças e reconstrução do pré-filtro.
+    // ReentrantLock, não synchronized: a carga e o sync consultam o banco
+    // com o lock e podem rodar numa thread virtual de requisição, que num
+    // synchronized ficaria presa à thread do sistema durante a consulta.
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean loaded;
+    private volatile ListPrefilter prefilter; // null = reconstruir
+
+    // até onde o log foi aplicado sem buracos
+    private long appliedVersion;
+    private long gapVersion; // primeira versão faltando (0 = nenhuma)
+    private long gapSeenAt;
+    private long snapshotVersion = -1;
+
+    // contadores para estimar a taxa de falso positivo observada
+    final LongAdder prefilterQueries = new LongAdder();
+    final LongAdder prefilterPassed = new LongAdder();
+    final LongAdder listHits = new LongAdder();
 
     public ListsService(WhitelistRepository whitelistRepository,
-            BlacklistRepository blacklistRepository) {
+            BlacklistRepository blacklistRepository,
+            ListChangeRepository listChangeRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${antifraude.lists.snapshot-path:}") String snapshotPath) {
         this.whitelistRepository = whitelistRepository;
         this.blacklistRepository = blacklistRepository;
+        this.listChangeRepository = listChangeRepository;
+        this.eventPublisher = eventPublisher;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    /**
+     * Pré-filtro das listas.
+     *
+     * @return false quando a URL/host com certeza não está em nenhuma lista
+     *         (dá para pular whitelist e blacklist)
+     */
+    public boolean mightBeListed(String normalizedUrl, String host) {
+        boolean maybe = prefilter().mightMatch(normalizedUrl, host);
+        prefilterQueries.increment();
+        if (maybe) {
+            prefilterPassed.increment();
+        }
+        return maybe;
     }
 
     public MatchResult matchWhitelist(String normalizedUrl, String host) {
-        List<WhitelistEntry> list = whitelistRepository.findByActiveTrue();
-        for (WhitelistEntry e : list) {
-            if (matches(e.getType(), e.getValue(), normalizedUrl, host)) {
-                return new MatchResult(true, "WHITELIST_HIT", e.getValue());
-            }
+        ensureLoaded();
+        String hit = whitelist.match(normalizedUrl, host);
+        if (hit == null) {
+            return MatchResult.NO_HIT;
         }
-        return MatchResult.NO_HIT;
+        listHits.increment();
+        return new MatchResult(true, "WHITELIST_HIT", hit);
+    }
+
+    /**
+     * Whitelist só pelo host (entradas DOMAIN), sem passar pelo pré-filtro
+     * nem contar para a taxa de falso positivo. Usada com o esqueleto de
+     * confundíveis do host, para achar imitações de domínios da whitelist.
+     */
+    public MatchResult matchWhitelistHost(String host) {
+        ensureLoaded();
+        String hit = whitelist.match(null, host);
+        return hit == null ? MatchResult.NO_HIT : new MatchResult(true, "WHITELIST_HIT", hit);
     }
 
     public MatchResult matchBlacklist(String normalizedUrl, String host) {
-        List<BlacklistEntry> list = blacklistRepository.findByActiveTrue();
-        for (BlacklistEntry e : list) {
-            if (matches(e.getType(), e.getValue(), normalizedUrl, host)) {
-                return new MatchResult(true, "BLACKLIST_HIT", e.getValue());
+        ensureLoaded();
+        String hit = blacklist.match(normalizedUrl, host);
+        if (hit == null) {
+            return MatchResult.NO_HIT;
+        }
+        listHits.increment();
+        return new MatchResult(true, "BLACKLIST_HIT", hit);
+    }
+
+    // ---------- Escrita ----------
+
+    @Transactional
+    public WhitelistEntry saveWhitelist(WhitelistEntry entry) {
+        // flush aqui: entrada repetida estoura nesta chamada, não no commit
+        WhitelistEntry saved = whitelistRepository.saveAndFlush(entry);
+        recordChange(ListKind.WHITELIST, saved);
+        return saved;
+    }
+
+    @Transactional
+    public BlacklistEntry saveBlacklist(BlacklistEntry entry) {
+        // flush aqui: entrada repetida estoura nesta chamada, não no commit
+        BlacklistEntry saved = blacklistRepository.saveAndFlush(entry);
+        recordChange(ListKind.BLACKLIST, saved);
+        return saved;
+    }
+
+    private void recordChange(ListKind kind, ListEntry saved) {
+        listChangeRepository.save(ListChange.of(kind, saved));
+        eventPublisher.publishEvent(new ListEntryChangedEvent(
+                kind, saved.getId(), saved.getType(), saved.getValue(), saved.isActive()));
+    }
+
+    /**
+     * Depois do commit de uma escrita local, puxa o log na hora em vez de
+     * esperar o próximo polling (ou imediatamente, se não houver transação).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListEntryChanged(ListEntryChangedEvent event) {
+        syncChanges();
+    }
+
+    // ---------- Sincronização ----------
+
+    /**
+     * Aplica as mudanças do log com versão maior que a última aplicada.
+     * Roda periodicamente em todos os nós; sem mudanças, custa uma consulta
+     * pela chave primária que volta vazia. Todas as páginas de uma
+     * sincronização (uma importação grande são centenas) viram uma única
+     * publicação dos índices e um único {@link ListChangesAppliedEvent}.
+     */
+    @Scheduled(fixedDelayString = "${antifraude.lists.sync-interval-ms:2000}")
+    public void syncChanges() {
+        if (!loaded) {
+            return; // a carga inicial já vai ler o estado atual
+        }
+        List<ListChange> applied = new ArrayList<>();
+        lock.lock();
+        try {
+            try {
+                pullChanges(applied);
+            } finally {
+                // o que já foi lido fica visível mesmo se uma página falhar
+                whitelist.publish();
+                blacklist.publish();
+            }
+        } finally {
+            lock.unlock();
+            // fora do lock: quem ouve pode varrer o próprio cache
+            if (!applied.isEmpty()) {
+                eventPublisher.publishEvent(new ListChangesAppliedEvent(applied));
+            }
+        }
+    }
+
+    private void pullChanges(List<ListChange> applied) {
+        long since = appliedVersion;
+        while (true) {
+            List<ListChange> changes = listChangeRepository
+                    .findByVersionGreaterThanOrderByVersionAsc(since, Limit.of(SYNC_BATCH));
+            if (changes.isEmpty()) {
+                return;
+            }
+            apply(changes);
+            applied.addAll(changes);
+            advance(changes);
+            since = changes.get(changes.size() - 1).getVersion();
+            if (changes.size() < SYNC_BATCH) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Avança {@link #appliedVersion} pela parte contígua do lote. As
+     * mudanças depois de um buraco já foram aplicadas, mas serão relidas
+     * (e reaplicadas, sem efeito) até o buraco ser preenchido ou expirar.
+     */
+    private void advance(List<ListChange> changes) {
+        for (ListChange c : changes) {
+            long v = c.getVersion();
+            if (v <= appliedVersion) {
+                continue;
+            }
+            if (v != appliedVersion + 1) {
+                long missing = appliedVersion + 1;
+                if (gapVersion != missing) {
+                    gapVersion = missing;
+                    gapSeenAt = System.nanoTime();
+                }
+                if (System.nanoTime() - gapSeenAt < GAP_TIMEOUT_NANOS) {
+                    return;
+                }
+                log.warn("Versões {}..{} do list_change não apareceram; seguindo sem elas", missing, v - 1);
+            }
+            appliedVersion = v;
+            gapVersion = 0;
+        }
+    }
+
+    /**
+     * Acumula uma página do log nos índices (publicados no fim da
+     * sincronização) e atualiza o pré-filtro.
+     */
+    private void apply(List<ListChange> changes) {
+        List<ListChange> white = new ArrayList<>();
+        List<ListChange> black = new ArrayList<>();
+        boolean deactivated = false;
+        for (ListChange c : changes) {
+            (c.getKind() == ListKind.WHITELIST ? white : black).add(c);
+            deactivated |= !c.isActive();
+        }
+        if (!white.isEmpty()) {
+            whitelist.applyAll(white);
+        }
+        if (!black.isEmpty()) {
+            blacklist.applyAll(black);
+        }
+
+        ListPrefilter current = prefilter;
+        if (current == null) {
+            return;
+        }
+        // Bloom não suporta remoção: desativação força reconstrução
+        if (deactivated) {
+            prefilter = null;
+            return;
+        }
+        for (ListChange c : changes) {
+            if (!current.add(c.getType(), c.getValue())) {
+                prefilter = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Última versão do log aplicada neste nó.
+     */
+    public long appliedVersion() {
+        lock.lock();
+        try {
+            return appliedVersion;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------- Índices ----------
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (loaded) {
+                return;
             }
+            ListSnapshot snapshot = openSnapshot();
+            if (snapshot != null) {
+                // só o delta posterior ao snapshot vem do banco
+                whitelist.rebase(snapshot.whitelist(), null);
+                blacklist.rebase(snapshot.blacklist(), null);
+                prefilter = snapshot.prefilter();
+                appliedVersion = snapshot.version();
+                snapshotVersion = snapshot.version();
+            } else {
+                // lê a versão antes das tabelas: o que mudar no meio é reaplicado
+                long version = Math.max(0, listChangeRepository.findMaxVersion() - LOAD_OVERLAP);
+                whitelist.load(this::loadWhitelist);
+                blacklist.load(this::loadBlacklist);
+                appliedVersion = version;
+            }
+            gapVersion = 0;
+            loaded = true;
+        } finally {
+            lock.unlock();
+        }
+        syncChanges();
+    }
+
+    private ListSnapshot openSnapshot() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return null;
+        }
+        try {
+            return ListSnapshot.open(snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot das listas ignorado ({}); carregando das tabelas", snapshotPath, e);
+            return null;
         }
-        return MatchResult.NO_HIT;
     }
 
-    private boolean matches(ListEntryType type, String storedValue, String normalizedUrl, String host) {
-        if (storedValue == null)
-            return false;
-        String value = storedValue.trim();
+    // ---------- Snapshot ----------
+
+    /**
+     * Grava o estado compilado das listas em {@code snapshotPath} quando o
+     * log avançou desde o último snapshot, e passa a usar o arquivo novo
+     * como base (o delta em memória volta a ficar pequeno).
+     *
+     * A captura é feita sob o lock; a escrita do arquivo, fora dele.
+     */
+    @Scheduled(fixedDelayString = "${antifraude.lists.snapshot-interval-ms:300000}")
+    public void writeSnapshot() {
+        if (snapshotPath == null || !loaded) {
+            return;
+        }
+        long version;
+        ListPrefilter filter;
+        CompiledList.Captured white;
+        CompiledList.Captured black;
+        lock.lock();
+        try {
+            if (appliedVersion == snapshotVersion) {
+                return;
+            }
+            version = appliedVersion;
+            filter = prefilter();
+            white = whitelist.capture();
+            black = blacklist.capture();
+        } finally {
+            lock.unlock();
+        }
+
+        ListSnapshot snapshot;
+        try {
+            ListSnapshot.write(snapshotPath, version, filter, white.toPart(), black.toPart());
+            snapshot = ListSnapshot.open(snapshotPath);
+        } catch (IOException e) {
+            log.warn("Falha ao gravar o snapshot das listas em {}", snapshotPath, e);
+            return;
+        }
+
+        lock.lock();
+        try {
+            whitelist.rebase(snapshot.whitelist(), white);
+            blacklist.rebase(snapshot.blacklist(), black);
+            snapshotVersion = version;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        if (type == ListEntryType.URL) {
-            // normaliza o value para comparar URL exata (sem query/fragment)
-            UrlNormalizer.Result n = UrlNormalizer.normalize(value);
-            return equalsIgnoreCaseSafe(n.normalizedUrl, normalizedUrl);
+    private ListPrefilter prefilter() {
+        ListPrefilter current = prefilter;
+        if (current != null) {
+            return current;
         }
-        // DOMAIN
-        String val = value.toLowerCase(Locale.ROOT);
-        String h = host != null ? host.toLowerCase(Locale.ROOT) : "";
+        ensureLoaded();
+        lock.lock();
+        try {
+            if (prefilter == null) {
+                ListPrefilter rebuilt = ListPrefilter.forEntries(whitelist.size() + blacklist.size());
+                whitelist.forEachKey(rebuilt::addKey);
+                blacklist.forEachKey(rebuilt::addKey);
+                prefilter = rebuilt;
+            }
+            return prefilter;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        if (val.startsWith("*.")) {
-            String base = val.substring(2); // "*.dominio.com" -> "dominio.com"
-            return h.endsWith("." + base);
-        } else {
-            // domínio exato
-            return equalsIgnoreCaseSafe(val, h);
+    /**
+     * Taxa de falso positivo esperada pelo preenchimento atual do filtro.
+     */
+    double prefilterExpectedFpp() {
+        ListPrefilter current = prefilter;
+        return current != null ? current.expectedFalsePositiveRate() : 0.0;
+    }
+
+    /**
+     * Taxa de falso positivo observada: consultas que passaram pelo filtro
+     * mas não bateram em nenhuma lista, sobre todas as que não bateram.
+     */
+    double prefilterObservedFpp() {
+        long hits = listHits.sum();
+        long negatives = prefilterQueries.sum() - hits;
+        return negatives <= 0 ? 0.0 : (double) (prefilterPassed.sum() - hits) / negatives;
+    }
+
+    private void loadWhitelist(CompiledList list) {
+        for (WhitelistEntry e : whitelistRepository.findByActiveTrue()) {
+            list.put(e.getId(), e.getType(), e.getValue(), e.getNormalizedValue());
         }
     }
 
-    private boolean equalsIgnoreCaseSafe(String a, String b) {
-        if (a == null && b == null)
-            return true;
-        if (a == null || b == null)
-            return false;
-        return a.equalsIgnoreCase(b);
+    private void loadBlacklist(CompiledList list) {
+        for (BlacklistEntry e : blacklistRepository.findByActiveTrue()) {
+            list.put(e.getId(), e.getType(), e.getValue(), e.getNormalizedValue());
+        }
     }
 
     public static class MatchResult {
@@ -0,0 +1,76 @@
+package com.antifraude.valores_receber_antifraude_api.shared.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento JFR de uma verificação inteira ({@code CheckService.submit} e
+ * afins): domínio, etapa que decidiu, veredito e origem, com a duração do
+ * início ao fim. As etapas saem como {@link CheckStageEvent} dentro do
+ * mesmo intervalo.
+ *
+ * Desligado por padrão, como {@link CheckStageEvent}.
+ */
+@Name("antifraude.Check")
+@Label("Check")
+@Category({ "Antifraude", "Check" })
+@Description("Verificação de URL, do recebimento ao veredito")
+@Enabled(false)
+@Threshold("0 ms")
+@StackTrace(false)
+public final class CheckEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(CheckEvent.class);
+
+    @Label("Domain")
+    String domain;
+
+    @Label("Decided By")
+    @Description("Etapa que deu o veredito; vazio na resposta provisória do modo assíncrono")
+    String decidedBy;
+
+    @Label("Verdict")
+    String verdict;
+
+    @Label("Source")
+    String source;
+
+    /**
+     * Começa um evento, se o tipo estiver ligado na gravação em curso.
+     * Desligado, não aloca: a consulta é ao tipo, antes do {@code new}.
+     *
+     * @return o evento iniciado, ou null (nada a fazer em {@link #end})
+     */
+    public static CheckEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        CheckEvent event = new CheckEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Termina e grava {@code event} (se passou do limiar). Aceita null.
+     */
+    public static void end(CheckEvent event, String domain, String decidedBy, String verdict, String source) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.domain = domain;
+            event.decidedBy = decidedBy;
+            event.verdict = verdict;
+            event.source = source;
+            event.commit();
+        }
+    }
+}
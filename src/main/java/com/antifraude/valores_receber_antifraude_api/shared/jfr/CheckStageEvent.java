@@ -0,0 +1,78 @@
+package com.antifraude.valores_receber_antifraude_api.shared.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento JFR de uma etapa do pipeline de verificação (listas, cache,
+ * regras, ThreatIntel, IA, gravação...), com início e fim reais: na linha
+ * do tempo do JMC fica ao lado das pausas de GC e das esperas de lock da
+ * mesma thread.
+ *
+ * Desligado por padrão; o perfil {@code jfr/antifraude.jfc} liga. Com ele
+ * desligado (ou sem gravação), {@link #start()} devolve null e nada é
+ * alocado nem medido.
+ */
+@Name("antifraude.CheckStage")
+@Label("Check Stage")
+@Category({ "Antifraude", "Check" })
+@Description("Uma etapa do pipeline de verificação de URL")
+@Enabled(false)
+@Threshold("0 ms")
+@StackTrace(false)
+public final class CheckStageEvent extends Event {
+
+    // mesmas tags de CheckStage, para quem roda fora do CheckService
+    public static final String THREAT_INTEL = "threat_intel";
+    public static final String AI = "ai";
+
+    private static final EventType TYPE = EventType.getEventType(CheckStageEvent.class);
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Domain")
+    String domain;
+
+    @Label("Decided")
+    @Description("Se esta etapa deu o veredito")
+    boolean decided;
+
+    /**
+     * Começa um evento, se o tipo estiver ligado na gravação em curso.
+     * Desligado, não aloca: a consulta é ao tipo, antes do {@code new}.
+     *
+     * @return o evento iniciado, ou null (nada a fazer em {@link #end})
+     */
+    public static CheckStageEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        CheckStageEvent event = new CheckStageEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Termina e grava {@code event} (se passou do limiar). Aceita null.
+     */
+    public static void end(CheckStageEvent event, String stage, String domain, boolean decided) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.domain = domain;
+            event.decided = decided;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Fila limitada de escritas pendentes, uma por chave: o que chega para uma
+ * chave que já está na fila é combinado com o pendente (normalmente o mais
+ * novo vence) em vez de ocupar outra posição. Quem drena recebe no máximo
+ * uma escrita por chave, o que um {@code INSERT ... ON CONFLICT DO UPDATE}
+ * em lote exige.
+ *
+ * O limite conta chaves distintas. Com a fila cheia, uma chave nova espera
+ * até o prazo dado por espaço; se não abrir, {@link #offer} devolve false e
+ * quem chamou decide o que fazer (tipicamente gravar na hora). Sob
+ * concorrência o limite pode ser ultrapassado por algumas chaves.
+ *
+ * Cada chave guarda quando entrou na fila (a primeira vez, não a última
+ * combinação), de onde sai o atraso da escrita mais antiga.
+ */
+public final class CoalescingQueue<V> {
+
+    /**
+     * Escrita retirada da fila.
+     */
+    public static final class Pending<V> {
+        public final String key;
+        public final V value;
+        public final long enqueuedAt;
+
+        Pending(String key, V value, long enqueuedAt) {
+            this.key = key;
+            this.value = value;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private static final class Slot<V> {
+        final V value;
+        final long enqueuedAt;
+
+        Slot(V value, long enqueuedAt) {
+            this.value = value;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Slot<V>> slots = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final int capacity;
+    private final BinaryOperator<V> merge;
+    private final LongSupplier ticker;
+
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param capacity máximo de chaves pendentes
+     * @param merge    combina o pendente (primeiro argumento) com o que chegou
+     */
+    public CoalescingQueue(int capacity, BinaryOperator<V> merge) {
+        this(capacity, merge, System::nanoTime);
+    }
+
+    CoalescingQueue(int capacity, BinaryOperator<V> merge, LongSupplier ticker) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacidade da fila deve ser positiva: " + capacity);
+        }
+        this.capacity = capacity;
+        this.merge = merge;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Enfileira a escrita, combinando com a pendente da mesma chave. Com a
+     * fila cheia, espera até {@code maxWaitNanos} por espaço.
+     *
+     * @return false se a fila continuou cheia (a escrita não entrou)
+     */
+    public boolean offer(String key, V value, long maxWaitNanos) {
+        if (!slots.containsKey(key) && slots.size() >= capacity && !awaitNotFull(maxWaitNanos)) {
+            rejected.increment();
+            return false;
+        }
+        offered.increment();
+        slots.merge(key, new Slot<>(value, ticker.getAsLong()), (old, fresh) -> {
+            coalesced.increment();
+            return new Slot<>(merge.apply(old.value, fresh.value), old.enqueuedAt);
+        });
+        return true;
+    }
+
+    private boolean awaitNotFull(long nanos) {
+        lock.lock();
+        try {
+            while (slots.size() >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retira até {@code max} escritas (sem ordem definida) e acorda quem
+     * esperava espaço.
+     */
+    public List<Pending<V>> drain(int max) {
+        List<Pending<V>> batch = new ArrayList<>(Math.min(max, slots.size()));
+        for (String key : slots.keySet()) {
+            Slot<V> slot = slots.remove(key);
+            if (slot != null) {
+                batch.add(new Pending<>(key, slot.value, slot.enqueuedAt));
+                if (batch.size() == max) {
+                    break;
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            signalNotFull();
+        }
+        return batch;
+    }
+
+    /**
+     * Devolve à fila escritas drenadas que não puderam ser gravadas, sem
+     * olhar o limite. O que chegou para a mesma chave nesse meio tempo é
+     * mais novo e é combinado por cima; a chave mantém a entrada mais antiga.
+     */
+    public void restore(List<Pending<V>> batch) {
+        for (Pending<V> p : batch) {
+            slots.merge(p.key, new Slot<>(p.value, p.enqueuedAt), (newer, old) ->
+                    new Slot<>(merge.apply(old.value, newer.value), Math.min(old.enqueuedAt, newer.enqueuedAt)));
+        }
+    }
+
+    private void signalNotFull() {
+        lock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Algum valor pendente que satisfaz {@code test}, ou null. Percorre a
+     * fila.
+     */
+    public V find(Predicate<? super V> test) {
+        for (Slot<V> slot : slots.values()) {
+            if (test.test(slot.value)) {
+                return slot.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Chaves pendentes.
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    public boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    /**
+     * Há quanto tempo a escrita pendente mais antiga espera; 0 com a fila
+     * vazia. Percorre a fila.
+     */
+    public long oldestAgeNanos() {
+        long now = ticker.getAsLong();
+        long oldest = 0;
+        for (Slot<V> slot : slots.values()) {
+            oldest = Math.max(oldest, now - slot.enqueuedAt);
+        }
+        return oldest;
+    }
+
+    public long offeredCount() {
+        return offered.sum();
+    }
+
+    /**
+     * Escritas combinadas com uma pendente da mesma chave (não geraram
+     * escrita própria no banco).
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Escritas recusadas por fila cheia.
+     */
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -1,9 +1,16 @@
 package com.antifraude.valores_receber_antifraude_api.shared.util;
 
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
+/**
+ * Helpers de domínio sem regex. Quem já tem as {@link UrlFeatures} da
+ * requisição deve usar as sobrecargas que as recebem (labels já separados).
+ */
 public class DomainUtils {
 
     // TLDs comuns em golpes (lista simples, editável)
@@ -17,43 +24,57 @@ public class DomainUtils {
     public static String baseDomain(String host) {
         if (host == null || host.isBlank())
             return "";
-        String[] parts = host.toLowerCase().split("\\.");
-        if (parts.length <= 2)
-            return host.toLowerCase();
+        String h = host.toLowerCase(Locale.ROOT);
         // aproximação simples: pega os dois últimos labels (não cobre todos PSLs)
-        String last = parts[parts.length - 1];
-        String penult = parts[parts.length - 2];
-        return penult + "." + last;
+        int last = h.lastIndexOf('.');
+        int penult = last <= 0 ? -1 : h.lastIndexOf('.', last - 1);
+        return penult < 0 ? h : h.substring(penult + 1);
+    }
+
+    public static String baseDomain(UrlFeatures features) {
+        return features.baseDomain;
     }
 
     public static boolean isGovBr(String host) {
-        return host != null && host.toLowerCase().endsWith(".gov.br");
+        return host != null && host.toLowerCase(Locale.ROOT).endsWith(".gov.br");
     }
 
     public static boolean isUrlShortener(String host) {
         if (host == null)
             return false;
-        return URL_SHORTENERS.contains(host.toLowerCase());
+        return URL_SHORTENERS.contains(host.toLowerCase(Locale.ROOT));
     }
 
     public static boolean hasSuspiciousTld(String host) {
         if (host == null)
             return false;
-        String[] parts = host.toLowerCase().split("\\.");
-        String tld = parts[parts.length - 1];
-        return SUSPICIOUS_TLDS.contains(tld);
+        String h = host.toLowerCase(Locale.ROOT);
+        return SUSPICIOUS_TLDS.contains(h.substring(h.lastIndexOf('.') + 1));
+    }
+
+    public static boolean hasSuspiciousTld(UrlFeatures features) {
+        return SUSPICIOUS_TLDS.contains(features.tld);
     }
 
     public static int countLabels(String host) {
         if (host == null || host.isBlank())
             return 0;
-        return host.split("\\.").length;
+        int labels = 1;
+        for (int i = 0; i < host.length(); i++) {
+            if (host.charAt(i) == '.')
+                labels++;
+        }
+        return labels;
+    }
+
+    public static int countLabels(UrlFeatures features) {
+        return features.labelCount();
     }
 
     public static boolean brandInSubdomainButNotOfficialGov(String host) {
         if (host == null)
             return false;
-        String h = host.toLowerCase();
+        String h = host.toLowerCase(Locale.ROOT);
         // “gov” ou “govbr” como subdomínio, mas domínio base não é gov.br
         boolean mentionsGov = h.contains("gov");
         return mentionsGov && !isGovBr(host);
@@ -0,0 +1,22 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+/**
+ * Impressão digital de 64 bits gravada no banco (colunas {@code url_hash} e
+ * {@code value_hash}) para buscar por um índice de largura fixa em vez de
+ * um b-tree sobre VARCHAR(2048).
+ *
+ * O valor é persistido: algoritmo e semente NUNCA podem mudar sem
+ * recalcular todas as linhas. Colisões são possíveis, então toda busca
+ * compara também o texto completo.
+ */
+public final class Fingerprint {
+
+    private static final long SEED = 0x6a09e667f3bcc908L;
+
+    private Fingerprint() {
+    }
+
+    public static long of(CharSequence canonical) {
+        return Hashing.hash64(canonical, SEED);
+    }
+}
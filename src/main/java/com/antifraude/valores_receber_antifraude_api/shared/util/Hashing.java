@@ -0,0 +1,69 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+/**
+ * Hash de 64 bits rápido e estável para strings (FNV-1a + finalizador do
+ * MurmurHash3). Não aloca: trabalha direto sobre um intervalo da
+ * sequência, já convertendo letras ASCII para minúsculas.
+ */
+public final class Hashing {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    /**
+     * Hash do texto exatamente como está (sensível a maiúsculas).
+     */
+    public static long hash64(CharSequence s, long seed) {
+        long h = FNV_OFFSET ^ seed;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return mix64(h);
+    }
+
+    public static long hash64Lower(CharSequence s, long seed) {
+        return hash64Lower(s, 0, s.length(), seed);
+    }
+
+    /**
+     * Hash do intervalo [from, to) de {@code s}, com 'A'-'Z' tratados como
+     * 'a'-'z'. Caracteres não ASCII entram como estão.
+     */
+    public static long hash64Lower(CharSequence s, int from, int to, long seed) {
+        long h = FNV_OFFSET ^ seed;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            h ^= c;
+            h *= FNV_PRIME;
+        }
+        return mix64(h);
+    }
+
+    /**
+     * Finalizador fmix64 do MurmurHash3 (espalha bem os bits).
+     */
+    public static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static boolean isAscii(CharSequence s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
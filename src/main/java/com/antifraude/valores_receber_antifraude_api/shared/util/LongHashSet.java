@@ -0,0 +1,69 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+/**
+ * Conjunto de longs com endereçamento aberto (sem boxing). Usado para
+ * deduplicar milhões de chaves por hash com poucos bytes por elemento.
+ * Não é thread-safe.
+ */
+public final class LongHashSet {
+
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet(int expected) {
+        int cap = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+        this.table = new long[cap];
+    }
+
+    /**
+     * @return true se o valor não estava no conjunto
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 2 > table.length) {
+            grow();
+        }
+        if (!insert(table, value)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean insert(long[] t, long value) {
+        int mask = t.length - 1;
+        int i = (int) Hashing.mix64(value) & mask;
+        while (t[i] != EMPTY) {
+            if (t[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        t[i] = value;
+        return true;
+    }
+
+    private void grow() {
+        long[] bigger = new long[table.length * 2];
+        for (long v : table) {
+            if (v != EMPTY) {
+                insert(bigger, v);
+            }
+        }
+        table = bigger;
+    }
+}
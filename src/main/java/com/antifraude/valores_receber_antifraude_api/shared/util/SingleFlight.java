@@ -0,0 +1,112 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Junta chamadas concorrentes com a mesma chave: a primeira executa o
+ * trabalho e as que chegam enquanto ele roda esperam e recebem o mesmo
+ * resultado (ou a mesma exceção). Quem chega depois do fim executa de novo;
+ * não é cache.
+ *
+ * As chamadas em andamento ficam em mapas separados por faixa do hash da
+ * chave, cada um com o próprio lock, segurado só para consultar e
+ * atualizar o mapa: chaves diferentes quase nunca disputam o mesmo lock e
+ * ninguém espera o trabalho dos outros segurando lock.
+ */
+public final class SingleFlight<V> {
+
+    private static final long SEED = 0x53696e676c65466cL;
+
+    private final Map<String, CompletableFuture<V>>[] stripes;
+    private final int mask;
+    private final UnaryOperator<V> share;
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * @param stripes quantidade de faixas (arredondada para potência de 2)
+     * @param share   o que cada chamada que esperou recebe a partir do
+     *                resultado (uma cópia, se o valor for mutável)
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public SingleFlight(int stripes, UnaryOperator<V> share) {
+        int n = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Map[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new HashMap<>();
+        }
+        this.mask = n - 1;
+        this.share = share;
+    }
+
+    public V execute(String key, Supplier<V> work) {
+        Map<String, CompletableFuture<V>> calls = stripes[(int) Hashing.hash64(key, SEED) & mask];
+        CompletableFuture<V> call;
+        boolean leader = false;
+        synchronized (calls) {
+            call = calls.get(key);
+            if (call == null) {
+                call = new CompletableFuture<>();
+                calls.put(key, call);
+                leader = true;
+            }
+        }
+
+        if (!leader) {
+            shared.increment();
+            try {
+                return share.apply(call.join());
+            } catch (CompletionException e) {
+                throw rethrow(e.getCause());
+            }
+        }
+
+        try {
+            V value = work.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (calls) {
+                calls.remove(key);
+            }
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException re) {
+            throw re;
+        }
+        if (cause instanceof Error err) {
+            throw err;
+        }
+        return new CompletionException(cause);
+    }
+
+    /**
+     * Chamadas que receberam o resultado de outra em vez de executar.
+     */
+    public long sharedCount() {
+        return shared.sum();
+    }
+
+    /**
+     * Chaves com trabalho em andamento agora.
+     */
+    public int inFlight() {
+        int n = 0;
+        for (Map<String, CompletableFuture<V>> calls : stripes) {
+            synchronized (calls) {
+                n += calls.size();
+            }
+        }
+        return n;
+    }
+}
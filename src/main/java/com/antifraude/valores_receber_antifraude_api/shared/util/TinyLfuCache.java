@@ -0,0 +1,482 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache local limitado por peso com política W-TinyLFU (a mesma ideia do
+ * Caffeine): uma janela LRU pequena (1% do peso) na frente de uma área
+ * principal SLRU (20% probatória, 80% protegida). Quem sai da janela só
+ * entra na área principal se for mais frequente que a vítima da
+ * probatória, segundo um {@link FrequencySketch}. Uma varredura de chaves
+ * vistas uma vez não expulsa as chaves quentes, como aconteceria num LRU.
+ *
+ * Cada entrada expira depois de um prazo calculado a partir do valor
+ * (vereditos diferentes, prazos diferentes). A expiração é preguiçosa: a
+ * leitura ignora e remove entradas vencidas, e {@link #cleanUp()} varre o
+ * resto.
+ *
+ * Leituras não bloqueiam: o mapa é concorrente e a atualização da ordem de
+ * acesso só acontece se o lock estiver livre (perder algumas atualizações
+ * sob contenção só deixa a política um pouco menos precisa). Escritas e
+ * remoções passam pelo lock.
+ */
+public final class TinyLfuCache<V> {
+
+    private static final long SEED = 0x54696e794c667543L;
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private static final class Node<V> {
+        final String key;
+        final long hash;
+        volatile V value;
+        int weight;
+        volatile long expiresAt;
+        int queue;
+        boolean removed;
+        Node<V> prev;
+        Node<V> next;
+
+        Node(String key, long hash) {
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+
+    // lista duplamente ligada com sentinela; cabeça = menos recente
+    private static final class AccessOrder<V> {
+        final Node<V> head = new Node<>(null, 0);
+        long weight;
+
+        AccessOrder() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        Node<V> first() {
+            return head.next != head ? head.next : null;
+        }
+
+        void addLast(Node<V> n) {
+            n.prev = head.prev;
+            n.next = head;
+            head.prev.next = n;
+            head.prev = n;
+            weight += n.weight;
+        }
+
+        void unlink(Node<V> n) {
+            n.prev.next = n.next;
+            n.next.prev = n.prev;
+            n.prev = null;
+            n.next = null;
+            weight -= n.weight;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Node<V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessOrder<V> window = new AccessOrder<>();
+    private final AccessOrder<V> probation = new AccessOrder<>();
+    private final AccessOrder<V> protectedOrder = new AccessOrder<>();
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long mainMaximum;
+    private final long protectedMaximum;
+    private final ToIntFunction<V> weigher;
+    private final ToLongFunction<V> expireAfterWriteNanos;
+    private final LongSupplier ticker;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param maximumWeight         soma máxima dos pesos das entradas
+     * @param expectedEntries       quantas entradas devem caber (dimensiona o sketch)
+     * @param weigher               peso de um valor (por exemplo, bytes estimados)
+     * @param expireAfterWriteNanos prazo de validade de um valor; {@code <= 0} não guarda
+     */
+    public TinyLfuCache(long maximumWeight, int expectedEntries, ToIntFunction<V> weigher,
+            ToLongFunction<V> expireAfterWriteNanos) {
+        this(maximumWeight, expectedEntries, weigher, expireAfterWriteNanos, System::nanoTime);
+    }
+
+    /**
+     * Como o construtor acima, com o relógio (em nanos) de quem usa o
+     * cache; testes passam um relógio manual para vencer entradas.
+     */
+    public TinyLfuCache(long maximumWeight, int expectedEntries, ToIntFunction<V> weigher,
+            ToLongFunction<V> expireAfterWriteNanos, LongSupplier ticker) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("Peso máximo do cache deve ser positivo: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.mainMaximum = maximumWeight - windowMaximum;
+        this.protectedMaximum = mainMaximum * 8 / 10;
+        this.sketch = new FrequencySketch(expectedEntries);
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Valor ainda válido para a chave, ou null. Conta acerto/falta e
+     * alimenta a política.
+     */
+    public V get(String key) {
+        Node<V> n = data.get(key);
+        if (n == null) {
+            misses.increment();
+            return null;
+        }
+        V value = n.value;
+        if (ticker.getAsLong() - n.expiresAt >= 0) {
+            misses.increment();
+            expire(n);
+            return null;
+        }
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                if (!n.removed) {
+                    sketch.increment(n.hash);
+                    onAccess(n);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Como {@link #get}, mas sem contar estatística nem mexer na política.
+     */
+    public V peek(String key) {
+        Node<V> n = data.get(key);
+        return n == null || ticker.getAsLong() - n.expiresAt >= 0 ? null : n.value;
+    }
+
+    public void put(String key, V value) {
+        int weight = weigher.applyAsInt(value);
+        long ttl = expireAfterWriteNanos.applyAsLong(value);
+        if (weight > maximumWeight || ttl <= 0) {
+            // não cabe ou não deve ser guardado: só não pode sobrar o valor antigo
+            lock.lock();
+            try {
+                Node<V> old = data.get(key);
+                if (old != null) {
+                    remove(old);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        long expiresAt = ticker.getAsLong() + ttl;
+        long hash = Hashing.hash64(key, SEED);
+        lock.lock();
+        try {
+            sketch.increment(hash);
+            Node<V> n = data.get(key);
+            if (n != null) {
+                AccessOrder<V> q = order(n.queue);
+                q.weight += weight - n.weight;
+                n.weight = weight;
+                n.value = value;
+                n.expiresAt = expiresAt;
+                onAccess(n);
+            } else {
+                n = new Node<>(key, hash);
+                n.weight = weight;
+                n.value = value;
+                n.expiresAt = expiresAt;
+                n.queue = WINDOW;
+                window.addLast(n);
+                data.put(key, n);
+            }
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            Node<V> n = data.get(key);
+            if (n != null) {
+                remove(n);
+                invalidations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove as entradas que satisfazem o predicado. Percorre o cache
+     * inteiro: para mudanças raras (listas por domínio), não para o
+     * caminho de cada requisição.
+     *
+     * @return quantas entradas saíram
+     */
+    public int invalidateIf(BiPredicate<String, V> predicate) {
+        List<Node<V>> matched = new ArrayList<>();
+        for (Node<V> n : data.values()) {
+            if (predicate.test(n.key, n.value)) {
+                matched.add(n);
+            }
+        }
+        if (matched.isEmpty()) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            int removed = 0;
+            for (Node<V> n : matched) {
+                if (!n.removed) {
+                    remove(n);
+                    removed++;
+                }
+            }
+            invalidations.add(removed);
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            for (Node<V> n : data.values()) {
+                remove(n);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove as entradas vencidas que ninguém leu desde que venceram.
+     */
+    public void cleanUp() {
+        long now = ticker.getAsLong();
+        for (Node<V> n : data.values()) {
+            if (now - n.expiresAt >= 0) {
+                expire(n);
+            }
+        }
+    }
+
+    // ---------- Política ----------
+
+    private void onAccess(Node<V> n) {
+        switch (n.queue) {
+            case WINDOW -> {
+                window.unlink(n);
+                window.addLast(n);
+            }
+            case PROBATION -> {
+                probation.unlink(n);
+                n.queue = PROTECTED;
+                protectedOrder.addLast(n);
+                // a protegida cheia devolve as menos recentes à probatória
+                while (protectedOrder.weight > protectedMaximum) {
+                    Node<V> demoted = protectedOrder.first();
+                    protectedOrder.unlink(demoted);
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+            default -> {
+                protectedOrder.unlink(n);
+                protectedOrder.addLast(n);
+            }
+        }
+    }
+
+    private void evict() {
+        while (window.weight > windowMaximum) {
+            Node<V> candidate = window.first();
+            window.unlink(candidate);
+            admit(candidate);
+        }
+        // atualizações que aumentaram o peso de entradas da área principal
+        while (weightedSize() > maximumWeight) {
+            Node<V> victim = victim();
+            evictNode(victim != null ? victim : window.first());
+        }
+    }
+
+    /**
+     * Candidato que saiu da janela: entra na probatória enquanto couber ou
+     * enquanto for mais frequente que a vítima; senão é ele que sai.
+     */
+    private void admit(Node<V> candidate) {
+        int frequency = sketch.frequency(candidate.hash);
+        while (probation.weight + protectedOrder.weight + candidate.weight > mainMaximum) {
+            Node<V> victim = victim();
+            if (victim == null || sketch.frequency(victim.hash) >= frequency) {
+                data.remove(candidate.key, candidate);
+                candidate.removed = true;
+                evictions.increment();
+                return;
+            }
+            evictNode(victim);
+        }
+        candidate.queue = PROBATION;
+        probation.addLast(candidate);
+    }
+
+    private Node<V> victim() {
+        Node<V> victim = probation.first();
+        return victim != null ? victim : protectedOrder.first();
+    }
+
+    private void evictNode(Node<V> n) {
+        remove(n);
+        evictions.increment();
+    }
+
+    private void expire(Node<V> n) {
+        lock.lock();
+        try {
+            // pode ter sido regravada depois da leitura
+            if (!n.removed && ticker.getAsLong() - n.expiresAt >= 0) {
+                remove(n);
+                expirations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(Node<V> n) {
+        data.remove(n.key, n);
+        order(n.queue).unlink(n);
+        n.removed = true;
+    }
+
+    private AccessOrder<V> order(int queue) {
+        return queue == WINDOW ? window : queue == PROBATION ? probation : protectedOrder;
+    }
+
+    // ---------- Estatísticas ----------
+
+    public int size() {
+        return data.size();
+    }
+
+    public long weightedSize() {
+        return window.weight + probation.weight + protectedOrder.weight;
+    }
+
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Entradas expulsas por falta de espaço (não conta expiração nem
+     * invalidação).
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long expirationCount() {
+        return expirations.sum();
+    }
+
+    public long invalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Count-min sketch de contadores de 4 bits (16 por long, 4 linhas).
+     * Quando o número de incrementos chega a 10x o tamanho previsto, todos
+     * os contadores caem pela metade: a frequência envelhece e chaves que
+     * foram quentes no passado não ocupam o cache para sempre.
+     * Não é thread-safe (usado sob o lock do cache).
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int length = Integer.highestOneBit(Math.max(16, expectedEntries) - 1) << 1;
+            this.table = new long[length];
+            this.mask = length - 1;
+            this.sampleSize = 10 * Math.max(16, expectedEntries);
+        }
+
+        int frequency(long hash) {
+            int min = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long h = Hashing.mix64(hash ^ SEEDS[i]);
+                int count = (int) ((table[(int) (h >>> 32) & mask] >>> offset(h)) & 0xf);
+                min = Math.min(min, count);
+            }
+            return min;
+        }
+
+        void increment(long hash) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long h = Hashing.mix64(hash ^ SEEDS[i]);
+                int index = (int) (h >>> 32) & mask;
+                int offset = offset(h);
+                if (((table[index] >>> offset) & 0xf) < 15) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private static int offset(long h) {
+            return ((int) h & 15) << 2;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.antifraude.valores_receber_antifraude_api.aiAgent;
 
 import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
 import com.antifraude.valores_receber_antifraude_api.core.threatintel.ThreatIntelService;
 import com.antifraude.valores_receber_antifraude_api.core.threatintel.ThreatIntelService.Reputation;
 import org.junit.jupiter.api.Test;
@@ -33,7 +34,7 @@ class AiAgentServiceTest {
         tiResult.addHit("VT_MALICIOUS");
         tiResult.addEvidence("Stub MALICIOUS");
 
-        when(threatIntelService.check(anyString(), anyString()))
+        when(threatIntelService.check(any(UrlFeatures.class)))
                 .thenReturn(tiResult);
 
         // Act
@@ -53,7 +54,7 @@ class AiAgentServiceTest {
         tiResult.setReputation(Reputation.CLEAN);
         tiResult.addHit("THREAT_INTEL_LOCAL_CLEAN");
 
-        when(threatIntelService.check(anyString(), anyString()))
+        when(threatIntelService.check(any(UrlFeatures.class)))
                 .thenReturn(tiResult);
 
         // Act
@@ -73,7 +74,7 @@ class AiAgentServiceTest {
         tiResult.setReputation(Reputation.UNKNOWN);
         tiResult.addHit("THREAT_INTEL_UNKNOWN");
 
-        when(threatIntelService.check(anyString(), anyString()))
+        when(threatIntelService.check(any(UrlFeatures.class)))
                 .thenReturn(tiResult);
 
         // IA dizendo phishing com risco alto
@@ -0,0 +1,65 @@
+package com.antifraude.valores_receber_antifraude_api.core.repository;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.UrlRecord;
+import com.antifraude.valores_receber_antifraude_api.shared.util.Fingerprint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Busca de url_record pela impressão digital: o texto completo só desempata
+ * colisão.
+ */
+@SpringBootTest
+@Transactional
+class UrlRecordRepositoryTest {
+
+    private static final String URL = "https://golpe-hash.site/pix";
+    private static final String OTHER = "https://golpe-hash.site/resgate";
+
+    @Autowired
+    private UrlRecordRepository urlRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void achaPeloHashNaBuscaAvulsaENoLote() {
+        UrlRecord saved = urlRecordRepository.saveAndFlush(record(URL));
+        assertEquals(Fingerprint.of(URL), saved.getUrlHash());
+
+        assertEquals(saved.getId(), urlRecordRepository.findByNormalizedUrl(URL).orElseThrow().getId());
+        List<UrlRecord> batch = urlRecordRepository.findAllByNormalizedUrl(List.of(URL, OTHER));
+        assertEquals(1, batch.size());
+        assertEquals(URL, batch.get(0).getNormalizedUrl());
+    }
+
+    @Test
+    void colisaoDeHashNaoDevolveNemApagaAOutraUrl() {
+        // linha de outra URL que "colide" com o hash de URL
+        jdbcTemplate.update("INSERT INTO url_record (id, normalized_url, url_hash, domain) VALUES (?, ?, ?, ?)",
+                UUID.randomUUID(), OTHER, Fingerprint.of(URL), "golpe-hash.site");
+
+        assertTrue(urlRecordRepository.findByNormalizedUrl(URL).isEmpty());
+        assertTrue(urlRecordRepository.findAllByNormalizedUrl(List.of(URL)).isEmpty());
+
+        // o hash não é chave: a URL que colide também é gravada e achada
+        UrlRecord saved = urlRecordRepository.saveAndFlush(record(URL));
+        assertEquals(saved.getId(), urlRecordRepository.findByNormalizedUrl(URL).orElseThrow().getId());
+        assertEquals(2, urlRecordRepository.findByUrlHashIn(List.of(Fingerprint.of(URL))).size());
+    }
+
+    private static UrlRecord record(String url) {
+        UrlRecord r = new UrlRecord();
+        r.setNormalizedUrl(url);
+        r.setDomain("golpe-hash.site");
+        return r;
+    }
+}
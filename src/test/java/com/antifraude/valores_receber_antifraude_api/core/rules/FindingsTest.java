@@ -0,0 +1,78 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Signal;
+import com.antifraude.valores_receber_antifraude_api.core.threatintel.ThreatIntelService.Reputation;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FindingsTest {
+
+    @Test
+    void deveMontarCodigosEEvidenciasNaOrdemDoPipeline() {
+        // adicionados fora de ordem: a saída segue a ordem de Signal
+        Findings f = new Findings()
+                .add(Signal.IA_INCONCLUSIVE)
+                .add(Signal.IA_EXPLANATION, "texto da IA")
+                .add(Signal.THREAT_INTEL_UNKNOWN)
+                .add(Signal.TI_REPUTATION, Reputation.UNKNOWN);
+
+        assertEquals(List.of("THREAT_INTEL_UNKNOWN", "IA_INCONCLUSIVE"), f.codes());
+        assertEquals(List.of(
+                "Nem VirusTotal (stub) nem heurísticas locais deram um sinal forte.",
+                "Threat Intel reputação: UNKNOWN",
+                "IA: texto da IA",
+                "IA não teve confiança suficiente para classificação final."), f.evidence());
+    }
+
+    @Test
+    void regrasVemAntesDosSinaisEAvulsosNoFim() throws IOException {
+        RuleSet rules = RuleSetTest.defaultRules();
+        long fired = rules.match(UrlFeatures.of("http://secure-pix.online/", "secure-pix.online"));
+        Findings f = Findings.rules(rules, fired).add(Signal.CACHE_HIT);
+        f.addHit("OUTRO");
+        f.addHit("IA_CLEAN"); // nome de sinal vira o sinal
+
+        assertEquals(List.of("HTTP_NO_TLS", "SUSPICIOUS_KEYWORD", "CACHE_HIT", "IA_CLEAN", "OUTRO"), f.codes());
+        assertTrue(f.has(Signal.IA_CLEAN));
+        assertEquals(rules.evidence(fired), f.evidence().subList(0, 2));
+    }
+
+    @Test
+    void visoesAcompanhamAlteracoes() {
+        Findings f = Findings.of(Signal.BLACKLIST_HIT, "golpe.com");
+        List<String> codes = f.codesView();
+        List<String> evidence = f.evidenceView();
+        assertEquals(List.of("BLACKLIST_HIT"), codes);
+        assertEquals(List.of("Blacklist: golpe.com"), evidence);
+
+        f.addEvidence("extra");
+        assertEquals(List.of("Blacklist: golpe.com", "extra"), evidence);
+
+        // a cópia é independente
+        Findings copy = f.copy().add(Signal.IA_ERROR);
+        assertFalse(f.has(Signal.IA_ERROR));
+        assertEquals(List.of("BLACKLIST_HIT", "IA_ERROR"), copy.codes());
+    }
+
+    @Test
+    void mergeJuntaRegrasSinaisEAvulsos() throws IOException {
+        RuleSet rules = RuleSetTest.defaultRules();
+        long fired = rules.match(UrlFeatures.of("http://secure-pix.online/", "secure-pix.online"));
+        Findings ti = new Findings()
+                .add(Signal.THREAT_INTEL_UNKNOWN)
+                .add(Signal.TI_REPUTATION, Reputation.UNKNOWN)
+                .addEvidence("extra");
+
+        Findings merged = Findings.rules(rules, fired).merge(ti);
+
+        assertEquals(List.of("HTTP_NO_TLS", "SUSPICIOUS_KEYWORD", "THREAT_INTEL_UNKNOWN"), merged.codes());
+        assertEquals("Threat Intel reputação: UNKNOWN", merged.evidence().get(3));
+        assertEquals("extra", merged.evidence().get(merged.evidence().size() - 1));
+        // a origem não muda
+        assertEquals(List.of("THREAT_INTEL_UNKNOWN"), ti.codes());
+    }
+}
@@ -0,0 +1,56 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+
+    private final KeywordMatcher matcher = KeywordMatcher.builder()
+            .add("A", "he", "she", "hers")
+            .add("B", "his", "secure-auth")
+            .add("C", "auth")
+            .build();
+
+    @Test
+    void deveAcharPalavrasSobrepostas() {
+        long hits = matcher.scan("ushers");
+        assertNotEquals(0, hits & matcher.mask("A"));
+        assertEquals(0, hits & matcher.mask("B"));
+
+        Map<String, List<String>> matches = matcher.matches("banking-secure-auth.com");
+        assertEquals(List.of("secure-auth"), matches.get("B"));
+        assertEquals(List.of("auth"), matches.get("C"));
+    }
+
+    @Test
+    void formaCompactaDeveIgnorarSeparadoresEntreAsPartes() {
+        long hits = Keywords.COMPACT.scanAlnum("http://valores-a-", "receber.site");
+        assertNotEquals(0, hits & Keywords.VALORES_A_RECEBER);
+        assertEquals(0, Keywords.COMPACT.scanAlnum("http://valores.com", "x.receber") & Keywords.FGTS);
+    }
+
+    @Test
+    void deveEquivalerAStringContains() {
+        String[] words = { "ab", "bab", "abc", "ca", "aaa" };
+        KeywordMatcher m = KeywordMatcher.builder().add("X", words).build();
+        Random random = new Random(7);
+        for (int n = 0; n < 2_000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(12);
+            for (int i = 0; i < len; i++) {
+                sb.append("abcé".charAt(random.nextInt(4)));
+            }
+            String text = sb.toString();
+            boolean expected = false;
+            for (String w : words) {
+                expected |= text.contains(w);
+            }
+            assertEquals(expected, m.scan(text) != 0, text);
+        }
+    }
+}
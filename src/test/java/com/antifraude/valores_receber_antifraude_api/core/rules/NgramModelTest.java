@@ -0,0 +1,147 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NgramModelTest {
+
+    // limiar da regra RANDOM_DOMAIN em rules/default-rules.json
+    private static final double THRESHOLD = 5.25;
+
+    static List<String> corpus() throws IOException {
+        return read("rules/host-ngrams-corpus.txt");
+    }
+
+    /**
+     * Domínios legítimos que não entram no treino.
+     */
+    static List<String> holdout() throws IOException {
+        return read("rules/host-ngrams-holdout.txt");
+    }
+
+    private static List<String> read(String resource) throws IOException {
+        try (InputStream in = NgramModelTest.class.getClassLoader().getResourceAsStream(resource)) {
+            List<String> domains = new ArrayList<>();
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    domains.add(line.trim());
+                }
+            }
+            return domains;
+        }
+    }
+
+    @Test
+    void modeloEmbarcadoSaiDoCorpus() throws IOException {
+        try (InputStream in = NgramModelTest.class.getClassLoader().getResourceAsStream(NgramModel.DEFAULT_MODEL)) {
+            assertArrayEquals(NgramModel.train(corpus()), in.readAllBytes(),
+                    "modelo desatualizado: regere com -Dngram.write=src/main/resources/" + NgramModel.DEFAULT_MODEL);
+        }
+    }
+
+    @Test
+    void separaDominiosLegitimosDeAleatorios() {
+        NgramModel model = NgramModel.defaultModel();
+        // fora do corpus de treino
+        for (String host : new String[] { "consultaservicos.com.br", "clinicasorriso.com.br",
+                "imobiliariacentral.com.br", "supermercadobompreco.com.br", "portaldoservidor.sp.gov.br",
+                "contabilidadesilva.com.br", "drogarianovaesperanca.com.br", "caixa-premios.com" }) {
+            assertTrue(model.score(host) < THRESHOLD, host);
+        }
+
+        Random rnd = new Random(15);
+        String alphabet = "abcdefghijklmnopqrstuvwxyz0123456789";
+        int above = 0;
+        for (int i = 0; i < 1000; i++) {
+            char[] label = new char[10 + rnd.nextInt(8)];
+            for (int j = 0; j < label.length; j++) {
+                label[j] = alphabet.charAt(rnd.nextInt(i % 2 == 0 ? 26 : 36));
+            }
+            if (model.score(new String(label) + ".com.br") > THRESHOLD) {
+                above++;
+            }
+        }
+        assertTrue(above >= 950, "aleatórios acima do limiar: " + above);
+    }
+
+    @Test
+    void poucosFalsosPositivosForaDoTreino() throws IOException {
+        NgramModel model = NgramModel.defaultModel();
+        List<String> corpus = corpus();
+        List<String> legit = holdout();
+        int above = 0;
+        for (String host : legit) {
+            assertFalse(corpus.contains(host), "no corpus de treino: " + host);
+            if (model.score(host) > THRESHOLD) {
+                above++;
+            }
+        }
+        // até 2% (hoje 3 de 272: oakley, xiaomi, osklen)
+        assertTrue(above * 50 <= legit.size(), "legítimos acima do limiar: " + above + " de " + legit.size());
+    }
+
+    @Test
+    void soPontuaOsLabelsProprios() {
+        NgramModel model = NgramModel.defaultModel();
+        // TLD, "www", segundo nível genérico e IDN ficam de fora
+        assertEquals(model.score("xkqjzvbw.com.br"), model.score("www.xkqjzvbw.com.br"));
+        assertEquals(model.score("xkqjzvbw.com.br"), model.score("xkqjzvbw.xyz"));
+        assertEquals(0.0, model.score("ab.com.br"));
+        assertEquals(0.0, model.score("xn--cixa-53d.gov.br"));
+        assertEquals(0.0, model.score("localhost"));
+        assertEquals(0.0, model.score(""));
+    }
+
+    /**
+     * Regera o modelo a partir do corpus. Opcional:
+     * {@code mvn test -Dtest=NgramModelTest -Dngram.write=src/main/resources/rules/host-ngrams.bin}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "ngram.write", matches = ".+")
+    void regerarModelo() throws IOException {
+        Path out = Path.of(System.getProperty("ngram.write"));
+        Files.write(out, NgramModel.train(corpus()));
+        assertNotNull(NgramModel.open(out));
+    }
+
+    /**
+     * Custo por host. Opcional: {@code mvn test -Dtest=NgramModelTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() throws IOException {
+        NgramModel model = NgramModel.defaultModel();
+        List<String> hosts = new ArrayList<>(corpus());
+        Random rnd = new Random(3);
+        while (hosts.size() < 10_000) {
+            char[] label = new char[6 + rnd.nextInt(15)];
+            for (int j = 0; j < label.length; j++) {
+                label[j] = (char) ('a' + rnd.nextInt(26));
+            }
+            hosts.add("www." + new String(label) + ".com.br");
+        }
+        for (int round = 0; round < 5; round++) {
+            double sink = 0;
+            long start = System.nanoTime();
+            for (int rep = 0; rep < 50; rep++) {
+                for (String h : hosts) {
+                    sink += model.score(h);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            assertTrue(sink > 0);
+            System.out.printf("round %d: %.0f ns/host%n", round, (double) elapsed / (50 * hosts.size()));
+        }
+    }
+}
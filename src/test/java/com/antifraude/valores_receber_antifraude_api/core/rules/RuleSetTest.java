@@ -0,0 +1,305 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static RuleSet defaultRules() throws IOException {
+        try (InputStream in = RuleSetTest.class.getClassLoader().getResourceAsStream("rules/default-rules.json")) {
+            return RuleSet.compile(MAPPER.readValue(in, RuleSetDefinition.class));
+        }
+    }
+
+    static RuleSet compile(String json) throws IOException {
+        return RuleSet.compile(MAPPER.readValue(json, RuleSetDefinition.class));
+    }
+
+    /**
+     * Autômatos como estavam antes do arquivo de regras, com as palavras do
+     * RulesEngine em código.
+     */
+    static final KeywordMatcher LEGACY_URL = Keywords.URL.toBuilder()
+            .add("SUSPICIOUS_PATH", "@", "..", "%00")
+            .build();
+    static final KeywordMatcher LEGACY_HOST = Keywords.HOST.toBuilder()
+            .add("SUSPICIOUS_KEYWORD", "secure", "auth", "banking", "login", "account", "pix", "boleto")
+            .add("FAKE_SHORTENER", "bit-llly", "tinyurl-security", "secure-link", "short-secure")
+            .build();
+    static final Keywords.Matchers LEGACY = new Keywords.Matchers(LEGACY_URL, LEGACY_HOST, Keywords.COMPACT);
+    static final long SUSPICIOUS_PATH = LEGACY_URL.mask("SUSPICIOUS_PATH");
+    static final long SUSPICIOUS_KEYWORD = LEGACY_HOST.mask("SUSPICIOUS_KEYWORD");
+    static final long FAKE_SHORTENER = LEGACY_HOST.mask("FAKE_SHORTENER");
+
+    /**
+     * Regras como estavam escritas no RulesEngine (sobre características
+     * extraídas com {@link #LEGACY}), usadas como referência para o
+     * arquivo padrão, mais as regras novas do arquivo.
+     */
+    static int legacyEvaluate(UrlFeatures f, List<String> hits) {
+        String host = f.host;
+        int score = 0;
+        if (f.scheme.equals("http")) {
+            score += 25;
+            hits.add("HTTP_NO_TLS");
+        }
+        if (f.length > 150) {
+            score += 30;
+            hits.add("LONG_URL");
+        }
+        if ((f.urlKeywords & SUSPICIOUS_PATH) != 0) {
+            score += 30;
+            hits.add("SUSPICIOUS_PATH");
+        }
+        if ((f.hostKeywords & SUSPICIOUS_KEYWORD) != 0) {
+            score += 40;
+            hits.add("SUSPICIOUS_KEYWORD");
+        }
+        if ((f.hostKeywords & FAKE_SHORTENER) != 0) {
+            score += 40;
+            hits.add("FAKE_SHORTENER");
+        }
+        if (NgramModel.defaultModel().score(f) > 5.25) {
+            score += 20;
+            hits.add("RANDOM_DOMAIN");
+        }
+        if ((f.compactKeywords & (Keywords.VALORES_A_RECEBER | Keywords.FGTS)) != 0
+                && !host.endsWith("gov.br") && !host.endsWith("caixa.gov.br") && !host.endsWith("bb.com.br")) {
+            score += 80;
+            hits.add("VALORES_A_RECEBER_PATTERN");
+        }
+        return score;
+    }
+
+    private static final String[] SAMPLES = {
+            "https://www.caixa.gov.br/valores-a-receber",
+            "http://valores-a-receber.online/consulta",
+            "http://secure-login-banking.com/account",
+            "http://bit-llly-secure.com/x@y",
+            "https://tinyurl-security.net/../%00",
+            "http://fgts-saque.xyz/" + "a".repeat(200),
+            "https://exemplo.com.br/",
+            "texto qualquer",
+            "",
+    };
+
+    @Test
+    void arquivoPadraoDeveReproduzirAsRegrasAnteriores() throws IOException {
+        RuleSet rules = defaultRules();
+        List<String> corpus = new ArrayList<>(List.of(SAMPLES));
+        corpus.addAll(UrlNormalizerTest.randomCorpus(new Random(7), 50_000));
+        for (String raw : corpus) {
+            UrlNormalizer.Result norm = UrlNormalizer.normalize(raw);
+            List<String> legacyHits = new ArrayList<>();
+            int legacyScore = legacyEvaluate(UrlFeatures.extract(norm, LEGACY), legacyHits);
+
+            // características extraídas com os autômatos das regras e, no
+            // caminho de recarga, com os de Keywords
+            for (UrlFeatures f : List.of(UrlFeatures.extract(norm, rules.keywords()), UrlFeatures.of(norm))) {
+                long fired = rules.match(f);
+                int score = rules.score(fired);
+                assertEquals(Math.min(legacyScore, 100), score, raw);
+                assertEquals(legacyScore >= 60 ? Verdict.SUSPECT : Verdict.UNKNOWN, rules.verdict(score), raw);
+                // todas as regras que batem, mesmo com o score no teto
+                assertEquals(legacyHits, rules.codes(fired), raw);
+            }
+        }
+    }
+
+    @Test
+    void scoreNoTetoAindaListaTodasAsRegras() throws IOException {
+        RuleSet rules = defaultRules();
+        // HTTP_NO_TLS + LONG_URL + SUSPICIOUS_PATH + SUSPICIOUS_KEYWORD +
+        // VALORES_A_RECEBER_PATTERN passam de 100 com folga
+        UrlNormalizer.Result norm = UrlNormalizer.normalize(
+                "http://login-valores-a-receber.online/x@y/" + "a".repeat(200));
+        long fired = rules.match(UrlFeatures.extract(norm, rules.keywords()));
+
+        assertEquals(100, rules.score(fired));
+        List<String> codes = rules.codes(fired);
+        assertTrue(codes.containsAll(List.of("HTTP_NO_TLS", "LONG_URL", "SUSPICIOUS_PATH",
+                "SUSPICIOUS_KEYWORD", "VALORES_A_RECEBER_PATTERN")), codes.toString());
+    }
+
+    @Test
+    void dominioAleatorioSozinhoNaoDecide() throws IOException {
+        RuleSet rules = defaultRules();
+        long random = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.code(i).equals("RANDOM_DOMAIN")) {
+                random = 1L << i;
+            }
+        }
+        assertNotEquals(0, random);
+
+        // nem com http
+        long fired = rules.match(UrlFeatures.extract(UrlNormalizer.normalize("http://xkqjzvbwtr.com.br/"),
+                rules.keywords()));
+        assertEquals(List.of("HTTP_NO_TLS", "RANDOM_DOMAIN"), rules.codes(fired));
+        assertEquals(Verdict.UNKNOWN, rules.verdict(rules.score(fired)));
+
+        // domínios legítimos fora do treino: a regra nunca muda o veredito
+        for (String host : NgramModelTest.holdout()) {
+            for (String scheme : List.of("http://", "https://")) {
+                fired = rules.match(UrlFeatures.extract(UrlNormalizer.normalize(scheme + host + "/"),
+                        rules.keywords()));
+                assertEquals(rules.verdict(rules.score(fired & ~random)), rules.verdict(rules.score(fired)),
+                        scheme + host);
+            }
+        }
+    }
+
+    @Test
+    void palavrasDasRegrasNaoMudamAsMascarasDeKeywords() throws IOException {
+        RuleSet rules = defaultRules();
+        UrlFeatures f = UrlFeatures.extract(UrlNormalizer.normalize("http://caixa-fgts.site/valores-a-receber"),
+                rules.keywords());
+        UrlFeatures base = UrlFeatures.of(UrlNormalizer.normalize("http://caixa-fgts.site/valores-a-receber"));
+        assertTrue((f.hostKeywords & Keywords.ORG_CONTEXT) != 0);
+        assertTrue((f.urlKeywords & Keywords.VT_SCAM_PATTERN) != 0);
+        assertEquals(base.compactWithHostKeywords, f.compactWithHostKeywords & base.compactWithHostKeywords);
+    }
+
+    @Test
+    void deveRespeitarNegacaoENumeros() throws IOException {
+        RuleSet rules = compile("""
+                { "suspectThreshold": 10, "rules": [
+                  { "code": "CURTO_FORA_DO_BR", "score": 10, "evidence": "e",
+                    "when": [ { "field": "length", "op": "lessThan", "value": 30 },
+                              { "field": "tld", "op": "equals", "values": ["BR"], "negate": true } ] },
+                  { "code": "HOST_COM_HIFEN", "score": 5,
+                    "when": [ { "field": "hyphenCount", "op": "greaterThan", "value": 0 } ] } ] }
+                """);
+
+        long fired = rules.match(UrlFeatures.of("https://a-b.com/", "a-b.com"));
+        assertEquals(List.of("CURTO_FORA_DO_BR", "HOST_COM_HIFEN"), rules.codes(fired));
+        assertEquals(List.of("e", "HOST_COM_HIFEN"), rules.evidence(fired));
+        assertEquals(Verdict.SUSPECT, rules.verdict(rules.score(fired)));
+
+        fired = rules.match(UrlFeatures.of("https://ab.com.br/", "ab.com.br"));
+        assertEquals(List.of(), rules.codes(fired));
+        assertEquals(Verdict.UNKNOWN, rules.verdict(rules.score(fired)));
+    }
+
+    @Test
+    void condicoesContainsDoMesmoCampoSaoResolvidasJuntas() throws IOException {
+        RuleSet rules = compile("""
+                { "rules": [
+                  { "code": "A", "score": 1, "when": [ { "field": "host", "op": "contains", "values": ["pix"] } ] },
+                  { "code": "B", "score": 1, "when": [ { "field": "host", "op": "contains", "values": ["pix"] },
+                                                      { "field": "host", "op": "contains", "values": ["gov"] } ] },
+                  { "code": "C", "score": 1, "when": [ { "field": "host", "op": "contains", "values": ["gov"] } ] } ] }
+                """);
+
+        UrlNormalizer.Result pix = UrlNormalizer.normalize("https://pix.com/");
+        UrlNormalizer.Result pixGov = UrlNormalizer.normalize("https://pix.gov.br/");
+        assertEquals(List.of("A"), rules.codes(rules.match(UrlFeatures.extract(pix, rules.keywords()))));
+        assertEquals(List.of("A", "B", "C"), rules.codes(rules.match(UrlFeatures.extract(pixGov, rules.keywords()))));
+        // características de antes de uma recarga: varre de novo
+        assertEquals(List.of("A"), rules.codes(rules.match(UrlFeatures.of(pix))));
+        assertEquals(List.of("A", "B", "C"), rules.codes(rules.match(UrlFeatures.of(pixGov))));
+    }
+
+    @Test
+    void definicaoInvalidaDeveSerRejeitada() {
+        String[] invalidas = {
+                "{ \"rules\": [ { \"code\": \"X\", \"score\": 1, \"when\": [] } ] }",
+                "{ \"rules\": [ { \"code\": \"X\", \"score\": 1, \"when\": [ { \"field\": \"nada\", \"op\": \"equals\", \"values\": [\"a\"] } ] } ] }",
+                "{ \"rules\": [ { \"code\": \"X\", \"score\": 1, \"when\": [ { \"field\": \"length\", \"op\": \"contains\", \"values\": [\"a\"] } ] } ] }",
+                "{ \"rules\": [ { \"code\": \"X\", \"score\": 1, \"when\": [ { \"field\": \"length\", \"op\": \"greaterThan\" } ] } ] }",
+                "{ \"rules\": [ { \"code\": \"X\", \"score\": -1, \"when\": [ { \"field\": \"url\", \"op\": \"contains\", \"values\": [\"a\"] } ] } ] }",
+                "{ \"rules\": [ { \"code\": \"X\", \"score\": 1, \"when\": [ { \"field\": \"url\", \"op\": \"contains\", \"values\": [\"a\"] } ] },"
+                        + " { \"code\": \"X\", \"score\": 1, \"when\": [ { \"field\": \"url\", \"op\": \"contains\", \"values\": [\"b\"] } ] } ] }",
+        };
+        for (String json : invalidas) {
+            assertThrows(IllegalArgumentException.class, () -> compile(json), json);
+        }
+    }
+
+    /**
+     * Comparação de vazão com as regras escritas em código: da extração das
+     * características ao resultado e só a avaliação (características já
+     * extraídas). Melhor de 20 rodadas de cada. Opcional:
+     * {@code mvn test -Dtest=RuleSetTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() throws IOException {
+        RuleSet rules = defaultRules();
+        List<UrlNormalizer.Result> corpus = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            corpus.add(UrlNormalizer.normalize("https://www.exemplo" + i + ".com.br/valores-a-receber/consulta"));
+            corpus.add(UrlNormalizer.normalize("http://secure-pix" + i + ".online/login"));
+            corpus.add(UrlNormalizer.normalize("https://www.caixa.gov.br/fgts/" + i));
+            corpus.add(UrlNormalizer.normalize("texto livre enviado pelo usuario " + i));
+        }
+        List<UrlFeatures> legacyFeatures = new ArrayList<>();
+        List<UrlFeatures> features = new ArrayList<>();
+        for (UrlNormalizer.Result norm : corpus) {
+            legacyFeatures.add(UrlFeatures.extract(norm, LEGACY));
+            features.add(UrlFeatures.extract(norm, rules.keywords()));
+        }
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int round = 0; round < 20; round++) {
+            best[0] = Math.min(best[0], time(corpus, null));
+            best[1] = Math.min(best[1], time(corpus, rules));
+            best[2] = Math.min(best[2], timeEvaluation(legacyFeatures, null));
+            best[3] = Math.min(best[3], timeEvaluation(features, rules));
+        }
+        double urls = 200.0 * corpus.size();
+        System.out.printf("extração + avaliação: código %.1f ns/URL, compilado %.1f ns/URL (%.2fx)%n",
+                best[0] / urls, best[1] / urls, (double) best[0] / best[1]);
+        System.out.printf("só avaliação: código %.1f ns/URL, compilado %.1f ns/URL (%.2fx)%n",
+                best[2] / urls, best[3] / urls, (double) best[2] / best[3]);
+    }
+
+    private static long time(List<UrlNormalizer.Result> corpus, RuleSet rules) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int rep = 0; rep < 200; rep++) {
+            for (UrlNormalizer.Result norm : corpus) {
+                if (rules == null) {
+                    List<String> hits = new ArrayList<>();
+                    sink += legacyEvaluate(UrlFeatures.extract(norm, LEGACY), hits) + hits.size();
+                } else {
+                    long fired = rules.match(UrlFeatures.extract(norm, rules.keywords()));
+                    sink += rules.score(fired) + rules.codes(fired).size();
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return elapsed;
+    }
+
+    private static long timeEvaluation(List<UrlFeatures> features, RuleSet rules) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int rep = 0; rep < 200; rep++) {
+            for (UrlFeatures f : features) {
+                if (rules == null) {
+                    List<String> hits = new ArrayList<>();
+                    sink += legacyEvaluate(f, hits) + hits.size();
+                } else {
+                    long fired = rules.match(f);
+                    sink += rules.score(fired) + rules.codes(fired).size();
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return elapsed;
+    }
+}
@@ -0,0 +1,57 @@
+package com.antifraude.valores_receber_antifraude_api.core.rules;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlFeaturesTest {
+
+    @Test
+    void deveExtrairCaracteristicasNumaPassada() {
+        UrlFeatures f = UrlFeatures.of("HTTP://Valores-A-Receber.gov-br.xyz/Consulta_2024", "valores-a-receber.gov-br.xyz");
+
+        assertEquals("http://valores-a-receber.gov-br.xyz/consulta_2024", f.url);
+        assertEquals("http", f.scheme);
+        assertEquals("httpvaloresarecebergovbrxyzconsulta2024", f.compact);
+        assertEquals(List.of("valores-a-receber", "gov-br", "xyz"), f.hostLabels);
+        assertEquals("xyz", f.tld);
+        assertEquals("gov-br.xyz", f.baseDomain);
+        assertEquals(f.url.length(), f.length);
+        assertEquals(4, f.digitCount);
+        assertEquals(3, f.hyphenCount);
+        assertEquals(1, f.underscoreCount);
+        assertEquals(2, f.dotCount);
+        assertEquals(4.0 / (4 + f.letterCount), f.digitRatio(), 1e-9);
+    }
+
+    @Test
+    void mascarasDevemBaterComVarreduraSeparada() {
+        String[][] casos = {
+                { "http://simulador-irpf.site/x@y", "simulador-irpf.site" },
+                { "https://www.caixa.gov.br/fgts", "www.caixa.gov.br" },
+                { "https://whatsap-confirmacao.com/..", "whatsap-confirmacao.com" },
+                { "texto qualquer", "" },
+        };
+        for (String[] c : casos) {
+            UrlFeatures f = UrlFeatures.of(c[0], c[1]);
+            String url = c[0].toLowerCase(Locale.ROOT);
+            assertEquals(Keywords.URL.scan(url), f.urlKeywords, c[0]);
+            assertEquals(Keywords.HOST.scan(c[1]), f.hostKeywords, c[0]);
+            assertEquals(Keywords.COMPACT.scanAlnum(url), f.compactKeywords, c[0]);
+            assertEquals(Keywords.COMPACT.scanAlnum(url, c[1]), f.compactWithHostKeywords, c[0]);
+        }
+    }
+
+    @Test
+    void entradaSemHostNaoTemLabels() {
+        UrlFeatures f = UrlFeatures.of(null, null);
+        assertEquals("", f.url);
+        assertEquals("", f.scheme);
+        assertEquals("", f.baseDomain);
+        assertEquals(0, f.labelCount());
+        assertEquals(0.0, f.digitRatio());
+    }
+}
@@ -0,0 +1,246 @@
+package com.antifraude.valores_receber_antifraude_api.core.threatintel;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Signal;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BrandIndexTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static BrandIndex.Match find(BrandIndex index, String host) {
+        return index.find(UrlFeatures.of("https://" + host + "/", host));
+    }
+
+    @Test
+    void deveEncontrarMarcaComDistancia() throws IOException {
+        BrandIndex index = BrandRegistry.loadDefault(MAPPER);
+
+        BrandIndex.Match m = find(index, "caixaa.com");
+        assertEquals("Caixa", m.brand);
+        assertEquals(1, m.distance);
+        assertEquals(Signal.THREAT_INTEL_TYPO_CAIXA, m.signal);
+        assertEquals("marca Caixa, 'caixaa' ~ 'caixa' (distância 1)", m.toString());
+
+        m = find(index, "whatsap-confirmacao.com");
+        assertEquals("WhatsApp", m.brand);
+        assertEquals("whatsap", m.token);
+
+        // transposição conta como uma edição
+        m = find(index, "seguranca.nubnak.com.br");
+        assertEquals("Nubank", m.brand);
+        assertEquals(1, m.distance);
+        assertEquals(Signal.THREAT_INTEL_TYPO_BRAND, m.signal);
+
+        m = find(index, "ofertas-mercadolivrre.shop");
+        assertEquals("Mercado Livre", m.brand);
+
+        // marca escrita certo em domínio que não é o dela
+        m = find(index, "caixa-gov-br.online");
+        assertEquals(0, m.distance);
+    }
+
+    @Test
+    void dominiosOficiaisEPalavrasIgnoradasNaoContam() throws IOException {
+        BrandIndex index = BrandRegistry.loadDefault(MAPPER);
+        for (String host : new String[] { "www.caixa.gov.br", "web.whatsapp.com", "www2.bb.com.br",
+                "receita.fazenda.gov.br", "faixa-preta.com.br", "exemplo.com.br", "simulador-irpf.site",
+                "" }) {
+            assertNull(find(index, host), host);
+        }
+    }
+
+    @Test
+    void deveEncontrarMarcaColadaNoLabel() throws IOException {
+        BrandIndex index = BrandRegistry.loadDefault(MAPPER);
+
+        BrandIndex.Match m = find(index, "minhacaixa.com");
+        assertEquals("Caixa", m.brand);
+        assertTrue(m.embedded);
+        assertEquals("minhacaixa", m.token);
+        assertEquals(0, m.distance);
+        assertEquals("marca Caixa, 'minhacaixa' contém 'caixa'", m.toString());
+
+        // fica o termo mais longo; o token é o pedaço entre hífens
+        m = find(index, "saque-caixatemagora-br.online");
+        assertEquals("caixatem", m.term);
+        assertEquals("caixatemagora", m.token);
+
+        m = find(index, "promo.nubankcartao.com");
+        assertEquals("Nubank", m.brand);
+
+        // acerto por distância em outro label vem antes
+        m = find(index, "minhacaixa.caixaa.com");
+        assertFalse(m.embedded);
+        assertEquals("caixaa", m.token);
+
+        // domínio oficial, palavra ignorada, termo curto e marca com
+        // "embedded": false
+        for (String host : new String[] { "minhacaixa.caixa.gov.br", "minhascaixas.com.br", "hobby.com.br",
+                "receitadebolo.com.br" }) {
+            assertNull(find(index, host), host);
+        }
+    }
+
+    @Test
+    void deveConcordarComBuscaExaustiva() throws IOException {
+        BrandIndex index = BrandRegistry.loadDefault(MAPPER);
+        BrandDefinition def = MAPPER.readValue(
+                BrandIndexTest.class.getClassLoader().getResourceAsStream(BrandRegistry.DEFAULT_BRANDS),
+                BrandDefinition.class);
+        Random rnd = new Random(13);
+        for (int i = 0; i < 20_000; i++) {
+            BrandDefinition.Brand b = def.getBrands().get(rnd.nextInt(def.getBrands().size()));
+            String label = mutate(b.getTerms().get(rnd.nextInt(b.getTerms().size())), rnd.nextInt(4), rnd);
+            if (rnd.nextInt(3) == 0) { // colado em outra palavra
+                label = randomWord(1 + rnd.nextInt(5), rnd) + label;
+            }
+            if (label.isEmpty()) {
+                continue;
+            }
+            String host = label + ".xyz";
+            BrandIndex.Match m = find(index, host);
+            int expected = bruteForce(def, host, label);
+            assertEquals(expected, m == null ? -1 : m.distance, host);
+        }
+    }
+
+    @Test
+    void definicaoInvalidaDeveSerRejeitada() {
+        String[] invalidas = {
+                "{ \"brands\": [ { \"name\": \"X\", \"terms\": [] } ] }",
+                "{ \"brands\": [ { \"terms\": [\"x\"] } ] }",
+                "{ \"brands\": [ { \"name\": \"X\", \"terms\": [\"x.com\"] } ] }",
+                "{ \"brands\": [ { \"name\": \"X\", \"terms\": [\"xx\"], \"maxDistance\": 3 } ] }",
+                "{ \"brands\": [ { \"name\": \"X\", \"terms\": [\"xx\"], \"code\": \"NAO_EXISTE\" } ] }",
+                "{ \"brands\": [ { \"name\": \"X\", \"terms\": [\"a\"] }, { \"name\": \"X\", \"terms\": [\"b\"] } ] }",
+        };
+        for (String json : invalidas) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> BrandIndex.compile(MAPPER.readValue(json, BrandDefinition.class)), json);
+        }
+    }
+
+    /**
+     * Consulta com milhares de marcas. Opcional:
+     * {@code mvn test -Dtest=BrandIndexTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() {
+        Random rnd = new Random(5);
+        BrandDefinition def = new BrandDefinition();
+        for (int i = 0; i < 5000; i++) {
+            BrandDefinition.Brand b = new BrandDefinition.Brand();
+            b.setName("marca" + i);
+            b.setTerms(List.of(randomWord(5 + rnd.nextInt(10), rnd)));
+            b.setOfficialDomains(List.of(b.getTerms().get(0) + ".com.br"));
+            def.getBrands().add(b);
+        }
+        BrandIndex index = BrandIndex.compile(def);
+        List<UrlFeatures> hosts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String label = i % 2 == 0
+                    ? mutate(def.getBrands().get(rnd.nextInt(5000)).getTerms().get(0), 1, rnd)
+                    : randomWord(6 + rnd.nextInt(15), rnd);
+            String host = "www." + label + "-seguro.com.br";
+            hosts.add(UrlFeatures.of("https://" + host + "/", host));
+        }
+        for (int round = 0; round < 5; round++) {
+            int found = 0;
+            long start = System.nanoTime();
+            for (UrlFeatures f : hosts) {
+                if (index.find(f) != null) {
+                    found++;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("round %d: %d termos, %.1f µs/host, %d acertos%n",
+                    round, index.termCount(), elapsed / 1000.0 / hosts.size(), found);
+        }
+    }
+
+    private static int bruteForce(BrandDefinition def, String host, String label) {
+        int best = -1;
+        for (BrandDefinition.Brand b : def.getBrands()) {
+            if (b.getIgnore().contains(label)
+                    || b.getOfficialDomains().stream().anyMatch(d -> host.equals(d) || host.endsWith("." + d))) {
+                continue;
+            }
+            for (String term : b.getTerms()) {
+                int k = b.getMaxDistance() != null ? b.getMaxDistance() : BrandIndex.defaultDistance(term);
+                int d = BrandIndex.distance(label, 0, label.length(), term, k);
+                if (d <= k && (best < 0 || d < best)) {
+                    best = d;
+                }
+            }
+        }
+        if (best >= 0) {
+            return best;
+        }
+        // termo colado: alguma ocorrência fora das palavras ignoradas
+        for (BrandDefinition.Brand b : def.getBrands()) {
+            if (Boolean.FALSE.equals(b.getEmbedded())
+                    || b.getOfficialDomains().stream().anyMatch(d -> host.equals(d) || host.endsWith("." + d))) {
+                continue;
+            }
+            for (String term : b.getTerms()) {
+                if (term.length() < BrandIndex.MIN_EMBEDDED) {
+                    continue;
+                }
+                for (int i = label.indexOf(term); i >= 0; i = label.indexOf(term, i + 1)) {
+                    int at = i;
+                    boolean covered = b.getIgnore().stream().anyMatch(w -> {
+                        for (int start = Math.max(0, at + term.length() - w.length()); start <= at; start++) {
+                            if (label.startsWith(w, start) && start + w.length() >= at + term.length()) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    });
+                    if (!covered) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String mutate(String s, int edits, Random rnd) {
+        StringBuilder sb = new StringBuilder(s);
+        for (int e = 0; e < edits && sb.length() > 0; e++) {
+            int i = rnd.nextInt(sb.length());
+            switch (rnd.nextInt(4)) {
+                case 0 -> sb.deleteCharAt(i);
+                case 1 -> sb.insert(i, (char) ('a' + rnd.nextInt(26)));
+                case 2 -> sb.setCharAt(i, (char) ('a' + rnd.nextInt(26)));
+                default -> {
+                    if (i + 1 < sb.length()) {
+                        char c = sb.charAt(i);
+                        sb.setCharAt(i, sb.charAt(i + 1));
+                        sb.setCharAt(i + 1, c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String randomWord(int length, Random rnd) {
+        char[] c = new char[length];
+        for (int i = 0; i < length; i++) {
+            c[i] = (char) ('a' + rnd.nextInt(26));
+        }
+        return new String(c);
+    }
+}
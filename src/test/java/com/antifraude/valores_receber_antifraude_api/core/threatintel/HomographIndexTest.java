@@ -0,0 +1,123 @@
+package com.antifraude.valores_receber_antifraude_api.core.threatintel;
+
+import com.antifraude.valores_receber_antifraude_api.core.rules.HostSkeleton;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlNormalizer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomographIndexTest {
+
+    private static final HomographIndex INDEX = HomographIndex.of(List.of(
+            "caixa.gov.br", "gov.br", "bb.com.br", "paypal.com", "g1.globo.com", "gl.globo.com"));
+
+    private static HomographIndex.Match find(String input) {
+        return INDEX.find(UrlFeatures.of(UrlNormalizer.normalize(input)));
+    }
+
+    @Test
+    void esqueletoJuntaLetrasParecidas() {
+        // cirílico, grego, punycode, diacríticos e dígitos
+        assertEquals("caixa.gov.br", HostSkeleton.of("xn--cixa-53d.gov.br"));
+        assertEquals("caixa.gov.br", HostSkeleton.of("cαixa.gov.br"));
+        assertEquals("caixa.gov.br", HostSkeleton.of("cáixa.gov.br"));
+        assertEquals("paypal.com", HostSkeleton.of("paypa1.com"));
+        assertEquals("google.com", HostSkeleton.of("g00gle.com"));
+        // punycode inválido segue como veio
+        assertEquals("xn--.com", HostSkeleton.of("xn--.com"));
+
+        // nada confundível: a mesma instância
+        String host = "www.caixa.gov.br";
+        assertSame(host, HostSkeleton.of(host));
+    }
+
+    @Test
+    void deveAcharHomografoDeDominioProtegido() {
+        HomographIndex.Match m = find("https://cаixa.gov.br/valores");
+        assertNotNull(m);
+        assertEquals("caixa.gov.br", m.domain);
+        assertEquals("xn--cixa-53d.gov.br", m.host);
+
+        assertEquals("caixa.gov.br", find("https://www.xn--cixa-53d.gov.br/").domain);
+        assertEquals("paypal.com", find("http://login.paypa1.com/").domain);
+        assertEquals("bb.com.br", find("https://bb.c0m.br/").domain);
+    }
+
+    @Test
+    void dominioVerdadeiroNaoEHomografo() {
+        for (String input : new String[] { "https://www.caixa.gov.br/", "https://caixa.gov.br/",
+                "https://receita.economia.gov.br/", "http://g1.globo.com/", "http://gl.globo.com/",
+                "https://paypal.com/", "https://exemplo.com.br/", "texto qualquer" }) {
+            assertNull(find(input), input);
+        }
+    }
+
+    @Test
+    void marcaEmHostIdnTambemEComparada() throws Exception {
+        BrandIndex brands = BrandRegistry.loadDefault(new ObjectMapper());
+        BrandIndex.Match m = brands.find(UrlFeatures.of(UrlNormalizer.normalize("https://cаixa-premios.com/")));
+        assertNotNull(m);
+        assertEquals("Caixa", m.brand);
+    }
+
+    /**
+     * Custo por host com alguns milhares de domínios protegidos. Opcional:
+     * {@code mvn test -Dtest=HomographIndexTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() {
+        Random rnd = new Random(14);
+        List<String> protegidos = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            protegidos.add(word(5 + rnd.nextInt(10), rnd) + ".com.br");
+        }
+        HomographIndex index = HomographIndex.of(protegidos);
+        List<UrlFeatures> hosts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String host = i % 10 == 0
+                    ? "www." + protegidos.get(rnd.nextInt(5000)).replace('o', '0')
+                    : "www." + word(6 + rnd.nextInt(15), rnd) + ".com.br";
+            hosts.add(UrlFeatures.of("https://" + host + "/", host));
+        }
+        for (int round = 0; round < 5; round++) {
+            int found = 0;
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int rep = 0; rep < 20; rep++) {
+                for (UrlFeatures f : hosts) {
+                    sink += HostSkeleton.of(f.host).length();
+                }
+            }
+            long skeleton = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int rep = 0; rep < 20; rep++) {
+                for (UrlFeatures f : hosts) {
+                    if (index.find(f) != null) {
+                        found++;
+                    }
+                }
+            }
+            long lookup = System.nanoTime() - start;
+            assertTrue(sink > 0);
+            System.out.printf("round %d: esqueleto %.0f ns/host, índice %.0f ns/host, %d acertos%n",
+                    round, (double) skeleton / (20 * hosts.size()), (double) lookup / (20 * hosts.size()),
+                    found / 20);
+        }
+    }
+
+    private static String word(int length, Random rnd) {
+        char[] c = new char[length];
+        for (int i = 0; i < length; i++) {
+            c[i] = (char) ('a' + rnd.nextInt(26));
+        }
+        return new String(c);
+    }
+}
@@ -1,5 +1,6 @@
 package com.antifraude.valores_receber_antifraude_api.core.threatintel;
 
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
 import org.junit.jupiter.api.Test;
 
 import static com.antifraude.valores_receber_antifraude_api.core.threatintel.ThreatIntelService.Reputation;
@@ -12,7 +13,7 @@ class ThreatIntelServiceImplTest {
         // Arrange: VT sempre MALICIOUS
         ThreatIntelServiceImpl.VirusTotalClient vtStub = new ThreatIntelServiceImpl.VirusTotalClient() {
             @Override
-            public VirusTotalResult checkUrl(String normalizedUrl) {
+            public VirusTotalResult checkUrl(UrlFeatures features) {
                 return new VirusTotalResult(
                         Reputation.MALICIOUS,
                         10,
@@ -38,7 +39,7 @@ class ThreatIntelServiceImplTest {
         // Arrange: VT sempre UNKNOWN
         ThreatIntelServiceImpl.VirusTotalClient vtStub = new ThreatIntelServiceImpl.VirusTotalClient() {
             @Override
-            public VirusTotalResult checkUrl(String normalizedUrl) {
+            public VirusTotalResult checkUrl(UrlFeatures features) {
                 return VirusTotalResult.unknown();
             }
         };
@@ -58,7 +59,7 @@ class ThreatIntelServiceImplTest {
         // Arrange: VT sempre UNKNOWN
         ThreatIntelServiceImpl.VirusTotalClient vtStub = new ThreatIntelServiceImpl.VirusTotalClient() {
             @Override
-            public VirusTotalResult checkUrl(String normalizedUrl) {
+            public VirusTotalResult checkUrl(UrlFeatures features) {
                 return VirusTotalResult.unknown();
             }
         };
@@ -72,4 +73,24 @@ class ThreatIntelServiceImplTest {
         assertEquals(Reputation.CLEAN, result.getReputation());
         assertTrue(result.getRuleHits().contains("THREAT_INTEL_LOCAL_CLEAN"));
     }
+
+    @Test
+    void deveMarcarMalicious_paraHomografoDeDominioConfiavel() {
+        // Arrange: VT sempre UNKNOWN
+        ThreatIntelServiceImpl.VirusTotalClient vtStub = new ThreatIntelServiceImpl.VirusTotalClient() {
+            @Override
+            public VirusTotalResult checkUrl(UrlFeatures features) {
+                return VirusTotalResult.unknown();
+            }
+        };
+
+        ThreatIntelServiceImpl service = new ThreatIntelServiceImpl(vtStub);
+
+        // Act: "cаixa.gov.br" com "а" cirílico termina em gov.br, mas não é a Caixa
+        ThreatIntelService.Result result = service.check("https://xn--cixa-53d.gov.br/", "xn--cixa-53d.gov.br");
+
+        // Assert
+        assertEquals(Reputation.MALICIOUS, result.getReputation());
+        assertTrue(result.getRuleHits().contains("THREAT_INTEL_HOMOGRAPH"));
+    }
 }
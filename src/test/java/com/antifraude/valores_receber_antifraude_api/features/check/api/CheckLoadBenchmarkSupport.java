@@ -0,0 +1,188 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.api;
+
+import com.antifraude.valores_receber_antifraude_api.aiAgent.AiAgentService;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.rules.Findings;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+import com.antifraude.valores_receber_antifraude_api.features.check.service.VerdictWriteBehind;
+import com.antifraude.valores_receber_antifraude_api.shared.util.LatencyHistogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Carga em POST /api/v1/checks com a IA simulada (só espera, como a
+ * chamada real) e concorrência crescente de clientes. Para cada nível
+ * imprime vazão e p99; a maior concorrência sustentável é a última em que
+ * o p99 ficou abaixo de {@link #SUSTAINABLE_P99_MS} sem erros.
+ *
+ * As subclasses só escolhem o modo de threads, para comparar as duas
+ * tabelas. Opcional:
+ * {@code mvn test -Dtest='CheckLoad*Test' -Dbenchmark=true}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=200",
+        "spring.datasource.hikari.maximum-pool-size=50",
+        "logging.level.org.springframework.web=WARN" })
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+abstract class CheckLoadBenchmarkSupport {
+
+    private static final long AI_DELAY_MS = 100;
+    private static final long SUSTAINABLE_P99_MS = 2 * AI_DELAY_MS;
+    private static final int[] CONCURRENCY = { 50, 100, 200, 400, 800, 1600 };
+    private static final Duration WARMUP = Duration.ofSeconds(1);
+    private static final Duration MEASURE = Duration.ofSeconds(3);
+
+    // URLs únicas em todas as rodadas: sem cache nem coalescência
+    private static final AtomicLong SEQ = new AtomicLong();
+    private static final String URL_PREFIX = "https://carga";
+    private static final String URL_SUFFIX = ".exemplo.com.br/produtos";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VerdictWriteBehind writeBehind;
+
+    @MockitoBean
+    private AiAgentService aiAgentService;
+
+    /**
+     * Nome do modo na tabela.
+     */
+    abstract String mode();
+
+    @AfterEach
+    void limpar() {
+        writeBehind.flush();
+        jdbcTemplate.update("DELETE FROM url_record WHERE normalized_url LIKE ?", URL_PREFIX + "%");
+    }
+
+    @Test
+    void concorrenciaSustentavel() throws Exception {
+        when(aiAgentService.classify(any(UrlFeatures.class), anyInt())).thenAnswer(inv -> {
+            Thread.sleep(AI_DELAY_MS);
+            return new AiAgentService.Result(Verdict.UNKNOWN, 30, "IA", new Findings());
+        });
+
+        URI uri = URI.create("http://localhost:" + port + "/api/v1/checks");
+        List<Level> levels = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+                HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clients)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build()) {
+            for (int c : CONCURRENCY) {
+                levels.add(run(http, uri, c));
+            }
+        }
+
+        int sustainable = 0;
+        System.out.printf("%n[%s] IA simulada: %dms; sustentável = p99 < %dms e sem erros%n",
+                mode(), AI_DELAY_MS, SUSTAINABLE_P99_MS);
+        System.out.printf("%-8s %12s %10s %10s %8s%n", "clientes", "req/s", "p50 ms", "p99 ms", "erros");
+        for (Level l : levels) {
+            System.out.printf("%-8d %12.0f %10.1f %10.1f %8d%n",
+                    l.concurrency, l.perSecond, l.p50Ms, l.p99Ms, l.errors);
+            if (l.errors == 0 && l.p99Ms < SUSTAINABLE_P99_MS) {
+                sustainable = l.concurrency;
+            }
+        }
+        System.out.printf("[%s] maior concorrência sustentável: %d%n", mode(), sustainable);
+
+        assertTrue(sustainable >= CONCURRENCY[0], "nem o primeiro nível foi sustentável");
+    }
+
+    private Level run(HttpClient http, URI uri, int concurrency) throws InterruptedException {
+        LatencyHistogram latencyMicros = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        long measureFrom = start + WARMUP.toNanos();
+        long end = measureFrom + MEASURE.toNanos();
+
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().start(() -> {
+                while (true) {
+                    long t0 = System.nanoTime();
+                    if (t0 >= end) {
+                        return;
+                    }
+                    boolean ok = send(http, uri);
+                    long t1 = System.nanoTime();
+                    if (t0 >= measureFrom) {
+                        if (ok) {
+                            latencyMicros.record((t1 - t0) / 1_000);
+                        } else {
+                            errors.increment();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread w : workers) {
+            w.join(TimeUnit.SECONDS.toMillis(60));
+        }
+        writeBehind.flush();
+
+        Level level = new Level();
+        level.concurrency = concurrency;
+        level.perSecond = latencyMicros.count() * 1e9 / MEASURE.toNanos();
+        level.p50Ms = latencyMicros.percentile(0.50) / 1_000.0;
+        level.p99Ms = latencyMicros.percentile(0.99) / 1_000.0;
+        level.errors = errors.sum();
+        return level;
+    }
+
+    private static boolean send(HttpClient http, URI uri) {
+        String url = URL_PREFIX + SEQ.incrementAndGet() + URL_SUFFIX;
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"rawInput\":\"" + url + "\",\"inputType\":\"URL\"}"))
+                .build();
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+
+    private static final class Level {
+        int concurrency;
+        double perSecond;
+        double p50Ms;
+        double p99Ms;
+        long errors;
+    }
+}
@@ -0,0 +1,15 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.api;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Carga no modo padrão: pool de 200 threads do Tomcat.
+ */
+@TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+class CheckLoadPlatformThreadsTest extends CheckLoadBenchmarkSupport {
+
+    @Override
+    String mode() {
+        return "plataforma";
+    }
+}
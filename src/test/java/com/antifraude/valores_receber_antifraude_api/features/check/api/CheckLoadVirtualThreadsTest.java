@@ -0,0 +1,16 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.api;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Carga com {@code spring.threads.virtual.enabled=true}: uma thread virtual
+ * por requisição.
+ */
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class CheckLoadVirtualThreadsTest extends CheckLoadBenchmarkSupport {
+
+    @Override
+    String mode() {
+        return "virtual";
+    }
+}
@@ -0,0 +1,100 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.cache;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListChange;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.lists.service.ListChangesAppliedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Validade por veredito e invalidação pelas mudanças de lista aplicadas
+ * do log.
+ */
+class VerdictCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    // SUSPECT 1 dia, LEGIT 1 hora, UNKNOWN 5 minutos
+    private final VerdictCache cache = new VerdictCache(1 << 20, 86_400_000, 3_600_000, 300_000, now::get);
+
+    @Test
+    void cadaVereditoVenceNoSeuPrazo() {
+        cache.put(verdict("https://golpe.net/pix", "golpe.net", Verdict.SUSPECT));
+        cache.put(verdict("https://www.caixa.gov.br/", "www.caixa.gov.br", Verdict.LEGIT));
+        cache.put(verdict("https://talvez.com/", "talvez.com", Verdict.UNKNOWN));
+
+        advanceMinutes(6);
+        assertNull(cache.get("https://talvez.com/"));
+        assertNotNull(cache.get("https://www.caixa.gov.br/"));
+
+        advanceMinutes(60);
+        assertNull(cache.get("https://www.caixa.gov.br/"));
+        assertNotNull(cache.get("https://golpe.net/pix"));
+
+        advanceMinutes(24 * 60);
+        assertNull(cache.get("https://golpe.net/pix"));
+    }
+
+    @Test
+    void urlDesativadaDerrubaSoOQueContradiz() {
+        cache.put(verdict("https://golpe.net/pix", "golpe.net", Verdict.SUSPECT));
+        cache.put(verdict("https://golpe.net/outra", "golpe.net", Verdict.SUSPECT));
+
+        // inserção que confirma o veredito não mexe
+        apply(change(ListKind.BLACKLIST, ListEntryType.URL, "https://golpe.net/pix", true));
+        assertNotNull(cache.peek("https://golpe.net/pix"));
+
+        apply(change(ListKind.BLACKLIST, ListEntryType.URL, "HTTPS://GOLPE.NET/pix", false));
+        assertNull(cache.peek("https://golpe.net/pix"));
+        assertNotNull(cache.peek("https://golpe.net/outra"));
+    }
+
+    @Test
+    void dominioDerrubaSubdominiosNumaVarredura() {
+        cache.put(verdict("https://a.golpe.com/", "a.golpe.com", Verdict.LEGIT));
+        cache.put(verdict("https://golpe.com/", "golpe.com", Verdict.SUSPECT));
+        cache.put(verdict("https://naogolpe.com/", "naogolpe.com", Verdict.LEGIT));
+        cache.put(verdict("https://x.exemplo.org/", "x.exemplo.org", Verdict.LEGIT));
+        cache.put(verdict("https://y.exemplo.org/", "y.exemplo.org", Verdict.SUSPECT));
+
+        apply(change(ListKind.BLACKLIST, ListEntryType.DOMAIN, "golpe.com", true),
+                change(ListKind.WHITELIST, ListEntryType.DOMAIN, "*.Exemplo.org", false));
+
+        assertNull(cache.peek("https://a.golpe.com/"), "LEGIT debaixo de domínio que entrou na blacklist");
+        assertNotNull(cache.peek("https://golpe.com/"), "SUSPECT confirmado");
+        assertNotNull(cache.peek("https://naogolpe.com/"), "só no limite de label");
+        assertNull(cache.peek("https://x.exemplo.org/"), "saiu da whitelist");
+        assertNull(cache.peek("https://y.exemplo.org/"), "desativação derruba qualquer veredito");
+        assertEquals(3, cache.cache().invalidationCount());
+    }
+
+    private void advanceMinutes(long minutes) {
+        now.addAndGet(TimeUnit.MINUTES.toNanos(minutes));
+    }
+
+    private void apply(ListChange... changes) {
+        cache.onListChangesApplied(new ListChangesAppliedEvent(List.of(changes)));
+    }
+
+    private static CachedVerdict verdict(String url, String domain, Verdict verdict) {
+        return new CachedVerdict(UUID.randomUUID(), url, domain, verdict, verdict == Verdict.SUSPECT ? 90 : 0);
+    }
+
+    private static ListChange change(ListKind kind, ListEntryType type, String value, boolean active) {
+        ListChange c = new ListChange();
+        ReflectionTestUtils.setField(c, "kind", kind);
+        ReflectionTestUtils.setField(c, "entryId", UUID.randomUUID());
+        ReflectionTestUtils.setField(c, "type", type);
+        ReflectionTestUtils.setField(c, "value", value);
+        ReflectionTestUtils.setField(c, "active", active);
+        return c;
+    }
+}
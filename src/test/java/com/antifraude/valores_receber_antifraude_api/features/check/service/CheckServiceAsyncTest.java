@@ -0,0 +1,180 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.aiAgent.AiAgentService;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.repository.UrlRecordRepository;
+import com.antifraude.valores_receber_antifraude_api.core.rules.Findings;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.VerdictCache;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckRequest;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckResponse;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Modo assíncrono: resposta provisória na hora, IA em segundo plano uma
+ * vez por URL, final por consulta e por callback.
+ *
+ * Sem {@code @Transactional}: a IA roda em outra thread.
+ */
+@SpringBootTest
+class CheckServiceAsyncTest {
+
+    private static final String URL = "https://loja42.exemplo.com.br/produtos";
+
+    @Autowired
+    private CheckService checkService;
+
+    @Autowired
+    private UrlRecordRepository urlRecordRepository;
+
+    @Autowired
+    private VerdictCache verdictCache;
+
+    @Autowired
+    private VerdictWriteBehind writeBehind;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private AiAgentService aiAgentService;
+
+    private static HttpServer callbackServer;
+    private static final BlockingQueue<String> callbacks = new LinkedBlockingQueue<>();
+
+    /**
+     * O servidor de callback sobe antes do contexto: a origem permitida
+     * inclui a porta.
+     */
+    @DynamicPropertySource
+    static void subirCallback(DynamicPropertyRegistry registry) throws IOException {
+        callbackServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        callbackServer.createContext("/veredito", exchange -> {
+            callbacks.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        callbackServer.start();
+        registry.add("antifraude.check.async.callback-hosts", () -> callbackOrigin());
+    }
+
+    @AfterAll
+    static void pararCallback() {
+        callbackServer.stop(0);
+    }
+
+    @AfterEach
+    void limpar() {
+        callbacks.clear();
+        writeBehind.flush();
+        urlRecordRepository.findByNormalizedUrl(URL).ifPresent(urlRecordRepository::delete);
+        verdictCache.invalidateAll();
+    }
+
+    @Test
+    void provisorioNaHora_finalPorConsultaECallback() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(aiAgentService.classifyByThreatIntel(any(UrlFeatures.class), anyInt()))
+                .thenAnswer(inv -> new AiAgentService.ThreatIntelStep(null, new Findings()));
+        when(aiAgentService.classifyByAi(any(UrlFeatures.class), anyInt(), any())).thenAnswer(inv -> {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return new AiAgentService.Result(Verdict.UNKNOWN, 55, "IA", new Findings());
+        });
+
+        String callbackUrl = callbackOrigin() + "/veredito";
+        CheckResponse provisional = checkService.submitAsync(request(URL, callbackUrl), false);
+
+        assertEquals(CheckStatus.PENDING, provisional.getStatus());
+        assertEquals(Verdict.UNKNOWN, provisional.getVerdict());
+        assertEquals("RULES", provisional.getSource());
+        assertEquals(VerdictWriteBehind.recordId(URL), provisional.getId());
+        assertEquals(CheckStatus.PENDING, checkService.find(provisional.getId()).getStatus());
+
+        // a mesma URL enquanto a IA roda: mesma verificação
+        CheckResponse again = checkService.submitAsync(request(URL, null), false);
+        assertEquals(CheckStatus.PENDING, again.getStatus());
+        assertEquals(provisional.getId(), again.getId());
+
+        release.countDown();
+        CheckResponse done = awaitFinal(provisional.getId());
+        assertEquals(CheckStatus.COMPLETE, done.getStatus());
+        assertEquals("IA", done.getSource());
+        assertEquals(55, done.getScore());
+        verify(aiAgentService, times(1)).classifyByAi(any(UrlFeatures.class), anyInt(), any());
+
+        String body = callbacks.poll(5, TimeUnit.SECONDS);
+        assertNotNull(body, "callback não chegou");
+        JsonNode node = objectMapper.readTree(body);
+        assertEquals(provisional.getId().toString(), node.get("id").asText());
+        assertEquals("COMPLETE", node.get("status").asText());
+        assertEquals("IA", node.get("source").asText());
+        assertNull(callbacks.poll(200, TimeUnit.MILLISECONDS), "callback repetido");
+
+        // já decidida: resposta final na hora, sem IA
+        CheckResponse cached = checkService.submitAsync(request(URL, null), false);
+        assertEquals(CheckStatus.COMPLETE, cached.getStatus());
+        assertEquals("CACHE", cached.getSource());
+    }
+
+    @Test
+    void callbackForaDosHostsPermitidos_recusado() {
+        int port = callbackServer.getAddress().getPort();
+        for (String url : List.of("https://outro.exemplo.com/hook",
+                "ftp://localhost:" + port + "/veredito",
+                "https://localhost:" + port + "/veredito",
+                "http://localhost:6379/",
+                "http://localhost/veredito",
+                "http://user@localhost:" + port + "/veredito")) {
+            assertThrows(ResponseStatusException.class,
+                    () -> checkService.submitAsync(request(URL, url), false), url);
+        }
+        verifyNoInteractions(aiAgentService);
+    }
+
+    private CheckResponse awaitFinal(UUID id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CheckResponse r;
+        while ((r = checkService.find(id)).getStatus() == CheckStatus.PENDING) {
+            assertTrue(System.nanoTime() < deadline, "IA em segundo plano não terminou");
+            Thread.sleep(10);
+        }
+        return r;
+    }
+
+    private static String callbackOrigin() {
+        return "http://localhost:" + callbackServer.getAddress().getPort();
+    }
+
+    private static CheckRequest request(String url, String callbackUrl) {
+        CheckRequest req = new CheckRequest();
+        req.setRawInput(url);
+        req.setCallbackUrl(callbackUrl);
+        return req;
+    }
+}
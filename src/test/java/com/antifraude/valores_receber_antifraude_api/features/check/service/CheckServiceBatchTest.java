@@ -0,0 +1,111 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.aiAgent.AiAgentService;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.repository.UrlRecordRepository;
+import com.antifraude.valores_receber_antifraude_api.core.rules.Findings;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.VerdictCache;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckRequest;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Lote com URLs repetidas, uma já no histórico e várias que precisam da
+ * IA: respostas na ordem de entrada, uma chamada de IA por URL distinta e
+ * tempo de uma chamada, não da soma.
+ *
+ * Sem {@code @Transactional}: as URLs do lote rodam em outras threads.
+ */
+@SpringBootTest
+class CheckServiceBatchTest {
+
+    private static final long AI_DELAY_MS = 300;
+
+    @Autowired
+    private CheckService checkService;
+
+    @Autowired
+    private UrlRecordRepository urlRecordRepository;
+
+    @Autowired
+    private VerdictCache verdictCache;
+
+    @Autowired
+    private VerdictWriteBehind writeBehind;
+
+    @MockitoBean
+    private AiAgentService aiAgentService;
+
+    private final List<String> urls = new ArrayList<>();
+
+    @AfterEach
+    void limpar() {
+        writeBehind.flush();
+        for (String url : urls) {
+            urlRecordRepository.findByNormalizedUrl(url).ifPresent(urlRecordRepository::delete);
+        }
+        verdictCache.invalidateAll();
+    }
+
+    @Test
+    void loteEmParalelo_naOrdemDeEntrada() {
+        when(aiAgentService.classify(any(UrlFeatures.class), anyInt())).thenAnswer(inv -> {
+            Thread.sleep(AI_DELAY_MS);
+            return new AiAgentService.Result(Verdict.UNKNOWN, 30, "IA", new Findings());
+        });
+
+        // já verificada antes e fora do cache em memória: vem do banco
+        CheckResponse known = checkService.submit(request("https://mercado.exemplo.com.br/ofertas"));
+        urls.add(known.getNormalizedUrl());
+        writeBehind.flush();
+        verdictCache.invalidateAll();
+        clearInvocations(aiAgentService);
+
+        List<CheckRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(request("https://loja" + i + ".exemplo.com.br/produtos"));
+        }
+        batch.add(request("https://loja3.exemplo.com.br/produtos"));
+        batch.add(request("HTTPS://LOJA7.exemplo.com.br/produtos"));
+        batch.add(request("https://mercado.exemplo.com.br/ofertas"));
+
+        long start = System.nanoTime();
+        List<CheckResponse> results = checkService.submitBatch(batch);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(batch.size(), results.size());
+        for (int i = 0; i < 20; i++) {
+            CheckResponse r = results.get(i);
+            urls.add(r.getNormalizedUrl());
+            assertEquals("https://loja" + i + ".exemplo.com.br/produtos", r.getNormalizedUrl());
+            assertEquals("IA", r.getSource());
+        }
+        assertEquals(results.get(3).getId(), results.get(20).getId());
+        assertNotSame(results.get(3), results.get(20));
+        assertEquals(results.get(7).getNormalizedUrl(), results.get(21).getNormalizedUrl());
+        assertEquals("CACHE", results.get(22).getSource());
+        assertEquals(known.getId(), results.get(22).getId());
+
+        // uma chamada por URL distinta, todas ao mesmo tempo
+        verify(aiAgentService, times(20)).classify(any(UrlFeatures.class), anyInt());
+        assertTrue(elapsedMs < 20 * AI_DELAY_MS / 4, "lote levou " + elapsedMs + "ms");
+    }
+
+    private static CheckRequest request(String url) {
+        CheckRequest req = new CheckRequest();
+        req.setRawInput(url);
+        return req;
+    }
+}
@@ -0,0 +1,143 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.aiAgent.AiAgentService;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.repository.UrlRecordRepository;
+import com.antifraude.valores_receber_antifraude_api.core.rules.Findings;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.VerdictCache;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckRequest;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckResponse;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A chamada de IA/ThreatIntel não pode segurar conexão do pool: com mais
+ * verificações simultâneas que conexões, todas precisam chegar juntas à
+ * IA. Sem transação (nem open-in-view) no pipeline, o pool só é usado
+ * pelas leituras e gravações curtas.
+ *
+ * Sem {@code @Transactional} de propósito: limpa o que gravou no fim.
+ */
+@SpringBootTest
+class CheckServiceConnectionTest {
+
+    @Autowired
+    private CheckService checkService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UrlRecordRepository urlRecordRepository;
+
+    @Autowired
+    private VerdictCache verdictCache;
+
+    @Autowired
+    private VerdictWriteBehind writeBehind;
+
+    @MockitoBean
+    private AiAgentService aiAgentService;
+
+    private final List<String> urls = new ArrayList<>();
+
+    @AfterEach
+    void limpar() {
+        writeBehind.flush();
+        for (String url : urls) {
+            urlRecordRepository.findByNormalizedUrl(url).ifPresent(urlRecordRepository::delete);
+        }
+        verdictCache.invalidateAll();
+    }
+
+    @Test
+    void iaLentaNaoEsgotaOPool() throws Exception {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        int requests = hikari.getMaximumPoolSize() * 3;
+
+        // cada chamada de IA espera todas as outras estarem na IA também;
+        // com todas lá (nenhuma fazendo trabalho de banco), mede o pool
+        CountDownLatch allInAi = new CountDownLatch(requests);
+        CountDownLatch measured = new CountDownLatch(requests);
+        AtomicInteger maxActive = new AtomicInteger();
+        when(aiAgentService.classify(any(UrlFeatures.class), anyInt())).thenAnswer(inv -> {
+            allInAi.countDown();
+            assertTrue(allInAi.await(20, TimeUnit.SECONDS),
+                    "verificações presas antes da IA: " + allInAi.getCount());
+            maxActive.accumulateAndGet(hikari.getHikariPoolMXBean().getActiveConnections(), Math::max);
+            measured.countDown();
+            measured.await(20, TimeUnit.SECONDS);
+            return new AiAgentService.Result(Verdict.UNKNOWN, 30, "IA", new Findings());
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<CheckResponse>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                CheckRequest req = new CheckRequest();
+                req.setRawInput("https://loja" + i + ".exemplo.com.br/produtos");
+                results.add(pool.submit(() -> checkService.submit(req)));
+            }
+            List<CheckResponse> responses = new ArrayList<>();
+            for (Future<CheckResponse> f : results) {
+                CheckResponse resp = f.get(30, TimeUnit.SECONDS);
+                urls.add(resp.getNormalizedUrl());
+                assertEquals("IA", resp.getSource());
+                responses.add(resp);
+            }
+            // o histórico é gravado em lote depois da resposta
+            writeBehind.flush();
+            for (CheckResponse resp : responses) {
+                assertTrue(urlRecordRepository.findByNormalizedUrl(resp.getNormalizedUrl()).isPresent());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(0, allInAi.getCount());
+        // ninguém esperando a IA estava com conexão
+        assertEquals(0, maxActive.get());
+    }
+
+    @Test
+    void conexaoSoNasTransacoesCurtas() throws SQLException {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        AtomicInteger activeDuringAi = new AtomicInteger(-1);
+        when(aiAgentService.classify(any(UrlFeatures.class), anyInt())).thenAnswer(inv -> {
+            activeDuringAi.set(hikari.getHikariPoolMXBean().getActiveConnections());
+            return new AiAgentService.Result(Verdict.UNKNOWN, 30, "IA", new Findings());
+        });
+
+        CheckRequest req = new CheckRequest();
+        req.setRawInput("https://padaria.exemplo.com.br/cardapio");
+        CheckResponse resp = checkService.submit(req);
+        urls.add(resp.getNormalizedUrl());
+        writeBehind.flush();
+
+        assertEquals(0, activeDuringAi.get());
+        assertEquals(0, hikari.getHikariPoolMXBean().getActiveConnections());
+        // id da resposta é o do registro gravado depois
+        assertEquals(resp.getId(),
+                urlRecordRepository.findByNormalizedUrl(resp.getNormalizedUrl()).orElseThrow().getId());
+    }
+}
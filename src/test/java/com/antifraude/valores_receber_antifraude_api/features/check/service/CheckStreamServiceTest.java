@@ -0,0 +1,121 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.aiAgent.AiAgentService;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.repository.UrlRecordRepository;
+import com.antifraude.valores_receber_antifraude_api.core.rules.Findings;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.VerdictCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Varredura NDJSON: uma linha de saída por linha de entrada (fora de
+ * ordem), erros por linha, resumo no fim e nunca mais verificações ao
+ * mesmo tempo que o limite.
+ */
+@SpringBootTest(properties = "antifraude.check.stream.max-in-flight=4")
+class CheckStreamServiceTest {
+
+    @Autowired
+    private CheckStreamService checkStreamService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UrlRecordRepository urlRecordRepository;
+
+    @Autowired
+    private VerdictCache verdictCache;
+
+    @Autowired
+    private VerdictWriteBehind writeBehind;
+
+    @MockitoBean
+    private AiAgentService aiAgentService;
+
+    private final List<String> urls = new ArrayList<>();
+
+    @AfterEach
+    void limpar() {
+        writeBehind.flush();
+        for (String url : urls) {
+            urlRecordRepository.findByNormalizedUrl(url).ifPresent(urlRecordRepository::delete);
+        }
+        verdictCache.invalidateAll();
+    }
+
+    @Test
+    void respondeCadaLinhaComConcorrenciaLimitada() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(aiAgentService.classify(any(UrlFeatures.class), anyInt())).thenAnswer(inv -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return new AiAgentService.Result(Verdict.UNKNOWN, 30, "IA", new Findings());
+        });
+
+        StringBuilder body = new StringBuilder();
+        int valid = 40;
+        for (int i = 0; i < valid; i++) {
+            String url = "https://loja" + i + ".exemplo.com.br/produtos";
+            urls.add(url);
+            body.append("{\"rawInput\":\"").append(url).append("\",\"inputType\":\"URL\"}\n");
+        }
+        body.append("não é json\n");
+        body.append("\n");
+        body.append("{\"inputType\":\"URL\"}\n");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        checkStreamService.scan(new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)), out,
+                false);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(valid + 2 + 1, lines.length);
+
+        Set<Long> seen = new HashSet<>();
+        int errors = 0;
+        for (int i = 0; i < lines.length - 1; i++) {
+            JsonNode node = objectMapper.readTree(lines[i]);
+            long line = node.get("line").asLong();
+            assertTrue(seen.add(line), "linha repetida " + line);
+            if (node.has("error")) {
+                errors++;
+                assertTrue(line == valid + 1 || line == valid + 3, "erro na linha " + line);
+            } else {
+                assertEquals("https://loja" + (line - 1) + ".exemplo.com.br/produtos",
+                        node.get("normalizedUrl").asText());
+                assertEquals("IA", node.get("source").asText());
+                assertFalse(node.has("evidenceSummary"));
+            }
+        }
+        assertEquals(2, errors);
+        assertTrue(maxRunning.get() <= 4, "em andamento ao mesmo tempo: " + maxRunning.get());
+
+        JsonNode summary = objectMapper.readTree(lines[lines.length - 1]).get("summary");
+        assertEquals(valid + 2, summary.get("items").asLong());
+        assertEquals(2, summary.get("errors").asLong());
+        assertTrue(summary.get("p99Ms").asDouble() >= 20);
+        assertTrue(summary.get("itemsPerSecond").asDouble() > 0);
+    }
+}
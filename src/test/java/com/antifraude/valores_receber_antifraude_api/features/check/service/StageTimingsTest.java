@@ -0,0 +1,209 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.shared.jfr.CheckEvent;
+import com.antifraude.valores_receber_antifraude_api.shared.jfr.CheckStageEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageTimingsTest {
+
+    private static final Pattern HEADER = Pattern.compile(
+            "([a-z_]+;dur=\\d+\\.\\d{3})(, [a-z_]+;dur=\\d+\\.\\d{3})*(, decided;desc=\"[a-z_]+\")?");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void etapasSomamOTotal() throws InterruptedException {
+        StageTimings t = new StageTimings();
+        t.lap(CheckStage.NORMALIZE);
+        Thread.sleep(2);
+        t.lap(CheckStage.HISTORY);
+        t.lap(CheckStage.RULES);
+        t.decide(CheckStage.RULES);
+        t.lap(CheckStage.PERSIST);
+
+        assertTrue(t.visited(CheckStage.NORMALIZE));
+        assertTrue(t.visited(CheckStage.HISTORY));
+        assertFalse(t.visited(CheckStage.AI));
+        assertEquals(0, t.nanos(CheckStage.AI));
+        assertTrue(t.nanos(CheckStage.HISTORY) >= 2_000_000);
+        assertEquals(CheckStage.RULES, t.decidedBy());
+
+        long sum = 0;
+        for (CheckStage s : CheckStage.values()) {
+            sum += t.nanos(s);
+        }
+        assertEquals(t.totalNanos(), sum);
+    }
+
+    @Test
+    void splitDivideAChamadaEntreDuasEtapas() throws InterruptedException {
+        StageTimings t = new StageTimings();
+        Thread.sleep(3);
+        t.split(CheckStage.THREAT_INTEL, 1_000_000, CheckStage.AI);
+
+        assertEquals(1_000_000, t.nanos(CheckStage.THREAT_INTEL));
+        assertEquals(t.totalNanos() - 1_000_000, t.nanos(CheckStage.AI));
+
+        // medida de fora maior que o intervalo: tudo para a primeira
+        StageTimings u = new StageTimings();
+        u.split(CheckStage.THREAT_INTEL, Long.MAX_VALUE, CheckStage.AI);
+        assertEquals(u.totalNanos(), u.nanos(CheckStage.THREAT_INTEL));
+        assertEquals(0, u.nanos(CheckStage.AI));
+        assertTrue(u.visited(CheckStage.AI));
+    }
+
+    @Test
+    void serverTimingListaEtapasPercorridasTotalEDecisao() {
+        StageTimings t = new StageTimings();
+        t.lap(CheckStage.NORMALIZE);
+        t.lap(CheckStage.LISTS);
+        t.decide(CheckStage.CACHE);
+
+        String header = t.serverTiming();
+        assertTrue(HEADER.matcher(header).matches(), header);
+        assertTrue(header.startsWith("normalize;dur="), header);
+        assertTrue(header.contains(", lists;dur="), header);
+        assertTrue(header.contains(", cache;dur="), header);
+        assertTrue(header.contains(", total;dur="), header);
+        assertTrue(header.endsWith(", decided;desc=\"cache\""), header);
+        assertFalse(header.contains("rules"), header);
+    }
+
+    @Test
+    void serverTimingSemDecisao() {
+        String header = new StageTimings().serverTiming();
+        assertEquals("total;dur=0.000", header);
+    }
+
+    @Test
+    void semGravacaoNenhumEvento() {
+        assertNull(CheckEvent.start());
+        assertNull(CheckStageEvent.start());
+    }
+
+    @Test
+    void perfilJfrLigaEventosDaVerificacaoEDasEtapas() throws Exception {
+        Configuration profile;
+        try (Reader r = new InputStreamReader(
+                getClass().getResourceAsStream("/jfr/antifraude.jfc"), StandardCharsets.UTF_8)) {
+            profile = Configuration.create(r);
+        }
+        assertEquals("true", profile.getSettings().get("antifraude.Check#enabled"));
+        assertEquals("true", profile.getSettings().get("antifraude.CheckStage#enabled"));
+
+        Path file = dir.resolve("check.jfr");
+        try (Recording recording = new Recording(profile)) {
+            recording.enable("antifraude.CheckStage").withThreshold(Duration.ZERO);
+            recording.start();
+
+            StageTimings t = new StageTimings();
+            t.domain("loja.exemplo.com.br");
+            t.lap(CheckStage.NORMALIZE);
+            t.lap(CheckStage.LISTS);
+            t.decide(CheckStage.RULES);
+            t.lap(CheckStage.PERSIST);
+            t.endTrace("SUSPECT", "RULES");
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> checks = events.stream()
+                .filter(e -> e.getEventType().getName().equals("antifraude.Check")).toList();
+        List<String> stages = events.stream()
+                .filter(e -> e.getEventType().getName().equals("antifraude.CheckStage"))
+                .map(e -> e.getString("stage")).toList();
+
+        assertEquals(1, checks.size());
+        RecordedEvent check = checks.get(0);
+        assertEquals("loja.exemplo.com.br", check.getString("domain"));
+        assertEquals("rules", check.getString("decidedBy"));
+        assertEquals("SUSPECT", check.getString("verdict"));
+        assertEquals("RULES", check.getString("source"));
+        assertEquals(List.of("normalize", "lists", "rules", "persist"), stages);
+        assertTrue(events.stream()
+                .filter(e -> e.getEventType().getName().equals("antifraude.CheckStage"))
+                .allMatch(e -> e.getBoolean("decided") == "rules".equals(e.getString("stage"))));
+    }
+
+    @Test
+    void loteGravaCadaEventoNaThreadQueRodaAEtapa() throws Exception {
+        Path file = dir.resolve("batch.jfr");
+        String worker = "check-batch-teste";
+        try (Recording recording = new Recording()) {
+            recording.enable("antifraude.Check").withThreshold(Duration.ZERO);
+            recording.enable("antifraude.CheckStage").withThreshold(Duration.ZERO);
+            recording.start();
+
+            StageTimings t = new StageTimings();
+            t.domain("lote.exemplo.com.br");
+            t.lap(CheckStage.NORMALIZE);
+            t.lap(CheckStage.HISTORY);
+            Thread thread = new Thread(() -> {
+                t.resumeOnCurrentThread();
+                t.decide(CheckStage.RULES);
+                t.endTrace("SUSPECT", "RULES");
+            }, worker);
+            thread.start();
+            thread.join();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        String request = Thread.currentThread().getName();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(List.of("normalize:" + request, "history:" + request, "rules:" + worker),
+                events.stream()
+                        .filter(e -> e.getEventType().getName().equals("antifraude.CheckStage"))
+                        .map(e -> e.getString("stage") + ":" + e.getThread().getJavaName()).toList());
+        assertEquals(List.of(worker), events.stream()
+                .filter(e -> e.getEventType().getName().equals("antifraude.Check"))
+                .map(e -> e.getThread().getJavaName()).toList());
+    }
+
+    /**
+     * Custo de uma marcação (meta: bem abaixo de 1µs por etapa). Opcional:
+     * {@code mvn test -Dtest=StageTimingsTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() {
+        CheckStage[] stages = CheckStage.values();
+        int checks = 1_000_000;
+        for (int round = 0; round < 5; round++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < checks; i++) {
+                StageTimings t = new StageTimings();
+                for (CheckStage s : stages) {
+                    t.lap(s);
+                }
+                sink += t.totalNanos();
+            }
+            long elapsed = System.nanoTime() - start;
+            assertTrue(sink >= 0);
+            double perLap = (double) elapsed / ((long) checks * stages.length);
+            System.out.printf("round %d: %.1f ns/etapa%n", round, perLap);
+            assertTrue(perLap < 1_000, "marcação acima de 1µs");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.antifraude.valores_receber_antifraude_api.features.check.service;
+
+import com.antifraude.valores_receber_antifraude_api.aiAgent.AiAgentService;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.repository.UrlRecordRepository;
+import com.antifraude.valores_receber_antifraude_api.core.rules.Findings;
+import com.antifraude.valores_receber_antifraude_api.core.rules.UrlFeatures;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.VerdictCache;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckRequest;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckResponse;
+import com.antifraude.valores_receber_antifraude_api.features.check.dto.CheckStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * O id devolvido pela verificação vale antes do flush: o GET acha o
+ * veredito na fila e, depois do flush, no banco.
+ *
+ * Flush de minuto em minuto para o veredito ficar na fila durante o teste.
+ * Sem {@code @Transactional}: dentro de uma transação a gravação é na hora.
+ */
+@SpringBootTest(properties = "antifraude.check.write-behind.flush-interval-ms=60000")
+class VerdictWriteBehindTest {
+
+    private static final String URL = "https://fila.exemplo.com.br/resgate";
+
+    @Autowired
+    private CheckService checkService;
+
+    @Autowired
+    private UrlRecordRepository urlRecordRepository;
+
+    @Autowired
+    private VerdictCache verdictCache;
+
+    @Autowired
+    private VerdictWriteBehind writeBehind;
+
+    @MockitoBean
+    private AiAgentService aiAgentService;
+
+    @AfterEach
+    void limpar() {
+        writeBehind.flush();
+        urlRecordRepository.findByNormalizedUrl(URL).ifPresent(urlRecordRepository::delete);
+        verdictCache.invalidateAll();
+    }
+
+    @Test
+    void idValeAntesDoFlush() {
+        when(aiAgentService.classify(any(UrlFeatures.class), anyInt()))
+                .thenReturn(new AiAgentService.Result(Verdict.SUSPECT, 85, "IA", new Findings()));
+
+        CheckRequest req = new CheckRequest();
+        req.setRawInput(URL);
+        CheckResponse submitted = checkService.submit(req);
+
+        assertTrue(urlRecordRepository.findById(submitted.getId()).isEmpty(), "ainda na fila");
+        CheckResponse queued = checkService.find(submitted.getId());
+        assertNotNull(queued);
+        assertEquals(CheckStatus.COMPLETE, queued.getStatus());
+        assertEquals(Verdict.SUSPECT, queued.getVerdict());
+        assertEquals(URL, queued.getNormalizedUrl());
+
+        writeBehind.flush();
+        assertTrue(urlRecordRepository.findById(submitted.getId()).isPresent());
+        assertEquals(Verdict.SUSPECT, checkService.find(submitted.getId()).getVerdict());
+    }
+}
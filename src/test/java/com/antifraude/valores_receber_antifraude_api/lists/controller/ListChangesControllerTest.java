@@ -0,0 +1,88 @@
+package com.antifraude.valores_receber_antifraude_api.lists.controller;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.BlacklistEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.repository.ListChangeRepository;
+import com.antifraude.valores_receber_antifraude_api.lists.service.ListsService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/v1/lists/changes: paginação por versão e estado final de cada
+ * entrada.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class ListChangesControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ListsService listsService;
+
+    @Autowired
+    private ListChangeRepository listChangeRepository;
+
+    @Test
+    void paginaPorVersaoAteAcabar() throws Exception {
+        long before = listChangeRepository.findMaxVersion();
+        BlacklistEntry entry = listsService.saveBlacklist(blacklist("golpe-delta.com"));
+        entry.setActive(false);
+        listsService.saveBlacklist(entry);
+
+        JsonNode first = changes(before, 1);
+        assertEquals(1, first.get("changes").size());
+        assertTrue(first.get("hasMore").asBoolean());
+        JsonNode created = first.get("changes").get(0);
+        assertEquals("golpe-delta.com", created.get("value").asText());
+        assertEquals("BLACKLIST", created.get("kind").asText());
+        assertTrue(created.get("active").asBoolean());
+
+        JsonNode second = changes(first.get("nextSince").asLong(), 10);
+        assertEquals(1, second.get("changes").size());
+        assertFalse(second.get("hasMore").asBoolean());
+        JsonNode deactivated = second.get("changes").get(0);
+        assertEquals(created.get("entryId").asText(), deactivated.get("entryId").asText());
+        assertFalse(deactivated.get("active").asBoolean());
+        assertTrue(deactivated.get("version").asLong() > created.get("version").asLong());
+
+        // nada novo: mesma versão de volta
+        long last = second.get("nextSince").asLong();
+        JsonNode empty = changes(last, 10);
+        assertEquals(0, empty.get("changes").size());
+        assertEquals(last, empty.get("nextSince").asLong());
+        assertFalse(empty.get("hasMore").asBoolean());
+    }
+
+    private JsonNode changes(long since, int limit) throws Exception {
+        String body = mockMvc.perform(get("/api/v1/lists/changes")
+                .param("since", Long.toString(since))
+                .param("limit", Integer.toString(limit)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static BlacklistEntry blacklist(String domain) {
+        BlacklistEntry e = new BlacklistEntry();
+        e.setType(ListEntryType.DOMAIN);
+        e.setValue(domain);
+        e.setReason("teste do log de mudanças");
+        return e;
+    }
+}
@@ -0,0 +1,43 @@
+package com.antifraude.valores_receber_antifraude_api.lists.index;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListIndexTest {
+
+    private final ListIndex index = ListIndex.builder()
+            .add(ListEntryType.URL, "https://www.caixa.gov.br")
+            .add(ListEntryType.URL, " HTTPS://Beneficios-GovBr.net/login?x=1 ")
+            .add(ListEntryType.DOMAIN, "caixa-brasil.online")
+            .add(ListEntryType.DOMAIN, "*.gov.br")
+            .build();
+
+    @Test
+    void deveBaterUrlExata_ignorandoCaixaEQuery() {
+        assertEquals("https://www.caixa.gov.br", index.match("https://www.caixa.gov.br", "www.caixa.gov.br"));
+        assertEquals(" HTTPS://Beneficios-GovBr.net/login?x=1 ",
+                index.match("https://beneficios-govbr.net/login", "beneficios-govbr.net"));
+        assertNull(index.match("https://beneficios-govbr.net/outra", "beneficios-govbr.net"));
+    }
+
+    @Test
+    void deveBaterDominioExato_masNaoSubdominio() {
+        assertEquals("caixa-brasil.online", index.match("http://caixa-brasil.online/x", "CAIXA-BRASIL.online"));
+        assertNull(index.match("http://www.caixa-brasil.online", "www.caixa-brasil.online"));
+    }
+
+    @Test
+    void curingaDeveExigirSubdominio() {
+        assertEquals("*.gov.br", index.match("https://meu.inss.gov.br", "meu.inss.gov.br"));
+        assertNull(index.match("https://gov.br", "gov.br"));
+        assertNull(index.match("https://fakegov.br", "fakegov.br"));
+    }
+
+    @Test
+    void indiceVazioNaoBate() {
+        assertNull(ListIndex.EMPTY.match("http://qualquer.com", "qualquer.com"));
+        assertNull(ListIndex.EMPTY.match("texto livre", ""));
+    }
+}
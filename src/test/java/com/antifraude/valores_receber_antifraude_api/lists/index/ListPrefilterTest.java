@@ -0,0 +1,38 @@
+package com.antifraude.valores_receber_antifraude_api.lists.index;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListPrefilterTest {
+
+    @Test
+    void naoDeveTerFalsoNegativo_paraUrlEDominios() {
+        ListPrefilter prefilter = ListPrefilter.forEntries(3);
+        prefilter.add(ListEntryType.URL, "https://www.caixa.gov.br");
+        prefilter.add(ListEntryType.DOMAIN, "*.gov.br");
+        prefilter.add(ListEntryType.DOMAIN, "caixa-brasil.online");
+
+        assertTrue(prefilter.mightMatch("https://WWW.caixa.gov.br", "www.caixa.gov.br"));
+        assertTrue(prefilter.mightMatch("http://meu.inss.gov.br/x", "meu.inss.gov.br"));
+        assertTrue(prefilter.mightMatch("http://caixa-brasil.online/login", "caixa-brasil.online"));
+    }
+
+    @Test
+    void taxaDeFalsoPositivoDeveFicarPequena() {
+        ListPrefilter prefilter = ListPrefilter.forEntries(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            prefilter.add(ListEntryType.DOMAIN, "golpe" + i + ".com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (prefilter.mightMatch("https://site" + i + ".org/", "site" + i + ".org")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 500, "falsos positivos: " + falsePositives);
+        assertTrue(prefilter.expectedFalsePositiveRate() < 0.02);
+    }
+}
@@ -0,0 +1,78 @@
+package com.antifraude.valores_receber_antifraude_api.lists.index;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListSnapshotTest {
+
+    private static final UUID CAIXA = UUID.randomUUID();
+    private static final UUID GOV = UUID.randomUUID();
+    private static final UUID GOLPE = UUID.randomUUID();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void deveGravarEAbrirComAMesmaSemanticaDoIndice() throws Exception {
+        Path file = dir.resolve("lists.snap");
+        ListSnapshot.write(file, 42, ListPrefilter.forEntries(3),
+                part(ListSnapshot.Table.EMPTY, Set.of(),
+                        entry(CAIXA, ListEntryType.URL, "https://www.Caixa.gov.br"),
+                        entry(GOV, ListEntryType.DOMAIN, "*.gov.br")),
+                part(ListSnapshot.Table.EMPTY, Set.of(),
+                        entry(GOLPE, ListEntryType.DOMAIN, "caixa-brasil.online")));
+
+        ListSnapshot snapshot = ListSnapshot.open(file);
+        assertEquals(42, snapshot.version());
+        ListSnapshot.Table white = snapshot.whitelist();
+
+        assertEquals("https://www.Caixa.gov.br", white.match("https://WWW.caixa.gov.br", "www.caixa.gov.br", Set.of()));
+        assertEquals("*.gov.br", white.match("http://meu.inss.gov.br/x", "meu.inss.gov.br", Set.of()));
+        assertNull(white.match("http://gov.br/", "gov.br", Set.of())); // curinga não cobre o próprio domínio
+        assertEquals("caixa-brasil.online",
+                snapshot.blacklist().match("http://caixa-brasil.online/login", "caixa-brasil.online", Set.of()));
+        assertNull(snapshot.blacklist().match("http://sub.caixa-brasil.online/", "sub.caixa-brasil.online", Set.of()));
+    }
+
+    @Test
+    void deveMesclarBaseComDelta() throws Exception {
+        Path file = dir.resolve("lists.snap");
+        ListSnapshot.write(file, 1, ListPrefilter.forEntries(2),
+                part(ListSnapshot.Table.EMPTY, Set.of(),
+                        entry(CAIXA, ListEntryType.URL, "https://www.caixa.gov.br"),
+                        entry(GOV, ListEntryType.DOMAIN, "*.gov.br")),
+                part(ListSnapshot.Table.EMPTY, Set.of()));
+        ListSnapshot first = ListSnapshot.open(file);
+
+        // GOV desativada depois do snapshot; GOLPE adicionada
+        ListSnapshot.write(file, 2, first.prefilter(),
+                part(first.whitelist(), Set.of(GOV),
+                        entry(GOLPE, ListEntryType.DOMAIN, "golpe.com")),
+                part(first.blacklist(), Set.of()));
+        ListSnapshot second = ListSnapshot.open(file);
+
+        ListSnapshot.Table white = second.whitelist();
+        assertEquals(2, white.size());
+        assertNull(white.match("http://meu.inss.gov.br/", "meu.inss.gov.br", Set.of()));
+        assertEquals("golpe.com", white.match("http://golpe.com/", "golpe.com", Set.of()));
+        assertNull(white.match("http://golpe.com/", "golpe.com", Set.of(GOLPE)));
+        assertEquals("https://www.caixa.gov.br", white.match("https://www.caixa.gov.br", "www.caixa.gov.br", Set.of()));
+    }
+
+    private static ListSnapshot.Part part(ListSnapshot.Table base, Set<UUID> excluded, ListSnapshot.Entry... added) {
+        return new ListSnapshot.Part(base, excluded, List.of(added));
+    }
+
+    private static ListSnapshot.Entry entry(UUID id, ListEntryType type, String value) {
+        return new ListSnapshot.Entry(id, type, value, ListEntry.normalizedValueOf(type, value));
+    }
+}
@@ -0,0 +1,166 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListChange;
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+import com.antifraude.valores_receber_antifraude_api.lists.index.ListPrefilter;
+import com.antifraude.valores_receber_antifraude_api.lists.index.ListSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Delta em duas camadas: cadastros avulsos recompilam só o recente; a
+ * lista inteira só é recompilada na compactação.
+ */
+class CompiledListTest {
+
+    private static final int LOADED = 20_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cadastroAvulsoNaoRecompilaAListaInteira() {
+        CompiledList list = loaded();
+        int compactions = list.compactions;
+
+        UUID id = UUID.randomUUID();
+        list.applyAll(List.of(change(1, id, ListEntryType.DOMAIN, "novo-golpe.com", true)));
+        assertNull(list.match("http://novo-golpe.com/", "novo-golpe.com"), "só aparece depois do publish");
+
+        list.publish();
+        assertEquals("novo-golpe.com", list.match("http://novo-golpe.com/", "novo-golpe.com"));
+        assertEquals("golpe7.com", list.match("http://golpe7.com/", "golpe7.com"));
+        assertEquals(compactions, list.compactions);
+        assertEquals(LOADED + 1, list.size());
+    }
+
+    @Test
+    void recenteAcimaDoLimiteVoltaParaOCompactado() {
+        CompiledList list = loaded();
+        int compactions = list.compactions;
+
+        List<ListChange> many = new ArrayList<>();
+        for (int i = 0; i <= CompiledList.RECENT_MIN; i++) {
+            many.add(change(i, UUID.randomUUID(), ListEntryType.DOMAIN, "lote" + i + ".com", true));
+        }
+        list.applyAll(many);
+        list.publish();
+
+        assertEquals(compactions + 1, list.compactions);
+        assertEquals("lote0.com", list.match("http://lote0.com/", "lote0.com"));
+        assertEquals("golpe1.com", list.match("http://golpe1.com/", "golpe1.com"));
+    }
+
+    @Test
+    void desativarEntradaCompactadaEscondeEla() {
+        List<UUID> ids = new ArrayList<>();
+        CompiledList list = loaded(ids);
+
+        list.applyAll(List.of(change(1, ids.get(3), ListEntryType.DOMAIN, "golpe3.com", false)));
+        list.publish();
+
+        assertNull(list.match("http://golpe3.com/", "golpe3.com"));
+        assertEquals("golpe4.com", list.match("http://golpe4.com/", "golpe4.com"));
+    }
+
+    @Test
+    void desativarEntradaRecenteNaoCompacta() {
+        CompiledList list = loaded();
+        UUID id = UUID.randomUUID();
+        list.applyAll(List.of(change(1, id, ListEntryType.URL, "https://golpe.net/pix", true)));
+        list.publish();
+        int compactions = list.compactions;
+
+        list.applyAll(List.of(change(2, id, ListEntryType.URL, "https://golpe.net/pix", false)));
+        list.publish();
+
+        assertNull(list.match("https://golpe.net/pix", "golpe.net"));
+        assertEquals(compactions, list.compactions);
+    }
+
+    @Test
+    void reaplicarMudancaJaAplicadaNaoFazNada() {
+        List<UUID> ids = new ArrayList<>();
+        CompiledList list = loaded(ids);
+        int compactions = list.compactions;
+
+        // o sync relê o log depois de um buraco: mesmo estado final
+        list.applyAll(List.of(change(1, ids.get(0), ListEntryType.DOMAIN, "golpe0.com", true)));
+        list.publish();
+
+        assertEquals(compactions, list.compactions);
+    }
+
+    @Test
+    void comSnapshotRecenteEscondeBaseECompactado() throws Exception {
+        UUID gov = UUID.randomUUID();
+        UUID caixa = UUID.randomUUID();
+        Path file = dir.resolve("lists.snap");
+        ListSnapshot.write(file, 1, ListPrefilter.forEntries(2),
+                new ListSnapshot.Part(ListSnapshot.Table.EMPTY, Set.of(), List.of(
+                        snapshotEntry(gov, ListEntryType.DOMAIN, "*.gov.br"),
+                        snapshotEntry(caixa, ListEntryType.URL, "https://www.caixa.gov.br"))),
+                new ListSnapshot.Part(ListSnapshot.Table.EMPTY, Set.of(), List.of()));
+
+        CompiledList list = new CompiledList();
+        list.rebase(ListSnapshot.open(file).whitelist(), null);
+        assertEquals("*.gov.br", list.match("http://meu.inss.gov.br/", "meu.inss.gov.br"));
+
+        list.applyAll(List.of(change(1, gov, ListEntryType.DOMAIN, "*.gov.br", false)));
+        list.publish();
+        assertNull(list.match("http://meu.inss.gov.br/", "meu.inss.gov.br"));
+        assertEquals("https://www.caixa.gov.br", list.match("https://www.caixa.gov.br", "www.caixa.gov.br"));
+
+        // reativada: a lápide (recente) dá lugar à entrada
+        list.applyAll(List.of(change(2, gov, ListEntryType.DOMAIN, "*.gov.br", true)));
+        list.publish();
+        assertEquals("*.gov.br", list.match("http://meu.inss.gov.br/", "meu.inss.gov.br"));
+    }
+
+    private static CompiledList loaded() {
+        return loaded(new ArrayList<>());
+    }
+
+    private static CompiledList loaded(List<UUID> ids) {
+        CompiledList list = new CompiledList();
+        list.load(l -> {
+            for (int i = 0; i < LOADED; i++) {
+                UUID id = UUID.randomUUID();
+                ids.add(id);
+                l.put(id, ListEntryType.DOMAIN, "golpe" + i + ".com", null);
+            }
+        });
+        return list;
+    }
+
+    static ListChange change(long version, UUID entryId, ListEntryType type, String value, boolean active) {
+        return change(version, ListKind.BLACKLIST, entryId, type, value, active);
+    }
+
+    static ListChange change(long version, ListKind kind, UUID entryId, ListEntryType type, String value,
+            boolean active) {
+        ListChange c = new ListChange();
+        ReflectionTestUtils.setField(c, "version", version);
+        ReflectionTestUtils.setField(c, "kind", kind);
+        ReflectionTestUtils.setField(c, "entryId", entryId);
+        ReflectionTestUtils.setField(c, "type", type);
+        ReflectionTestUtils.setField(c, "value", value);
+        ReflectionTestUtils.setField(c, "active", active);
+        return c;
+    }
+
+    private static ListSnapshot.Entry snapshotEntry(UUID id, ListEntryType type, String value) {
+        return new ListSnapshot.Entry(id, type, value, ListEntry.normalizedValueOf(type, value));
+    }
+}
@@ -0,0 +1,137 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.BlacklistEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+import com.antifraude.valores_receber_antifraude_api.core.repository.BlacklistRepository;
+import com.antifraude.valores_receber_antifraude_api.lists.controller.BlacklistController;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListEntryCreateRequest;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListImportResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Importação em lote contra o banco: duplicatas no feed, conflito com o
+ * que já existe (outro feed ou entrada criada pelo POST, na mesma chave
+ * normalizada) e linhas malformadas.
+ */
+@SpringBootTest
+@Transactional
+class ListImportServiceIntegrationTest {
+
+    @Autowired
+    private ListImportService listImportService;
+
+    @Autowired
+    private BlacklistController blacklistController;
+
+    @Autowired
+    private BlacklistRepository blacklistRepository;
+
+    @BeforeEach
+    void limparBanco() {
+        blacklistRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void duplicatasNoFeedContamUmaVez() throws IOException {
+        ListImportResponse resp = importCsv(null,
+                "type,value,reason,active",
+                "URL,https://golpe-lote.site/pix,feed,true",
+                "URL,HTTPS://Golpe-Lote.SITE/pix?utm=1,feed,true",
+                "DOMAIN,golpe-lote.site",
+                "DOMAIN,GOLPE-LOTE.site");
+
+        assertEquals(2, resp.getInserted());
+        assertEquals(2, resp.getDuplicates());
+        assertEquals(0, resp.getRejected());
+        assertEquals(2, blacklistRepository.count());
+    }
+
+    @Test
+    void entradaDoPostConflitaComAImportacao() throws IOException {
+        ListEntryCreateRequest req = new ListEntryCreateRequest();
+        req.setType(ListEntryType.URL);
+        req.setValue("  HTTPS://Golpe-Post.site/resgate?utm=1 ");
+        String stored = blacklistController.create(req).getBody().getValue();
+
+        assertEquals("https://golpe-post.site/resgate", stored);
+
+        ListImportResponse resp = importCsv(ListEntryType.URL,
+                "https://golpe-post.site/resgate",
+                "https://golpe-post.site/outra");
+
+        assertEquals(1, resp.getInserted());
+        assertEquals(1, resp.getDuplicates(), "já existia pelo POST");
+        assertEquals(List.of("https://golpe-post.site/outra", "https://golpe-post.site/resgate"),
+                blacklistRepository.findAll().stream().map(BlacklistEntry::getValue).sorted().toList());
+    }
+
+    @Test
+    void mesmaEntradaEmFeedsDiferentesGravaUmaVez() throws IOException {
+        ListImportResponse first = importCsv(ListEntryType.URL, "http://golpe-caixa.site/Resgate");
+        ListImportResponse second = importCsv(ListEntryType.URL, "http://golpe-caixa.site/resgate");
+
+        assertEquals(1, first.getInserted());
+        assertEquals(0, second.getInserted());
+        assertEquals(1, second.getDuplicates(), "mesmo valor normalizado já gravado");
+        assertEquals(1, blacklistRepository.count());
+    }
+
+    @Test
+    void postDeEntradaJaImportadaE409() throws IOException {
+        importCsv(ListEntryType.URL, "http://golpe-409.site/Pix");
+
+        ListEntryCreateRequest req = new ListEntryCreateRequest();
+        req.setType(ListEntryType.URL);
+        req.setValue("http://golpe-409.site/pix");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> blacklistController.create(req));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+    }
+
+    @Test
+    void postComValorInvalidoE400() {
+        ListEntryCreateRequest req = new ListEntryCreateRequest();
+        req.setType(ListEntryType.URL);
+        req.setValue("texto com espaço");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> blacklistController.create(req));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    @Test
+    void linhasMalformadasSaoRejeitadasSemDerrubarOLote() throws IOException {
+        ListImportResponse resp = importCsv(ListEntryType.URL,
+                "https://golpe-malformado.site/a,b/pix",
+                "URL,https://golpe-malformado.site/ok,feed,yes",
+                "IP,1.2.3.4",
+                "URL,sem host",
+                "URL,",
+                "\"https://golpe-malformado.site/aspas,x\"");
+
+        assertEquals(2, resp.getInserted());
+        assertEquals(4, resp.getRejected());
+        assertEquals(0, resp.getDuplicates());
+    }
+
+    private ListImportResponse importCsv(ListEntryType defaultType, String... lines) throws IOException {
+        byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return listImportService.importEntries(ListKind.BLACKLIST, new ByteArrayInputStream(body),
+                ListImportService.Format.CSV, defaultType);
+    }
+}
@@ -0,0 +1,101 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListImportServiceTest {
+
+    @Test
+    void deveSepararCsvRespeitandoAspas() {
+        assertEquals(List.of("URL", "https://golpe.com/a", "feed, diário", ""),
+                ListImportService.splitCsv("URL,https://golpe.com/a,\"feed, diário\","));
+        assertEquals(List.of("dominio.com"), ListImportService.splitCsv("dominio.com"));
+        assertEquals(List.of("DOMAIN", "a\"b"), ListImportService.splitCsv("DOMAIN,\"a\"\"b\""));
+    }
+
+    @Test
+    void deveNormalizarValores() {
+        assertEquals("https://golpe.com/login",
+                ListEntry.canonicalValueOf(ListEntryType.URL, "  HTTPS://Golpe.COM/login?utm=1 "));
+        assertEquals("*.golpe.com", ListEntry.canonicalValueOf(ListEntryType.DOMAIN, "*.GOLPE.com"));
+        assertNull(ListEntry.canonicalValueOf(ListEntryType.URL, "texto com espaço"));
+        assertNull(ListEntry.canonicalValueOf(ListEntryType.DOMAIN, "   "));
+    }
+
+    @Test
+    void colunaUnicaAceitaUrlComVirgula() {
+        ListImportService.Row row = ListImportService.parseCsv("https://golpe.com/a,b/pix", ListEntryType.URL);
+        assertNotNull(row, "URL com vírgula numa coluna só");
+        assertEquals(ListEntryType.URL, row.type);
+        assertEquals("https://golpe.com/a,b/pix", row.value);
+        assertTrue(row.active);
+
+        // sem tipo padrão URL, primeiro campo que não é tipo continua inválido
+        assertNull(ListImportService.parseCsv("https://golpe.com/a,b/pix", null));
+        assertNull(ListImportService.parseCsv("golpe.com,outro.com", ListEntryType.DOMAIN));
+    }
+
+    @Test
+    void ativoSoAceitaValoresConhecidos() {
+        assertFalse(ListImportService.parseCsv("DOMAIN,golpe.com,feed,false", null).active);
+        assertFalse(ListImportService.parseCsv("DOMAIN,golpe.com,feed, 0 ", null).active);
+        assertTrue(ListImportService.parseCsv("DOMAIN,golpe.com,feed,TRUE", null).active);
+        assertTrue(ListImportService.parseCsv("DOMAIN,golpe.com,feed,", null).active);
+
+        for (String bad : List.of("yes", "sim", "talvez", "2")) {
+            assertNull(ListImportService.parseCsv("DOMAIN,golpe.com,feed," + bad, null), bad);
+        }
+    }
+
+    @Test
+    void linhasMalformadasSaoRejeitadas() {
+        assertNull(ListImportService.parseCsv("IP,1.2.3.4", ListEntryType.DOMAIN), "tipo desconhecido");
+        assertNull(ListImportService.parseCsv("URL,", null), "valor vazio");
+        assertNull(ListImportService.parseCsv("URL,sem host", null), "URL sem host");
+        assertNull(ListImportService.parseCsv("golpe.com", null), "coluna única sem tipo padrão");
+        assertNull(ListImportService.parseCsv("URL,https://golpe.com/" + "a".repeat(2048), null), "valor grande demais");
+    }
+
+    @Test
+    void mesmaEntradaEmFormasDiferentesTemMesmaImpressao() {
+        ListImportService.Row a = ListImportService.parseCsv("URL,HTTPS://Golpe.com/pix?utm=1", null);
+        ListImportService.Row b = ListImportService.parseCsv("https://golpe.com/pix", ListEntryType.URL);
+        assertEquals(a.value, b.value);
+        assertEquals(a.valueHash, b.valueHash);
+    }
+
+    /**
+     * Vazão do parse (split, tipo, forma canônica e impressão digital) por
+     * linha, que é o teto da importação antes do banco. Meta: 100k linhas/s.
+     * Rodar com -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkParse() {
+        int n = 200_000;
+        String[] lines = new String[n];
+        for (int i = 0; i < n; i++) {
+            lines[i] = i % 2 == 0
+                    ? "URL,https://golpe" + i + ".site/pix/resgate?id=" + i + ",feed diário,true"
+                    : "DOMAIN,*.golpe" + i + ".com.br,\"feed, semanal\",";
+        }
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < 5; round++) {
+            long t0 = System.nanoTime();
+            for (String line : lines) {
+                sink += ListImportService.parseCsv(line, null).valueHash;
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        double rowsPerSec = n / (best / 1e9);
+        System.out.printf("parse CSV: %.0f linhas/s (%d linhas, melhor de 5) [%d]%n", rowsPerSec, n, sink & 1);
+        assertTrue(rowsPerSec >= 100_000, "abaixo de 100k linhas/s: " + rowsPerSec);
+    }
+}
@@ -0,0 +1,159 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.BlacklistEntry;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.repository.BlacklistRepository;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListEntryPage;
+import com.antifraude.valores_receber_antifraude_api.lists.dto.ListEntryResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Paginação por cursor das listas: páginas sem repetir nem pular linha,
+ * filtros no SQL e cursor malformado.
+ */
+@SpringBootTest
+@Transactional
+class ListQueryServiceTest {
+
+    @Autowired
+    private ListQueryService listQueryService;
+
+    @Autowired
+    private BlacklistRepository blacklistRepository;
+
+    @BeforeEach
+    void limparBanco() {
+        blacklistRepository.deleteAll();
+    }
+
+    @Test
+    void paginasCobremTudoEmOrdemSemRepetir() {
+        Set<UUID> saved = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            saved.add(save(ListEntryType.DOMAIN, "pagina" + i + ".com", true).getId());
+        }
+
+        List<ListEntryResponse> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ListEntryPage page = listQueryService.page(blacklistRepository, new ListQueryService.Filter(), cursor, 10);
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(25, all.size());
+        assertEquals(saved, new HashSet<>(all.stream().map(ListEntryResponse::getId).toList()));
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).getCreatedAt().isBefore(all.get(i - 1).getCreatedAt()), "ordem de criação");
+        }
+    }
+
+    @Test
+    void ultimaPaginaCheiaNaoTemCursor() {
+        for (int i = 0; i < 4; i++) {
+            save(ListEntryType.DOMAIN, "exata" + i + ".com", true);
+        }
+        ListEntryPage first = listQueryService.page(blacklistRepository, new ListQueryService.Filter(), null, 2);
+        ListEntryPage second = listQueryService.page(blacklistRepository, new ListQueryService.Filter(),
+                first.getNextCursor(), 2);
+
+        assertEquals(2, second.getItems().size());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void filtrosDeAtivoTipoEPrefixo() {
+        save(ListEntryType.DOMAIN, "golpe_a.com", true);
+        save(ListEntryType.DOMAIN, "golpeXa.com", true);
+        save(ListEntryType.URL, "https://golpe_a.com/pix", true);
+        save(ListEntryType.DOMAIN, "golpe_b.com", false);
+
+        ListQueryService.Filter f = new ListQueryService.Filter();
+        f.active = true;
+        f.type = ListEntryType.DOMAIN;
+        f.valuePrefix = "golpe_"; // "_" é literal, não coringa
+        List<ListEntryResponse> items = listQueryService.page(blacklistRepository, f, null, null).getItems();
+
+        assertEquals(List.of("golpe_a.com"), items.stream().map(ListEntryResponse::getValue).toList());
+    }
+
+    @Test
+    void filtroDePeriodoDeCriacao() {
+        LocalDateTime at = save(ListEntryType.DOMAIN, "janela.com", true).getCreatedAt();
+
+        assertEquals(1, byPeriod(at.minusMinutes(1), at.plusMinutes(1)).size());
+        assertTrue(byPeriod(at.plusMinutes(1), null).isEmpty());
+        assertTrue(byPeriod(null, at.minusMinutes(1)).isEmpty());
+    }
+
+    @Test
+    void limiteForaDaFaixaEAjustado() {
+        for (int i = 0; i < 3; i++) {
+            save(ListEntryType.DOMAIN, "limite" + i + ".com", true);
+        }
+        ListEntryPage page = listQueryService.page(blacklistRepository, new ListQueryService.Filter(), null, 0);
+        assertEquals(1, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void cursorIdaEVolta() {
+        LocalDateTime at = LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123_456_000);
+        UUID id = UUID.randomUUID();
+
+        ListQueryService.Cursor c = ListQueryService.Cursor.decode(new ListQueryService.Cursor(at, id).encode());
+
+        assertEquals(at, c.createdAt);
+        assertEquals(id, c.id);
+    }
+
+    @Test
+    void cursorMalformadoE400() {
+        for (String bad : List.of("@@@", encode("sem-separador"), encode("ontem|" + UUID.randomUUID()),
+                encode(LocalDateTime.now() + "|nao-e-uuid"))) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> ListQueryService.Cursor.decode(bad), bad);
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    private List<ListEntryResponse> byPeriod(LocalDateTime from, LocalDateTime to) {
+        ListQueryService.Filter f = new ListQueryService.Filter();
+        f.createdFrom = from;
+        f.createdTo = to;
+        return listQueryService.page(blacklistRepository, f, null, null).getItems();
+    }
+
+    private BlacklistEntry save(ListEntryType type, String value, boolean active) {
+        BlacklistEntry e = new BlacklistEntry();
+        e.setType(type);
+        e.setValue(value);
+        e.setActive(active);
+        e.setReason("teste de paginação");
+        return blacklistRepository.saveAndFlush(e);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
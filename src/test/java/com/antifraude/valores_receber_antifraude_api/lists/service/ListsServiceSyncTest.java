@@ -0,0 +1,134 @@
+package com.antifraude.valores_receber_antifraude_api.lists.service;
+
+import com.antifraude.valores_receber_antifraude_api.core.model.entity.ListChange;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListEntryType;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.ListKind;
+import com.antifraude.valores_receber_antifraude_api.core.model.enums.Verdict;
+import com.antifraude.valores_receber_antifraude_api.core.repository.BlacklistRepository;
+import com.antifraude.valores_receber_antifraude_api.core.repository.ListChangeRepository;
+import com.antifraude.valores_receber_antifraude_api.core.repository.WhitelistRepository;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.CachedVerdict;
+import com.antifraude.valores_receber_antifraude_api.features.check.cache.VerdictCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.antifraude.valores_receber_antifraude_api.lists.service.CompiledListTest.change;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Laço de sincronização pelo log de mudanças, com o list_change simulado
+ * em memória: páginas, buracos de versão, desativação vinda de outro nó e
+ * o evento que derruba o cache de vereditos.
+ */
+class ListsServiceSyncTest {
+
+    // list_change simulado, em ordem de versão
+    private final List<ListChange> log = new ArrayList<>();
+    private final List<Object> events = new ArrayList<>();
+    private ListsService service;
+
+    @BeforeEach
+    void montar() {
+        ListChangeRepository changes = mock(ListChangeRepository.class);
+        when(changes.findByVersionGreaterThanOrderByVersionAsc(anyLong(), any(Limit.class))).thenAnswer(inv -> {
+            long since = inv.getArgument(0);
+            Limit limit = inv.getArgument(1);
+            return log.stream().filter(c -> c.getVersion() > since).limit(limit.max()).toList();
+        });
+        service = new ListsService(mock(WhitelistRepository.class), mock(BlacklistRepository.class), changes,
+                events::add, "");
+    }
+
+    @Test
+    void variasPaginasViramUmaPublicacao() {
+        assertFalse(service.matchBlacklist("http://x.com/", "x.com").hit); // carga inicial
+        CompiledList blacklist = blacklist();
+        int publishes = blacklist.publishes;
+
+        for (int i = 1; i <= 12_003; i++) { // três páginas
+            log.add(change(i, UUID.randomUUID(), ListEntryType.DOMAIN, "golpe" + i + ".com", true));
+        }
+        service.syncChanges();
+
+        assertEquals(publishes + 1, blacklist.publishes);
+        assertEquals(1, events.size());
+        assertEquals(12_003, ((ListChangesAppliedEvent) events.get(0)).getChanges().size());
+        assertEquals(12_003, service.appliedVersion());
+        assertTrue(service.matchBlacklist("http://golpe1.com/", "golpe1.com").hit);
+        assertTrue(service.matchBlacklist("http://golpe12003.com/", "golpe12003.com").hit);
+    }
+
+    @Test
+    void buracoNaVersaoSeguraOAvancoAtePreencher() {
+        UUID a = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        log.add(change(1, a, ListEntryType.DOMAIN, "a-golpe.com", true));
+        log.add(change(3, c, ListEntryType.DOMAIN, "c-golpe.com", true)); // 2 ainda não commitou
+
+        assertTrue(service.matchBlacklist("http://c-golpe.com/", "c-golpe.com").hit, "depois do buraco já vale");
+        assertEquals(1, service.appliedVersion());
+
+        // a transação da versão 2 commita: desativa a
+        log.add(1, change(2, a, ListEntryType.DOMAIN, "a-golpe.com", false));
+        service.syncChanges();
+
+        assertEquals(3, service.appliedVersion());
+        assertFalse(service.matchBlacklist("http://a-golpe.com/", "a-golpe.com").hit);
+        assertTrue(service.matchBlacklist("http://c-golpe.com/", "c-golpe.com").hit);
+    }
+
+    @Test
+    void desativacaoDeOutroNoChegaPeloLog() {
+        UUID id = UUID.randomUUID();
+        log.add(change(1, id, ListEntryType.URL, "https://golpe.net/pix", true));
+        assertTrue(service.matchBlacklist("https://golpe.net/pix", "golpe.net").hit);
+
+        log.add(change(2, id, ListEntryType.URL, "https://golpe.net/pix", false));
+        service.syncChanges();
+
+        assertFalse(service.matchBlacklist("https://golpe.net/pix", "golpe.net").hit);
+        assertEquals(2, service.appliedVersion());
+    }
+
+    @Test
+    void whitelistEBlacklistSeparadas() {
+        log.add(change(1, ListKind.WHITELIST, UUID.randomUUID(), ListEntryType.DOMAIN, "caixa.gov.br", true));
+        log.add(change(2, ListKind.BLACKLIST, UUID.randomUUID(), ListEntryType.DOMAIN, "caixa-gov.online", true));
+
+        assertTrue(service.matchWhitelist("https://caixa.gov.br/", "caixa.gov.br").hit);
+        assertFalse(service.matchBlacklist("https://caixa.gov.br/", "caixa.gov.br").hit);
+        assertTrue(service.matchBlacklist("https://caixa-gov.online/", "caixa-gov.online").hit);
+    }
+
+    @Test
+    void mudancaDeOutroNoDerrubaOCacheDeVereditos() {
+        VerdictCache cache = new VerdictCache(1 << 20, 86_400_000, 3_600_000, 300_000);
+        cache.put(new CachedVerdict(UUID.randomUUID(), "https://golpe.net/pix", "golpe.net", Verdict.SUSPECT, 90));
+        cache.put(new CachedVerdict(UUID.randomUUID(), "https://loja.exemplo.com/", "loja.exemplo.com",
+                Verdict.LEGIT, 0));
+        UUID id = UUID.randomUUID();
+        log.add(change(1, id, ListEntryType.URL, "https://golpe.net/pix", true));
+        assertTrue(service.matchBlacklist("https://golpe.net/pix", "golpe.net").hit);
+
+        // escritas de outro nó: só chegam pelo log
+        log.add(change(2, id, ListEntryType.URL, "https://golpe.net/pix", false));
+        log.add(change(3, UUID.randomUUID(), ListEntryType.DOMAIN, "exemplo.com", true));
+        service.syncChanges();
+        events.forEach(e -> cache.onListChangesApplied((ListChangesAppliedEvent) e));
+
+        assertNull(cache.peek("https://golpe.net/pix"));
+        assertNull(cache.peek("https://loja.exemplo.com/"));
+    }
+
+    private CompiledList blacklist() {
+        return (CompiledList) ReflectionTestUtils.getField(service, "blacklist");
+    }
+}
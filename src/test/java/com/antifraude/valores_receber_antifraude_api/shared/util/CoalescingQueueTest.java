@@ -0,0 +1,124 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingQueueTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    // o mais novo vence
+    private CoalescingQueue<String> queue(int capacity) {
+        return new CoalescingQueue<>(capacity, (older, newer) -> newer, now::get);
+    }
+
+    @Test
+    void mesmaChaveViraUmaEscrita() {
+        CoalescingQueue<String> q = queue(10);
+        now.set(100);
+        assertTrue(q.offer("http://golpe.com/", "UNKNOWN", 0));
+        now.set(200);
+        assertTrue(q.offer("http://golpe.com/", "SUSPECT", 0));
+        assertTrue(q.offer("http://caixa.gov.br/", "LEGIT", 0));
+        assertEquals(2, q.size());
+        assertEquals(1, q.coalescedCount());
+
+        // a chave conta a espera desde a primeira escrita
+        now.set(300);
+        assertEquals(200, q.oldestAgeNanos());
+
+        List<CoalescingQueue.Pending<String>> batch = q.drain(10);
+        assertEquals(2, batch.size());
+        for (CoalescingQueue.Pending<String> p : batch) {
+            if (p.key.equals("http://golpe.com/")) {
+                assertEquals("SUSPECT", p.value);
+                assertEquals(100, p.enqueuedAt);
+            }
+        }
+        assertTrue(q.isEmpty());
+        assertEquals(0, q.oldestAgeNanos());
+    }
+
+    @Test
+    void drenaEmLotes() {
+        CoalescingQueue<String> q = queue(100);
+        for (int i = 0; i < 25; i++) {
+            q.offer("k" + i, "v", 0);
+        }
+        assertEquals(10, q.drain(10).size());
+        assertEquals(10, q.drain(10).size());
+        assertEquals(5, q.drain(10).size());
+        assertTrue(q.drain(10).isEmpty());
+    }
+
+    @Test
+    void filaCheiaRecusaChaveNovaMasAceitaAtualizacao() {
+        CoalescingQueue<String> q = queue(2);
+        assertTrue(q.offer("a", "1", 0));
+        assertTrue(q.offer("b", "1", 0));
+        assertFalse(q.offer("c", "1", TimeUnit.MILLISECONDS.toNanos(5)));
+        assertEquals(1, q.rejectedCount());
+        // chave já pendente não ocupa espaço novo
+        assertTrue(q.offer("a", "2", 0));
+        assertEquals(2, q.size());
+    }
+
+    @Test
+    void drenarAcordaQuemEsperaEspaco() throws Exception {
+        CoalescingQueue<String> q = queue(1);
+        q.offer("a", "1", 0);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiting = pool.submit(() -> q.offer("b", "1", TimeUnit.SECONDS.toNanos(10)));
+            Thread.sleep(50);
+            assertFalse(waiting.isDone());
+            assertEquals(1, q.drain(10).size());
+            assertTrue(waiting.get(5, TimeUnit.SECONDS));
+            assertEquals("1", q.drain(10).get(0).value);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void loteDevolvidoNaoSobrescreveONovo() {
+        CoalescingQueue<String> q = queue(10);
+        now.set(10);
+        q.offer("a", "velho", 0);
+        q.offer("b", "velho", 0);
+        List<CoalescingQueue.Pending<String>> failed = q.drain(10);
+
+        // enquanto o lote falhava, chegou um valor novo para "a"
+        now.set(20);
+        q.offer("a", "novo", 0);
+        q.restore(failed);
+
+        now.set(30);
+        assertEquals(2, q.size());
+        assertEquals(20, q.oldestAgeNanos());
+        for (CoalescingQueue.Pending<String> p : q.drain(10)) {
+            assertEquals(p.key.equals("a") ? "novo" : "velho", p.value);
+            assertEquals(10, p.enqueuedAt);
+        }
+    }
+
+    @Test
+    void procuraEntreOsPendentes() {
+        CoalescingQueue<String> q = queue(10);
+        q.offer("http://golpe.com/", "SUSPECT", 0);
+        q.offer("http://caixa.gov.br/", "LEGIT", 0);
+
+        assertEquals("LEGIT", q.find(v -> v.startsWith("L")));
+        assertNull(q.find(v -> v.equals("UNKNOWN")));
+        q.drain(10);
+        assertNull(q.find(v -> v.equals("LEGIT")));
+    }
+}
@@ -0,0 +1,23 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintTest {
+
+    /**
+     * O valor fica gravado em url_hash/value_hash: se este teste quebrar,
+     * todas as linhas existentes deixam de ser encontradas.
+     */
+    @Test
+    void valorDeveSerEstavel() {
+        assertEquals(-2268710917892252106L, Fingerprint.of("https://www.caixa.gov.br"));
+        assertEquals(-7804717418931056420L, Fingerprint.of(""));
+    }
+
+    @Test
+    void deveDiferenciarMaiusculasNoCaminho() {
+        assertNotEquals(Fingerprint.of("https://golpe.com/A"), Fingerprint.of("https://golpe.com/a"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void faixasCobremTodosOsValores() {
+        long[] samples = {0, 1, 15, 16, 17, 31, 32, 33, 1_000, 123_456_789L, Long.MAX_VALUE};
+        for (long v : samples) {
+            int b = LatencyHistogram.bucketOf(v);
+            assertTrue(LatencyHistogram.upperBoundOf(b) >= v, "faixa de " + v);
+            if (b > 0) {
+                assertTrue(LatencyHistogram.upperBoundOf(b - 1) < v, "faixa anterior de " + v);
+            }
+        }
+    }
+
+    @Test
+    void percentisDentroDoErroDaFaixa() {
+        LatencyHistogram h = new LatencyHistogram();
+        Random rnd = new Random(21);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // cauda longa: maioria rápida, alguns muito lentos
+            values[i] = (long) (1_000 * Math.exp(rnd.nextGaussian() * 1.5));
+            h.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(q * values.length) - 1];
+            long approx = h.percentile(q);
+            assertTrue(approx >= exact && approx <= exact * 1.07, "p" + q + ": " + approx + " vs " + exact);
+        }
+        assertEquals(values.length, h.count());
+        assertTrue(h.max() >= values[values.length - 1]);
+    }
+
+    @Test
+    void vazioDevolveZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(0.99));
+        assertEquals(0, h.max());
+        assertEquals(0, h.mean());
+    }
+}
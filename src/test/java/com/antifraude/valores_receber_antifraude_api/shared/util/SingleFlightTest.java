@@ -0,0 +1,120 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void chamadasSimultaneasExecutamUmaVez() throws Exception {
+        SingleFlight<StringBuilder> flight = new SingleFlight<>(16, sb -> new StringBuilder(sb));
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            Future<StringBuilder> leader = pool.submit(() -> flight.execute("http://golpe.com/", () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                await(release);
+                return new StringBuilder("SUSPECT");
+            }));
+            started.await();
+
+            List<Future<StringBuilder>> waiters = new ArrayList<>();
+            for (int i = 0; i < 31; i++) {
+                waiters.add(pool.submit(() -> flight.execute("http://golpe.com/", () -> {
+                    runs.incrementAndGet();
+                    return new StringBuilder("outro");
+                })));
+            }
+            while (flight.sharedCount() < 31) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            StringBuilder original = leader.get(5, TimeUnit.SECONDS);
+            for (Future<StringBuilder> w : waiters) {
+                StringBuilder copy = w.get(5, TimeUnit.SECONDS);
+                assertEquals("SUSPECT", copy.toString());
+                assertNotSame(original, copy);
+            }
+            assertEquals(1, runs.get());
+            assertEquals(0, flight.inFlight());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // terminada a chamada, a próxima executa de novo
+        assertEquals("de novo", flight.execute("http://golpe.com/", () -> new StringBuilder("de novo")).toString());
+    }
+
+    @Test
+    void chavesDiferentesNaoEsperamUmaAOutra() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>(16, s -> s);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> slow = pool.submit(() -> flight.execute("http://a.com/", () -> {
+                await(release);
+                return "a";
+            }));
+            while (flight.inFlight() == 0) {
+                Thread.onSpinWait();
+            }
+            assertEquals("b", flight.execute("http://b.com/", () -> "b"));
+            release.countDown();
+            assertEquals("a", slow.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void excecaoChegaATodos() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>(4, s -> s);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute("k", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("IA fora do ar");
+            }));
+            started.await();
+            Future<String> waiter = pool.submit(() -> flight.execute("k", () -> "não roda"));
+            while (flight.sharedCount() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<String> f : List.of(leader, waiter)) {
+                Exception e = assertThrows(Exception.class, () -> f.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+            assertEquals(0, flight.inFlight());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
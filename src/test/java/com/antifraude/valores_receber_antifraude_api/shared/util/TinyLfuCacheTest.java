@@ -0,0 +1,184 @@
+package com.antifraude.valores_receber_antifraude_api.shared.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    // valor = prazo de validade em nanos; cada entrada pesa 10
+    private TinyLfuCache<Long> cache(long maximumWeight) {
+        return new TinyLfuCache<>(maximumWeight, (int) (maximumWeight / 10), v -> 10, v -> v, now::get);
+    }
+
+    @Test
+    void contaAcertosFaltasEInvalidacoes() {
+        TinyLfuCache<Long> cache = cache(1_000);
+        assertNull(cache.get("a"));
+        cache.put("a", 100L);
+        assertEquals(100L, cache.get("a"));
+        // peek não conta
+        assertEquals(100L, cache.peek("a"));
+        assertNull(cache.peek("b"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        cache.invalidate("a");
+        assertNull(cache.peek("a"));
+        assertEquals(1, cache.invalidationCount());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weightedSize());
+    }
+
+    @Test
+    void cadaEntradaVenceNoSeuPrazo() {
+        TinyLfuCache<Long> cache = cache(1_000);
+        cache.put("longo", 1_000L);
+        cache.put("curto", 10L);
+        cache.put("nunca", 0L);
+        assertNull(cache.peek("nunca"));
+
+        now.set(10);
+        assertNull(cache.get("curto"));
+        assertEquals(1_000L, cache.get("longo"));
+        assertEquals(1, cache.expirationCount());
+
+        // regravar renova o prazo
+        now.set(500);
+        cache.put("longo", 1_000L);
+        now.set(1_200);
+        assertEquals(1_000L, cache.get("longo"));
+
+        now.set(2_000);
+        cache.cleanUp();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weightedSize());
+    }
+
+    @Test
+    void respeitaOPesoMaximo() {
+        TinyLfuCache<String> cache = new TinyLfuCache<>(1_000, 64, String::length, v -> Long.MAX_VALUE / 2, now::get);
+        Random rnd = new Random(16);
+        for (int i = 0; i < 5_000; i++) {
+            cache.put("k" + rnd.nextInt(500), "x".repeat(1 + rnd.nextInt(60)));
+            assertTrue(cache.weightedSize() <= 1_000, "peso " + cache.weightedSize());
+        }
+        assertTrue(cache.evictionCount() > 0);
+
+        // maior que o cache inteiro: não entra e não deixa o valor antigo
+        cache.put("grande", "x");
+        cache.put("grande", "x".repeat(1_001));
+        assertNull(cache.peek("grande"));
+    }
+
+    @Test
+    void varreduraNaoExpulsaChavesQuentes() {
+        TinyLfuCache<Long> cache = cache(1_000); // 100 entradas
+        for (int i = 0; i < 50; i++) {
+            cache.put("quente" + i, Long.MAX_VALUE / 2);
+        }
+        // milhares de URLs vistas uma única vez; cada quente volta a cada
+        // 500 escritas, o que num LRU de 100 entradas já seria tarde
+        for (int i = 0; i < 25_000; i++) {
+            cache.put("fria" + i, Long.MAX_VALUE / 2);
+            if (i % 10 == 0) {
+                String hot = "quente" + (i / 10) % 50;
+                if (cache.get(hot) == null) {
+                    cache.put(hot, Long.MAX_VALUE / 2);
+                }
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.peek("quente" + i) != null) {
+                kept++;
+            }
+        }
+        assertEquals(50, kept);
+        assertTrue(cache.hitCount() > 2_300, "acertos " + cache.hitCount());
+    }
+
+    @Test
+    void invalidaPorPredicado() {
+        TinyLfuCache<Long> cache = cache(1_000);
+        cache.put("http://a.golpe.com/x", 100L);
+        cache.put("http://golpe.com/", 100L);
+        cache.put("http://caixa.gov.br/", 100L);
+        assertEquals(2, cache.invalidateIf((k, v) -> k.contains("golpe.com")));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.peek("http://caixa.gov.br/"));
+    }
+
+    /**
+     * Taxa de acerto e custo por leitura contra um LRU do mesmo tamanho,
+     * com acessos Zipf misturados a varreduras. Opcional:
+     * {@code mvn test -Dtest=TinyLfuCacheTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() {
+        int keys = 200_000;
+        int capacity = 5_000;
+        String[] names = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            names[i] = "https://dominio" + i + ".com.br/valores";
+        }
+        // Zipf (s = 1) por inversão da CDF
+        double[] cdf = new double[keys];
+        double sum = 0;
+        for (int i = 0; i < keys; i++) {
+            sum += 1.0 / (i + 1);
+            cdf[i] = sum;
+        }
+        Random rnd = new Random(16);
+        int[] trace = new int[2_000_000];
+        for (int i = 0; i < trace.length; i++) {
+            if (i % 10 < 2) {
+                trace[i] = rnd.nextInt(keys); // ruído uniforme (varredura)
+            } else {
+                int k = Arrays.binarySearch(cdf, rnd.nextDouble() * sum);
+                trace[i] = k < 0 ? -k - 1 : k;
+            }
+        }
+
+        for (int round = 0; round < 3; round++) {
+            TinyLfuCache<String> tiny = new TinyLfuCache<>(capacity, capacity, v -> 1, v -> Long.MAX_VALUE / 2);
+            Map<String, String> lru = new LinkedHashMap<>(capacity, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > capacity;
+                }
+            };
+            long lruHits = 0;
+            long start = System.nanoTime();
+            for (int k : trace) {
+                String key = names[k];
+                if (tiny.get(key) == null) {
+                    tiny.put(key, key);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            for (int k : trace) {
+                String key = names[k];
+                if (lru.get(key) != null) {
+                    lruHits++;
+                } else {
+                    lru.put(key, key);
+                }
+            }
+            System.out.printf("round %d: W-TinyLFU %.1f%% acertos (%.0f ns/op), LRU %.1f%%%n", round,
+                    100.0 * tiny.hitCount() / trace.length, (double) elapsed / trace.length,
+                    100.0 * lruHits / trace.length);
+            assertTrue(tiny.hitCount() >= lruHits);
+        }
+    }
+}